@@ -0,0 +1,107 @@
+package mathexprevaluator.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprBatch;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*******************************************************************************
+ * Benchmark comparing the evaluation of the parsed tree row by row with the
+ * batch evaluation, for all the shapes and sizes. The time is reported per
+ * row.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MathExprBatchBenchmark {
+    
+    private static final int ROWS = 1024;
+    
+    @Param({"FLAT_SUM", "DEEP_NESTING", "POW_TOWER", "MIXED"})
+    public MathExprBenchShape shape;
+    
+    @Param({"10", "100", "1000"})
+    public int size;
+    
+    private MathExpr parsed;
+    private MathExprBatch batch;
+    private double[][] columns;
+    private double[] row;
+    private double[] out;
+    
+    /***************************************************************************
+     * Parses the expression, prepares the variable values.
+     * 
+     * @throws InvalidMathExprException never thrown
+     */
+    @Setup
+    public void setUp() throws InvalidMathExprException {
+        String[] names = MathExprBenchShape.VAR_NAMES;
+        Random random = new Random(42);
+        
+        this.parsed = new MathExpr(this.shape.build(this.size),
+                new MathVarTable(names));
+        this.batch = new MathExprBatch(this.parsed);
+        
+        this.columns = new double[names.length][ROWS];
+        for (double[] column: this.columns) {
+            for (int i = 0; i < ROWS; i++) {
+                column[i] = 1 + random.nextDouble();
+            }
+        }
+        this.row = new double[names.length];
+        this.out = new double[ROWS];
+    }
+    
+    /***************************************************************************
+     * Evaluates the parsed tree once per row.
+     * 
+     * @return calculated values
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double[] evalRows() {
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < this.row.length; j++) {
+                this.row[j] = this.columns[j][i];
+            }
+            this.out[i] = this.parsed.eval(this.row);
+        }
+        
+        return this.out;
+    }
+    
+    /***************************************************************************
+     * Evaluates the parsed tree for all the rows at once.
+     * 
+     * @return calculated values
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public double[] evalBatch() {
+        this.batch.eval(this.columns, this.out);
+        
+        return this.out;
+    }
+    
+}
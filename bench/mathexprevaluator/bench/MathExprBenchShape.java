@@ -0,0 +1,104 @@
+package mathexprevaluator.bench;
+
+/*******************************************************************************
+ * Representative shapes of expressions used by the benchmarks. All of them
+ * use the variables {@link #VAR_NAMES} and are finite for the values between
+ * 1 and 2.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public enum MathExprBenchShape {
+    
+    /** Long flat sum, e.g. x + 1.5 + y + 2.5 + z + ... */
+    FLAT_SUM {
+        
+        @Override
+        void append(StringBuilder expr, int size) {
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    expr.append(" + ");
+                }
+                expr.append((i % 2 == 0) ? VAR_NAMES[i / 2 % 3] : i + ".5");
+            }
+        }
+        
+    },
+    
+    /** Deeply nested brackets, e.g. ((((x + 1) * 2) - 3) / 4) */
+    DEEP_NESTING {
+        
+        @Override
+        void append(StringBuilder expr, int size) {
+            String[] opers = {" + ", " * ", " - ", " / "};
+            
+            for (int i = 0; i < size; i++) {
+                expr.append('(');
+            }
+            expr.append('x');
+            for (int i = 0; i < size; i++) {
+                expr.append(opers[i % opers.length]).append(i % 7 + 1)
+                        .append(')');
+            }
+        }
+        
+    },
+    
+    /** Power tower, grouped to the left, e.g. x ^ 1.001 ^ 1.001 ^ ... */
+    POW_TOWER {
+        
+        @Override
+        void append(StringBuilder expr, int size) {
+            expr.append('x');
+            for (int i = 1; i < size; i++) {
+                expr.append(" ^ 1.001");
+            }
+        }
+        
+    },
+    
+    /** Sum of realistic formulas mixing all the operations. */
+    MIXED {
+        
+        @Override
+        void append(StringBuilder expr, int size) {
+            String formula = "(x * 2.5 - y / 3) ^ 2 + z * (x - 1.25) / (y + 4)";
+            // Each formula consists of 15 operands and operations.
+            int count = Math.max(1, size / 15);
+            
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    expr.append(" - ");
+                }
+                expr.append(formula);
+            }
+        }
+        
+    };
+    
+    /** Names of the variables the expressions may contain. */
+    public static final String[] VAR_NAMES = {"x", "y", "z"};
+    
+    /***************************************************************************
+     * Builds the expression of the shape.
+     * 
+     * @param size approximate number of operands and operations
+     * 
+     * @return expression text
+     */
+    public String build(int size) {
+        StringBuilder expr = new StringBuilder();
+        this.append(expr, size);
+        
+        return expr.toString();
+    }
+    
+    /***************************************************************************
+     * Appends the expression of the shape.
+     * 
+     * @param expr builder to append to
+     * @param size approximate number of operands and operations
+     */
+    abstract void append(StringBuilder expr, int size);
+    
+}
@@ -0,0 +1,78 @@
+package mathexprevaluator.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import mathexprevaluator.models.MathEvalEngine;
+import mathexprevaluator.models.MathExprCache;
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*******************************************************************************
+ * Benchmark of evaluating the expressions of all the shapes and sizes by each
+ * of the evaluation engines.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MathExprEvalBenchmark {
+    
+    @Param({"FLAT_SUM", "DEEP_NESTING", "POW_TOWER", "MIXED"})
+    public MathExprBenchShape shape;
+    
+    @Param({"10", "100", "1000"})
+    public int size;
+    
+    @Param({"TREE", "STACK_MACHINE", "BYTECODE"})
+    public MathEvalEngine engine;
+    
+    private IMathExpr compiled;
+    private double[] vars;
+    
+    /***************************************************************************
+     * Parses and compiles the expression, prepares the variable values.
+     * 
+     * @throws InvalidMathExprException never thrown
+     */
+    @Setup
+    public void setUp() throws InvalidMathExprException {
+        String expr = this.shape.build(this.size);
+        String[] names = MathExprBenchShape.VAR_NAMES;
+        Random random = new Random(42);
+        
+        // Optimized, shared and compiled the way the model does it.
+        this.compiled = new MathExprCache().get(expr, names, this.engine);
+        
+        this.vars = new double[names.length];
+        for (int i = 0; i < names.length; i++) {
+            this.vars[i] = 1 + random.nextDouble();
+        }
+    }
+    
+    /***************************************************************************
+     * Evaluates the expression optimized and compiled for the engine.
+     * 
+     * @return calculated value
+     */
+    @Benchmark
+    public double eval() {
+        return this.compiled.eval(this.vars);
+    }
+    
+}
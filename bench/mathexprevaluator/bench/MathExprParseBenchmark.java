@@ -0,0 +1,61 @@
+package mathexprevaluator.bench;
+
+import java.util.concurrent.TimeUnit;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*******************************************************************************
+ * Benchmark of parsing the expressions of all the shapes and sizes.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MathExprParseBenchmark {
+    
+    @Param({"FLAT_SUM", "DEEP_NESTING", "POW_TOWER", "MIXED"})
+    public MathExprBenchShape shape;
+    
+    @Param({"10", "100", "1000"})
+    public int size;
+    
+    private String expr;
+    
+    /***************************************************************************
+     * Builds the expression to parse.
+     */
+    @Setup
+    public void setUp() {
+        this.expr = this.shape.build(this.size);
+    }
+    
+    /***************************************************************************
+     * Parses the expression.
+     * 
+     * @return parsed expression
+     * @throws InvalidMathExprException never thrown
+     */
+    @Benchmark
+    public MathExpr parse() throws InvalidMathExprException {
+        return new MathExpr(this.expr,
+                new MathVarTable(MathExprBenchShape.VAR_NAMES));
+    }
+    
+}
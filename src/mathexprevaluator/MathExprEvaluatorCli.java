@@ -0,0 +1,295 @@
+package mathexprevaluator;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+
+/*******************************************************************************
+ * Headless entry-point of the <b>Math expression evaluator</b> project. It
+ * evaluates one expression per line and writes one result per line, so no
+ * JavaFX class is ever loaded.
+ *
+ * <p>Usage: <code>java -cp MathExprEvaluator.jar
+ * mathexprevaluator.MathExprEvaluatorCli [-o output] [file ...]</code>
+ *
+ * <p>The expressions are read from the files given, or from the standard
+ * input if there is none or the file name is <code>-</code>. Files are
+ * memory-mapped and the lines are parsed in place, directly from the mapped
+ * bytes, without decoding them into strings. The input is expected to be
+ * ASCII, as no other character may occur in a valid expression anyway. An
+ * invalid expression results in a line <code>error: message</code>, so the
+ * output lines always correspond to the input ones. The output is written in
+ * UTF-8, so a message quoting any other character keeps it intact. The exit
+ * status is 0 if all the expressions are valid, 1 if any is not and 2 in case
+ * of an I/O error.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprEvaluatorCli {
+
+    private static final String STDIN_NAME = "-";
+    private static final String OUTPUT_OPTION = "-o";
+    private static final String ERROR_PREFIX = "error: ";
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final int INPUT_BUFFER_SIZE = 1 << 16;
+    private static final long MAX_MAPPED_SIZE = 1 << 30;
+
+    private final Writer out;
+    private final StringBuilder line;
+    private long invalidCount;
+
+    /***************************************************************************
+     * Program entry-point.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        String outputName = null;
+        int firstInput = 0;
+
+        if (args.length >= 2 && args[0].equals(OUTPUT_OPTION)) {
+            outputName = args[1];
+            firstInput = 2;
+        }
+
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                (outputName == null) ? System.out
+                        : new FileOutputStream(outputName),
+                StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE)) {
+            MathExprEvaluatorCli cli = new MathExprEvaluatorCli(out);
+
+            if (firstInput == args.length) {
+                cli.processStream(Channels.newChannel(System.in));
+            }
+            for (int i = firstInput; i < args.length; i++) {
+                if (args[i].equals(STDIN_NAME)) {
+                    cli.processStream(Channels.newChannel(System.in));
+                } else {
+                    cli.processFile(args[i]);
+                }
+            }
+
+            out.flush();
+            System.exit((cli.getInvalidCount() == 0) ? 0 : 1);
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            System.exit(2);
+        }
+    }
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param out writer to write the results to
+     */
+    public MathExprEvaluatorCli(Writer out) {
+        this.out = out;
+        this.line = new StringBuilder(64);
+        this.invalidCount = 0;
+    }
+
+    /***************************************************************************
+     * Evaluates all the lines of the file, mapping it into memory piece by
+     * piece.
+     *
+     * @param fileName name of the file to read
+     * @throws IOException thrown in case of an I/O error
+     */
+    public void processFile(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+
+            while (position < size) {
+                long mappedSize = Math.min(MAX_MAPPED_SIZE, size - position);
+                boolean isLast = (position + mappedSize == size);
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                        position, mappedSize);
+
+                int consumed = this.processLines(buffer, isLast);
+                if (consumed == 0 && !isLast) {
+                    throw new IOException("Line too long in " + fileName);
+                }
+
+                position += consumed;
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Evaluates all the lines read from the channel.
+     *
+     * @param channel channel to read from
+     * @throws IOException thrown in case of an I/O error
+     */
+    public void processStream(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+        boolean isEnd = false;
+
+        while (!isEnd) {
+            isEnd = (channel.read(buffer) < 0);
+            buffer.flip();
+
+            int consumed = this.processLines(buffer, isEnd);
+
+            buffer.position(consumed);
+            buffer.compact();
+            if (!buffer.hasRemaining()) { // A single line fills the buffer.
+                buffer.flip();
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2)
+                        .put(buffer);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of invalid expressions processed so far
+     */
+    public long getInvalidCount() {
+        return this.invalidCount;
+    }
+
+    /***************************************************************************
+     * Evaluates the complete lines of the buffer, from its position to its
+     * limit.
+     *
+     * @param buffer buffer containing the lines
+     * @param isLast whether the buffer ends the input, so its last line is
+     * complete even without a line terminator
+     * @return number of bytes consumed, the rest is an incomplete line
+     * @throws IOException thrown in case of an I/O error
+     */
+    private int processLines(ByteBuffer buffer, boolean isLast)
+            throws IOException {
+        ByteCharSequence chars = new ByteCharSequence(buffer);
+        int start = buffer.position();
+        int limit = buffer.limit();
+
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                this.processLine(chars, start, i);
+                start = i + 1;
+            }
+        }
+
+        if (isLast && start < limit) {
+            this.processLine(chars, start, limit);
+            start = limit;
+        }
+
+        return start - buffer.position();
+    }
+
+    /***************************************************************************
+     * Evaluates a single line and writes the result. A blank line is an
+     * empty expression, whose value is 0. The positions reported by the
+     * errors are relative to the start of the line.
+     *
+     * @param chars characters of the buffer
+     * @param start index of the first character of the line
+     * @param end index of the line terminator
+     * @throws IOException thrown in case of an I/O error
+     */
+    private void processLine(ByteCharSequence chars, int start, int end)
+            throws IOException {
+        // The trailing whitespace includes the carriage return, if any.
+        while (end > start && Character.isWhitespace(chars.charAt(end - 1))) {
+            end--;
+        }
+
+        this.line.setLength(0);
+        try {
+            this.line.append(new MathExpr(chars.subSequence(start, end))
+                    .eval());
+        } catch (InvalidMathExprException ex) {
+            this.invalidCount++;
+            this.line.append(ERROR_PREFIX).append(ex.getMessage());
+        }
+        this.line.append('\n');
+
+        this.out.append(this.line);
+    }
+
+    /***************************************************************************
+     * Character sequence viewing the bytes of a buffer as ISO-8859-1
+     * characters, without decoding or copying them.
+     */
+    private static class ByteCharSequence implements CharSequence {
+
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        /***********************************************************************
+         * Default constructor. Indices of the sequence are the absolute
+         * indices of the buffer.
+         *
+         * @param buffer buffer to view
+         */
+        public ByteCharSequence(ByteBuffer buffer) {
+            this(buffer, 0, buffer.limit());
+        }
+
+        /***********************************************************************
+         * Constructor viewing only a part of the buffer.
+         *
+         * @param buffer buffer to view
+         * @param offset index of the first byte
+         * @param length number of bytes
+         */
+        private ByteCharSequence(ByteBuffer buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**********************************************************************/
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        /**********************************************************************/
+        @Override
+        public char charAt(int index) {
+            return (char) (this.buffer.get(this.offset + index) & 0xFF);
+        }
+
+        /**********************************************************************/
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new ByteCharSequence(this.buffer, this.offset + start,
+                    end - start);
+        }
+
+        /**********************************************************************/
+        @Override
+        public String toString() {
+            char[] chars = new char[this.length];
+
+            for (int i = 0; i < this.length; i++) {
+                chars[i] = this.charAt(i);
+            }
+
+            return new String(chars);
+        }
+
+    }
+
+}
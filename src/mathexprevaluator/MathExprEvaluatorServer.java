@@ -0,0 +1,504 @@
+package mathexprevaluator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import mathexprevaluator.models.MEEModel;
+import mathexprevaluator.models.MathEvalEngine;
+import mathexprevaluator.models.MathExprCache;
+import mathexprevaluator.models.MathExprMetrics;
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+
+/*******************************************************************************
+ * Local HTTP evaluation service of the <b>Math expression evaluator</b>
+ * project, built on the HTTP server of the JDK. All the requests share the
+ * cache of parsed expressions of a single model. Each request is handled by
+ * a virtual thread of its own if the JVM supports them, by a pooled thread
+ * otherwise.
+ *
+ * <p>Usage: <code>java -cp MathExprEvaluator.jar
+ * mathexprevaluator.MathExprEvaluatorServer [port]</code>
+ *
+ * <p>The requests and the responses are plain text, one item per line:
+ *
+ * <ul>
+ * <li><code>POST /eval</code> - the body contains expressions, the response
+ * contains their values, or <code>error: message</code> for the invalid
+ * ones,</li>
+ * <li><code>POST /eval/bindings</code> - the first line of the body contains
+ * an expression, the second one the names of its variables and each of the
+ * following lines the values of the variables, separated by commas or
+ * whitespace; the response contains the value for each line of values,</li>
+ * <li><code>GET /stats</code> - counters of the requests, their latencies and
+ * the cache.</li>
+ * </ul>
+ *
+ * <p>The body of a request may take at most {@link #MAX_BODY_SIZE} bytes, a
+ * larger one is refused with the status 413.
+ *
+ * <p>The evaluation engine may be chosen by the query parameter
+ * <code>engine</code>, e.g. <code>/eval?engine=BYTECODE</code>. Each response
+ * carries its own processing time in microseconds in the
+ * <code>X-Latency-Micros</code> header.
+ *
+ * <p>When started from the command line, the metrics of the model (see
+ * {@link MathExprMetrics}) are recorded and exposed through JMX under the
+ * name <code>mathexprevaluator:type=MathExprMetrics,name="server"</code>.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprEvaluatorServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final int MAX_BODY_SIZE = 1 << 20;
+
+    private static final String ERROR_PREFIX = "error: ";
+    private static final String LATENCY_HEADER = "X-Latency-Micros";
+    private static final String ENGINE_PARAM = "engine=";
+    private static final String VALUE_SEPARATORS = "[,\\s]+";
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_BAD_METHOD = 405;
+    private static final int HTTP_TOO_LARGE = 413;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+
+    private final MEEModel model;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private final LongAdder requestCount;
+    private final LongAdder errorCount;
+    private final LongAdder exprCount;
+    private final LongAdder latencyMicrosSum;
+    private final LongAccumulator latencyMicrosMax;
+
+    /***************************************************************************
+     * Program entry-point.
+     *
+     * @param args the command line arguments
+     * @throws IOException thrown if the server can not be started
+     * @throws JMException thrown if the metrics can not be registered
+     */
+    public static void main(String[] args) throws IOException, JMException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0])
+                : DEFAULT_PORT;
+        MEEModel model = new MEEModel();
+        MathExprMetrics metrics = new MathExprMetrics(model);
+        MathExprEvaluatorServer server = new MathExprEvaluatorServer(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                model);
+
+        metrics.setEnabled(true);
+        metrics.register("server");
+
+        server.start();
+        System.out.println("Listening on " + server.getAddress());
+    }
+
+    /***************************************************************************
+     * Default constructor. The server is not started yet.
+     *
+     * @param address address to listen on, port 0 chooses a free port
+     * @param model model whose cache of expressions is shared by all the
+     * requests
+     * @throws IOException thrown if the address can not be bound
+     */
+    public MathExprEvaluatorServer(InetSocketAddress address, MEEModel model)
+            throws IOException {
+        this.model = model;
+        this.server = HttpServer.create(address, 0);
+        this.executor = newRequestExecutor();
+
+        this.requestCount = new LongAdder();
+        this.errorCount = new LongAdder();
+        this.exprCount = new LongAdder();
+        this.latencyMicrosSum = new LongAdder();
+        this.latencyMicrosMax = new LongAccumulator(Math::max, 0);
+
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/eval", new TimedHandler(this::handleEval));
+        this.server.createContext("/eval/bindings",
+                new TimedHandler(this::handleBindings));
+        this.server.createContext("/stats",
+                new TimedHandler(this::handleStats));
+    }
+
+    /***************************************************************************
+     * Starts accepting the requests.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /***************************************************************************
+     * Stops the server, waiting for the requests being handled.
+     *
+     * @param delaySeconds maximum time to wait for the requests
+     */
+    public void stop(int delaySeconds) {
+        this.server.stop(delaySeconds);
+        this.executor.shutdown();
+        try {
+            this.executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return address the server listens on
+     */
+    public InetSocketAddress getAddress() {
+        return this.server.getAddress();
+    }
+
+    /***************************************************************************
+     * Evaluates the expressions, one per line.
+     *
+     * @param exchange HTTP exchange
+     * @param response buffer to write the response to
+     * @return HTTP status code
+     * @throws IOException thrown in case of an I/O error
+     */
+    private int handleEval(HttpExchange exchange, StringBuilder response)
+            throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return HTTP_BAD_METHOD;
+        }
+
+        MathEvalEngine engine = getEngine(exchange);
+        String[] lines = readLines(exchange);
+
+        for (String line: lines) {
+            try {
+                response.append(this.model.evalExpr(line, engine));
+            } catch (InvalidMathExprException ex) {
+                response.append(ERROR_PREFIX).append(ex.getMessage());
+            }
+            response.append('\n');
+        }
+
+        this.exprCount.add(lines.length);
+
+        return HTTP_OK;
+    }
+
+    /***************************************************************************
+     * Evaluates a single expression for each line of variable values.
+     *
+     * @param exchange HTTP exchange
+     * @param response buffer to write the response to
+     * @return HTTP status code
+     * @throws IOException thrown in case of an I/O error
+     */
+    private int handleBindings(HttpExchange exchange, StringBuilder response)
+            throws IOException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            return HTTP_BAD_METHOD;
+        }
+
+        MathEvalEngine engine = getEngine(exchange);
+        String[] lines = readLines(exchange);
+        if (lines.length < 2) {
+            response.append(ERROR_PREFIX)
+                    .append("Expression and variable names expected\n");
+            return HTTP_BAD_REQUEST;
+        }
+
+        String names = lines[1].trim();
+        String[] varNames = names.isEmpty() ? new String[0]
+                : names.split(VALUE_SEPARATORS);
+        MathExprCache cache = this.model.getExprCache();
+        IMathExpr expr;
+
+        try {
+            expr = cache.get(lines[0], varNames, engine);
+        } catch (InvalidMathExprException | IllegalArgumentException ex) {
+            response.append(ERROR_PREFIX).append(ex.getMessage())
+                    .append('\n');
+            return HTTP_BAD_REQUEST;
+        }
+
+        // A parsed expression is evaluated within a single frame, holding the
+        // values of its shared subexpressions after the variables.
+        MathExpr parsed = (expr instanceof MathExpr) ? (MathExpr) expr : null;
+        int varCount = varNames.length;
+        double[] frame = new double[(parsed == null) ? varCount
+                : Math.max(varCount, parsed.getFrameSize())];
+
+        for (int i = 2; i < lines.length; i++) {
+            String row = lines[i].trim();
+            String[] values = row.isEmpty() ? new String[0]
+                    : row.split(VALUE_SEPARATORS);
+
+            if (values.length != varCount) {
+                response.append(ERROR_PREFIX).append(varCount)
+                        .append(" values expected\n");
+                continue;
+            }
+
+            try {
+                for (int j = 0; j < varCount; j++) {
+                    frame[j] = Double.parseDouble(values[j]);
+                }
+                response.append((parsed == null) ? expr.eval(frame)
+                        : parsed.evalInFrame(frame)).append('\n');
+            } catch (NumberFormatException ex) {
+                response.append(ERROR_PREFIX).append(ex.getMessage())
+                        .append('\n');
+            }
+        }
+
+        this.exprCount.add(lines.length - 2);
+
+        return HTTP_OK;
+    }
+
+    /***************************************************************************
+     * Reports the counters of the requests and of the cache.
+     *
+     * @param exchange HTTP exchange
+     * @param response buffer to write the response to
+     * @return HTTP status code
+     */
+    private int handleStats(HttpExchange exchange, StringBuilder response) {
+        MathExprCache cache = this.model.getExprCache();
+        long requests = this.requestCount.sum();
+
+        response.append("requests=").append(requests).append('\n')
+                .append("errors=").append(this.errorCount.sum()).append('\n')
+                .append("expressions=").append(this.exprCount.sum())
+                .append('\n')
+                .append("latencyMicrosMean=")
+                .append((requests == 0) ? 0
+                        : this.latencyMicrosSum.sum() / requests)
+                .append('\n')
+                .append("latencyMicrosMax=")
+                .append(this.latencyMicrosMax.get()).append('\n')
+                .append("cacheSize=").append(cache.getSize()).append('\n')
+                .append("cacheHits=").append(cache.getHitCount()).append('\n')
+                .append("cacheMisses=").append(cache.getMissCount())
+                .append('\n');
+
+        return HTTP_OK;
+    }
+
+    /***************************************************************************
+     * Retrieves the evaluation engine requested by the query.
+     *
+     * @param exchange HTTP exchange
+     * @return requested engine, the tree one by default
+     */
+    private static MathEvalEngine getEngine(HttpExchange exchange) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return MathEvalEngine.TREE;
+        }
+
+        for (String param: query.split("&")) {
+            if (param.startsWith(ENGINE_PARAM)) {
+                try {
+                    return MathEvalEngine.valueOf(URLDecoder.decode(
+                            param.substring(ENGINE_PARAM.length()), "UTF-8"));
+                } catch (IllegalArgumentException
+                        | UnsupportedEncodingException ex) {
+                    throw new IllegalArgumentException("Unknown engine: "
+                            + param.substring(ENGINE_PARAM.length()));
+                }
+            }
+        }
+
+        return MathEvalEngine.TREE;
+    }
+
+    /***************************************************************************
+     * Reads the lines of the request body. A trailing line break does not
+     * start another line.
+     *
+     * @param exchange HTTP exchange
+     * @return lines of the body
+     * @throws BodyTooLargeException thrown if the body exceeds
+     * {@link #MAX_BODY_SIZE} bytes
+     * @throws IOException thrown in case of an I/O error
+     */
+    private static String[] readLines(HttpExchange exchange)
+            throws IOException {
+        String length = exchange.getRequestHeaders().getFirst(
+                "Content-Length");
+        if (length != null && length.length() > 0
+                && Long.parseLong(length.trim()) > MAX_BODY_SIZE) {
+            throw new BodyTooLargeException();
+        }
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        // The length may be missing, e.g. in case of the chunked encoding.
+        try (InputStream in = exchange.getRequestBody()) {
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                if (body.size() + count > MAX_BODY_SIZE) {
+                    throw new BodyTooLargeException();
+                }
+                body.write(buffer, 0, count);
+            }
+        }
+
+        String text = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        if (text.isEmpty()) {
+            return new String[0];
+        }
+
+        return text.split("\r?\n");
+    }
+
+    /***************************************************************************
+     * Creates the executor running each request in a virtual thread of its
+     * own, if the JVM supports virtual threads.
+     *
+     * @return executor of the requests
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            // Looked up reflectively, the project still targets Java 8.
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /***************************************************************************
+     * Exception thrown if the request body exceeds {@link #MAX_BODY_SIZE}
+     * bytes.
+     */
+    private static class BodyTooLargeException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        /***********************************************************************
+         * Default constructor.
+         */
+        public BodyTooLargeException() {
+            super("Request body exceeds " + MAX_BODY_SIZE + " bytes");
+        }
+
+    }
+
+    /***************************************************************************
+     * Handler of a single kind of request.
+     */
+    @FunctionalInterface
+    private interface RequestHandler {
+
+        /***********************************************************************
+         * Handles the request.
+         *
+         * @param exchange HTTP exchange
+         * @param response buffer to write the response to
+         * @return HTTP status code
+         * @throws IOException thrown in case of an I/O error
+         */
+        int handle(HttpExchange exchange, StringBuilder response)
+                throws IOException;
+
+    }
+
+    /***************************************************************************
+     * HTTP handler measuring the latency of the request handler and sending
+     * its response.
+     */
+    private class TimedHandler implements HttpHandler {
+
+        private final RequestHandler handler;
+
+        /***********************************************************************
+         * Default constructor.
+         *
+         * @param handler handler of the request
+         */
+        public TimedHandler(RequestHandler handler) {
+            this.handler = handler;
+        }
+
+        /**********************************************************************/
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long start = System.nanoTime();
+            StringBuilder response = new StringBuilder();
+            int status;
+
+            try {
+                if (!exchange.getRequestURI().getPath().equals(
+                        exchange.getHttpContext().getPath())) {
+                    status = HTTP_NOT_FOUND;
+                } else {
+                    status = this.handler.handle(exchange, response);
+                }
+            } catch (BodyTooLargeException ex) {
+                response.setLength(0);
+                response.append(ERROR_PREFIX).append(ex.getMessage())
+                        .append('\n');
+                status = HTTP_TOO_LARGE;
+            } catch (IllegalArgumentException ex) {
+                response.setLength(0);
+                response.append(ERROR_PREFIX).append(ex.getMessage())
+                        .append('\n');
+                status = HTTP_BAD_REQUEST;
+            } catch (RuntimeException ex) {
+                // Any request gets a response, even if its handler fails.
+                response.setLength(0);
+                response.append(ERROR_PREFIX).append("Internal error: ")
+                        .append(ex.getClass().getSimpleName()).append('\n');
+                status = HTTP_INTERNAL_ERROR;
+            }
+
+            byte[] body = response.toString().getBytes(
+                    StandardCharsets.UTF_8);
+            long latencyMicros = TimeUnit.NANOSECONDS.toMicros(
+                    System.nanoTime() - start);
+
+            requestCount.increment();
+            if (status != HTTP_OK) {
+                errorCount.increment();
+            }
+            latencyMicrosSum.add(latencyMicros);
+            latencyMicrosMax.accumulate(latencyMicros);
+
+            exchange.getResponseHeaders().set("Content-Type",
+                    "text/plain; charset=utf-8");
+            exchange.getResponseHeaders().set(LATENCY_HEADER,
+                    Long.toString(latencyMicros));
+            exchange.sendResponseHeaders(status,
+                    (body.length == 0) ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+    }
+
+}
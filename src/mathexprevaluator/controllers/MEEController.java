@@ -1,21 +1,74 @@
 package mathexprevaluator.controllers;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.animation.PauseTransition;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.util.Duration;
 import mathexprevaluator.models.MEEModel;
+import mathexprevaluator.models.MathPlotSampler;
+import mathexprevaluator.models.MathPlotSamples;
 import mathexprevaluator.models.parser.InvalidMathExprException;
 import mathexprevaluator.views.MEEView;
 
 /*******************************************************************************
  * Controller handling the events for the entire application.
  * 
+ * <p>The expressions are evaluated by background threads, so that the window
+ * stays responsive even while a huge expression is being parsed. Only the
+ * latest evaluation is waited for. Submitting another expression, pressing
+ * the "cancel" button or running out of time cancels it and its result, once
+ * available, is discarded.
+ * 
+ * <p>The expression is also evaluated live, as it is being typed. The changes
+ * of the input are coalesced - the evaluation starts only after the input
+ * has not changed for a short while, and it parses the expression
+ * incrementally (see {@link MEEModel#evalLiveExpr}).
+ * 
+ * <p>The expression may be plotted as a function of x, too. The plot is
+ * panned by dragging the mouse and zoomed by scrolling. Each redraw samples
+ * the function in the background (see {@link MathPlotSampler}). While one is
+ * in progress, the further changes of the plot are coalesced into a single
+ * redraw following it.
+ * 
  * @author Milan Ondrasovic
- * @version 2015-08-08
+ * @version 2026-10-18
  */
 public class MEEController {
     
+    private static final Duration EVAL_TIMEOUT = Duration.seconds(10.0);
+    private static final Duration LIVE_EVAL_DELAY = Duration.millis(150.0);
+    private static final double PLOT_HALF_WIDTH = 10.0;
+    private static final double PLOT_ZOOM_STEP = 1.1;
+    private static final double SCROLL_NOTCH = 40.0;
+    
     private final MEEModel meeModel;
     private final MEEView meeView;
+    private final ExecutorService evalExecutor;
+    private final PauseTransition evalTimer;
+    private final PauseTransition liveEvalTimer;
+    private final ExecutorService plotExecutor;
+    private final MathPlotSamples plotSamples;
+    
+    // Accessed by the JavaFX application thread only.
+    private EvalTask evalTask;
+    private MathPlotSampler plotSampler;
+    private String plotExpr;
+    private boolean isPlotting;
+    private boolean isPlotPending;
+    private double plotXMin;
+    private double plotXMax;
+    private double plotYMin;
+    private double plotYMax;
+    private double dragX;
+    private double dragY;
     
     /***************************************************************************
      * Default constructor.
@@ -27,17 +80,281 @@ public class MEEController {
         this.meeModel = meeModel;
         this.meeView = meeView;
         
+        this.evalExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "mee-eval");
+            thread.setDaemon(true);
+            
+            return thread;
+        });
+        
+        this.evalTimer = new PauseTransition(EVAL_TIMEOUT);
+        this.evalTimer.setOnFinished(new EvalTimeoutHandler());
+        
+        this.liveEvalTimer = new PauseTransition(LIVE_EVAL_DELAY);
+        this.liveEvalTimer.setOnFinished(new LiveEvalHandler());
+        
+        this.plotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mee-plot");
+            thread.setDaemon(true);
+            
+            return thread;
+        });
+        this.plotSamples = new MathPlotSamples();
+        this.resetPlotViewport();
+        
+        this.meeView.addPlotButtonHandler(new PlotButtonHandler());
+        this.meeView.addPlotMouseHandler(new PlotMouseHandler());
+        this.meeView.addPlotScrollHandler(new PlotScrollHandler());
+        this.meeView.addExprChangeListener(new ExprChangeListener());
         this.meeView.addEvalButtonHandler(new EvalButtonHandler());
+        this.meeView.addCancelButtonHandler(new CancelButtonHandler());
         this.meeView.addClearButtonHandler(new ClearButtonHandler());
     }
     
+    /***************************************************************************
+     * Starts the evaluation of the expression in the background, cancelling
+     * the one in progress, if any.
+     * 
+     * @param expr expression to evaluate
+     * @param live true if the expression is being typed, in which case the
+     * progress is not shown
+     */
+    private void startEval(String expr, boolean live) {
+        this.stopEval();
+        this.liveEvalTimer.stop();
+        
+        this.evalTask = new EvalTask(expr, live);
+        if (!live) {
+            this.meeView.setBusy(true);
+        }
+        this.evalTimer.playFromStart();
+        this.evalExecutor.execute(this.evalTask);
+    }
+    
+    /***************************************************************************
+     * Cancels the evaluation in progress, if any. Its result will be ignored.
+     * The evaluation itself, parsing in linear time, is left to finish in its
+     * thread.
+     */
+    private void stopEval() {
+        if (this.evalTask != null) {
+            this.evalTask.cancel(true);
+            this.evalTask = null;
+        }
+        
+        this.evalTimer.stop();
+        this.meeView.setBusy(false);
+    }
+    
+    /***************************************************************************
+     * Resets the plot to the default viewport centered at the origin, of the
+     * same scale along both the axes.
+     */
+    private void resetPlotViewport() {
+        double halfHeight = PLOT_HALF_WIDTH * this.meeView.getPlotHeight()
+                / this.meeView.getPlotWidth();
+        
+        this.plotXMin = -PLOT_HALF_WIDTH;
+        this.plotXMax = PLOT_HALF_WIDTH;
+        this.plotYMin = -halfHeight;
+        this.plotYMax = halfHeight;
+    }
+    
+    /***************************************************************************
+     * Starts redrawing the plot in the background, unless a redraw is in
+     * progress, in which case another one follows it.
+     */
+    private void requestPlot() {
+        if (this.plotSampler == null && this.plotExpr == null) {
+            return;
+        }
+        if (this.isPlotting) {
+            this.isPlotPending = true;
+            return;
+        }
+        
+        this.isPlotting = true;
+        this.plotExecutor.execute(new PlotTask(this.plotExpr,
+                this.plotSampler));
+        this.plotExpr = null;
+    }
+    
+    /***************************************************************************
+     * Class evaluating a single expression in a background thread.
+     */
+    private class EvalTask extends Task<Double> {
+        
+        private final String expr;
+        private final boolean live;
+        
+        /***********************************************************************
+         * Default constructor.
+         * 
+         * @param expr expression to evaluate
+         * @param live true if the expression is being typed
+         */
+        public EvalTask(String expr, boolean live) {
+            this.expr = expr;
+            this.live = live;
+            
+            this.setOnSucceeded(new EvalDoneHandler());
+            this.setOnFailed(new EvalDoneHandler());
+        }
+        
+        /***********************************************************************
+         * Evaluates the expression.
+         * 
+         * @return calculation result
+         * @throws InvalidMathExprException thrown in case that a syntax error
+         * is found in the expression
+         */
+        @Override
+        protected Double call() throws InvalidMathExprException {
+            if (this.live) {
+                return meeModel.evalLiveExpr(this.expr);
+            }
+            
+            return meeModel.evalExpr(this.expr);
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling the completion of the
+     * evaluation tasks.
+     */
+    private class EvalDoneHandler implements EventHandler<WorkerStateEvent> {
+        
+        /***********************************************************************
+         * Displays the result of the task, unless it has been replaced by
+         * another one in the meantime.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(WorkerStateEvent t) {
+            if (t.getSource() != evalTask) {
+                return; // A stale result.
+            }
+            
+            Throwable ex = evalTask.getException();
+            Double res = evalTask.getValue();
+            
+            stopEval();
+            
+            if (ex instanceof InvalidMathExprException) {
+                meeView.displayErrMsg(ex.getMessage());
+            } else if (ex != null) {
+                meeView.displayErrMsg("Evaluation failed: " + ex);
+            } else {
+                meeView.setResult(String.format("%.5f", res));
+            }
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class sampling the plotted function in a background thread.
+     */
+    private class PlotTask extends Task<MathPlotSampler> {
+        
+        private final String expr;
+        private final MathPlotSampler sampler;
+        private final double xMin;
+        private final double xMax;
+        private final double yMin;
+        private final double yMax;
+        private final int width;
+        private final int height;
+        
+        /***********************************************************************
+         * Default constructor. The viewport is the current one.
+         * 
+         * @param expr expression of a newly plotted function, null to keep
+         * the function
+         * @param sampler sampler of the function to keep
+         */
+        public PlotTask(String expr, MathPlotSampler sampler) {
+            this.expr = expr;
+            this.sampler = sampler;
+            this.xMin = plotXMin;
+            this.xMax = plotXMax;
+            this.yMin = plotYMin;
+            this.yMax = plotYMax;
+            this.width = meeView.getPlotWidth();
+            this.height = meeView.getPlotHeight();
+            
+            this.setOnSucceeded(new PlotDoneHandler());
+            this.setOnFailed(new PlotDoneHandler());
+        }
+        
+        /***********************************************************************
+         * Samples the function, parsing it first if it is a new one.
+         * 
+         * @return sampler of the function
+         * @throws InvalidMathExprException thrown in case that a syntax error
+         * is found in the expression
+         */
+        @Override
+        protected MathPlotSampler call() throws InvalidMathExprException {
+            MathPlotSampler currSampler = this.sampler;
+            if (this.expr != null) {
+                currSampler = new MathPlotSampler(
+                        meeModel.parsePlotExpr(this.expr), 0);
+            }
+            
+            currSampler.sample(this.xMin, this.xMax, this.width, this.yMin,
+                    this.yMax, this.height, plotSamples);
+            
+            return currSampler;
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling the completion of the
+     * plot tasks.
+     */
+    private class PlotDoneHandler implements EventHandler<WorkerStateEvent> {
+        
+        /***********************************************************************
+         * Draws the samples, unless another function is about to be plotted,
+         * and starts the pending redraw, if any.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(WorkerStateEvent t) {
+            PlotTask task = (PlotTask) t.getSource();
+            Throwable ex = task.getException();
+            
+            isPlotting = false;
+            
+            if (ex instanceof InvalidMathExprException) {
+                meeView.displayErrMsg(ex.getMessage());
+            } else if (ex != null) {
+                meeView.displayErrMsg("Plotting failed: " + ex);
+            } else if (plotExpr == null) {
+                plotSampler = task.getValue();
+                meeView.drawPlot(plotSamples, task.xMin, task.xMax,
+                        task.yMin, task.yMax);
+            }
+            
+            if (isPlotPending) {
+                isPlotPending = false;
+                requestPlot();
+            }
+        }
+        
+    }
+    
     /***************************************************************************
      * Class providing a functionality for handling "evaluate button" events.
      */
     private class EvalButtonHandler implements EventHandler<ActionEvent> {
         
         /***********************************************************************
-         * Evaluates the expression.
+         * Starts the evaluation of the expression.
          * 
          * @param t event
          */
@@ -46,15 +363,179 @@ public class MEEController {
             String expr = meeView.getExpression();
             
             if (expr.equals("")) {
+                stopEval();
                 meeView.displayErrMsg("No expression on the input");
                 return;
             }
             
-            try {
-                double res = meeModel.evalExpr(expr);
-                meeView.setResult(String.format("%.5f", res));
-            } catch (InvalidMathExprException ex) {
-                meeView.displayErrMsg(ex.getMessage());
+            startEval(expr, false);
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling the changes of the
+     * expression on the input.
+     */
+    private class ExprChangeListener implements InvalidationListener {
+        
+        /***********************************************************************
+         * Postpones the live evaluation until the input stops changing.
+         * 
+         * @param observable text of the input
+         */
+        @Override
+        public void invalidated(Observable observable) {
+            liveEvalTimer.playFromStart();
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling the live evaluations.
+     */
+    private class LiveEvalHandler implements EventHandler<ActionEvent> {
+        
+        /***********************************************************************
+         * Starts the evaluation of the expression typed, unless the input is
+         * empty.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(ActionEvent t) {
+            String expr = meeView.getExpression();
+            
+            if (!expr.trim().isEmpty()) {
+                startEval(expr, true);
+            }
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling "plot button" events.
+     */
+    private class PlotButtonHandler implements EventHandler<ActionEvent> {
+        
+        /***********************************************************************
+         * Plots the expression as a function of x, in the default viewport.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(ActionEvent t) {
+            String expr = meeView.getExpression();
+            
+            if (expr.trim().isEmpty()) {
+                meeView.displayErrMsg("No expression on the input");
+                return;
+            }
+            
+            plotExpr = expr;
+            resetPlotViewport();
+            requestPlot();
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling the mouse events over the
+     * plot.
+     */
+    private class PlotMouseHandler implements EventHandler<MouseEvent> {
+        
+        /***********************************************************************
+         * Pans the plot by the distance the mouse has been dragged.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(MouseEvent t) {
+            if (t.getEventType() == MouseEvent.MOUSE_DRAGGED) {
+                double dx = (t.getX() - dragX) * (plotXMax - plotXMin)
+                        / meeView.getPlotWidth();
+                double dy = (t.getY() - dragY) * (plotYMax - plotYMin)
+                        / meeView.getPlotHeight();
+                
+                plotXMin -= dx;
+                plotXMax -= dx;
+                plotYMin += dy;
+                plotYMax += dy;
+                requestPlot();
+            }
+            
+            dragX = t.getX();
+            dragY = t.getY();
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling the scroll events over the
+     * plot.
+     */
+    private class PlotScrollHandler implements EventHandler<ScrollEvent> {
+        
+        /***********************************************************************
+         * Zooms the plot in or out, keeping the point under the mouse.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(ScrollEvent t) {
+            double scale = Math.pow(PLOT_ZOOM_STEP,
+                    -t.getDeltaY() / SCROLL_NOTCH);
+            double x = plotXMin + t.getX() / meeView.getPlotWidth()
+                    * (plotXMax - plotXMin);
+            double y = plotYMax - t.getY() / meeView.getPlotHeight()
+                    * (plotYMax - plotYMin);
+            
+            plotXMin = x + (plotXMin - x) * scale;
+            plotXMax = x + (plotXMax - x) * scale;
+            plotYMin = y + (plotYMin - y) * scale;
+            plotYMax = y + (plotYMax - y) * scale;
+            requestPlot();
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling "cancel button" events.
+     */
+    private class CancelButtonHandler implements EventHandler<ActionEvent> {
+        
+        /***********************************************************************
+         * Cancels the evaluation in progress.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(ActionEvent t) {
+            if (evalTask != null) {
+                stopEval();
+                meeView.displayErrMsg("Evaluation cancelled");
+            }
+        }
+        
+    }
+    
+    /***************************************************************************
+     * Class providing a functionality for handling the evaluation timeouts.
+     */
+    private class EvalTimeoutHandler implements EventHandler<ActionEvent> {
+        
+        /***********************************************************************
+         * Cancels the evaluation which takes too long.
+         * 
+         * @param t event
+         */
+        @Override
+        public void handle(ActionEvent t) {
+            if (evalTask != null) {
+                stopEval();
+                meeView.displayErrMsg("Evaluation timed out after "
+                        + (long) EVAL_TIMEOUT.toSeconds() + " s");
             }
         }
         
@@ -66,13 +547,17 @@ public class MEEController {
     private class ClearButtonHandler implements EventHandler<ActionEvent> {
 
         /***********************************************************************
-         * Clears the view components.
+         * Cancels the evaluation in progress and clears the view components.
          * 
          * @param t event
          */
         @Override
         public void handle(ActionEvent t) {
+            stopEval();
             meeView.clear();
+            liveEvalTimer.stop();
+            plotSampler = null;
+            plotExpr = null;
         }
         
     }
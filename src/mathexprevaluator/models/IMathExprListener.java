@@ -0,0 +1,52 @@
+package mathexprevaluator.models;
+
+import mathexprevaluator.models.parser.MathExprErrorKind;
+
+/*******************************************************************************
+ * Listener notified of the parsing and the evaluation done by the model (see
+ * {@link MEEModel#setListener}). The methods are called by the threads doing
+ * the work, possibly by many of them at once, so they have to be thread-safe
+ * and should return quickly. An expression found in the cache is not parsed
+ * again, so only the cache misses are reported as parsing.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public interface IMathExprListener {
+
+    /***************************************************************************
+     * Called after an expression has been parsed successfully.
+     *
+     * @param nanos time taken by the parsing and the rewrites of the tree
+     * @param nodeCount number of the nodes of the parsed tree
+     * @param height height of the parsed tree
+     */
+    void onParse(long nanos, int nodeCount, int height);
+
+    /***************************************************************************
+     * Called after parsing an expression has failed.
+     *
+     * @param nanos time taken until the syntax error has been found
+     * @param kind cause of the syntax error
+     */
+    void onParseError(long nanos, MathExprErrorKind kind);
+
+    /***************************************************************************
+     * Called after an expression has been evaluated successfully.
+     *
+     * @param engine engine the expression has been evaluated by
+     * @param nanos time taken by the evaluation, including the cache lookup
+     * and the parsing in case of a cache miss
+     */
+    void onEval(MathEvalEngine engine, long nanos);
+
+    /***************************************************************************
+     * Called after an expression has been rejected due to a syntax error,
+     * either found right now or cached.
+     *
+     * @param engine engine the expression was to be evaluated by
+     * @param kind cause of the syntax error
+     */
+    void onEvalError(MathEvalEngine engine, MathExprErrorKind kind);
+
+}
@@ -0,0 +1,143 @@
+package mathexprevaluator.models;
+
+import java.util.Map;
+
+/*******************************************************************************
+ * Management interface of the metrics of a model (see
+ * {@link MathExprMetrics}), as exposed by the platform MBean server. The
+ * histograms are exposed as composite values with the count, the mean, the
+ * maximum, the percentiles and the counts of the buckets.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public interface IMathExprMetricsMXBean {
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return true if the metrics are being recorded, false otherwise
+     */
+    boolean isEnabled();
+
+    /***************************************************************************
+     * Setter. Recording costs nothing while it is disabled.
+     *
+     * @param enabled true to start recording, false to stop it
+     */
+    void setEnabled(boolean enabled);
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the expressions parsed successfully
+     */
+    long getParseCount();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the expressions failed to be parsed
+     */
+    long getParseErrorCount();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return histogram of the parsing times in nanoseconds
+     */
+    MathHistogramSnapshot getParseLatencyNanos();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return histogram of the numbers of the nodes of the parsed trees
+     */
+    MathHistogramSnapshot getTreeNodeCounts();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return histogram of the heights of the parsed trees
+     */
+    MathHistogramSnapshot getTreeHeights();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the expressions evaluated successfully
+     */
+    long getEvalCount();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the expressions evaluated by each engine, keyed by
+     * its name
+     */
+    Map<String, Long> getEvalCountsByEngine();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return histogram of the evaluation times in nanoseconds
+     */
+    MathHistogramSnapshot getEvalLatencyNanos();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the expressions rejected due to a syntax error
+     */
+    long getEvalErrorCount();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the expressions rejected due to each cause of syntax
+     * errors, keyed by its name
+     */
+    Map<String, Long> getEvalErrorsByKind();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return current number of the cached expressions
+     */
+    int getCacheSize();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return maximum number of the cached expressions
+     */
+    int getCacheCapacity();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the lookups which found the expression in the cache
+     */
+    long getCacheHitCount();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the lookups which had to parse the expression
+     */
+    long getCacheMissCount();
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the entries removed due to the capacity or expiration
+     */
+    long getCacheEvictionCount();
+
+    /***************************************************************************
+     * Discards all the recorded metrics. The counters of the cache are kept,
+     * as they are owned by the cache.
+     */
+    void reset();
+
+}
@@ -1,17 +1,61 @@
 package mathexprevaluator.models;
 
-import mathexprevaluator.models.parser.IMathExpr;
 import mathexprevaluator.models.parser.InvalidMathExprException;
 import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprIncrementalParser;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathVarTable;
 
 /*******************************************************************************
  * Model which processes the expressions from the user and evaluates them.
+ * The parsed expressions are kept in a cache, so that evaluating the same
+ * expression again does not parse it again. The work done may be reported to
+ * a listener (see {@link #setListener}), e.g. to {@link MathExprMetrics}.
+ * An expression being typed is parsed incrementally instead, see
+ * {@link #evalLiveExpr}.
  * 
  * @author Milan Ondrasovic
- * @version 2015-08-06
+ * @version 2026-10-18
  */
 public class MEEModel {
     
+    /** Name of the variable of the plotted functions. */
+    public static final String PLOT_VAR = "x";
+    
+    private final MathExprCache exprCache;
+    private final MathExprIncrementalParser liveParser;
+    private volatile IMathExprListener listener;
+    
+    /***************************************************************************
+     * Default constructor. Uses a cache of the default capacity whose entries
+     * never expire.
+     */
+    public MEEModel() {
+        this(new MathExprCache());
+    }
+    
+    /***************************************************************************
+     * Constructor.
+     * 
+     * @param cacheCapacity maximum number of cached parsed expressions
+     * @param cacheTtlMillis time in milliseconds after which a cached
+     * expression expires, zero or negative value means never
+     */
+    public MEEModel(int cacheCapacity, long cacheTtlMillis) {
+        this(new MathExprCache(cacheCapacity, cacheTtlMillis));
+    }
+    
+    /***************************************************************************
+     * Constructor.
+     * 
+     * @param exprCache cache of the parsed expressions, may be shared with
+     * other models
+     */
+    public MEEModel(MathExprCache exprCache) {
+        this.exprCache = exprCache;
+        this.liveParser = new MathExprIncrementalParser();
+    }
+    
     /***************************************************************************
      * Evaluates the mathematical expression.
      * 
@@ -23,9 +67,109 @@ public class MEEModel {
      * found in the expression
      */
     public double evalExpr(String expr) throws InvalidMathExprException {
-        IMathExpr mathExpr = new MathExpr(expr);
+        return this.evalExpr(expr, MathEvalEngine.TREE);
+    }
+    
+    /***************************************************************************
+     * Evaluates the mathematical expression by the specified engine.
+     * 
+     * @param expr mathematical expression to evaluate
+     * @param engine engine to evaluate the expression by
+     * 
+     * @return calculation result
+     * 
+     * @throws InvalidMathExprException thrown in case that a syntax error is
+     * found in the expression
+     */
+    public double evalExpr(String expr, MathEvalEngine engine)
+            throws InvalidMathExprException {
+        IMathExprListener currListener = this.listener;
+        if (currListener == null) {
+            return this.exprCache.get(expr, engine).eval();
+        }
+        
+        long start = System.nanoTime();
+        try {
+            double result = this.exprCache.get(expr, engine).eval();
+            currListener.onEval(engine, System.nanoTime() - start);
+            
+            return result;
+        } catch (InvalidMathExprException ex) {
+            currListener.onEvalError(engine, ex.getKind());
+            throw ex;
+        }
+    }
+    
+    /***************************************************************************
+     * Evaluates the expression being edited, e.g. on every change of the
+     * input. The expression is parsed incrementally, reusing what has not
+     * changed since the previous call, and bypasses the cache, which would
+     * otherwise be filled up by the intermediate versions.
+     * 
+     * @param expr current version of the expression
+     * 
+     * @return calculation result
+     * 
+     * @throws InvalidMathExprException thrown in case that a syntax error is
+     * found in the expression
+     */
+    public double evalLiveExpr(String expr) throws InvalidMathExprException {
+        MathExpr parsed;
+        
+        synchronized (this.liveParser) {
+            parsed = this.liveParser.parse(expr);
+        }
+        
+        return parsed.eval();
+    }
+    
+    /***************************************************************************
+     * Parses the function to be plotted, of the single variable
+     * {@link #PLOT_VAR} at slot 0 (see {@link MathPlotSampler}).
+     * 
+     * @param expr expression of the function
+     * 
+     * @return parsed and optimized expression
+     * 
+     * @throws InvalidMathExprException thrown in case that a syntax error is
+     * found in the expression
+     */
+    public MathExpr parsePlotExpr(String expr)
+            throws InvalidMathExprException {
+        MathExpr parsed = new MathExpr(expr, new MathVarTable(PLOT_VAR));
         
-        return mathExpr.eval();
+        return new MathExprOptimizer().optimize(parsed);
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return listener notified of the work done, null if there is none
+     */
+    public IMathExprListener getListener() {
+        return this.listener;
+    }
+    
+    /***************************************************************************
+     * Setter. The listener is set to the cache of the expressions as well, to
+     * be notified of the parsing. Should the cache be shared with other
+     * models, it notifies the listener of their parsing too.
+     * 
+     * @param listener listener to notify of the work done, null to notify
+     * none
+     */
+    public void setListener(IMathExprListener listener) {
+        this.listener = listener;
+        this.exprCache.setListener(listener);
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return cache of the parsed expressions, providing also its statistics
+     */
+    public MathExprCache getExprCache() {
+        return this.exprCache;
     }
     
 }
@@ -0,0 +1,18 @@
+package mathexprevaluator.models;
+
+/*******************************************************************************
+ * Enumerate type of the engines able to evaluate a parsed expression.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public enum MathEvalEngine {
+    
+    /** Walks the tree of the parsed expression. */
+    TREE,
+    /** Runs a flat postfix program on an operand stack. */
+    STACK_MACHINE,
+    /** Calls a class generated for the expression. */
+    BYTECODE;
+    
+}
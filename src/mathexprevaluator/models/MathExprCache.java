@@ -0,0 +1,560 @@
+package mathexprevaluator.models;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprCompiler;
+import mathexprevaluator.models.parser.MathExprErrorKind;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathFuncTable;
+import mathexprevaluator.models.parser.MathVarTable;
+
+/*******************************************************************************
+ * Thread-safe, size-bounded cache of parsed mathematical expressions.
+ *
+ * <p>The expressions are keyed by their normalized text, such that the
+ * insignificant whitespace does not matter. The cache is split into several
+ * segments, each of them guarded by its own lock and evicting the least
+ * recently used entry once full. Invalid expressions are cached as well, so
+ * that repeated syntax errors do not have to be parsed over and over again.
+ * Each parsed expression is optimized (see {@link MathExprOptimizer}) and its
+ * repeated subexpressions are shared (see {@link MathExprSharer}) before it
+ * is cached. Expressions containing variables are cached along with the
+ * names of the variables, as the same text results in different slots for
+ * different names. An expression parsed before a function of the default
+ * table (see {@link MathFuncTable#getDefault()}) has been registered or
+ * defined is stale, thus parsed again on its next lookup. The forms of an
+ * expression compiled for the other evaluation engines are created on demand
+ * and cached along with the parsed expression.
+ * The parsing done on the cache misses may be reported to a listener (see
+ * {@link #setListener}).
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int capacity;
+    private final long ttlNanos;
+
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder evictionCount;
+
+    private volatile IMathExprListener listener;
+
+    /***************************************************************************
+     * Default constructor. Creates a cache with the default capacity whose
+     * entries never expire.
+     */
+    public MathExprCache() {
+        this(DEFAULT_CAPACITY, 0);
+    }
+
+    /***************************************************************************
+     * Constructor.
+     *
+     * @param capacity maximum number of cached expressions
+     * @param ttlMillis time in milliseconds after which a cached expression
+     * expires, zero or negative value means never
+     */
+    public MathExprCache(int capacity, long ttlMillis) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: "
+                    + capacity);
+        }
+
+        int segmentCount = 1;
+        while (segmentCount * 2 <= Math.min(capacity, MAX_SEGMENTS)) {
+            segmentCount *= 2;
+        }
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            // Distribute the capacity such that the total is exact.
+            int segmentCapacity = capacity / segmentCount
+                    + ((i < capacity % segmentCount) ? 1 : 0);
+            this.segments[i] = new Segment(segmentCapacity);
+        }
+
+        this.capacity = capacity;
+        this.ttlNanos = (ttlMillis > 0) ? TimeUnit.MILLISECONDS.toNanos(
+                ttlMillis) : 0;
+
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictionCount = new LongAdder();
+    }
+
+    /***************************************************************************
+     * Retrieves the parsed expression, parsing and caching it if needed.
+     *
+     * @param expr mathematical expression
+     *
+     * @return parsed expression
+     *
+     * @throws InvalidMathExprException thrown in case that a syntax error is
+     * found in the expression, even if it has been found before
+     */
+    public IMathExpr get(String expr) throws InvalidMathExprException {
+        return this.get(expr, MathEvalEngine.TREE);
+    }
+
+    /***************************************************************************
+     * Retrieves the expression compiled for the evaluation engine, parsing,
+     * compiling and caching it if needed.
+     *
+     * @param expr mathematical expression
+     * @param engine engine the expression is to be evaluated by
+     *
+     * @return expression in the form required by the engine
+     *
+     * @throws InvalidMathExprException thrown in case that a syntax error is
+     * found in the expression, even if it has been found before
+     */
+    public IMathExpr get(String expr, MathEvalEngine engine)
+            throws InvalidMathExprException {
+        String text = normalize(expr);
+
+        return this.lookup(text, text, null, engine);
+    }
+
+    /***************************************************************************
+     * Retrieves the expression containing variables, compiled for the
+     * evaluation engine, parsing, compiling and caching it if needed.
+     *
+     * @param expr mathematical expression
+     * @param varNames names of the variables in the order of their slots
+     * @param engine engine the expression is to be evaluated by
+     *
+     * @return expression in the form required by the engine
+     *
+     * @throws InvalidMathExprException thrown in case that a syntax error is
+     * found in the expression, even if it has been found before
+     */
+    public IMathExpr get(String expr, String[] varNames, MathEvalEngine engine)
+            throws InvalidMathExprException {
+        String text = normalize(expr);
+        if (varNames.length == 0) {
+            return this.lookup(text, text, null, engine);
+        }
+
+        // A line break never occurs in a normalized expression.
+        String key = String.join(",", varNames) + '\n' + text;
+
+        return this.lookup(key, text, varNames, engine);
+    }
+
+    /***************************************************************************
+     * Retrieves the cached expression, parsing and caching it if needed.
+     *
+     * @param key key of the cached expression
+     * @param text normalized expression
+     * @param varNames names of the variables, null if there are none
+     * @param engine engine the expression is to be evaluated by
+     *
+     * @return expression in the form required by the engine
+     *
+     * @throws InvalidMathExprException thrown in case of a syntax error
+     */
+    private IMathExpr lookup(String key, String text, String[] varNames,
+            MathEvalEngine engine) throws InvalidMathExprException {
+        Segment segment = this.segmentFor(key);
+        long now = (this.ttlNanos > 0) ? System.nanoTime() : 0;
+        // Read before parsing, so a change during parsing makes it stale.
+        long funcVersion = MathFuncTable.getDefault().getVersion();
+
+        CachedExpr entry = segment.lookup(key, now);
+        if (entry != null && entry.funcVersion == funcVersion) {
+            this.hitCount.increment();
+
+            return entry.unwrap(engine);
+        }
+
+        this.missCount.increment();
+
+        // Parsing happens outside of the lock, concurrent misses of the same
+        // expression may parse it more than once, which is harmless.
+        IMathExprListener currListener = this.listener;
+        long start = (currListener == null) ? 0 : System.nanoTime();
+        long expiresAt = now + this.ttlNanos;
+        try {
+            MathVarTable vars = (varNames == null) ? null
+                    : new MathVarTable(varNames);
+            MathExpr parsed = new MathExpr(text, vars);
+            MathExpr rewritten = new MathExprSharer().share(
+                    new MathExprOptimizer().optimize(parsed));
+            entry = new CachedExpr(rewritten, null, null, expiresAt,
+                    funcVersion);
+
+            if (currListener != null) {
+                currListener.onParse(System.nanoTime() - start,
+                        parsed.getNodeCount(), parsed.getHeight());
+            }
+        } catch (InvalidMathExprException ex) {
+            entry = new CachedExpr(null, ex.getKind(), ex.getMessage(),
+                    expiresAt, funcVersion);
+
+            if (currListener != null) {
+                currListener.onParseError(System.nanoTime() - start,
+                        ex.getKind());
+            }
+        }
+
+        segment.store(key, entry);
+
+        return entry.unwrap(engine);
+    }
+
+    /***************************************************************************
+     * Removes all the cached expressions. The counters are retained.
+     */
+    public void clear() {
+        for (Segment segment: this.segments) {
+            segment.clear();
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return listener notified of the parsing, null if there is none
+     */
+    public IMathExprListener getListener() {
+        return this.listener;
+    }
+
+    /***************************************************************************
+     * Setter.
+     *
+     * @param listener listener to notify of the parsing done on the cache
+     * misses, null to notify none
+     */
+    public void setListener(IMathExprListener listener) {
+        this.listener = listener;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return maximum number of cached expressions
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return current number of cached expressions
+     */
+    public int getSize() {
+        int size = 0;
+        for (Segment segment: this.segments) {
+            size += segment.size();
+        }
+
+        return size;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of lookups which found the expression in the cache
+     */
+    public long getHitCount() {
+        return this.hitCount.sum();
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of lookups which had to parse the expression
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of entries removed due to the capacity or expiration
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.sum();
+    }
+
+    /***************************************************************************
+     * Normalizes the expression text by removing its insignificant whitespace.
+     * A single space is kept only where removing it would join two tokens
+     * into one, e.g. two adjacent numbers.
+     *
+     * @param expr expression to normalize
+     *
+     * @return normalized expression, the same instance if nothing was removed
+     */
+    public static String normalize(String expr) {
+        int len = expr.length();
+        int i = 0;
+
+        while (i < len && !Character.isWhitespace(expr.charAt(i))) {
+            i++;
+        }
+        if (i == len) {
+            return expr;
+        }
+
+        StringBuilder normalized = new StringBuilder(len);
+        normalized.append(expr, 0, i);
+
+        while (i < len) {
+            char c = expr.charAt(i);
+
+            if (!Character.isWhitespace(c)) {
+                normalized.append(c);
+                i++;
+                continue;
+            }
+
+            while (i < len && Character.isWhitespace(expr.charAt(i))) {
+                i++;
+            }
+
+            if (normalized.length() > 0 && i < len
+                    && isSeparatorNeeded(normalized, expr.charAt(i))) {
+                normalized.append(' ');
+            }
+        }
+
+        return normalized.toString();
+    }
+
+    /***************************************************************************
+     * Checks whether the whitespace between the already normalized text and
+     * the next character separates two tokens which would join otherwise.
+     *
+     * @param before normalized text before the whitespace
+     * @param next first character after the whitespace
+     *
+     * @return true if the whitespace has to be kept, false otherwise
+     */
+    private static boolean isSeparatorNeeded(StringBuilder before, char next) {
+        int last = before.length() - 1;
+        char prev = before.charAt(last);
+
+        if (isWordChar(prev) && isWordChar(next)) {
+            return true;
+        }
+        if (isExponentChar(prev) && isSignChar(next)) {
+            return true;
+        }
+
+        return isSignChar(prev) && Character.isDigit(next) && last > 0
+                && isExponentChar(before.charAt(last - 1));
+    }
+
+    /***************************************************************************
+     * Checks whether the character may be a part of a number or a name.
+     *
+     * @param c character to check
+     *
+     * @return true if the character is a word character, false otherwise
+     */
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_';
+    }
+
+    /***************************************************************************
+     * Checks whether the character may start the exponent of a number.
+     *
+     * @param c character to check
+     *
+     * @return true if the character is an exponent character, false otherwise
+     */
+    private static boolean isExponentChar(char c) {
+        return c == 'e' || c == 'E';
+    }
+
+    /***************************************************************************
+     * Checks whether the character may be the sign of an exponent.
+     *
+     * @param c character to check
+     *
+     * @return true if the character is a sign, false otherwise
+     */
+    private static boolean isSignChar(char c) {
+        return c == '+' || c == '-';
+    }
+
+    /***************************************************************************
+     * Finds the segment the key belongs to.
+     *
+     * @param key normalized expression
+     *
+     * @return segment responsible for the key
+     */
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+
+        return this.segments[hash & (this.segments.length - 1)];
+    }
+
+    /***************************************************************************
+     * Cached result of parsing - either a parsed expression or the message of
+     * the syntax error.
+     */
+    private static class CachedExpr {
+
+        private final MathExpr expr;
+        private final MathExprErrorKind errKind;
+        private final String errMsg;
+        private final long expiresAt;
+        private final long funcVersion;
+
+        // Compiled lazily, a race may compile twice, which is harmless.
+        private volatile IMathExpr program;
+        private volatile IMathExpr bytecode;
+
+        /***********************************************************************
+         * Default constructor.
+         *
+         * @param expr parsed expression, null in case of a syntax error
+         * @param errKind syntax error cause, null in case of success
+         * @param errMsg syntax error message, null in case of success
+         * @param expiresAt time (as of System.nanoTime) of the expiration
+         * @param funcVersion version of the default table of functions the
+         * expression has been parsed with
+         */
+        public CachedExpr(MathExpr expr, MathExprErrorKind errKind,
+                String errMsg, long expiresAt, long funcVersion) {
+            this.expr = expr;
+            this.errKind = errKind;
+            this.errMsg = errMsg;
+            this.expiresAt = expiresAt;
+            this.funcVersion = funcVersion;
+        }
+
+        /***********************************************************************
+         * Retrieves the expression in the form required by the engine.
+         *
+         * @param engine engine the expression is to be evaluated by
+         * @return parsed or compiled expression
+         * @throws InvalidMathExprException thrown in case of a cached error
+         */
+        public IMathExpr unwrap(MathEvalEngine engine)
+                throws InvalidMathExprException {
+            if (this.expr == null) {
+                throw new InvalidMathExprException(this.errKind,
+                        this.errMsg);
+            }
+
+            switch (engine) {
+                case STACK_MACHINE:
+                    if (this.program == null) {
+                        this.program = MathExprProgram.compile(this.expr);
+                    }
+                    return this.program;
+                case BYTECODE:
+                    if (this.bytecode == null) {
+                        this.bytecode = MathExprCompiler.compile(this.expr);
+                    }
+                    return this.bytecode;
+                default:
+                    return this.expr;
+            }
+        }
+
+    }
+
+    /***************************************************************************
+     * Part of the cache guarded by a single lock, with LRU eviction.
+     */
+    private class Segment {
+
+        private final LinkedHashMap<String, CachedExpr> entries;
+
+        /***********************************************************************
+         * Default constructor.
+         *
+         * @param segmentCapacity maximum number of entries in the segment
+         */
+        public Segment(final int segmentCapacity) {
+            this.entries = new LinkedHashMap<String, CachedExpr>(16, 0.75f,
+                    true) {
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, CachedExpr> eldest) {
+                    if (this.size() > segmentCapacity) {
+                        evictionCount.increment();
+                        return true;
+                    }
+
+                    return false;
+                }
+
+            };
+        }
+
+        /***********************************************************************
+         * Looks up the entry, removing it if it has already expired.
+         *
+         * @param key normalized expression
+         * @param now current time (as of System.nanoTime)
+         *
+         * @return entry, or null if there is no valid one
+         */
+        public synchronized CachedExpr lookup(String key, long now) {
+            CachedExpr entry = this.entries.get(key);
+
+            if (entry != null && ttlNanos > 0 && now - entry.expiresAt >= 0) {
+                this.entries.remove(key);
+                evictionCount.increment();
+
+                return null;
+            }
+
+            return entry;
+        }
+
+        /***********************************************************************
+         * Stores the entry, evicting the least recently used one if needed.
+         *
+         * @param key normalized expression
+         * @param entry entry to store
+         */
+        public synchronized void store(String key, CachedExpr entry) {
+            this.entries.put(key, entry);
+        }
+
+        /***********************************************************************
+         * Removes all the entries.
+         */
+        public synchronized void clear() {
+            this.entries.clear();
+        }
+
+        /***********************************************************************
+         * Getter.
+         *
+         * @return number of entries in the segment
+         */
+        public synchronized int size() {
+            return this.entries.size();
+        }
+
+    }
+
+}
@@ -0,0 +1,303 @@
+package mathexprevaluator.models;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import mathexprevaluator.models.parser.MathExprErrorKind;
+
+/*******************************************************************************
+ * Metrics of the parsing and the evaluation done by a model - the counts, the
+ * latency histograms, the errors by their cause, the sizes of the parsed trees
+ * and the statistics of the cache of the model.
+ *
+ * <p>The metrics are recorded as the listener of the model, so nothing is
+ * done, not even reading the clock, while they are disabled. While enabled,
+ * each call just increments a few {@link LongAdder}s, so the threads of the
+ * model never contend on a lock. The metrics may be exposed through the
+ * platform MBean server (see {@link #register(String)}).
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprMetrics implements IMathExprListener,
+        IMathExprMetricsMXBean {
+
+    public static final String JMX_DOMAIN = "mathexprevaluator";
+
+    private static final MathEvalEngine[] ENGINES = MathEvalEngine.values();
+    private static final MathExprErrorKind[] ERROR_KINDS
+            = MathExprErrorKind.values();
+
+    private final MEEModel model;
+
+    private final LongAdder parseCount;
+    private final LongAdder parseErrorCount;
+    private final MathHistogram parseLatency;
+    private final MathHistogram nodeCounts;
+    private final MathHistogram heights;
+
+    private final LongAdder[] evalCounts;
+    private final LongAdder[] evalErrorCounts;
+    private final MathHistogram evalLatency;
+
+    private ObjectName objectName;
+
+    /***************************************************************************
+     * Default constructor. The metrics are disabled until
+     * {@link #setEnabled(boolean)} is called.
+     *
+     * @param model model to record the metrics of
+     */
+    public MathExprMetrics(MEEModel model) {
+        this.model = model;
+
+        this.parseCount = new LongAdder();
+        this.parseErrorCount = new LongAdder();
+        this.parseLatency = new MathHistogram();
+        this.nodeCounts = new MathHistogram();
+        this.heights = new MathHistogram();
+
+        this.evalCounts = newAdders(ENGINES.length);
+        this.evalErrorCounts = newAdders(ERROR_KINDS.length);
+        this.evalLatency = new MathHistogram();
+    }
+
+    /***************************************************************************
+     * Registers the metrics to the platform MBean server under the name
+     * <code>mathexprevaluator:type=MathExprMetrics,name=...</code>.
+     *
+     * @param name name distinguishing the metrics of different models
+     *
+     * @return name of the registered MBean
+     *
+     * @throws JMException thrown if the MBean can not be registered, e.g. the
+     * name is already used
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        if (this.objectName != null) {
+            throw new IllegalStateException("Already registered as "
+                    + this.objectName);
+        }
+
+        ObjectName registered = new ObjectName(JMX_DOMAIN
+                + ":type=MathExprMetrics,name=" + ObjectName.quote(name));
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                registered);
+        this.objectName = registered;
+
+        return registered;
+    }
+
+    /***************************************************************************
+     * Unregisters the metrics from the platform MBean server, if registered.
+     *
+     * @throws JMException thrown if the MBean can not be unregistered
+     */
+    public synchronized void unregister() throws JMException {
+        if (this.objectName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+                    this.objectName);
+            this.objectName = null;
+        }
+    }
+
+    /**************************************************************************/
+    @Override
+    public void onParse(long nanos, int nodeCount, int height) {
+        this.parseCount.increment();
+        this.parseLatency.record(nanos);
+        this.nodeCounts.record(nodeCount);
+        this.heights.record(height);
+    }
+
+    /**************************************************************************/
+    @Override
+    public void onParseError(long nanos, MathExprErrorKind kind) {
+        this.parseErrorCount.increment();
+        this.parseLatency.record(nanos);
+    }
+
+    /**************************************************************************/
+    @Override
+    public void onEval(MathEvalEngine engine, long nanos) {
+        this.evalCounts[engine.ordinal()].increment();
+        this.evalLatency.record(nanos);
+    }
+
+    /**************************************************************************/
+    @Override
+    public void onEvalError(MathEvalEngine engine, MathExprErrorKind kind) {
+        this.evalErrorCounts[kind.ordinal()].increment();
+    }
+
+    /**************************************************************************/
+    @Override
+    public boolean isEnabled() {
+        return this.model.getListener() == this;
+    }
+
+    /**************************************************************************/
+    @Override
+    public synchronized void setEnabled(boolean enabled) {
+        if (enabled) {
+            this.model.setListener(this);
+        } else if (this.isEnabled()) {
+            this.model.setListener(null);
+        }
+    }
+
+    /**************************************************************************/
+    @Override
+    public long getParseCount() {
+        return this.parseCount.sum();
+    }
+
+    /**************************************************************************/
+    @Override
+    public long getParseErrorCount() {
+        return this.parseErrorCount.sum();
+    }
+
+    /**************************************************************************/
+    @Override
+    public MathHistogramSnapshot getParseLatencyNanos() {
+        return this.parseLatency.snapshot();
+    }
+
+    /**************************************************************************/
+    @Override
+    public MathHistogramSnapshot getTreeNodeCounts() {
+        return this.nodeCounts.snapshot();
+    }
+
+    /**************************************************************************/
+    @Override
+    public MathHistogramSnapshot getTreeHeights() {
+        return this.heights.snapshot();
+    }
+
+    /**************************************************************************/
+    @Override
+    public long getEvalCount() {
+        return sum(this.evalCounts);
+    }
+
+    /**************************************************************************/
+    @Override
+    public Map<String, Long> getEvalCountsByEngine() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (MathEvalEngine engine: ENGINES) {
+            counts.put(engine.name(), this.evalCounts[engine.ordinal()].sum());
+        }
+
+        return counts;
+    }
+
+    /**************************************************************************/
+    @Override
+    public MathHistogramSnapshot getEvalLatencyNanos() {
+        return this.evalLatency.snapshot();
+    }
+
+    /**************************************************************************/
+    @Override
+    public long getEvalErrorCount() {
+        return sum(this.evalErrorCounts);
+    }
+
+    /**************************************************************************/
+    @Override
+    public Map<String, Long> getEvalErrorsByKind() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (MathExprErrorKind kind: ERROR_KINDS) {
+            counts.put(kind.name(), this.evalErrorCounts[kind.ordinal()].sum());
+        }
+
+        return counts;
+    }
+
+    /**************************************************************************/
+    @Override
+    public int getCacheSize() {
+        return this.model.getExprCache().getSize();
+    }
+
+    /**************************************************************************/
+    @Override
+    public int getCacheCapacity() {
+        return this.model.getExprCache().getCapacity();
+    }
+
+    /**************************************************************************/
+    @Override
+    public long getCacheHitCount() {
+        return this.model.getExprCache().getHitCount();
+    }
+
+    /**************************************************************************/
+    @Override
+    public long getCacheMissCount() {
+        return this.model.getExprCache().getMissCount();
+    }
+
+    /**************************************************************************/
+    @Override
+    public long getCacheEvictionCount() {
+        return this.model.getExprCache().getEvictionCount();
+    }
+
+    /**************************************************************************/
+    @Override
+    public void reset() {
+        this.parseCount.reset();
+        this.parseErrorCount.reset();
+        this.parseLatency.reset();
+        this.nodeCounts.reset();
+        this.heights.reset();
+
+        for (LongAdder count: this.evalCounts) {
+            count.reset();
+        }
+        for (LongAdder count: this.evalErrorCounts) {
+            count.reset();
+        }
+        this.evalLatency.reset();
+    }
+
+    /***************************************************************************
+     * Creates an array of counters.
+     *
+     * @param length number of the counters
+     *
+     * @return newly created counters
+     */
+    private static LongAdder[] newAdders(int length) {
+        LongAdder[] adders = new LongAdder[length];
+        for (int i = 0; i < length; i++) {
+            adders[i] = new LongAdder();
+        }
+
+        return adders;
+    }
+
+    /***************************************************************************
+     * Sums the counters.
+     *
+     * @param adders counters to sum
+     *
+     * @return sum of the counters
+     */
+    private static long sum(LongAdder[] adders) {
+        long total = 0;
+        for (LongAdder adder: adders) {
+            total += adder.sum();
+        }
+
+        return total;
+    }
+
+}
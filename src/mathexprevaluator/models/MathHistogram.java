@@ -0,0 +1,79 @@
+package mathexprevaluator.models;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/*******************************************************************************
+ * Lock-free histogram of non-negative values with buckets of exponentially
+ * growing width. Bucket 0 holds the value 0 and bucket i the values from
+ * 2<sup>i-1</sup> to 2<sup>i</sup>-1, so any value fits into 64 buckets and
+ * recording it is just an increment of a {@link LongAdder}.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathHistogram {
+
+    private static final int BUCKET_COUNT = Long.SIZE;
+
+    private final LongAdder[] buckets;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    /***************************************************************************
+     * Default constructor.
+     */
+    public MathHistogram() {
+        this.buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /***************************************************************************
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param value value to record
+     */
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+
+        this.buckets[Long.SIZE - Long.numberOfLeadingZeros(clamped)]
+                .increment();
+        this.sum.add(clamped);
+        this.max.accumulate(clamped);
+    }
+
+    /***************************************************************************
+     * Takes a snapshot of the recorded values. The values being recorded
+     * meanwhile may or may not be included.
+     *
+     * @return newly created snapshot
+     */
+    public MathHistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = this.buckets[i].sum();
+        }
+
+        return new MathHistogramSnapshot(counts, this.sum.sum(),
+                this.max.get());
+    }
+
+    /***************************************************************************
+     * Discards all the recorded values. The values being recorded meanwhile
+     * may or may not be discarded.
+     */
+    public void reset() {
+        for (LongAdder bucket: this.buckets) {
+            bucket.reset();
+        }
+
+        this.sum.reset();
+        this.max.reset();
+    }
+
+}
@@ -0,0 +1,140 @@
+package mathexprevaluator.models;
+
+/*******************************************************************************
+ * Immutable snapshot of a histogram of the metrics (see
+ * {@link MathExprMetrics}). The percentiles are approximated by the upper
+ * bound of the bucket they fall into, so they are at most twice the exact
+ * ones, but never above the maximum.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public final class MathHistogramSnapshot {
+
+    private final long[] buckets;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param buckets number of the values in each bucket, bucket i holding the
+     * values below 2<sup>i</sup>
+     * @param sum sum of the values
+     * @param max maximum value
+     */
+    MathHistogramSnapshot(long[] buckets, long sum, long max) {
+        long total = 0;
+        for (long bucket: buckets) {
+            total += bucket;
+        }
+
+        this.buckets = buckets;
+        this.count = total;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the recorded values
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return arithmetic mean of the recorded values, 0 if there is none
+     */
+    public double getMean() {
+        return (this.count == 0) ? 0.0 : (double) this.sum / this.count;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return maximum recorded value, 0 if there is none
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return approximate median
+     */
+    public long getP50() {
+        return this.getPercentile(0.50);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return approximate 90th percentile
+     */
+    public long getP90() {
+        return this.getPercentile(0.90);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return approximate 99th percentile
+     */
+    public long getP99() {
+        return this.getPercentile(0.99);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the values in each bucket, bucket 0 holding the value
+     * 0 and bucket i the values from 2<sup>i-1</sup> to 2<sup>i</sup>-1
+     */
+    public long[] getBuckets() {
+        return this.buckets.clone();
+    }
+
+    /***************************************************************************
+     * Approximates the percentile of the recorded values.
+     *
+     * @param fraction fraction of the values at or below the percentile,
+     * from 0 to 1
+     *
+     * @return upper bound of the bucket the percentile falls into, capped by
+     * the maximum, 0 if there is no value
+     */
+    public long getPercentile(double fraction) {
+        long rank = (long) Math.ceil(fraction * this.count);
+        long seen = 0;
+
+        for (int i = 0; i < this.buckets.length; i++) {
+            seen += this.buckets[i];
+            if (seen >= rank && seen > 0) {
+                long upperBound = (i == 0) ? 0 : (1L << i) - 1;
+
+                return Math.min(upperBound, this.max);
+            }
+        }
+
+        return 0;
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return summary of the snapshot
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+                this.count, this.getMean(), this.getP50(), this.getP90(),
+                this.getP99(), this.max);
+    }
+
+}
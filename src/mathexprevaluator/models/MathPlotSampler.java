@@ -0,0 +1,382 @@
+package mathexprevaluator.models;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprParallelBatch;
+
+/*******************************************************************************
+ * Samples a function of a single variable, <code>y = f(x)</code>, to be
+ * plotted over a viewport of a given size in pixels.
+ * 
+ * <p>The level of detail follows the width of a pixel. The base samples lie
+ * on a grid of a step of a power of two, at most one pixel wide, so there are
+ * one to two of them per pixel. The base samples missing from the previous
+ * call are evaluated at once by {@link MathExprParallelBatch}, using all the
+ * cores. As the grid is fixed to x = 0 rather than to the viewport, panning
+ * reuses all the samples still visible and zooming by a power of two reuses
+ * every other one. Only the newly exposed ranges are evaluated.
+ * 
+ * <p>Where the curve bends by more than half a pixel, which the second
+ * differences of the base samples tell without evaluating anything more, or
+ * where it ceases to be defined, the interval between the base samples is
+ * refined adaptively - halved as long as its midpoint deviates from the
+ * chord, down to 1/64 of a pixel. A jump by more than the height of the
+ * viewport which persists at that depth is a discontinuity, e.g. of
+ * <code>1 / x</code> at zero, and the curve is broken there rather than
+ * joined by a vertical line. The intervals are refined in parallel and the
+ * points found are kept as long as they stay in the viewport and its scale
+ * does not change.
+ * 
+ * <p>Due to the samples kept, an instance must not be used by multiple
+ * threads at once.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathPlotSampler {
+    
+    /** Maximum number of halvings of an interval between base samples. */
+    public static final int MAX_REFINE_DEPTH = 6;
+    
+    private static final int MIN_CHUNK_ROWS = 256;
+    
+    private final MathExpr expr;
+    private final int slot;
+    private final int varCount;
+    private final MathExprParallelBatch batch;
+    
+    // Base samples of the last call, at x = index * 2^level.
+    private int level;
+    private long firstIndex;
+    private int sampleCount;
+    private double[] values;
+    private double[] spareValues;
+    
+    // Base samples to evaluate, the columns holding their x at the slot.
+    private double[][] columns;
+    private int[] targets;
+    private double[] evaluated;
+    
+    // Refined points of the intervals, by the index of their first sample.
+    private final HashMap<Long, double[]> refinements;
+    private double tolerance;
+    private int evalCount;
+    
+    /***************************************************************************
+     * Default constructor.
+     * 
+     * @param expr parsed expression of the function
+     * @param slot slot of the variable x, the other variables are zero
+     */
+    public MathPlotSampler(MathExpr expr, int slot) {
+        this.expr = expr;
+        this.slot = slot;
+        this.varCount = (expr.getVarTable() == null) ? slot + 1
+                : Math.max(slot + 1, expr.getVarTable().getSize());
+        this.batch = new MathExprParallelBatch(expr,
+                ForkJoinPool.commonPool(), MIN_CHUNK_ROWS);
+        this.values = new double[0];
+        this.spareValues = new double[0];
+        this.columns = new double[this.varCount][0];
+        this.targets = new int[0];
+        this.evaluated = new double[0];
+        this.refinements = new HashMap<>();
+        this.tolerance = Double.NaN;
+    }
+    
+    /***************************************************************************
+     * Samples the function over the viewport.
+     * 
+     * @param xMin left edge of the viewport
+     * @param xMax right edge of the viewport
+     * @param width width of the viewport in pixels
+     * @param yMin bottom edge of the viewport
+     * @param yMax top edge of the viewport
+     * @param height height of the viewport in pixels
+     * @param out points to fill, replacing the previous ones, including one
+     * base sample beyond each side of the viewport
+     */
+    public void sample(double xMin, double xMax, int width, double yMin,
+            double yMax, int height, MathPlotSamples out) {
+        if (!(xMin < xMax) || !(yMin < yMax) || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException(String.format("Invalid "
+                    + "viewport [%g, %g] x [%g, %g] of %d x %d pixels",
+                    xMin, xMax, yMin, yMax, width, height));
+        }
+        
+        int newLevel = Math.getExponent((xMax - xMin) / width);
+        long first = (long) Math.floor(Math.scalb(xMin, -newLevel)) - 1;
+        long last = (long) Math.ceil(Math.scalb(xMax, -newLevel)) + 1;
+        double newTolerance = 0.5 * (yMax - yMin) / height;
+        
+        if (newLevel != this.level || newTolerance != this.tolerance) {
+            this.refinements.clear();
+        } else {
+            this.refinements.keySet().removeIf(
+                    index -> index < first || index >= last);
+        }
+        
+        this.evalCount = 0;
+        this.updateBase(newLevel, first, (int) (last - first + 1));
+        this.tolerance = newTolerance;
+        this.refine(yMax - yMin);
+        
+        out.clear();
+        for (int i = 0; i < this.sampleCount; i++) {
+            out.add(this.xAt(this.firstIndex + i), this.values[i]);
+            
+            double[] points = (i + 1 < this.sampleCount)
+                    ? this.refinements.get(this.firstIndex + i) : null;
+            if (points != null && this.isRefined(i)) {
+                for (int j = 0; j < points.length; j += 2) {
+                    out.add(points[j], points[j + 1]);
+                }
+            }
+        }
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return number of the evaluations of the function done by the last
+     * call of {@link #sample}
+     */
+    public int getEvalCount() {
+        return this.evalCount;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return sampled expression
+     */
+    public MathExpr getExpr() {
+        return this.expr;
+    }
+    
+    /***************************************************************************
+     * Fills the base samples of the new grid, taking those of the previous
+     * one where they coincide and evaluating the rest.
+     * 
+     * @param newLevel exponent of the step of the grid
+     * @param first index of the first base sample
+     * @param count number of the base samples
+     */
+    private void updateBase(int newLevel, long first, int count) {
+        if (this.spareValues.length < count) {
+            this.spareValues = new double[count];
+        }
+        if (this.targets.length < count) {
+            this.targets = new int[count];
+            this.evaluated = new double[count];
+            for (int i = 0; i < this.varCount; i++) {
+                this.columns[i] = new double[count];
+            }
+        }
+        
+        double[] newValues = this.spareValues;
+        double[] xs = this.columns[this.slot];
+        int missing = 0;
+        
+        for (int i = 0; i < count; i++) {
+            long index = first + i;
+            int old = this.findOld(index, newLevel);
+            
+            if (old >= 0) {
+                newValues[i] = this.values[old];
+            } else {
+                xs[missing] = Math.scalb((double) index, newLevel);
+                this.targets[missing++] = i;
+            }
+        }
+        
+        if (missing > 0) {
+            this.batch.eval(this.columns, this.evaluated, missing);
+            for (int i = 0; i < missing; i++) {
+                newValues[this.targets[i]] = this.evaluated[i];
+            }
+            this.evalCount += missing;
+        }
+        
+        this.spareValues = this.values;
+        this.values = newValues;
+        this.level = newLevel;
+        this.firstIndex = first;
+        this.sampleCount = count;
+    }
+    
+    /***************************************************************************
+     * Finds the base sample of the previous grid at the same x.
+     * 
+     * @param index index of the base sample in the new grid
+     * @param newLevel exponent of the step of the new grid
+     * 
+     * @return position of the previous base sample, -1 if there is none
+     */
+    private int findOld(long index, int newLevel) {
+        if (this.sampleCount == 0) {
+            return -1;
+        }
+        
+        int shift = newLevel - this.level;
+        long oldIndex;
+        
+        if (shift >= 0) {
+            oldIndex = (shift < Long.SIZE - 1) ? index << shift : 0;
+            if ((oldIndex >> shift) != index) {
+                return -1; // Overflow.
+            }
+        } else if (-shift < Long.SIZE - 1
+                && (index & ((1L << -shift) - 1)) == 0) {
+            oldIndex = index >> -shift;
+        } else {
+            return -1;
+        }
+        
+        long position = oldIndex - this.firstIndex;
+        
+        return (position >= 0 && position < this.sampleCount)
+                ? (int) position : -1;
+    }
+    
+    /***************************************************************************
+     * Refines all the intervals between the base samples needing it, which
+     * have not been refined yet.
+     * 
+     * @param jump change of y considered a discontinuity
+     */
+    private void refine(double jump) {
+        int[] pending = new int[0];
+        int pendingCount = 0;
+        
+        for (int i = 0; i + 1 < this.sampleCount; i++) {
+            if (this.isRefined(i)
+                    && !this.refinements.containsKey(this.firstIndex + i)) {
+                if (pendingCount == pending.length) {
+                    pending = Arrays.copyOf(pending,
+                            Math.max(16, pendingCount * 2));
+                }
+                pending[pendingCount++] = i;
+            }
+        }
+        
+        if (pendingCount == 0) {
+            return;
+        }
+        
+        final int[] intervals = pending;
+        double[][] results = new double[pendingCount][];
+        AtomicInteger counter = new AtomicInteger();
+        
+        IntStream.range(0, pendingCount).parallel().forEach(k -> {
+            int i = intervals[k];
+            double[] vars = new double[this.varCount];
+            MathPlotSamples points = new MathPlotSamples();
+            
+            this.refineInterval(this.xAt(this.firstIndex + i),
+                    this.values[i], this.xAt(this.firstIndex + i + 1),
+                    this.values[i + 1], 1, jump, vars, points, counter);
+            results[k] = points.toArray();
+        });
+        
+        for (int k = 0; k < pendingCount; k++) {
+            this.refinements.put(this.firstIndex + intervals[k], results[k]);
+        }
+        this.evalCount += counter.get();
+    }
+    
+    /***************************************************************************
+     * Refines an interval by halving it as long as its midpoint deviates
+     * from the chord, adding the midpoints found in the order of x.
+     * 
+     * @param x0 left end of the interval
+     * @param y0 value at the left end
+     * @param x1 right end of the interval
+     * @param y1 value at the right end
+     * @param depth number of the halvings so far, including this one
+     * @param jump change of y considered a discontinuity
+     * @param vars values of the variables, x to be set
+     * @param points points to add the midpoints to
+     * @param counter counter of the evaluations
+     */
+    private void refineInterval(double x0, double y0, double x1, double y1,
+            int depth, double jump, double[] vars, MathPlotSamples points,
+            AtomicInteger counter) {
+        double xm = 0.5 * (x0 + x1);
+        
+        vars[this.slot] = xm;
+        double ym = this.expr.eval(vars);
+        counter.incrementAndGet();
+        
+        boolean isSmooth = Double.isFinite(y0) && Double.isFinite(ym)
+                && Double.isFinite(y1)
+                && Math.abs(ym - 0.5 * (y0 + y1)) <= this.tolerance;
+        
+        if (isSmooth || depth == MAX_REFINE_DEPTH) {
+            if (!isSmooth && Math.abs(ym - y0) > jump) {
+                points.add(0.5 * (x0 + xm), Double.NaN);
+            }
+            points.add(xm, ym);
+            if (!isSmooth && Math.abs(y1 - ym) > jump) {
+                points.add(0.5 * (xm + x1), Double.NaN);
+            }
+            return;
+        }
+        
+        this.refineInterval(x0, y0, xm, ym, depth + 1, jump, vars, points,
+                counter);
+        points.add(xm, ym);
+        this.refineInterval(xm, ym, x1, y1, depth + 1, jump, vars, points,
+                counter);
+    }
+    
+    /***************************************************************************
+     * Decides whether the interval between two base samples needs to be
+     * refined - whether the curve bends at either of its ends by more than
+     * the tolerance, or it is defined at just one of them.
+     * 
+     * @param i position of the first base sample of the interval
+     * 
+     * @return true if the interval is to be refined
+     */
+    private boolean isRefined(int i) {
+        return Double.isFinite(this.values[i])
+                != Double.isFinite(this.values[i + 1])
+                || this.isBent(i) || this.isBent(i + 1);
+    }
+    
+    /***************************************************************************
+     * Decides whether the curve bends at a base sample, i.e. the sample
+     * deviates from the chord of its neighbours by more than the tolerance.
+     * 
+     * @param i position of the base sample
+     * 
+     * @return true if the curve bends there
+     */
+    private boolean isBent(int i) {
+        if (i == 0 || i + 1 == this.sampleCount) {
+            return false;
+        }
+        
+        double deviation = this.values[i]
+                - 0.5 * (this.values[i - 1] + this.values[i + 1]);
+        
+        return Math.abs(deviation) > this.tolerance;
+    }
+    
+    /***************************************************************************
+     * Calculates x of a base sample.
+     * 
+     * @param index index of the base sample
+     * 
+     * @return x of the base sample
+     */
+    private double xAt(long index) {
+        return Math.scalb((double) index, this.level);
+    }
+    
+}
@@ -0,0 +1,100 @@
+package mathexprevaluator.models;
+
+import java.util.Arrays;
+
+/*******************************************************************************
+ * Points of a plotted function, ordered by x, as filled by
+ * {@link MathPlotSampler}. A point whose y is not finite is a gap in the
+ * curve - either the function is not defined there, or it marks a
+ * discontinuity between its neighbours. The arrays grow as needed and are
+ * kept, so refilling the same instance allocates nothing.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathPlotSamples {
+
+    private double[] xs;
+    private double[] ys;
+    private int count;
+
+    /***************************************************************************
+     * Default constructor.
+     */
+    public MathPlotSamples() {
+        this.xs = new double[256];
+        this.ys = new double[256];
+        this.count = 0;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the points
+     */
+    public int getCount() {
+        return this.count;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @param index index of the point
+     *
+     * @return x of the point
+     */
+    public double getX(int index) {
+        return this.xs[index];
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @param index index of the point
+     *
+     * @return y of the point, not finite for a gap
+     */
+    public double getY(int index) {
+        return this.ys[index];
+    }
+
+    /***************************************************************************
+     * Removes all the points, keeping the arrays.
+     */
+    void clear() {
+        this.count = 0;
+    }
+
+    /***************************************************************************
+     * Appends a point.
+     *
+     * @param x x of the point
+     * @param y y of the point
+     */
+    void add(double x, double y) {
+        if (this.count == this.xs.length) {
+            this.xs = Arrays.copyOf(this.xs, this.count * 2);
+            this.ys = Arrays.copyOf(this.ys, this.count * 2);
+        }
+
+        this.xs[this.count] = x;
+        this.ys[this.count++] = y;
+    }
+
+    /***************************************************************************
+     * Copies the points to an array of interleaved coordinates.
+     *
+     * @return x and y of each point, one after another
+     */
+    double[] toArray() {
+        double[] points = new double[this.count * 2];
+
+        for (int i = 0; i < this.count; i++) {
+            points[2 * i] = this.xs[i];
+            points[2 * i + 1] = this.ys[i];
+        }
+
+        return points;
+    }
+
+}
@@ -4,9 +4,9 @@ package mathexprevaluator.models.parser;
  * Abstract class providing a functionality for binary mathematical operations.
  * 
  * @author Milan Ondrasovic
- * @version 2015-08-09
+ * @version 2026-10-18
  */
-abstract class AMathBinOper implements IMathExpr {
+abstract class AMathBinOper implements IMathChunkExpr {
     
     protected final IMathExpr leftOperand;
     protected final IMathExpr rightOperand;
@@ -28,6 +28,56 @@ abstract class AMathBinOper implements IMathExpr {
         this.operation = operation;
     }
     
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        context.evalChunk(this.leftOperand, row, count, dst, dstOffset);
+        
+        double[] rightVals = context.acquire();
+        context.evalChunk(this.rightOperand, row, count, rightVals, 0);
+        this.applyChunk(dst, dstOffset, rightVals, count);
+        context.release();
+    }
+    
+    /***************************************************************************
+     * Applies the operation to a chunk of values, element by element.
+     * 
+     * @param dst values of the left operand, replaced by the results
+     * @param dstOffset index of the first left operand value
+     * @param rightVals values of the right operand, starting at index 0
+     * @param count number of values
+     */
+    protected abstract void applyChunk(double[] dst, int dstOffset,
+            double[] rightVals, int count);
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return binary operation represented
+     */
+    public MathBinOper getOperation() {
+        return this.operation;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return left operand
+     */
+    public IMathExpr getLeftOperand() {
+        return this.leftOperand;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return right operand
+     */
+    public IMathExpr getRightOperand() {
+        return this.rightOperand;
+    }
+    
     /***************************************************************************
      * String representation of the object.
      * 
@@ -35,8 +85,7 @@ abstract class AMathBinOper implements IMathExpr {
      */
     @Override
     public String toString() {
-        return String.format("(%s %s %s)", this.leftOperand, this.operation,
-                this.rightOperand);
+        return MathExprNodes.toString(this);
     }
     
 }
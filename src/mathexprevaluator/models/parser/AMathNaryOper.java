@@ -0,0 +1,136 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Abstract class providing a functionality for chains of an associative
+ * operation and its inverse, e.g. <code>a + b - c + d</code>. The operands are
+ * held in an array and combined from the left to the right by a loop, so the
+ * length of the chain does not affect the depth of the tree.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+abstract class AMathNaryOper implements IMathChunkExpr {
+
+    protected final IMathExpr[] operands;
+    protected final MathBinOper[] operations;
+
+    /***************************************************************************
+     * Builds the chain of the operands, or a binary operation if there are
+     * only two of them.
+     *
+     * @param operations operation preceding each operand, the first one is
+     * ignored
+     * @param operands operands of the chain, at least two
+     * @param count number of the operands to use
+     *
+     * @return new instance of math. expression
+     */
+    static IMathExpr buildChain(MathBinOper[] operations, IMathExpr[] operands,
+            int count) {
+        if (count == 2) {
+            return MathBinOper.buildBinaryOper(operations[1], operands[0],
+                    operands[1]);
+        }
+
+        IMathExpr[] chainOperands = new IMathExpr[count];
+        MathBinOper[] chainOperations = new MathBinOper[count];
+
+        System.arraycopy(operands, 0, chainOperands, 0, count);
+        System.arraycopy(operations, 0, chainOperations, 0, count);
+
+        switch (operations[1]) {
+            case ADD:
+            case SUB:
+                chainOperations[0] = MathBinOper.ADD;
+                return new MathExprSum(chainOperands, chainOperations);
+            case MUL:
+            case DIV:
+                chainOperations[0] = MathBinOper.MUL;
+                return new MathExprProduct(chainOperands, chainOperations);
+            default:
+                throw new IllegalArgumentException("Not an associative "
+                        + "operation: " + operations[1]);
+        }
+    }
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param operands operands of the chain
+     * @param operations operation preceding each operand, the first one being
+     * the associative operation itself
+     */
+    public AMathNaryOper(IMathExpr[] operands, MathBinOper[] operations) {
+        this.operands = operands;
+        this.operations = operations;
+    }
+
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        context.evalChunk(this.operands[0], row, count, dst, dstOffset);
+
+        double[] vals = context.acquire();
+        for (int i = 1; i < this.operands.length; i++) {
+            context.evalChunk(this.operands[i], row, count, vals, 0);
+            this.applyChunk(this.operations[i], dst, dstOffset, vals, count);
+        }
+        context.release();
+    }
+
+    /***************************************************************************
+     * Applies the operation to a chunk of values, element by element.
+     *
+     * @param operation operation to apply, the associative one or its inverse
+     * @param dst values calculated so far, replaced by the results
+     * @param dstOffset index of the first value calculated so far
+     * @param vals values of the next operand, starting at index 0
+     * @param count number of values
+     */
+    protected abstract void applyChunk(MathBinOper operation, double[] dst,
+            int dstOffset, double[] vals, int count);
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the operands
+     */
+    public int getOperandCount() {
+        return this.operands.length;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @param index index of the operand
+     *
+     * @return operand at the index
+     */
+    public IMathExpr getOperand(int index) {
+        return this.operands[index];
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @param index index of the operand
+     *
+     * @return operation combining the operand with the preceding ones, the
+     * associative operation itself for the first operand
+     */
+    public MathBinOper getOperation(int index) {
+        return this.operations[index];
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return (operand0 operation1 operand1 ...)
+     */
+    @Override
+    public String toString() {
+        return MathExprNodes.toString(this);
+    }
+
+}
@@ -0,0 +1,24 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Interface implemented by the expressions able to calculate a whole chunk of
+ * rows at once (see {@link MathExprBatch}).
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+interface IMathChunkExpr extends IMathExpr {
+    
+    /***************************************************************************
+     * Calculates the values of the expression for a chunk of rows.
+     * 
+     * @param context context of the batch evaluation
+     * @param row index of the first row of the chunk
+     * @param count number of rows of the chunk, at most the chunk size
+     * @param dst array to store the values to
+     * @param dstOffset index to store the value of the first row to
+     */
+    void evalChunk(MathChunkContext context, int row, int count, double[] dst,
+            int dstOffset);
+    
+}
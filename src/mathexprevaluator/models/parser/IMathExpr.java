@@ -3,16 +3,35 @@ package mathexprevaluator.models.parser;
 /*******************************************************************************
  * Interface which will be implemented by all mathematical expressions.
  * 
+ * <p>The implementations must be immutable and must keep any state of an
+ * evaluation local to it, so {@link #eval(double[])} may be called by
+ * multiple threads at once.
+ * 
  * @author Milan Ondrasovic
- * @version 2015-08-05
+ * @version 2026-10-18
  */
 public interface IMathExpr {
     
+    /** Values of an expression which does not contain any variable. */
+    double[] NO_VARS = new double[0];
+    
+    /***************************************************************************
+     * Calculates the value of the expression which contains no variables.
+     * 
+     * @return numerical value calculated
+     */
+    default double eval() {
+        return this.eval(NO_VARS);
+    }
+    
     /***************************************************************************
-     * Calculates the value of the expression.
+     * Calculates the value of the expression for the given variable values.
+     * 
+     * @param vars values of the variables, indexed by their slots within the
+     * {@link MathVarTable} the expression has been parsed with
      * 
      * @return numerical value calculated
      */
-    double eval();
+    double eval(double[] vars);
     
 }
@@ -8,11 +8,14 @@ package mathexprevaluator.models.parser;
  */
 public class InvalidMathExprException extends Exception {
 
+    private final MathExprErrorKind kind;
+
     /***************************************************************************
      * Creates a new instance of <code>InvalidMathExprException</code> without
      * detail message.
      */
     public InvalidMathExprException() {
+        this.kind = MathExprErrorKind.UNSPECIFIED;
     }
 
     /***************************************************************************
@@ -22,7 +25,28 @@ public class InvalidMathExprException extends Exception {
      * @param msg the detail message.
      */
     public InvalidMathExprException(String msg) {
+        this(MathExprErrorKind.UNSPECIFIED, msg);
+    }
+
+    /***************************************************************************
+     * Constructs an instance of <code>InvalidMathExprException</code> with the
+     * specified cause of the error and detail message.
+     *
+     * @param kind cause of the syntax error
+     * @param msg the detail message.
+     */
+    public InvalidMathExprException(MathExprErrorKind kind, String msg) {
         super(msg);
+        this.kind = kind;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return cause of the syntax error
+     */
+    public MathExprErrorKind getKind() {
+        return this.kind;
     }
     
 }
@@ -4,7 +4,7 @@ package mathexprevaluator.models.parser;
  * Enumerate type which contains all supported binary mathematical operations.
  * 
  * @author Milan Ondrasovic
- * @version 2015-08-04
+ * @version 2026-10-18
  */
 public enum MathBinOper {
     
@@ -15,6 +15,8 @@ public enum MathBinOper {
     DIV('/', false),
     POW('^', false);
     
+    private static final MathBinOper[] VALUES = MathBinOper.values();
+    
     private final char sing;
     private final boolean leftToRightPriority;
     
@@ -45,6 +47,23 @@ public enum MathBinOper {
         }
     }
     
+    /***************************************************************************
+     * Finds the binary mathematical operation by its standard symbol.
+     * 
+     * @param sign standard symbol of the operation
+     * 
+     * @return operation with the symbol, or null if there is none
+     */
+    public static MathBinOper fromSign(char sign) {
+        for (MathBinOper operation: VALUES) {
+            if (operation.sing == sign) {
+                return operation;
+            }
+        }
+        
+        return null;
+    }
+    
     /***************************************************************************
      * Default constructor.
      * 
@@ -0,0 +1,162 @@
+package mathexprevaluator.models.parser;
+
+import java.util.Arrays;
+
+/*******************************************************************************
+ * Context of a batch evaluation - the input columns and the scratch buffers
+ * of the chunk size. The buffers are allocated on first use and reused by
+ * all the following chunks and batches, as is the operand stack of the
+ * programs evaluated row by row (see {@link MathExprProgram}).
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathChunkContext {
+    
+    private final int chunkSize;
+    private final int frameBase;
+    private final double[][] temps;
+    private final double[] rowVars;
+    private double[] stack;
+    private double[][] buffers;
+    private int bufferCount;
+    private double[][] columns;
+    
+    /***************************************************************************
+     * Default constructor.
+     * 
+     * @param chunkSize maximum number of rows of a chunk
+     * @param frameBase number of variable slots, preceding the shared values
+     * in the frame of the expression
+     * @param tempCount number of the shared values
+     */
+    public MathChunkContext(int chunkSize, int frameBase, int tempCount) {
+        this.chunkSize = chunkSize;
+        this.frameBase = frameBase;
+        this.temps = new double[tempCount][chunkSize];
+        this.rowVars = new double[frameBase + tempCount];
+        this.stack = new double[0];
+        this.buffers = new double[4][];
+        this.bufferCount = 0;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return maximum number of rows of a chunk
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+    
+    /***************************************************************************
+     * Setter. Releases all the scratch buffers as well.
+     * 
+     * @param columns values of the variables, one column per slot
+     */
+    public void setColumns(double[][] columns) {
+        this.columns = columns;
+        this.bufferCount = 0;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @param slot slot of the variable
+     * 
+     * @return column of the variable values
+     */
+    public double[] getColumn(int slot) {
+        return this.columns[slot];
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @param slot slot of the shared value within the frame of the expression
+     * 
+     * @return buffer holding the shared values of the current chunk
+     */
+    public double[] getTemp(int slot) {
+        return this.temps[slot - this.frameBase];
+    }
+    
+    /***************************************************************************
+     * Acquires a scratch buffer of the chunk size. Buffers are acquired and
+     * released in the stack order.
+     * 
+     * @return scratch buffer
+     */
+    public double[] acquire() {
+        if (this.bufferCount == this.buffers.length) {
+            this.buffers = Arrays.copyOf(this.buffers, this.bufferCount * 2);
+        }
+        if (this.buffers[this.bufferCount] == null) {
+            this.buffers[this.bufferCount] = new double[this.chunkSize];
+        }
+        
+        return this.buffers[this.bufferCount++];
+    }
+    
+    /***************************************************************************
+     * Releases the most recently acquired scratch buffer.
+     */
+    public void release() {
+        this.bufferCount--;
+    }
+    
+    /***************************************************************************
+     * Calculates the values of any expression for a chunk of rows. The
+     * expressions unable to do so are evaluated row by row.
+     * 
+     * @param expr expression to evaluate
+     * @param row index of the first row of the chunk
+     * @param count number of rows of the chunk
+     * @param dst array to store the values to
+     * @param dstOffset index to store the value of the first row to
+     */
+    public void evalChunk(IMathExpr expr, int row, int count, double[] dst,
+            int dstOffset) {
+        if (expr instanceof IMathChunkExpr) {
+            ((IMathChunkExpr) expr).evalChunk(this, row, count, dst,
+                    dstOffset);
+            return;
+        }
+        
+        if (expr instanceof MathExprProgram) {
+            MathExprProgram program = (MathExprProgram) expr;
+            if (this.stack.length < program.getStackSize()) {
+                this.stack = new double[program.getStackSize()];
+            }
+            
+            for (int i = 0; i < count; i++) {
+                this.loadRow(row, i);
+                dst[dstOffset + i] = program.eval(this.rowVars, this.stack);
+            }
+            return;
+        }
+        
+        for (int i = 0; i < count; i++) {
+            this.loadRow(row, i);
+            dst[dstOffset + i] = expr.eval(this.rowVars);
+        }
+    }
+    
+    /***************************************************************************
+     * Copies the values of the variables and of the shared subexpressions of
+     * a single row into the row frame.
+     * 
+     * @param row index of the first row of the chunk
+     * @param offset index of the row within the chunk
+     */
+    private void loadRow(int row, int offset) {
+        int varCount = Math.min(this.frameBase, this.columns.length);
+        for (int slot = 0; slot < varCount; slot++) {
+            this.rowVars[slot] = this.columns[slot][row + offset];
+        }
+        for (int j = 0; j < this.temps.length; j++) {
+            this.rowVars[this.frameBase + j] = this.temps[j][offset];
+        }
+    }
+    
+}
@@ -0,0 +1,337 @@
+package mathexprevaluator.models.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/*******************************************************************************
+ * Minimal writer of Java class files. It supports only what the expression
+ * compiler needs - a constant pool, methods without exception handlers and no
+ * fields. Methods must not contain branches, hence no stack map frames are
+ * written.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathClassWriter {
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION_JAVA_8 = 52;
+    private static final int MAX_POOL_SIZE = 0xFFFF;
+    private static final int MAX_UTF8_LENGTH = 0xFFFF;
+
+    private static final int TAG_UTF8 = 1;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_CLASS = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_METHOD_REF = 10;
+    private static final int TAG_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes;
+    private final DataOutputStream pool;
+    private final HashMap<String, Integer> poolIndices;
+    private final List<byte[]> methods;
+    private int poolSize;
+
+    /***************************************************************************
+     * Default constructor.
+     */
+    public MathClassWriter() {
+        this.poolBytes = new ByteArrayOutputStream();
+        this.pool = new DataOutputStream(this.poolBytes);
+        this.poolIndices = new HashMap<>();
+        this.methods = new ArrayList<>();
+        this.poolSize = 1; // Index 0 is not used.
+    }
+
+    /***************************************************************************
+     * Checks whether the string fits into a UTF-8 entry of the constant pool,
+     * i.e. whether its modified UTF-8 encoding takes at most 65535 bytes.
+     *
+     * @param text string to check
+     * @return true if the string can be added to the constant pool, false
+     * otherwise
+     */
+    public static boolean isUtf8Valid(String text) {
+        int length = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+
+            if (c >= 0x0001 && c <= 0x007F) {
+                length++;
+            } else if (c <= 0x07FF) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+
+            if (length > MAX_UTF8_LENGTH) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /***************************************************************************
+     * Adds a UTF-8 string to the constant pool. The string has to be valid
+     * (see {@link #isUtf8Valid(String)}).
+     *
+     * @param text string to add
+     * @return index within the constant pool
+     */
+    public int utf8(String text) {
+        String key = "U" + text;
+        Integer index = this.poolIndices.get(key);
+
+        if (index == null) {
+            index = this.newEntry(key, 1);
+            this.writePool(TAG_UTF8);
+            try {
+                this.pool.writeUTF(text);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        return index;
+    }
+
+    /***************************************************************************
+     * Adds a class reference to the constant pool.
+     *
+     * @param internalName internal name of the class, e.g. java/lang/Math
+     * @return index within the constant pool
+     */
+    public int classRef(String internalName) {
+        String key = "C" + internalName;
+        Integer index = this.poolIndices.get(key);
+
+        if (index == null) {
+            int nameIndex = this.utf8(internalName);
+
+            index = this.newEntry(key, 1);
+            this.writePool(TAG_CLASS);
+            this.writePool2(nameIndex);
+        }
+
+        return index;
+    }
+
+    /***************************************************************************
+     * Adds a string constant to the constant pool.
+     *
+     * @param text string to add
+     * @return index within the constant pool
+     */
+    public int stringConst(String text) {
+        String key = "S" + text;
+        Integer index = this.poolIndices.get(key);
+
+        if (index == null) {
+            int textIndex = this.utf8(text);
+
+            index = this.newEntry(key, 1);
+            this.writePool(TAG_STRING);
+            this.writePool2(textIndex);
+        }
+
+        return index;
+    }
+
+    /***************************************************************************
+     * Adds a double constant to the constant pool. The constant takes two
+     * entries of the pool.
+     *
+     * @param val value to add
+     * @return index within the constant pool
+     */
+    public int doubleConst(double val) {
+        long bits = Double.doubleToRawLongBits(val);
+        String key = "D" + bits;
+        Integer index = this.poolIndices.get(key);
+
+        if (index == null) {
+            index = this.newEntry(key, 2);
+            this.writePool(TAG_DOUBLE);
+            this.writePool2((int) (bits >>> 48));
+            this.writePool2((int) (bits >>> 32));
+            this.writePool2((int) (bits >>> 16));
+            this.writePool2((int) bits);
+        }
+
+        return index;
+    }
+
+    /***************************************************************************
+     * Adds a method reference to the constant pool.
+     *
+     * @param owner internal name of the class declaring the method
+     * @param name name of the method
+     * @param descriptor descriptor of the method, e.g. (DD)D
+     * @return index within the constant pool
+     */
+    public int methodRef(String owner, String name, String descriptor) {
+        String key = "M" + owner + '.' + name + descriptor;
+        Integer index = this.poolIndices.get(key);
+
+        if (index == null) {
+            int classIndex = this.classRef(owner);
+            int nameIndex = this.utf8(name);
+            int descIndex = this.utf8(descriptor);
+
+            int natIndex = this.newEntry("N" + name + descriptor, 1);
+            this.writePool(TAG_NAME_AND_TYPE);
+            this.writePool2(nameIndex);
+            this.writePool2(descIndex);
+
+            index = this.newEntry(key, 1);
+            this.writePool(TAG_METHOD_REF);
+            this.writePool2(classIndex);
+            this.writePool2(natIndex);
+        }
+
+        return index;
+    }
+
+    /***************************************************************************
+     * Adds a method with the given bytecode.
+     *
+     * @param access access flags of the method
+     * @param name name of the method
+     * @param descriptor descriptor of the method
+     * @param code bytecode of the method
+     * @param maxStack maximum depth of the operand stack
+     * @param maxLocals number of local variable slots, including parameters
+     */
+    public void addMethod(int access, String name, String descriptor,
+            byte[] code, int maxStack, int maxLocals) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeShort(access);
+            out.writeShort(this.utf8(name));
+            out.writeShort(this.utf8(descriptor));
+            out.writeShort(1); // Attribute "Code" only.
+
+            out.writeShort(this.utf8("Code"));
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // No exception handlers.
+            out.writeShort(0); // No attributes.
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        this.methods.add(bytes.toByteArray());
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return true if the constant pool is still within its size limit
+     */
+    public boolean isPoolValid() {
+        return this.poolSize <= MAX_POOL_SIZE;
+    }
+
+    /***************************************************************************
+     * Builds the class file.
+     *
+     * @param access access flags of the class
+     * @param thisName internal name of the class
+     * @param superName internal name of the superclass
+     * @param interfaceName internal name of the implemented interface
+     * @return content of the class file
+     */
+    public byte[] toByteArray(int access, String thisName, String superName,
+            String interfaceName) {
+        int thisIndex = this.classRef(thisName);
+        int superIndex = this.classRef(superName);
+        int interfaceIndex = this.classRef(interfaceName);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(VERSION_JAVA_8);
+            out.writeShort(this.poolSize);
+            this.pool.flush();
+            this.poolBytes.writeTo(out);
+
+            out.writeShort(access);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(1);
+            out.writeShort(interfaceIndex);
+
+            out.writeShort(0); // No fields.
+            out.writeShort(this.methods.size());
+            for (byte[] method: this.methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // No attributes.
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /***************************************************************************
+     * Reserves new entries of the constant pool.
+     *
+     * @param key key to remember the entry by
+     * @param size number of entries taken
+     * @return index of the first entry
+     */
+    private int newEntry(String key, int size) {
+        int index = this.poolSize;
+
+        this.poolIndices.put(key, index);
+        this.poolSize += size;
+
+        return index;
+    }
+
+    /***************************************************************************
+     * Writes a single byte to the constant pool.
+     *
+     * @param val byte to write
+     */
+    private void writePool(int val) {
+        try {
+            this.pool.writeByte(val);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /***************************************************************************
+     * Writes two bytes to the constant pool.
+     *
+     * @param val value to write
+     */
+    private void writePool2(int val) {
+        try {
+            this.pool.writeShort(val);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
@@ -1,241 +1,509 @@
 package mathexprevaluator.models.parser;
 
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
 /*******************************************************************************
  * Base class for all mathematical expressions.
  * 
+ * <p>A parsed expression is immutable - neither the expression nor any node
+ * of its tree changes after construction. The values of the shared
+ * subexpressions are kept in a frame private to each evaluation. Therefore
+ * the expression may be published to and evaluated by any number of threads
+ * at once without synchronization.
+ * 
+ * <p>The expression tree is walked recursively by the nodes themselves. A
+ * tree too deep for that, e.g. of a deeply nested expression like
+ * <code>1 - (1 - (1 - ...))</code>, is therefore translated into an
+ * equivalent {@link MathExprProgram} on its first evaluation, which is
+ * evaluated by a loop instead.
+ * 
+ * <p>An integer-only expression, e.g. <code>2 ^ 60 + 1 - 2 ^ 60</code>, is
+ * evaluated exactly, in <code>long</code> (see {@link #evalLong()}). Only
+ * should it overflow, it is evaluated in <code>double</code>.
+ * 
  * @author Milan Ondrasovic
- * @version 2015-08-04
+ * @version 2026-10-18
  */
 public class MathExpr implements IMathExpr {
     
-    // TODO Think about using a ArithmeticException somewhere.
-    private static final char BRACKET_OPEN = '(';
-    private static final char BRACKET_CLOSE = ')';
+    /** Maximum height of a tree walked recursively. */
+    static final int MAX_RECURSIVE_HEIGHT = 256;
+    
+    /** Marks an expression which can not be evaluated exactly. */
+    private static final MathExprConst NOT_EXACT = new MathExprConst(0.0);
     
-    private IMathExpr child;
+    private final IMathExpr child;
+    private final MathVarTable vars;
+    private final int frameBase;
+    private final int tempCount;
+    private final int height;
+    private volatile MathExprProgram program;
+    private volatile MathExprConst exactValue;
     
     /***************************************************************************
-     * Default constructor.
+     * Default constructor. Any character sequence may be passed, e.g. a
+     * <code>String</code>, a <code>StringBuilder</code> or a
+     * <code>CharBuffer</code>, and it is parsed in place.
      * 
      * @param expr expression to process
      * @throws InvalidMathExprException thrown in case of invalid syntax
      */
-    public MathExpr(String expr) throws InvalidMathExprException {
-        if (expr.equals("")) {
-            this.child = null;
-        } else {
-            // Remove all spaces, they occasionally make parsing more difficult.
-            this.parse(expr.replace(" ", ""));
-        }
+    public MathExpr(CharSequence expr) throws InvalidMathExprException {
+        this(expr, 0, expr.length(), null);
     }
     
     /***************************************************************************
-     * Evaluates the expression contained.
+     * Constructor parsing an expression which may contain variables.
      * 
-     * @return calculated numerical value
+     * @param expr expression to process
+     * @param vars table to resolve the variables with, null if the expression
+     * may not contain any
+     * @throws InvalidMathExprException thrown in case of invalid syntax
      */
-    @Override
-    public double eval() {
-        return (this.child == null) ? 0.0 : this.child.eval();
+    public MathExpr(CharSequence expr, MathVarTable vars)
+            throws InvalidMathExprException {
+        this(expr, 0, expr.length(), vars);
     }
     
     /***************************************************************************
-     * String representation of the object.
+     * Constructor parsing an expression which may contain variables and
+     * calls of the functions of the given table. The other constructors use
+     * the default table (see {@link MathFuncTable#getDefault()}).
      * 
-     * @return standard symbolic representation of the math. expression
+     * @param expr expression to process
+     * @param vars table to resolve the variables with, null if the expression
+     * may not contain any
+     * @param funcs table to resolve the functions with
+     * @throws InvalidMathExprException thrown in case of invalid syntax
      */
-    @Override
-    public String toString() {
-        return (this.child == null) ? String.format("%.2f", 0.0) : 
-                this.child.toString();
+    public MathExpr(CharSequence expr, MathVarTable vars,
+            MathFuncTable funcs) throws InvalidMathExprException {
+        this(expr, 0, expr.length(), vars, funcs);
+    }
+    
+    /***************************************************************************
+     * Constructor parsing only a part of the character sequence. No copy of
+     * the part is made.
+     * 
+     * @param expr character sequence containing the expression
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    public MathExpr(CharSequence expr, int start, int end)
+            throws InvalidMathExprException {
+        this(expr, start, end, null);
+    }
+    
+    /***************************************************************************
+     * Constructor parsing only a part of the character sequence, which may
+     * contain variables. No copy of the part is made.
+     * 
+     * @param expr character sequence containing the expression
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     * @param vars table to resolve the variables with, null if the expression
+     * may not contain any
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    public MathExpr(CharSequence expr, int start, int end, MathVarTable vars)
+            throws InvalidMathExprException {
+        this(expr, start, end, vars, MathFuncTable.getDefault());
+    }
+    
+    /***************************************************************************
+     * Constructor parsing only a part of the character sequence, which may
+     * contain variables and calls of the functions of the given table. No
+     * copy of the part is made.
+     * 
+     * @param expr character sequence containing the expression
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     * @param vars table to resolve the variables with, null if the expression
+     * may not contain any
+     * @param funcs table to resolve the functions with
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    public MathExpr(CharSequence expr, int start, int end, MathVarTable vars,
+            MathFuncTable funcs) throws InvalidMathExprException {
+        this(parse(expr, start, end, vars, funcs));
+    }
+    
+    /***************************************************************************
+     * Constructor parsing a part of the character array. The array is only
+     * wrapped, no copy of it is made.
+     * 
+     * @param expr array containing the expression
+     * @param offset index of the first character of the expression
+     * @param length number of characters of the expression
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    public MathExpr(char[] expr, int offset, int length)
+            throws InvalidMathExprException {
+        this(expr, offset, length, null);
+    }
+    
+    /***************************************************************************
+     * Constructor parsing a part of the character array, which may contain
+     * variables. The array is only wrapped, no copy of it is made.
+     * 
+     * @param expr array containing the expression
+     * @param offset index of the first character of the expression
+     * @param length number of characters of the expression
+     * @param vars table to resolve the variables with, null if the expression
+     * may not contain any
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    public MathExpr(char[] expr, int offset, int length, MathVarTable vars)
+            throws InvalidMathExprException {
+        this(CharBuffer.wrap(expr), offset, offset + length, vars);
+    }
+    
+    /***************************************************************************
+     * Constructor parsing the expression by the given parser.
+     * 
+     * @param parser parser of the expression, not used yet
+     * @param vars table the parser resolves the variables with, may be null
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    MathExpr(MathExprParser parser, MathVarTable vars)
+            throws InvalidMathExprException {
+        this(parse(parser, vars));
+    }
+    
+    /***************************************************************************
+     * Constructor wrapping an already built expression tree.
+     * 
+     * @param child root of the expression tree, null for an empty expression
+     * @param vars table the variables have been resolved with, may be null
+     */
+    MathExpr(IMathExpr child, MathVarTable vars) {
+        this(child, vars, 0, 0);
+    }
+    
+    /***************************************************************************
+     * Constructor wrapping an already built expression tree containing
+     * shared subexpressions (see {@link MathExprSharer}).
+     * 
+     * @param child root of the expression tree, null for an empty expression
+     * @param vars table the variables have been resolved with, may be null
+     * @param frameBase number of variable slots preceding the temporary ones
+     * @param tempCount number of temporary slots of the shared values
+     */
+    MathExpr(IMathExpr child, MathVarTable vars, int frameBase,
+            int tempCount) {
+        this.child = child;
+        this.vars = vars;
+        this.frameBase = frameBase;
+        this.tempCount = tempCount;
+        this.height = (child == null) ? 0 : MathExprNodes.getHeight(child);
+    }
+    
+    /***************************************************************************
+     * Constructor wrapping an already built expression tree of the known
+     * height.
+     * 
+     * @param child root of the expression tree, null for an empty expression
+     * @param vars table the variables have been resolved with, may be null
+     * @param height height of the expression tree
+     */
+    private MathExpr(IMathExpr child, MathVarTable vars, int height) {
+        this.child = child;
+        this.vars = vars;
+        this.frameBase = 0;
+        this.tempCount = 0;
+        this.height = height;
+    }
+    
+    /***************************************************************************
+     * Copy constructor, used by the constructors parsing the expression.
+     * 
+     * @param parsed expression parsed
+     */
+    private MathExpr(MathExpr parsed) {
+        this.child = parsed.child;
+        this.vars = parsed.vars;
+        this.frameBase = parsed.frameBase;
+        this.tempCount = parsed.tempCount;
+        this.height = parsed.height;
+    }
+    
+    /***************************************************************************
+     * Parses a part of the character sequence.
+     * 
+     * @param expr character sequence containing the expression
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     * @param vars table to resolve the variables with, may be null
+     * @param funcs table to resolve the functions with
+     * 
+     * @return expression parsed
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    private static MathExpr parse(CharSequence expr, int start, int end,
+            MathVarTable vars, MathFuncTable funcs)
+            throws InvalidMathExprException {
+        if (start < 0 || end > expr.length() || start > end) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "Range [%d, %d) out of bounds for length %d", start, end,
+                    expr.length()));
+        }
+        if (start == end) {
+            return new MathExpr(null, vars, 0);
+        }
+        
+        return parse(new MathExprParser(expr, start, end, vars, funcs), vars);
     }
     
     /***************************************************************************
-     * Parses the expression.
+     * Parses the expression by the given parser. The calls of the defined
+     * functions make the parsed tree a graph, the arguments being used as
+     * they are (see {@link MathMacro}), hence it is turned into a tree of
+     * shared subexpressions, so that each argument is calculated only once.
+     * 
+     * @param parser parser of the expression, not used yet
+     * @param vars table the parser resolves the variables with, may be null
      * 
-     * @param expr expression to parse
-     * @throws InvalidMathExprException thrown in case of syntax error
+     * @return expression parsed
+     * @throws InvalidMathExprException thrown in case of invalid syntax
      */
-    private void parse(String expr) throws InvalidMathExprException {
-        if (!this.containsDigit(expr)) {
-            throw new InvalidMathExprException("Expression must contain at "
-                    + "least one digit.");
+    private static MathExpr parse(MathExprParser parser, MathVarTable vars)
+            throws InvalidMathExprException {
+        IMathExpr root = parser.parse();
+        
+        if (parser.hasInlined()) {
+            return MathExprNodes.share(root, vars, 0);
         }
-        /* The following algorithm is used to parse the math. expression:
         
-        Note: The subsequent splitting of the expression has to be done when the
-        particular standard symbol representing the mathematical operation is
-        not inside of brackets. That's why the outermost bracket pair is always
-        removed when no point to split at has been found and the parsing starts
-        all over again.
+        return new MathExpr(root, vars, parser.getHeight());
+    }
+    
+    /***************************************************************************
+     * Evaluates the expression contained.
+     * 
+     * @param vars values of the variables, indexed by their slots
+     * 
+     * @return calculated numerical value
+     */
+    @Override
+    public double eval(double[] vars) {
+        if (this.tempCount == 0) {
+            return this.evalInFrame(vars);
+        }
         
-        1) Find a '+' sign (left-to-right) and split at this point.
-           If none found, go to step 2.
-        2) Find a '-' sign (right-to-left) and split at this point.
-           If none found, go to step 3.
-        3) Find a '*' sign (left-to-right) and split at this point.
-           If none found, go to step 4.
-        4) Find a '/' sign (right-to-left) and split at this point.
-           If none found, go to step 5.
-        5) Remove outermost brackets.
-           If success, go to step 1, if none found, go to step 6.
-        6) Parse the remaining expression as a math element - a number.
-           If an error occurs, the expression is invalid.
-        */
-        while (true) {
-            try {
-                for (MathBinOper operator: MathBinOper.values()) {
-                    IMathExpr subExpr = this.parseOperator(expr, operator,
-                            operator.getLeftToRightPriority());
-                    if (subExpr != null) {
-                        this.child = subExpr;
-                        return;
-                    }
-                }
-                
-                expr = this.removeOuterBrackets(expr);
-            } catch (IllegalArgumentException ex) {
-                // If everything fails, try to treat the rest of the expression
-                // as a math element.
-                this.child = this.parseMathElement(expr);
-                
-                return;
-            }
+        // The values of the shared subexpressions are memoized in a frame
+        // private to this evaluation, following the values of the variables.
+        if (vars.length < this.frameBase) {
+            throw new ArrayIndexOutOfBoundsException(this.frameBase - 1);
         }
+        
+        return this.evalInFrame(Arrays.copyOf(vars, this.getFrameSize()));
     }
     
     /***************************************************************************
-     * Parser a specified mathematical operation in the expressions.
+     * Evaluates the expression within the frame given, so that no frame is
+     * allocated. The caller evaluating the expression repeatedly, e.g. row by
+     * row, may thus allocate a single frame of {@link #getFrameSize()}
+     * elements and reuse it. A frame must not be used by multiple threads at
+     * once.
      * 
-     * @param expr expression to find the operation in
-     * @param operator operation to find
-     * @param processLeft2Right priority flow
+     * @param frame values of the variables, indexed by their slots, followed
+     * by the room for the values of the shared subexpressions, which is
+     * overwritten
      * 
-     * @return newly created math expression, or null in case of failure
-     * @throws InvalidMathExprException throw in case of syntax error
+     * @return calculated numerical value
      */
-    private IMathExpr parseOperator(String expr, MathBinOper operator,
-            boolean processLeft2Right) throws InvalidMathExprException {
-        int startPos, endPos, step;
+    public double evalInFrame(double[] frame) {
+        if (this.child == null) {
+            return 0.0;
+        }
         
-        if (processLeft2Right) { // Parse expression forwards.
-            startPos = 0;
-            endPos = expr.length();
-            step = 1;
-        } else { // Parse expression backwards.
-            startPos = expr.length() - 1;
-            endPos = -1; // Going backwards, even 0 index counts.
-            step = -1;
+        MathExprConst exact = this.getExactValue();
+        if (exact != NOT_EXACT) {
+            return exact.getValue();
         }
         
-        int i = startPos;
-        while (i != endPos) {
-            if (this.isOutsideOfBracket(expr, i)) {
-                char c = expr.charAt(i);
-                
-                if (c == operator.getSign()) {
-                    IMathExpr left = new MathExpr(expr.substring(0, i));
-                    IMathExpr right = new MathExpr(expr.substring(i + 1,
-                            expr.length()));
-                    
-                    return MathBinOper.buildBinaryOper(operator, left, right);
-                }
-            }
-            
-            i += step;
+        if (this.isDeep()) {
+            return this.getProgram().eval(frame);
+        }
+        if (frame.length < this.getFrameSize()) {
+            throw new ArrayIndexOutOfBoundsException(this.getFrameSize() - 1);
         }
         
-        return null;
+        return this.child.eval(frame);
     }
     
     /***************************************************************************
-     * Checks whether the String contains at least one digit.
+     * Evaluates the integer-only expression exactly.
+     * 
+     * @return exact value of the expression
      * 
-     * @param expr string to check
-     * @return true if string contains at least one digit, false otherwise
+     * @throws ArithmeticException thrown if the expression is not an
+     * integer-only one or its value overflows
      */
-    private boolean containsDigit(String expr) {
-        for (int i = 0; i < expr.length(); i++) {
-            if (Character.isDigit(expr.charAt(i))) {
-                return true;
-            }
+    public long evalLong() {
+        MathExprConst exact = this.getExactValue();
+        
+        if (exact == NOT_EXACT) {
+            throw new ArithmeticException("Not an exact integer: " + this);
         }
         
-        return false;
+        return exact.getExactValue();
+    }
+    
+    /***************************************************************************
+     * Checks whether the expression is evaluated exactly - it consists of
+     * integer literals, additions, subtractions, multiplications and powers
+     * only and its value fits into <code>long</code>.
+     * 
+     * <p>Every intermediate value has to fit, too. Should any of them
+     * overflow, the whole expression is evaluated in <code>double</code>,
+     * even if its final value would fit. E.g. <code>2 ^ 63 - 1</code> equals
+     * <code>Long.MAX_VALUE</code>, yet <code>2 ^ 63</code> overflows, so the
+     * expression is not exact and evaluates to 9.223372036854776E18.
+     * 
+     * @return true if the expression is evaluated exactly, false otherwise
+     */
+    public boolean isExact() {
+        return this.getExactValue() != NOT_EXACT;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return minimum length of the frame the expression is evaluated within
+     * (see {@link #evalInFrame(double[])}) - the number of the variable slots
+     * followed by the number of the shared values
+     */
+    public int getFrameSize() {
+        return this.frameBase + this.tempCount;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return height of the expression tree, 0 for an empty expression
+     */
+    public int getHeight() {
+        return this.height;
+    }
+    
+    /***************************************************************************
+     * Counts the nodes of the expression tree. The tree is walked on each
+     * call.
+     * 
+     * @return number of the nodes, 0 for an empty expression
+     */
+    public int getNodeCount() {
+        return (this.child == null) ? 0
+                : MathExprNodes.getNodeCount(this.child);
     }
     
     /***************************************************************************
-     * Checks whether the specified position in the String is outside of
-     * brackets.
+     * Checks whether the tree is too deep to be walked recursively, so it may
+     * only be processed by iterative algorithms.
      * 
-     * @param expr expression to check
-     * @param pos position within the expression
+     * @return true if the tree is too deep, false otherwise
+     */
+    boolean isDeep() {
+        return this.height > MAX_RECURSIVE_HEIGHT;
+    }
+    
+    /***************************************************************************
+     * Retrieves the program evaluating the expression, translating it on the
+     * first call. Concurrent first calls may translate it more than once,
+     * which is harmless, as the programs are identical and immutable.
      * 
-     * @return true is the position is not within the brackets, false otherwise
+     * @return program evaluating the expression
      */
-    private boolean isOutsideOfBracket(String expr, int pos) {
-        int level = 0;
+    MathExprProgram getProgram() {
+        MathExprProgram result = this.program;
+        
+        if (result == null) {
+            result = MathExprProgram.compile(this);
+            this.program = result;
+        }
         
-        for (int i = 0; i < expr.length(); i++) {
-            char c = expr.charAt(i);
+        return result;
+    }
+    
+    /***************************************************************************
+     * Retrieves the exact value of the expression, inferring on the first call
+     * whether it is an integer-only one. As with the program, concurrent first
+     * calls may infer it more than once.
+     * 
+     * @return exact value of the expression, or {@link #NOT_EXACT} if there
+     * is none
+     */
+    private MathExprConst getExactValue() {
+        MathExprConst result = this.exactValue;
+        
+        if (result == null) {
+            result = NOT_EXACT;
             
-            if (c == BRACKET_OPEN) {
-                level++;
-            } else if (c == BRACKET_CLOSE) {
-                level--;
+            if (this.child == null) {
+                result = new MathExprConst(0L);
+            } else if (MathExprIntegers.isIntegral(this.child)) {
+                try {
+                    result = new MathExprConst(
+                            MathExprIntegers.evalExact(this.child));
+                } catch (ArithmeticException ex) {
+                    // Overflows, it is evaluated in double precision.
+                }
             }
             
-            if (i == pos) {
-                return level == 0;
-            }
+            this.exactValue = result;
         }
         
-        return true;
+        return result;
     }
     
     /***************************************************************************
-     * Parses a mathematical element - a number.
+     * Getter.
      * 
-     * @param expr expression to parse
-     * @return newly created math expression
+     * @return root of the parsed expression tree, null for an empty expression
+     */
+    IMathExpr getChild() {
+        return this.child;
+    }
+    
+    /***************************************************************************
+     * Getter.
      * 
-     * @throws InvalidMathExprException thrown in case of syntax error
+     * @return number of variable slots preceding the temporary ones
      */
-    private IMathExpr parseMathElement(String expr)
-            throws InvalidMathExprException {
-        try {
-            double val = Double.parseDouble(expr);
-            
-            return new MathExprConst(val);
-        } catch (NumberFormatException ex) {
-            throw new InvalidMathExprException("Invalid syntax, "
-                    + "unknown character: " + expr);
-        }
+    int getFrameBase() {
+        return this.frameBase;
     }
     
     /***************************************************************************
-     * Removes outside brackets from the expression.
+     * Getter.
      * 
-     * @param expr expression to remove brackets from
+     * @return number of temporary slots of the shared values
+     */
+    int getTempCount() {
+        return this.tempCount;
+    }
+    
+    /***************************************************************************
+     * Getter.
      * 
-     * @return a new string resulting from the brackets removal process
+     * @return table the variables have been resolved with, may be null
      */
-    private String removeOuterBrackets(String expr) {
-        int openPos = expr.indexOf(BRACKET_OPEN);
-        if (openPos == -1) {
-            throw new IllegalArgumentException("No opening bracket");
-        }
-        
-        int closePos = expr.lastIndexOf(BRACKET_CLOSE);
-        if (closePos == -1) {
-            throw new IllegalArgumentException("No closing bracket");
-        }
-        
-        String before = expr.substring(0, openPos);
-        String middle = expr.substring(openPos + 1, closePos);
-        String after = expr.substring(closePos + 1, expr.length());
-        
-        return before + middle + after;
+    public MathVarTable getVarTable() {
+        return this.vars;
+    }
+    
+    /***************************************************************************
+     * String representation of the object.
+     * 
+     * @return standard symbolic representation of the math. expression
+     */
+    @Override
+    public String toString() {
+        return (this.child == null) ? String.format("%.2f", 0.0) : 
+                this.child.toString();
     }
     
 }
@@ -0,0 +1,145 @@
+package mathexprevaluator.models.parser;
+
+import java.util.Arrays;
+
+/*******************************************************************************
+ * Evaluator of an expression over many rows at once. The values of each
+ * variable are passed as a column - an array indexed by the row, the columns
+ * themselves are indexed by the variable slots.
+ *
+ * <p>The rows are processed in chunks. Each node of the expression calculates
+ * the whole chunk by a simple loop over primitive arrays, which the JIT
+ * compiler is able to vectorize, instead of a tree walk per row. The scratch
+ * buffers are allocated by the first batch and reused afterwards, so
+ * evaluating the following batches allocates nothing.
+ *
+ * <p>Due to the reused buffers, an instance must not be used by multiple
+ * threads at once. Create one evaluator per thread instead, the expression
+ * itself may be shared.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprBatch {
+
+    public static final int DEFAULT_CHUNK_SIZE = 256;
+
+    private final MathExpr expr;
+    private final MathChunkContext context;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param expr parsed expression to evaluate
+     */
+    public MathExprBatch(MathExpr expr) {
+        this(expr, DEFAULT_CHUNK_SIZE);
+    }
+
+    /***************************************************************************
+     * Constructor specifying the number of rows calculated at once.
+     *
+     * @param expr parsed expression to evaluate
+     * @param chunkSize maximum number of rows of a chunk
+     */
+    public MathExprBatch(MathExpr expr, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: "
+                    + chunkSize);
+        }
+
+        int varCount = expr.getFrameBase();
+        if (expr.getTempCount() == 0 && expr.getVarTable() != null) {
+            varCount = expr.getVarTable().getSize();
+        }
+
+        this.expr = expr;
+        this.context = new MathChunkContext(chunkSize, varCount,
+                expr.getTempCount());
+    }
+
+    /***************************************************************************
+     * Evaluates the expression for as many rows as the output array holds.
+     *
+     * @param columns values of the variables, one column per slot
+     * @param out array to store the values of the rows to
+     */
+    public void eval(double[][] columns, double[] out) {
+        this.eval(columns, out, out.length);
+    }
+
+    /***************************************************************************
+     * Evaluates the expression for the given number of rows.
+     *
+     * @param columns values of the variables, one column per slot, each of
+     * at least rowCount elements
+     * @param out array to store the values of the rows to
+     * @param rowCount number of rows to evaluate
+     */
+    public void eval(double[][] columns, double[] out, int rowCount) {
+        if (rowCount < 0 || rowCount > out.length) {
+            throw new IllegalArgumentException("Invalid row count: "
+                    + rowCount);
+        }
+
+        this.eval(columns, out, 0, rowCount);
+    }
+
+    /***************************************************************************
+     * Evaluates the expression for a range of rows. The value of each row is
+     * stored to the output array at the index of the row.
+     *
+     * @param columns values of the variables, one column per slot, each of
+     * at least toRow elements
+     * @param out array to store the values of the rows to
+     * @param fromRow index of the first row to evaluate
+     * @param toRow index after the last row to evaluate
+     */
+    public void eval(double[][] columns, double[] out, int fromRow,
+            int toRow) {
+        if (fromRow < 0 || toRow > out.length || fromRow > toRow) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid row range [%d, %d)", fromRow, toRow));
+        }
+
+        IMathExpr root = this.expr.getChild();
+        if (root == null) {
+            Arrays.fill(out, fromRow, toRow, 0.0);
+            return;
+        }
+        if (this.expr.isDeep()) {
+            if (this.expr.isExact()) {
+                Arrays.fill(out, fromRow, toRow, this.expr.evalLong());
+                return;
+            }
+
+            // Too deep a tree for the nodes to calculate the chunks
+            // recursively, the rows are evaluated one by one by the program
+            // instead.
+            root = this.expr.getProgram();
+        }
+
+        this.context.setColumns(columns);
+        try {
+            int chunkSize = this.context.getChunkSize();
+
+            for (int row = fromRow; row < toRow; row += chunkSize) {
+                int count = Math.min(chunkSize, toRow - row);
+
+                this.context.evalChunk(root, row, count, out, row);
+            }
+        } finally {
+            this.context.setColumns(null);
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return evaluated expression
+     */
+    public MathExpr getExpr() {
+        return this.expr;
+    }
+
+}
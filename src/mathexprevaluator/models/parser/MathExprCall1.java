@@ -0,0 +1,72 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Class representing a call of a function of one argument (see
+ * {@link MathFunction}), resolved when parsing.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprCall1 implements IMathChunkExpr {
+
+    private final MathFunction function;
+    private final IMathExpr argument;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param function function of one argument
+     * @param argument argument
+     */
+    public MathExprCall1(MathFunction function, IMathExpr argument) {
+        this.function = function;
+        this.argument = argument;
+    }
+
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        return this.function.apply(this.argument.eval(vars));
+    }
+
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        context.evalChunk(this.argument, row, count, dst, dstOffset);
+
+        MathFunction func = this.function;
+        for (int i = dstOffset; i < dstOffset + count; i++) {
+            dst[i] = func.apply(dst[i]);
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return function called
+     */
+    public MathFunction getFunction() {
+        return this.function;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return argument
+     */
+    public IMathExpr getArgument() {
+        return this.argument;
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return name(argument)
+     */
+    @Override
+    public String toString() {
+        return MathExprNodes.toString(this);
+    }
+
+}
@@ -0,0 +1,90 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Class representing a call of a function of two arguments (see
+ * {@link MathFunction}), resolved when parsing.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprCall2 implements IMathChunkExpr {
+
+    private final MathFunction function;
+    private final IMathExpr left;
+    private final IMathExpr right;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param function function of two arguments
+     * @param left first argument
+     * @param right second argument
+     */
+    public MathExprCall2(MathFunction function, IMathExpr left,
+            IMathExpr right) {
+        this.function = function;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        return this.function.apply(this.left.eval(vars),
+                this.right.eval(vars));
+    }
+
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        context.evalChunk(this.left, row, count, dst, dstOffset);
+
+        double[] rightVals = context.acquire();
+        context.evalChunk(this.right, row, count, rightVals, 0);
+
+        MathFunction func = this.function;
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset + i] = func.apply(dst[dstOffset + i], rightVals[i]);
+        }
+        context.release();
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return function called
+     */
+    public MathFunction getFunction() {
+        return this.function;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return first argument
+     */
+    public IMathExpr getLeft() {
+        return this.left;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return second argument
+     */
+    public IMathExpr getRight() {
+        return this.right;
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return name(left, right)
+     */
+    @Override
+    public String toString() {
+        return MathExprNodes.toString(this);
+    }
+
+}
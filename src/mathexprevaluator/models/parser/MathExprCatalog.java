@@ -0,0 +1,474 @@
+package mathexprevaluator.models.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/*******************************************************************************
+ * Named collection of the compiled expressions (see {@link MathExprProgram})
+ * sharing a single table of the variables, which may be stored to a file and
+ * loaded back without parsing the expressions again.
+ *
+ * <p>The file is in a compact binary format - a header consisting of a magic
+ * number and the version of the format, followed by the names of the
+ * variables in the order of their slots and by the programs. Each program is
+ * stored as its name, its symbolic representation, the sizes of its operand
+ * stack, its code stream, its pool of constants and the names and the arities
+ * of the functions it calls (see {@link MathFunction}). The functions are
+ * resolved by their names again when the catalog is loaded. All the numbers
+ * are big endian, the strings are UTF-8 preceded by their length in bytes.
+ * The catalogs of the first version, without the functions, are still read.
+ *
+ * <p>The file is read through a memory mapped {@link FileChannel}, the code
+ * streams and the constants being copied out of it in bulk. Each program
+ * loaded is verified - its operation codes, the indices of the constants,
+ * variables and temporary slots and the depth of its operand stack - so a
+ * corrupted file is reported as such, rather than causing an evaluation to
+ * fail.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprCatalog {
+
+    /** Version of the binary format written by this class. */
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0x4D454543;
+
+    private final MathVarTable varTable;
+    private final LinkedHashMap<String, MathExprProgram> programs;
+
+    /***************************************************************************
+     * Default constructor. Creates an empty catalog.
+     *
+     * @param varTable table of the variables the programs refer to
+     */
+    public MathExprCatalog(MathVarTable varTable) {
+        this.varTable = varTable;
+        this.programs = new LinkedHashMap<>();
+    }
+
+    /***************************************************************************
+     * Compiles the parsed expression and adds it to the catalog, replacing
+     * the program of the same name, if any.
+     *
+     * @param name name of the expression
+     * @param expr parsed expression, using the table of the variables of the
+     * catalog
+     */
+    public void put(String name, MathExpr expr) {
+        this.put(name, MathExprProgram.compile(expr));
+    }
+
+    /***************************************************************************
+     * Adds the program to the catalog, replacing the program of the same
+     * name, if any.
+     *
+     * @param name name of the program
+     * @param program program referring to the variables of the catalog only
+     */
+    public void put(String name, MathExprProgram program) {
+        int[] code = program.getCode();
+
+        for (int pc = 0; pc < code.length; pc++) {
+            if (code[pc] == MathOpcodes.VAR
+                    && code[pc + 1] >= this.varTable.getSize()) {
+                throw new IllegalArgumentException("Undeclared variable of "
+                        + "slot " + code[pc + 1] + " in: " + name);
+            }
+            if (MathOpcodes.hasOperand(code[pc])) {
+                pc++;
+            }
+        }
+
+        this.programs.put(name, program);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @param name name of the program
+     *
+     * @return program of the name, or null if there is no such program
+     */
+    public MathExprProgram get(String name) {
+        return this.programs.get(name);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return names of the programs in the order of their addition, not to be
+     * modified
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(this.programs.keySet());
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the programs
+     */
+    public int getSize() {
+        return this.programs.size();
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return table of the variables the programs refer to
+     */
+    public MathVarTable getVarTable() {
+        return this.varTable;
+    }
+
+    /***************************************************************************
+     * Writes the catalog to the file, replacing its content.
+     *
+     * @param path path of the file
+     *
+     * @throws IOException thrown in case of an I/O error
+     */
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(this.varTable.getSize());
+            for (int slot = 0; slot < this.varTable.getSize(); slot++) {
+                writeString(out, this.varTable.getName(slot));
+            }
+
+            out.writeInt(this.programs.size());
+            for (String name: this.programs.keySet()) {
+                MathExprProgram program = this.programs.get(name);
+
+                writeString(out, name);
+                writeString(out, program.toString());
+                out.writeInt(program.getStackSize());
+                out.writeInt(program.getStackBase());
+
+                out.writeInt(program.getCode().length);
+                for (int op: program.getCode()) {
+                    out.writeInt(op);
+                }
+                out.writeInt(program.getConsts().length);
+                for (double val: program.getConsts()) {
+                    out.writeDouble(val);
+                }
+                out.writeInt(program.getFuncs().length);
+                for (MathFunction func: program.getFuncs()) {
+                    writeString(out, func.getName());
+                    out.writeInt(func.getArity());
+                }
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Reads the catalog from the file, by mapping the file into memory. The
+     * table of the variables of the catalog is a fixed one (see
+     * {@link MathVarTable#isFixed()}). The functions are resolved through the
+     * default table (see {@link MathFuncTable#getDefault()}).
+     *
+     * @param path path of the file
+     *
+     * @return newly created catalog
+     *
+     * @throws IOException thrown in case of an I/O error, or if the file is
+     * not a valid catalog of a supported version
+     */
+    public static MathExprCatalog read(Path path) throws IOException {
+        return read(path, MathFuncTable.getDefault());
+    }
+
+    /***************************************************************************
+     * Reads the catalog from the file, by mapping the file into memory,
+     * resolving the functions through the given table.
+     *
+     * @param path path of the file
+     * @param funcs table to resolve the functions with
+     *
+     * @return newly created catalog
+     *
+     * @throws IOException thrown in case of an I/O error, if the file is not
+     * a valid catalog of a supported version, or if a function is unknown
+     */
+    public static MathExprCatalog read(Path path, MathFuncTable funcs)
+            throws IOException {
+        ByteBuffer buf;
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Catalog too large: " + path);
+            }
+
+            // The mapping remains valid after the channel is closed.
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        try {
+            return read(buf, funcs);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IOException("Corrupted catalog: " + path, ex);
+        }
+    }
+
+    /***************************************************************************
+     * Reads the catalog from the buffer, starting at its current position.
+     *
+     * @param buf buffer containing the catalog
+     * @param funcs table to resolve the functions with
+     *
+     * @return newly created catalog
+     *
+     * @throws IOException thrown if the buffer does not contain a valid
+     * catalog of a supported version
+     */
+    private static MathExprCatalog read(ByteBuffer buf, MathFuncTable funcs)
+            throws IOException {
+        if (buf.remaining() < 8 || buf.getInt() != MAGIC) {
+            throw new IOException("Not a catalog of expressions");
+        }
+
+        int version = buf.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported catalog version: " + version);
+        }
+
+        String[] names = new String[readCount(buf, 4)];
+        for (int slot = 0; slot < names.length; slot++) {
+            names[slot] = readString(buf);
+        }
+
+        MathExprCatalog catalog = new MathExprCatalog(new MathVarTable(names));
+        if (catalog.varTable.getSize() != names.length) {
+            throw new IOException("Duplicate variable names");
+        }
+
+        int count = readCount(buf, 4);
+
+        for (int i = 0; i < count; i++) {
+            String name = readString(buf);
+            String text = readString(buf);
+            int stackSize = buf.getInt();
+            int stackBase = buf.getInt();
+
+            int[] code = new int[readCount(buf, 4)];
+            buf.asIntBuffer().get(code);
+            buf.position(buf.position() + code.length * 4);
+
+            double[] consts = new double[readCount(buf, 8)];
+            buf.asDoubleBuffer().get(consts);
+            buf.position(buf.position() + consts.length * 8);
+
+            MathFunction[] calls = new MathFunction[(version == 1) ? 0
+                    : readCount(buf, 8)];
+            for (int j = 0; j < calls.length; j++) {
+                calls[j] = resolve(funcs, readString(buf), buf.getInt());
+            }
+
+            verify(code, consts.length, calls, names.length, stackSize,
+                    stackBase);
+            catalog.programs.put(name, new MathExprProgram(code, consts,
+                    calls, stackSize, stackBase, text));
+        }
+
+        return catalog;
+    }
+
+    /***************************************************************************
+     * Verifies that the program can be evaluated, by simulating the depth of
+     * its operand stack.
+     *
+     * @param code postfix code stream
+     * @param constCount number of the constants in the pool
+     * @param calls pool of the functions
+     * @param varCount number of the variables
+     * @param stackSize size of the operand stack, including the temporary
+     * slots
+     * @param stackBase number of the temporary slots
+     *
+     * @throws IOException thrown if the program is not valid
+     */
+    private static void verify(int[] code, int constCount,
+            MathFunction[] calls, int varCount, int stackSize, int stackBase)
+            throws IOException {
+        int depth = 0;
+        int pc = 0;
+
+        while (pc < code.length) {
+            int op = code[pc++];
+            int operand = 0;
+
+            if (MathOpcodes.hasOperand(op)) {
+                if (pc == code.length) {
+                    throw new IOException("Missing operand of code " + op);
+                }
+                operand = code[pc++];
+            }
+
+            switch (op) {
+                case MathOpcodes.CONST:
+                    checkIndex(operand, constCount, "constant");
+                    depth++;
+                    break;
+                case MathOpcodes.VAR:
+                    checkIndex(operand, varCount, "variable");
+                    depth++;
+                    break;
+                case MathOpcodes.LOAD:
+                    checkIndex(operand, stackBase, "temporary slot");
+                    depth++;
+                    break;
+                case MathOpcodes.ADD:
+                case MathOpcodes.SUB:
+                case MathOpcodes.MUL:
+                case MathOpcodes.DIV:
+                case MathOpcodes.POW:
+                    checkIndex(1, depth, "operand");
+                    depth--;
+                    break;
+                case MathOpcodes.STORE:
+                    checkIndex(operand, stackBase, "temporary slot");
+                    checkIndex(0, depth, "operand");
+                    break;
+                case MathOpcodes.POW_INT:
+                case MathOpcodes.POW_HALF:
+                    checkIndex(0, depth, "operand");
+                    break;
+                case MathOpcodes.CALL1:
+                case MathOpcodes.CALL2:
+                    checkIndex(operand, calls.length, "function");
+                    if (calls[operand].getArity()
+                            != ((op == MathOpcodes.CALL1) ? 1 : 2)) {
+                        throw new IOException("Wrong arity of function: "
+                                + calls[operand]);
+                    }
+                    checkIndex(calls[operand].getArity() - 1, depth,
+                            "operand");
+                    depth -= calls[operand].getArity() - 1;
+                    break;
+                default:
+                    throw new IOException("Invalid operation code: " + op);
+            }
+
+            if (depth > stackSize - stackBase) {
+                throw new IOException("Operand stack overflow");
+            }
+        }
+
+        if (depth != 1 || stackBase < 0) {
+            throw new IOException("Invalid operand stack");
+        }
+    }
+
+    /***************************************************************************
+     * Resolves the function called by a program.
+     *
+     * @param funcs table to resolve the functions with
+     * @param name name of the function
+     * @param arity number of the arguments the program passes
+     *
+     * @return function called
+     *
+     * @throws IOException thrown if there is no such function of the arity
+     */
+    private static MathFunction resolve(MathFuncTable funcs, String name,
+            int arity) throws IOException {
+        MathFunction func = funcs.get(name);
+
+        if (func == null || func.getArity() != arity) {
+            throw new IOException("Unknown function: " + name + "/"
+                    + arity);
+        }
+
+        return func;
+    }
+
+    /***************************************************************************
+     * Checks that the index is within the bounds.
+     *
+     * @param index index to check
+     * @param count number of the elements indexed
+     * @param what description of the elements
+     *
+     * @throws IOException thrown if the index is out of the bounds
+     */
+    private static void checkIndex(int index, int count, String what)
+            throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IOException("Invalid " + what + " index: " + index);
+        }
+    }
+
+    /***************************************************************************
+     * Reads the number of the elements which follow in the buffer.
+     *
+     * @param buf buffer to read from
+     * @param elemSize size of an element in bytes
+     *
+     * @return number of the elements
+     *
+     * @throws IOException thrown if the buffer is too short to contain them
+     */
+    private static int readCount(ByteBuffer buf, int elemSize)
+            throws IOException {
+        int count = buf.getInt();
+
+        if (count < 0 || count > buf.remaining() / elemSize) {
+            throw new IOException("Invalid element count: " + count);
+        }
+
+        return count;
+    }
+
+    /***************************************************************************
+     * Reads a string preceded by its length in bytes.
+     *
+     * @param buf buffer to read from
+     *
+     * @return string read
+     *
+     * @throws IOException thrown if the buffer is too short
+     */
+    private static String readString(ByteBuffer buf) throws IOException {
+        byte[] bytes = new byte[readCount(buf, 1)];
+
+        buf.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /***************************************************************************
+     * Writes a string preceded by its length in bytes.
+     *
+     * @param out stream to write to
+     * @param str string to write
+     *
+     * @throws IOException thrown in case of an I/O error
+     */
+    private static void writeString(DataOutputStream out, String str)
+            throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+}
@@ -0,0 +1,513 @@
+package mathexprevaluator.models.parser;
+
+import java.io.ByteArrayOutputStream;
+
+/*******************************************************************************
+ * Compiler translating the parsed expression tree into a generated class.
+ *
+ * <p>The generated class implements {@link IMathExpr} with a single
+ * straight-line method - the operands are pushed onto the operand stack and
+ * combined exactly in the order the tree would evaluate them, but without any
+ * virtual call per node. Such a method is easily inlined and optimized by the
+ * JIT compiler. The calls of the built-in functions (see
+ * {@link MathFunction#isBuiltin()}) invoke the methods of {@link Math}
+ * directly, so they may be replaced by the intrinsics of the JIT compiler.
+ * The values of the shared subexpressions
+ * (see {@link MathExprSharer}) are kept in local variables. Each class is
+ * defined by its own class loader, so it can be unloaded as soon as it is no
+ * longer used.
+ *
+ * <p>If the expression can not be compiled, e.g. it contains a node the
+ * compiler does not know or a call of a custom function, its symbolic
+ * representation does not fit into the constant pool or its tree is too deep
+ * to be walked recursively, the parsed expression itself is returned, so it
+ * is evaluated without compiling instead. The same holds for the
+ * expressions whose method would exceed 8000 bytes of code. HotSpot never
+ * compiles such a method to native code (see
+ * <code>-XX:HugeMethodLimit</code>), so it would stay interpreted and be
+ * slower than the tree.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprCompiler {
+
+    private static final String CLASS_NAME = "CompiledMathExpr";
+    private static final String OBJECT_CLASS = "java/lang/Object";
+    private static final String MATH_CLASS = "java/lang/Math";
+    private static final String OPS_CLASS
+            = MathOps.class.getName().replace('.', '/');
+    private static final String EXPR_INTERFACE
+            = IMathExpr.class.getName().replace('.', '/');
+
+    private static final int MAX_CODE_LENGTH = 8000; // HugeMethodLimit.
+    private static final int MAX_LOCALS = 0xFFFF;
+    private static final int FIRST_TEMP_LOCAL = 2; // After this and vars.
+
+    private static final int ICONST_0 = 0x03;
+    private static final int DCONST_0 = 0x0E;
+    private static final int DCONST_1 = 0x0F;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD_0 = 0x2A;
+    private static final int ALOAD_1 = 0x2B;
+    private static final int DALOAD = 0x31;
+    private static final int DSTORE = 0x39;
+    private static final int DUP2 = 0x5C;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6B;
+    private static final int DDIV = 0x6F;
+    private static final int DRETURN = 0xAF;
+    private static final int ARETURN = 0xB0;
+    private static final int RETURN = 0xB1;
+    private static final int INVOKESPECIAL = 0xB7;
+    private static final int INVOKESTATIC = 0xB8;
+    private static final int WIDE = 0xC4;
+
+    private final MathClassWriter writer;
+    private final ByteArrayOutputStream code;
+    private int stackDepth;
+    private int maxStackDepth;
+    private int frameBase;
+
+    /***************************************************************************
+     * Compiles the expression into a generated class.
+     *
+     * @param expr parsed expression to compile
+     *
+     * @return instance of the generated class, or the expression itself if
+     * it can not be compiled
+     */
+    public static IMathExpr compile(MathExpr expr) {
+        if (expr.isDeep()) {
+            return expr;
+        }
+
+        try {
+            byte[] classFile = new MathExprCompiler().compileClass(expr);
+
+            if (classFile == null) {
+                return expr;
+            }
+
+            Class<?> exprClass = new CompiledExprLoader().define(classFile);
+
+            return (IMathExpr) exprClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError
+                | IllegalStateException ex) {
+            return expr;
+        }
+    }
+
+    /***************************************************************************
+     * Default constructor.
+     */
+    private MathExprCompiler() {
+        this.writer = new MathClassWriter();
+        this.code = new ByteArrayOutputStream();
+        this.stackDepth = 0;
+        this.maxStackDepth = 0;
+        this.frameBase = 0;
+    }
+
+    /***************************************************************************
+     * Generates the class file for the expression.
+     *
+     * @param expr parsed expression to compile
+     *
+     * @return content of the class file, or null if it can not be compiled
+     */
+    private byte[] compileClass(MathExpr expr) {
+        this.addConstructor();
+
+        int maxLocals = FIRST_TEMP_LOCAL + 2 * expr.getTempCount();
+        if (maxLocals > MAX_LOCALS) {
+            return null;
+        }
+
+        this.frameBase = expr.getFrameBase();
+        IMathExpr root = expr.getChild();
+        boolean compiled = (root == null) ? this.emitConst(0.0)
+                : this.emitExpr(root);
+
+        // The return instruction takes the last byte.
+        if (!compiled || this.code.size() >= MAX_CODE_LENGTH) {
+            return null;
+        }
+
+        String text = expr.toString();
+        if (!MathClassWriter.isUtf8Valid(text)) {
+            return null;
+        }
+
+        this.emit(DRETURN);
+        this.writer.addMethod(MathClassWriter.ACC_PUBLIC, "eval", "([D)D",
+                this.code.toByteArray(), this.maxStackDepth, maxLocals);
+
+        this.addToString(text);
+
+        if (!this.writer.isPoolValid()) {
+            return null;
+        }
+
+        return this.writer.toByteArray(MathClassWriter.ACC_PUBLIC
+                | MathClassWriter.ACC_FINAL | MathClassWriter.ACC_SUPER,
+                CLASS_NAME, OBJECT_CLASS, EXPR_INTERFACE);
+    }
+
+    /***************************************************************************
+     * Emits the code pushing the value of the expression onto the stack.
+     *
+     * @param expr expression to compile
+     *
+     * @return true in case of success, false if the expression contains an
+     * unsupported node
+     */
+    private boolean emitExpr(IMathExpr expr) {
+        if (this.code.size() >= MAX_CODE_LENGTH) {
+            return false;
+        }
+
+        if (expr instanceof MathExprConst) {
+            return this.emitConst(((MathExprConst) expr).getValue());
+        }
+
+        if (expr instanceof MathExprVar) {
+            int slot = ((MathExprVar) expr).getSlot();
+            if (slot > Short.MAX_VALUE) {
+                return false;
+            }
+
+            this.emit(ALOAD_1);
+            this.push(1);
+            this.emitInt(slot);
+            this.push(1);
+            this.emit(DALOAD);
+            this.pop(2);
+            this.push(2);
+
+            return true;
+        }
+
+        if (expr instanceof AMathBinOper) {
+            AMathBinOper oper = (AMathBinOper) expr;
+
+            if (!this.emitExpr(oper.getLeftOperand())
+                    || !this.emitExpr(oper.getRightOperand())) {
+                return false;
+            }
+
+            this.emitBinOper(oper.getOperation());
+            this.pop(2);
+
+            return true;
+        }
+
+        if (expr instanceof AMathNaryOper) {
+            AMathNaryOper oper = (AMathNaryOper) expr;
+
+            if (!this.emitExpr(oper.getOperand(0))) {
+                return false;
+            }
+
+            for (int i = 1; i < oper.getOperandCount(); i++) {
+                if (!this.emitExpr(oper.getOperand(i))) {
+                    return false;
+                }
+
+                this.emitBinOper(oper.getOperation(i));
+                this.pop(2);
+            }
+
+            return true;
+        }
+
+        if (expr instanceof MathExprPowInt) {
+            MathExprPowInt pow = (MathExprPowInt) expr;
+
+            if (!this.emitExpr(pow.getBase())) {
+                return false;
+            }
+
+            this.emitInt(pow.getExponent());
+            this.push(1);
+            this.emitInvokeOps("powInt", "(DI)D");
+            this.pop(1);
+
+            return true;
+        }
+
+        if (expr instanceof MathExprSqrt) {
+            if (!this.emitExpr(((MathExprSqrt) expr).getBase())) {
+                return false;
+            }
+
+            this.emitInvokeOps("powHalf", "(D)D");
+
+            return true;
+        }
+
+        if (expr instanceof MathExprCall1) {
+            MathExprCall1 call = (MathExprCall1) expr;
+
+            if (!call.getFunction().isBuiltin()
+                    || !this.emitExpr(call.getArgument())) {
+                return false;
+            }
+
+            this.emit(INVOKESTATIC);
+            this.emit2(this.writer.methodRef(MATH_CLASS,
+                    call.getFunction().getName(), "(D)D"));
+
+            return true;
+        }
+
+        if (expr instanceof MathExprCall2) {
+            MathExprCall2 call = (MathExprCall2) expr;
+
+            if (!call.getFunction().isBuiltin()
+                    || !this.emitExpr(call.getLeft())
+                    || !this.emitExpr(call.getRight())) {
+                return false;
+            }
+
+            this.emit(INVOKESTATIC);
+            this.emit2(this.writer.methodRef(MATH_CLASS,
+                    call.getFunction().getName(), "(DD)D"));
+            this.pop(2);
+
+            return true;
+        }
+
+        if (expr instanceof MathExprShared) {
+            MathExprShared shared = (MathExprShared) expr;
+
+            if (!this.emitExpr(shared.getChild())) {
+                return false;
+            }
+
+            this.emit(DUP2);
+            this.push(2);
+            this.emitLocal(DSTORE, this.tempLocal(shared.getSlot()));
+            this.pop(2);
+
+            return true;
+        }
+
+        if (expr instanceof MathExprSharedRef) {
+            this.emitLocal(DLOAD,
+                    this.tempLocal(((MathExprSharedRef) expr).getSlot()));
+            this.push(2);
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /***************************************************************************
+     * Emits the code combining the two topmost values on the stack.
+     *
+     * @param operation binary operation to emit
+     */
+    private void emitBinOper(MathBinOper operation) {
+        switch (operation) {
+            case ADD:
+                this.emit(DADD);
+                break;
+            case SUB:
+                this.emit(DSUB);
+                break;
+            case MUL:
+                this.emit(DMUL);
+                break;
+            case DIV:
+                this.emit(DDIV);
+                break;
+            case POW:
+                this.emit(INVOKESTATIC);
+                this.emit2(this.writer.methodRef(MATH_CLASS, "pow",
+                        "(DD)D"));
+                break;
+        }
+    }
+
+    /***************************************************************************
+     * Emits the call of a helper method of {@link MathOps}.
+     *
+     * @param name name of the method
+     * @param descriptor descriptor of the method
+     */
+    private void emitInvokeOps(String name, String descriptor) {
+        this.emit(INVOKESTATIC);
+        this.emit2(this.writer.methodRef(OPS_CLASS, name, descriptor));
+    }
+
+    /***************************************************************************
+     * Emits the code pushing a constant onto the stack.
+     *
+     * @param val constant value
+     *
+     * @return always true
+     */
+    private boolean emitConst(double val) {
+        if (Double.doubleToRawLongBits(val) == 0L) {
+            this.emit(DCONST_0);
+        } else if (val == 1.0) {
+            this.emit(DCONST_1);
+        } else {
+            this.emit(LDC2_W);
+            this.emit2(this.writer.doubleConst(val));
+        }
+
+        this.push(2);
+
+        return true;
+    }
+
+    /***************************************************************************
+     * Emits the code pushing an integer onto the stack.
+     *
+     * @param val integer value, from Short.MIN_VALUE to Short.MAX_VALUE
+     */
+    private void emitInt(int val) {
+        if (val >= -1 && val <= 5) {
+            this.emit(ICONST_0 + val);
+        } else if (val >= Byte.MIN_VALUE && val <= Byte.MAX_VALUE) {
+            this.emit(BIPUSH);
+            this.emit(val & 0xFF);
+        } else {
+            this.emit(SIPUSH);
+            this.emit2(val);
+        }
+    }
+
+    /***************************************************************************
+     * Emits an instruction accessing a local variable.
+     *
+     * @param opcode load or store instruction
+     * @param index index of the local variable
+     */
+    private void emitLocal(int opcode, int index) {
+        if (index <= 0xFF) {
+            this.emit(opcode);
+            this.emit(index);
+        } else {
+            this.emit(WIDE);
+            this.emit(opcode);
+            this.emit2(index);
+        }
+    }
+
+    /***************************************************************************
+     * Retrieves the local variable holding the value of a shared
+     * subexpression.
+     *
+     * @param slot slot of the shared value within the frame of the expression
+     *
+     * @return index of the local variable
+     */
+    private int tempLocal(int slot) {
+        return FIRST_TEMP_LOCAL + 2 * (slot - this.frameBase);
+    }
+
+    /***************************************************************************
+     * Adds the no-argument constructor calling the one of Object.
+     */
+    private void addConstructor() {
+        int superInit = this.writer.methodRef(OBJECT_CLASS, "<init>", "()V");
+        byte[] init = {
+            (byte) ALOAD_0,
+            (byte) INVOKESPECIAL, (byte) (superInit >>> 8), (byte) superInit,
+            (byte) RETURN
+        };
+
+        this.writer.addMethod(MathClassWriter.ACC_PUBLIC, "<init>", "()V",
+                init, 1, 1);
+    }
+
+    /***************************************************************************
+     * Adds the toString method returning the symbolic representation of the
+     * expression.
+     *
+     * @param text symbolic representation of the expression
+     */
+    private void addToString(String text) {
+        int textIndex = this.writer.stringConst(text);
+        byte[] toString = {
+            (byte) LDC_W, (byte) (textIndex >>> 8), (byte) textIndex,
+            (byte) ARETURN
+        };
+
+        this.writer.addMethod(MathClassWriter.ACC_PUBLIC, "toString",
+                "()Ljava/lang/String;", toString, 1, 1);
+    }
+
+    /***************************************************************************
+     * Emits a single byte of code.
+     *
+     * @param val byte to emit
+     */
+    private void emit(int val) {
+        this.code.write(val);
+    }
+
+    /***************************************************************************
+     * Emits two bytes of code.
+     *
+     * @param val value to emit
+     */
+    private void emit2(int val) {
+        this.code.write(val >>> 8);
+        this.code.write(val);
+    }
+
+    /***************************************************************************
+     * Records pushing onto the stack.
+     *
+     * @param words number of stack words pushed
+     */
+    private void push(int words) {
+        this.stackDepth += words;
+        this.maxStackDepth = Math.max(this.maxStackDepth, this.stackDepth);
+    }
+
+    /***************************************************************************
+     * Records popping from the stack.
+     *
+     * @param words number of stack words popped
+     */
+    private void pop(int words) {
+        this.stackDepth -= words;
+    }
+
+    /***************************************************************************
+     * Class loader defining a single generated class.
+     */
+    private static class CompiledExprLoader extends ClassLoader {
+
+        /***********************************************************************
+         * Default constructor.
+         */
+        public CompiledExprLoader() {
+            super(IMathExpr.class.getClassLoader());
+        }
+
+        /***********************************************************************
+         * Defines the generated class.
+         *
+         * @param classFile content of the class file
+         * @return newly defined class
+         */
+        public Class<?> define(byte[] classFile) {
+            return this.defineClass(CLASS_NAME, classFile, 0,
+                    classFile.length);
+        }
+
+    }
+
+}
@@ -1,14 +1,20 @@
 package mathexprevaluator.models.parser;
 
+import java.util.Arrays;
+
 /*******************************************************************************
- * Class representing a mathematical constant - a number.
+ * Class representing a mathematical constant - a number. An integer constant
+ * keeps its exact value as well, used by the evaluation in integers (see
+ * {@link MathExprIntegers}).
  * 
  * @author Milan Ondrasovic
- * @version 2015-08-04
+ * @version 2026-10-18
  */
-class MathExprConst implements IMathExpr {
+class MathExprConst implements IMathChunkExpr {
 
     private final double val;
+    private final long exactVal;
+    private final boolean isExact;
 
     /***************************************************************************
      * Default constructor.
@@ -17,14 +23,61 @@ class MathExprConst implements IMathExpr {
      */
     public MathExprConst(double val) {
         this.val = val;
+        this.exactVal = 0;
+        this.isExact = false;
+    }
+
+    /***************************************************************************
+     * Constructor of an integer constant.
+     * 
+     * @param exactVal exact constant value
+     */
+    public MathExprConst(long exactVal) {
+        this.val = exactVal;
+        this.exactVal = exactVal;
+        this.isExact = true;
     }
 
     /**************************************************************************/
     @Override
-    public double eval() {
+    public double eval(double[] vars) {
         return this.val;
     }
 
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        Arrays.fill(dst, dstOffset, dstOffset + count, this.val);
+    }
+
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return constant value
+     */
+    public double getValue() {
+        return this.val;
+    }
+
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return exact constant value if the constant is an integer one
+     */
+    public long getExactValue() {
+        return this.exactVal;
+    }
+
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return true if the constant is an integer one, false otherwise
+     */
+    public boolean isExact() {
+        return this.isExact;
+    }
+
     /***************************************************************************
      * String representation of the object.
      * 
@@ -35,4 +88,4 @@ class MathExprConst implements IMathExpr {
         return String.format("%.2f", this.val);
     }
 
-}
\ No newline at end of file
+}
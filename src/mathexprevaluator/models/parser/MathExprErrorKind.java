@@ -0,0 +1,31 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Enumerate type of the causes of syntax errors in mathematical expressions
+ * (see {@link InvalidMathExprException#getKind()}).
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public enum MathExprErrorKind {
+
+    /** A character which may not occur in any expression. */
+    UNKNOWN_CHARACTER,
+    /** A name which is not a variable of the expression. */
+    UNKNOWN_VARIABLE,
+    /** A name followed by a bracket which is not a known function. */
+    UNKNOWN_FUNCTION,
+    /** A function called with a wrong number of arguments. */
+    WRONG_ARGUMENT_COUNT,
+    /** The expression ends where an operand is expected. */
+    MISSING_OPERAND,
+    /** A bracket is not closed by the end of the expression. */
+    MISSING_CLOSING_BRACKET,
+    /** A closing bracket without the opening one. */
+    UNEXPECTED_CLOSING_BRACKET,
+    /** A token which may not occur where it is found. */
+    UNEXPECTED_SYMBOL,
+    /** The cause has not been specified. */
+    UNSPECIFIED;
+
+}
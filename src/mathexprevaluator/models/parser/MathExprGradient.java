@@ -0,0 +1,80 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Evaluator of an expression along with its gradient - the partial
+ * derivatives by its variables - in a single pass. The expression is
+ * compiled into a {@link MathExprProgram} first, which is then evaluated by
+ * the forward mode automatic differentiation (see
+ * {@link MathExprProgram#evalGradient}). As the program is a loop rather than
+ * a recursive walk, the expression may be nested arbitrarily deep.
+ *
+ * <p>Each pass costs a multiple of the number of the partial derivatives.
+ * For expressions of many variables, {@link MathExprTape} is cheaper.
+ *
+ * <p>The operand and gradient stacks are allocated by the first evaluation
+ * and reused afterwards, so evaluating again with a gradient array of the
+ * same length allocates nothing. Hence an instance must not be used by
+ * multiple threads at once. Create one evaluator per thread instead, the
+ * program itself may be shared.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprGradient {
+
+    private final MathExprProgram program;
+    private final double[] stack;
+    private double[] gradStack;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param expr parsed expression to evaluate
+     */
+    public MathExprGradient(MathExpr expr) {
+        this(MathExprProgram.compile(expr));
+    }
+
+    /***************************************************************************
+     * Constructor evaluating an already compiled program.
+     *
+     * @param program program to evaluate
+     */
+    public MathExprGradient(MathExprProgram program) {
+        this.program = program;
+        this.stack = new double[program.getStackSize()];
+        this.gradStack = new double[0];
+    }
+
+    /***************************************************************************
+     * Evaluates the expression and its gradient. The partial derivatives are
+     * calculated by the variables of the slots lower than the length of the
+     * gradient array, the other variables are held constant.
+     *
+     * @param vars values of the variables, indexed by their slots
+     * @param grad array to store the partial derivatives to, indexed by the
+     * slots of the variables
+     *
+     * @return calculated numerical value
+     */
+    public double eval(double[] vars, double[] grad) {
+        int size = this.stack.length * grad.length;
+
+        if (this.gradStack.length < size) {
+            this.gradStack = new double[size];
+        }
+
+        return this.program.evalGradient(vars, grad, this.stack,
+                this.gradStack);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return evaluated program
+     */
+    public MathExprProgram getProgram() {
+        return this.program;
+    }
+
+}
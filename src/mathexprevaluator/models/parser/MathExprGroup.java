@@ -0,0 +1,114 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * A bracketed group of a parsed expression, e.g. <code>(a + b)</code>, along
+ * with its expression tree. Kept by {@link MathExprIncrementalParser} so that
+ * the groups left untouched by an edit need not be parsed again. The groups
+ * nested in the group are kept as its children. The position of each group is
+ * relative to the opening bracket of its parent, so a group may be moved
+ * along with its children by creating just a single new instance.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+final class MathExprGroup {
+
+    private final int offset;
+    private final int length;
+    private final IMathExpr expr;
+    private final int height;
+    private final MathExprGroup[] children;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param offset index of the opening bracket relative to the opening
+     * bracket of the parent
+     * @param length number of characters from the opening bracket to the
+     * closing one, both inclusive
+     * @param expr expression tree of the group
+     * @param height height of the expression tree
+     * @param children nested groups, ordered by their offsets
+     */
+    public MathExprGroup(int offset, int length, IMathExpr expr, int height,
+            MathExprGroup[] children) {
+        this.offset = offset;
+        this.length = length;
+        this.expr = expr;
+        this.height = height;
+        this.children = children;
+    }
+
+    /***************************************************************************
+     * Creates the same group at another offset.
+     *
+     * @param offset new offset of the group
+     *
+     * @return group at the offset, this one if the offset is the same
+     */
+    public MathExprGroup withOffset(int offset) {
+        if (offset == this.offset) {
+            return this;
+        }
+
+        return new MathExprGroup(offset, this.length, this.expr, this.height,
+                this.children);
+    }
+
+    /***************************************************************************
+     * Finds the nested group starting at the offset.
+     *
+     * @param offset offset of the nested group relative to the opening
+     * bracket of this group
+     *
+     * @return nested group, null if none starts at the offset
+     */
+    public MathExprGroup findChild(int offset) {
+        int low = 0;
+        int high = this.children.length - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midOffset = this.children[mid].offset;
+
+            if (midOffset < offset) {
+                low = mid + 1;
+            } else if (midOffset > offset) {
+                high = mid - 1;
+            } else {
+                return this.children[mid];
+            }
+        }
+
+        return null;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of characters from the opening bracket to the closing
+     * one, both inclusive
+     */
+    public int getLength() {
+        return this.length;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return expression tree of the group
+     */
+    public IMathExpr getExpr() {
+        return this.expr;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return height of the expression tree
+     */
+    public int getHeight() {
+        return this.height;
+    }
+
+}
@@ -0,0 +1,207 @@
+package mathexprevaluator.models.parser;
+
+import java.util.ArrayList;
+
+/*******************************************************************************
+ * Tracks the bracketed groups while {@link MathExprParser} parses an edited
+ * expression. Each group found is looked up among the groups of the previous
+ * version of the expression. A group lying wholly before or after the edited
+ * region has the same text as before, so its expression tree is reused and
+ * its characters are skipped. The other groups are parsed and recorded,
+ * making up the groups of the new version.
+ *
+ * <p>The edit is described by the region of the previous version replaced by
+ * a region of the new version, both starting at the same index.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+final class MathExprGroupTracker {
+
+    private final int editStart;
+    private final int oldEditEnd;
+    private final int newEditEnd;
+
+    // Groups being parsed, the whole expression at the bottom.
+    private final ArrayList<Frame> frames;
+    // Groups already recorded, of the frames on the stack.
+    private final ArrayList<MathExprGroup> children;
+    private int reusedCount;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param previous groups of the previous version, the whole expression
+     * being the root, null if there is none
+     * @param editStart index of the first edited character
+     * @param oldEditEnd index after the edited region of the previous version
+     * @param newEditEnd index after the edited region of the new version
+     */
+    public MathExprGroupTracker(MathExprGroup previous, int editStart,
+            int oldEditEnd, int newEditEnd) {
+        this.editStart = editStart;
+        this.oldEditEnd = oldEditEnd;
+        this.newEditEnd = newEditEnd;
+        this.frames = new ArrayList<>();
+        this.children = new ArrayList<>();
+
+        this.frames.add(new Frame(0, previous, 0, 0));
+    }
+
+    /***************************************************************************
+     * Looks up an unchanged group of the previous version. If found, it is
+     * recorded as a group of the new version.
+     *
+     * @param pos index of the opening bracket in the new version
+     *
+     * @return unchanged group, null if the group has to be parsed
+     */
+    public MathExprGroup reuse(int pos) {
+        Frame frame = this.frames.get(this.frames.size() - 1);
+        int oldPos = this.toOldPos(pos);
+
+        if (frame.previous == null || oldPos < 0) {
+            return null;
+        }
+
+        MathExprGroup group = frame.previous.findChild(oldPos - frame.oldPos);
+        if (group == null) {
+            return null;
+        }
+
+        boolean isUnchanged = (oldPos + group.getLength() <= this.editStart)
+                || (oldPos >= this.oldEditEnd);
+        if (!isUnchanged) {
+            return null;
+        }
+
+        this.children.add(group.withOffset(pos - frame.pos));
+        this.reusedCount++;
+
+        return group;
+    }
+
+    /***************************************************************************
+     * Starts a group to be parsed.
+     *
+     * @param pos index of the opening bracket in the new version
+     */
+    public void open(int pos) {
+        Frame frame = this.frames.get(this.frames.size() - 1);
+        int oldPos = this.toOldPos(pos);
+        MathExprGroup previous = null;
+
+        if (frame.previous != null && oldPos >= 0) {
+            previous = frame.previous.findChild(oldPos - frame.oldPos);
+        }
+
+        this.frames.add(new Frame(pos, previous, oldPos,
+                this.children.size()));
+    }
+
+    /***************************************************************************
+     * Finishes the innermost group being parsed and records it.
+     *
+     * @param end index after the closing bracket in the new version
+     * @param expr expression tree of the group
+     * @param height height of the expression tree
+     */
+    public void close(int end, IMathExpr expr, int height) {
+        Frame frame = this.frames.remove(this.frames.size() - 1);
+        Frame parent = this.frames.get(this.frames.size() - 1);
+        MathExprGroup group = new MathExprGroup(frame.pos - parent.pos,
+                end - frame.pos, expr, height, this.popChildren(frame));
+
+        this.children.add(group);
+    }
+
+    /***************************************************************************
+     * Finishes the whole expression.
+     *
+     * @param length length of the new version
+     * @param expr expression tree of the whole expression
+     * @param height height of the expression tree
+     *
+     * @return groups of the new version, the whole expression being the root
+     */
+    public MathExprGroup finish(int length, IMathExpr expr, int height) {
+        return new MathExprGroup(0, length, expr, height,
+                this.popChildren(this.frames.get(0)));
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the groups reused so far
+     */
+    public int getReusedCount() {
+        return this.reusedCount;
+    }
+
+    /***************************************************************************
+     * Removes the groups recorded within the frame.
+     *
+     * @param frame frame of the group whose nested groups to remove
+     *
+     * @return nested groups, ordered by their offsets
+     */
+    private MathExprGroup[] popChildren(Frame frame) {
+        int count = this.children.size() - frame.childBase;
+        MathExprGroup[] nested = new MathExprGroup[count];
+
+        for (int i = count - 1; i >= 0; i--) {
+            nested[i] = this.children.remove(frame.childBase + i);
+        }
+
+        return nested;
+    }
+
+    /***************************************************************************
+     * Maps an index of the new version to the same character in the previous
+     * version.
+     *
+     * @param pos index in the new version
+     *
+     * @return index in the previous version, -1 if within the edited region
+     */
+    private int toOldPos(int pos) {
+        if (pos < this.editStart) {
+            return pos;
+        }
+        if (pos >= this.newEditEnd) {
+            return pos - this.newEditEnd + this.oldEditEnd;
+        }
+
+        return -1;
+    }
+
+    /***************************************************************************
+     * A group being parsed.
+     */
+    private static final class Frame {
+
+        private final int pos;
+        private final MathExprGroup previous;
+        private final int oldPos;
+        private final int childBase;
+
+        /***********************************************************************
+         * Default constructor.
+         *
+         * @param pos index of the opening bracket in the new version
+         * @param previous the same group in the previous version, null if
+         * unknown
+         * @param oldPos index of the opening bracket in the previous version
+         * @param childBase number of the groups recorded before this one
+         */
+        public Frame(int pos, MathExprGroup previous, int oldPos,
+                int childBase) {
+            this.pos = pos;
+            this.previous = previous;
+            this.oldPos = oldPos;
+            this.childBase = childBase;
+        }
+
+    }
+
+}
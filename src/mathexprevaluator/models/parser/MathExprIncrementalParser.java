@@ -0,0 +1,139 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Parser of an expression being edited, e.g. typed by the user, which parses
+ * each new version of the expression incrementally. The bracketed groups of
+ * the previous version are kept along with their expression trees. The
+ * edited region is found as the part between the longest common prefix and
+ * suffix of the two versions. Then the groups lying wholly outside of it are
+ * reused as they are, including all the groups nested in them, and only the
+ * rest of the expression is tokenized and parsed again.
+ *
+ * <p>Therefore, the parsing of a version differing by a small edit costs
+ * time proportional to the size of the groups enclosing the edit and to the
+ * number of the tokens outside of any bracket, rather than to the length of
+ * the whole expression. Only finding the edited region compares the whole
+ * versions, which is much cheaper than tokenizing them.
+ *
+ * <p>The expressions returned share the trees of the reused groups, which is
+ * safe since the trees are immutable. The parser itself is not thread-safe.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprIncrementalParser {
+
+    private final MathVarTable vars;
+    private final MathFuncTable funcs;
+
+    private String text;
+    private MathExpr parsed;
+    private MathExprGroup groups;
+    private int reusedCount;
+
+    /***************************************************************************
+     * Default constructor. The expressions may not contain any variables.
+     */
+    public MathExprIncrementalParser() {
+        this(null);
+    }
+
+    /***************************************************************************
+     * Constructor of a parser of the expressions which may contain
+     * variables.
+     *
+     * @param vars table to resolve the variables with, null if the expressions
+     * may not contain any
+     */
+    public MathExprIncrementalParser(MathVarTable vars) {
+        this(vars, MathFuncTable.getDefault());
+    }
+
+    /***************************************************************************
+     * Constructor of a parser of the expressions which may contain variables
+     * and calls of the functions of the given table.
+     *
+     * @param vars table to resolve the variables with, null if the expressions
+     * may not contain any
+     * @param funcs table to resolve the functions with
+     */
+    public MathExprIncrementalParser(MathVarTable vars, MathFuncTable funcs) {
+        this.vars = vars;
+        this.funcs = funcs;
+    }
+
+    /***************************************************************************
+     * Parses the new version of the expression. If it is invalid, the
+     * previous valid version is kept to be compared with the next one.
+     *
+     * @param expr new version of the expression
+     *
+     * @return parsed expression
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    public MathExpr parse(CharSequence expr) throws InvalidMathExprException {
+        String newText = expr.toString();
+
+        if (newText.equals(this.text)) {
+            this.reusedCount = 0;
+            return this.parsed;
+        }
+
+        int newLength = newText.length();
+        int oldLength = (this.text == null) ? 0 : this.text.length();
+        int prefix = 0;
+        int suffix = 0;
+        int maxCommon = Math.min(oldLength, newLength);
+
+        while (prefix < maxCommon
+                && this.text.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        while (suffix < maxCommon - prefix
+                && this.text.charAt(oldLength - suffix - 1)
+                == newText.charAt(newLength - suffix - 1)) {
+            suffix++;
+        }
+
+        MathExprGroupTracker tracker = new MathExprGroupTracker(this.groups,
+                prefix, oldLength - suffix, newLength - suffix);
+        MathExpr newParsed;
+
+        if (newLength == 0) {
+            newParsed = new MathExpr(newText, this.vars);
+        } else {
+            newParsed = new MathExpr(new MathExprParser(newText, 0,
+                    newLength, this.vars, this.funcs, tracker), this.vars);
+        }
+
+        this.text = newText;
+        this.parsed = newParsed;
+        this.groups = tracker.finish(newLength, newParsed.getChild(),
+                newParsed.getHeight());
+        this.reusedCount = tracker.getReusedCount();
+
+        return newParsed;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the bracketed groups reused by the last parsing, not
+     * counting the groups nested in them
+     */
+    public int getReusedCount() {
+        return this.reusedCount;
+    }
+
+    /***************************************************************************
+     * Forgets the previous version, so that the next one is parsed as a
+     * whole.
+     */
+    public void reset() {
+        this.text = null;
+        this.parsed = null;
+        this.groups = null;
+        this.reusedCount = 0;
+    }
+
+}
@@ -0,0 +1,232 @@
+package mathexprevaluator.models.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+
+/*******************************************************************************
+ * Helpers evaluating the integer-only expressions exactly, in
+ * <code>long</code> rather than in <code>double</code>, which is exact only up
+ * to 2^53. An expression is integer-only if its leaves are integer constants
+ * (see {@link MathExprConst#isExact()}) and its operations are additions,
+ * subtractions, multiplications and powers only. The overflows are detected
+ * by the <code>Math.*Exact</code> methods, as are the negative exponents, so
+ * the caller may fall back to the evaluation in <code>double</code>. An
+ * overflow of any intermediate value does so, even if the final value would
+ * fit into <code>long</code>, e.g. that of <code>2 ^ 63 - 1</code>.
+ *
+ * <p>Like {@link MathExprNodes}, the trees are walked without recursion. The
+ * shared subexpressions (see {@link MathExprShared}) are evaluated once, the
+ * references to them reusing the exact value.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+final class MathExprIntegers {
+
+    /***************************************************************************
+     * Private constructor, this class only holds static methods.
+     */
+    private MathExprIntegers() {
+    }
+
+    /***************************************************************************
+     * Checks whether the expression is an integer-only one.
+     *
+     * @param expr root of the expression tree
+     *
+     * @return true if the expression is integer-only, false otherwise
+     */
+    static boolean isIntegral(IMathExpr expr) {
+        ArrayDeque<IMathExpr> pending = new ArrayDeque<>();
+
+        pending.push(expr);
+
+        while (!pending.isEmpty()) {
+            IMathExpr node = pending.pop();
+
+            if (node instanceof MathExprConst) {
+                if (!((MathExprConst) node).isExact()) {
+                    return false;
+                }
+                continue;
+            }
+
+            if (node instanceof MathExprSharedRef) {
+                continue; // The shared subexpression is checked itself.
+            } else if (node instanceof AMathBinOper) {
+                if (((AMathBinOper) node).getOperation() == MathBinOper.DIV) {
+                    return false;
+                }
+            } else if (node instanceof AMathNaryOper) {
+                AMathNaryOper oper = (AMathNaryOper) node;
+
+                for (int i = 0; i < oper.getOperandCount(); i++) {
+                    if (oper.getOperation(i) == MathBinOper.DIV) {
+                        return false;
+                    }
+                }
+            } else if (!(node instanceof MathExprPowInt)
+                    && !(node instanceof MathExprShared)) {
+                return false;
+            }
+
+            for (int i = 0; i < MathExprNodes.getOperandCount(node); i++) {
+                pending.push(MathExprNodes.getOperand(node, i));
+            }
+        }
+
+        return true;
+    }
+
+    /***************************************************************************
+     * Evaluates the integer-only expression exactly.
+     *
+     * @param expr root of the integer-only expression tree (see
+     * {@link #isIntegral})
+     *
+     * @return exact value of the expression
+     *
+     * @throws ArithmeticException thrown if the value, or a value of any
+     * subexpression, overflows <code>long</code> or if an exponent is negative
+     */
+    static long evalExact(IMathExpr expr) {
+        ArrayList<IMathExpr> postfix = toPostfix(expr);
+        IdentityHashMap<IMathExpr, Long> shared = new IdentityHashMap<>();
+        long[] stack = new long[16];
+        int sp = -1;
+
+        for (IMathExpr node: postfix) {
+            if (node instanceof MathExprConst
+                    || node instanceof MathExprSharedRef) {
+                if (sp + 1 == stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[++sp] = (node instanceof MathExprConst)
+                        ? ((MathExprConst) node).getExactValue()
+                        : shared.get(((MathExprSharedRef) node).getShared());
+            } else if (node instanceof MathExprShared) {
+                shared.put(node, stack[sp]);
+            } else if (node instanceof AMathBinOper) {
+                sp--;
+                stack[sp] = apply(((AMathBinOper) node).getOperation(),
+                        stack[sp], stack[sp + 1]);
+            } else if (node instanceof AMathNaryOper) {
+                AMathNaryOper oper = (AMathNaryOper) node;
+                int first = sp - oper.getOperandCount() + 1;
+                long val = stack[first];
+
+                for (int i = 1; i < oper.getOperandCount(); i++) {
+                    val = apply(oper.getOperation(i), val, stack[first + i]);
+                }
+
+                sp = first;
+                stack[sp] = val;
+            } else {
+                stack[sp] = pow(stack[sp],
+                        ((MathExprPowInt) node).getExponent());
+            }
+        }
+
+        return stack[0];
+    }
+
+    /***************************************************************************
+     * Lists the nodes of the expression tree in the postfix order, i.e. each
+     * node follows all its operands.
+     *
+     * @param expr root of the expression tree
+     *
+     * @return nodes in the postfix order
+     */
+    private static ArrayList<IMathExpr> toPostfix(IMathExpr expr) {
+        ArrayList<IMathExpr> nodes = new ArrayList<>();
+        ArrayDeque<IMathExpr> pending = new ArrayDeque<>();
+
+        // The nodes are listed in the reversed postfix order first.
+        pending.push(expr);
+        while (!pending.isEmpty()) {
+            IMathExpr node = pending.pop();
+
+            nodes.add(node);
+            for (int i = 0; i < MathExprNodes.getOperandCount(node); i++) {
+                pending.push(MathExprNodes.getOperand(node, i));
+            }
+        }
+
+        Collections.reverse(nodes);
+
+        return nodes;
+    }
+
+    /***************************************************************************
+     * Applies the binary operation to the integers.
+     *
+     * @param operation binary operation other than "DIV"
+     * @param left left operand
+     * @param right right operand
+     *
+     * @return exact result of the operation
+     *
+     * @throws ArithmeticException thrown if the result overflows or the
+     * exponent is negative
+     */
+    private static long apply(MathBinOper operation, long left, long right) {
+        switch (operation) {
+            case ADD:
+                return Math.addExact(left, right);
+            case SUB:
+                return Math.subtractExact(left, right);
+            case MUL:
+                return Math.multiplyExact(left, right);
+            case POW:
+                return pow(left, right);
+            default:
+                throw new ArithmeticException("Not an integer operation: "
+                        + operation);
+        }
+    }
+
+    /***************************************************************************
+     * Raises the integer base to an integer exponent by repeated squaring.
+     *
+     * @param base base
+     * @param exponent non-negative exponent
+     *
+     * @return exact power
+     *
+     * @throws ArithmeticException thrown if the power overflows or the
+     * exponent is negative
+     */
+    private static long pow(long base, long exponent) {
+        if (exponent < 0) {
+            throw new ArithmeticException("Negative exponent: " + exponent);
+        }
+        if (base == 0 || base == 1) {
+            return (exponent == 0) ? 1 : base;
+        }
+        if (base == -1) {
+            return ((exponent & 1) == 0) ? 1 : -1;
+        }
+
+        long result = 1;
+        long square = base;
+        long remaining = exponent;
+
+        while (remaining != 0) {
+            if ((remaining & 1) != 0) {
+                result = Math.multiplyExact(result, square);
+            }
+
+            remaining >>= 1;
+            if (remaining != 0) {
+                square = Math.multiplyExact(square, square);
+            }
+        }
+
+        return result;
+    }
+
+}
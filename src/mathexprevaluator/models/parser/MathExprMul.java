@@ -4,7 +4,7 @@ package mathexprevaluator.models.parser;
  * Class representing a "MUL" mathematical operation.
  * 
  * @author Milan Ondrasovic
- * @version 2015-08-04
+ * @version 2026-10-18
  */
 class MathExprMul extends AMathBinOper {
 
@@ -20,8 +20,17 @@ class MathExprMul extends AMathBinOper {
 
     /**************************************************************************/
     @Override
-    public double eval() {
-        return this.leftOperand.eval() * this.rightOperand.eval();
+    public double eval(double[] vars) {
+        return this.leftOperand.eval(vars) * this.rightOperand.eval(vars);
+    }
+    
+    /**************************************************************************/
+    @Override
+    protected void applyChunk(double[] dst, int dstOffset, double[] rightVals,
+            int count) {
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset + i] *= rightVals[i];
+        }
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,560 @@
+package mathexprevaluator.models.parser;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/*******************************************************************************
+ * Helpers walking the expression trees without recursion, using a stack of
+ * their own instead of the thread stack. Thus the trees of any depth, e.g.
+ * <code>1 - (1 - (1 - ...))</code>, may be processed.
+ *
+ * <p>Inlining a defined function (see {@link MathMacro}) uses an argument as
+ * it is, however many times its parameter occurs, so the tree becomes a
+ * directed acyclic graph. Walking all its paths would take time exponential
+ * in the nesting of the calls. Hence such a graph is turned into a tree of
+ * shared subexpressions (see {@link #share}) before anything else processes
+ * it, and the helpers rebuilding the trees visit each node only once.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+final class MathExprNodes {
+
+    /** Length of the text beyond which no shared subexpression is printed. */
+    static final int MAX_SHARED_TEXT_LENGTH = 1 << 20;
+
+    /***************************************************************************
+     * Private constructor, this class only holds static methods.
+     */
+    private MathExprNodes() {
+    }
+
+    /***************************************************************************
+     * Retrieves the number of the direct operands of the node.
+     *
+     * @param expr node of the expression tree
+     *
+     * @return number of the operands, 0 for a leaf or an unknown node
+     */
+    static int getOperandCount(IMathExpr expr) {
+        if (expr instanceof AMathBinOper || expr instanceof MathExprCall2) {
+            return 2;
+        }
+        if (expr instanceof AMathNaryOper) {
+            return ((AMathNaryOper) expr).getOperandCount();
+        }
+        if (expr instanceof MathExprPowInt || expr instanceof MathExprSqrt
+                || expr instanceof MathExprShared
+                || expr instanceof MathExprCall1) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /***************************************************************************
+     * Retrieves a direct operand of the node.
+     *
+     * @param expr node of the expression tree
+     * @param index index of the operand, from the left to the right
+     *
+     * @return operand at the index
+     */
+    static IMathExpr getOperand(IMathExpr expr, int index) {
+        if (expr instanceof AMathBinOper) {
+            AMathBinOper oper = (AMathBinOper) expr;
+
+            return (index == 0) ? oper.getLeftOperand()
+                    : oper.getRightOperand();
+        }
+        if (expr instanceof AMathNaryOper) {
+            return ((AMathNaryOper) expr).getOperand(index);
+        }
+        if (expr instanceof MathExprPowInt) {
+            return ((MathExprPowInt) expr).getBase();
+        }
+        if (expr instanceof MathExprSqrt) {
+            return ((MathExprSqrt) expr).getBase();
+        }
+        if (expr instanceof MathExprShared) {
+            return ((MathExprShared) expr).getChild();
+        }
+        if (expr instanceof MathExprCall1) {
+            return ((MathExprCall1) expr).getArgument();
+        }
+        if (expr instanceof MathExprCall2) {
+            MathExprCall2 call = (MathExprCall2) expr;
+
+            return (index == 0) ? call.getLeft() : call.getRight();
+        }
+
+        throw new IndexOutOfBoundsException("No operand " + index + " of "
+                + expr.getClass().getSimpleName());
+    }
+
+    /***************************************************************************
+     * Creates a node of the same operation with other operands.
+     *
+     * @param expr node of the expression tree, neither a leaf nor a shared
+     * subexpression
+     * @param operands new operands, from the left to the right
+     *
+     * @return newly created node
+     */
+    static IMathExpr withOperands(IMathExpr expr, IMathExpr[] operands) {
+        if (expr instanceof AMathBinOper) {
+            return MathBinOper.buildBinaryOper(
+                    ((AMathBinOper) expr).getOperation(), operands[0],
+                    operands[1]);
+        }
+        if (expr instanceof AMathNaryOper) {
+            AMathNaryOper oper = (AMathNaryOper) expr;
+            MathBinOper[] operations = new MathBinOper[operands.length];
+
+            for (int i = 0; i < operations.length; i++) {
+                operations[i] = oper.getOperation(i);
+            }
+
+            return AMathNaryOper.buildChain(operations, operands,
+                    operands.length);
+        }
+        if (expr instanceof MathExprPowInt) {
+            return new MathExprPowInt(operands[0],
+                    ((MathExprPowInt) expr).getExponent());
+        }
+        if (expr instanceof MathExprSqrt) {
+            return new MathExprSqrt(operands[0]);
+        }
+        if (expr instanceof MathExprCall1) {
+            return new MathExprCall1(((MathExprCall1) expr).getFunction(),
+                    operands[0]);
+        }
+        if (expr instanceof MathExprCall2) {
+            return new MathExprCall2(((MathExprCall2) expr).getFunction(),
+                    operands[0], operands[1]);
+        }
+
+        throw new IllegalArgumentException("Unsupported expression: "
+                + expr.getClass().getSimpleName());
+    }
+
+    /***************************************************************************
+     * Replaces the variables of the expression tree by the given
+     * expressions. Only the nodes depending on any variable are created
+     * anew, the other subtrees are kept. Each expression substituted is used
+     * as it is, however many times its variable occurs. A node occurring
+     * more than once is replaced only once, by the very same result.
+     *
+     * @param expr root of the expression tree or graph without shared
+     * subexpressions
+     * @param substitutes expressions replacing the variables, indexed by
+     * their slots
+     *
+     * @return root of the resulting tree
+     */
+    static IMathExpr substitute(IMathExpr expr, IMathExpr[] substitutes) {
+        IdentityHashMap<IMathExpr, IMathExpr> done = new IdentityHashMap<>();
+        IMathExpr[] nodes = new IMathExpr[16];
+        int[] nextOperands = new int[16];
+        ArrayDeque<IMathExpr> results = new ArrayDeque<>();
+        int top = 0;
+
+        nodes[0] = expr;
+
+        while (top >= 0) {
+            IMathExpr node = nodes[top];
+            int index = nextOperands[top];
+            int count = getOperandCount(node);
+
+            if (index == 0 && done.containsKey(node)) {
+                nodes[top--] = null;
+                results.push(done.get(node));
+                continue;
+            }
+            if (index < count) {
+                nextOperands[top]++;
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    nextOperands = Arrays.copyOf(nextOperands, top * 2);
+                }
+                nodes[top] = getOperand(node, index);
+                nextOperands[top] = 0;
+                continue;
+            }
+
+            nodes[top--] = null;
+
+            IMathExpr result;
+
+            if (node instanceof MathExprVar) {
+                result = substitutes[((MathExprVar) node).getSlot()];
+            } else {
+                result = rebuild(node, count, results);
+            }
+
+            done.put(node, result);
+            results.push(result);
+        }
+
+        return results.pop();
+    }
+
+    /***************************************************************************
+     * Replaces the shared subexpressions (see {@link MathExprShared}) by the
+     * subexpressions themselves, so the tree becomes a directed acyclic
+     * graph - each occurrence of a subexpression is the very same node. This
+     * is the inverse of {@link #share}.
+     *
+     * @param expr root of the expression tree
+     *
+     * @return root of the resulting graph
+     */
+    static IMathExpr unshare(IMathExpr expr) {
+        IdentityHashMap<IMathExpr, IMathExpr> done = new IdentityHashMap<>();
+        IMathExpr[] nodes = new IMathExpr[16];
+        int[] nextOperands = new int[16];
+        ArrayDeque<IMathExpr> results = new ArrayDeque<>();
+        int top = 0;
+
+        nodes[0] = expr;
+
+        while (top >= 0) {
+            IMathExpr node = nodes[top];
+            int index = nextOperands[top];
+            int count = getOperandCount(node);
+
+            if (node instanceof MathExprSharedRef) {
+                // The first occurrence has always been visited before.
+                nodes[top--] = null;
+                results.push(done.get(((MathExprSharedRef) node).getShared()));
+                continue;
+            }
+            if (index < count) {
+                nextOperands[top]++;
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    nextOperands = Arrays.copyOf(nextOperands, top * 2);
+                }
+                nodes[top] = getOperand(node, index);
+                nextOperands[top] = 0;
+                continue;
+            }
+
+            nodes[top--] = null;
+
+            IMathExpr result = (node instanceof MathExprShared)
+                    ? results.pop() : rebuild(node, count, results);
+
+            done.put(node, result);
+            results.push(result);
+        }
+
+        return results.pop();
+    }
+
+    /***************************************************************************
+     * Turns the directed acyclic graph into a tree of shared subexpressions.
+     * Each node which is not a leaf and occurs more than once is calculated
+     * by its first occurrence in the order of evaluation, storing the value
+     * into a slot of the frame (see {@link MathExprShared}), and its other
+     * occurrences just read the slot (see {@link MathExprSharedRef}).
+     *
+     * @param expr root of the graph without shared subexpressions
+     * @param vars table the variables have been resolved with, may be null
+     * @param frameBase minimum number of the variable slots preceding the
+     * slots of the shared values
+     *
+     * @return expression of the resulting tree
+     */
+    static MathExpr share(IMathExpr expr, MathVarTable vars, int frameBase) {
+        IdentityHashMap<IMathExpr, Integer> uses = new IdentityHashMap<>();
+        ArrayDeque<IMathExpr> pending = new ArrayDeque<>();
+
+        pending.push(expr);
+        while (!pending.isEmpty()) {
+            IMathExpr node = pending.pop();
+            Integer useCount = uses.get(node);
+
+            uses.put(node, (useCount == null) ? 1 : useCount + 1);
+            if (useCount != null) {
+                continue; // Operands have already been counted.
+            }
+
+            if (node instanceof MathExprVar) {
+                frameBase = Math.max(frameBase,
+                        ((MathExprVar) node).getSlot() + 1);
+            }
+            for (int i = 0; i < getOperandCount(node); i++) {
+                pending.push(getOperand(node, i));
+            }
+        }
+
+        IdentityHashMap<IMathExpr, IMathExpr> refs = new IdentityHashMap<>();
+        IMathExpr[] nodes = new IMathExpr[16];
+        int[] nextOperands = new int[16];
+        ArrayDeque<IMathExpr> results = new ArrayDeque<>();
+        int tempCount = 0;
+        int top = 0;
+
+        nodes[0] = expr;
+
+        // The nodes are built in the order of evaluation, so the first
+        // occurrence of a shared node precedes all the others.
+        while (top >= 0) {
+            IMathExpr node = nodes[top];
+            int index = nextOperands[top];
+            int count = getOperandCount(node);
+
+            if (index == 0 && refs.containsKey(node)) {
+                nodes[top--] = null;
+                results.push(refs.get(node));
+                continue;
+            }
+            if (index < count) {
+                nextOperands[top]++;
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    nextOperands = Arrays.copyOf(nextOperands, top * 2);
+                }
+                nodes[top] = getOperand(node, index);
+                nextOperands[top] = 0;
+                continue;
+            }
+
+            nodes[top--] = null;
+
+            IMathExpr result = rebuild(node, count, results);
+
+            if (count > 0 && uses.get(node) > 1) {
+                MathExprShared shared = new MathExprShared(
+                        frameBase + tempCount++, result);
+
+                refs.put(node, new MathExprSharedRef(shared));
+                result = shared;
+            }
+            results.push(result);
+        }
+
+        return new MathExpr(results.pop(), vars, frameBase, tempCount);
+    }
+
+    /***************************************************************************
+     * Pops the rebuilt operands of the node and creates the node anew if any
+     * of them has changed.
+     *
+     * @param node node of the expression tree, not a shared subexpression
+     * @param count number of the operands of the node
+     * @param results stack of the rebuilt nodes, the last operand on the top
+     *
+     * @return node with the rebuilt operands
+     */
+    private static IMathExpr rebuild(IMathExpr node, int count,
+            ArrayDeque<IMathExpr> results) {
+        // The results of the operands are popped in the reverse order.
+        IMathExpr[] operands = new IMathExpr[count];
+        boolean isChanged = false;
+
+        for (int i = count - 1; i >= 0; i--) {
+            operands[i] = results.pop();
+            isChanged |= (operands[i] != getOperand(node, i));
+        }
+
+        return isChanged ? withOperands(node, operands) : node;
+    }
+
+    /***************************************************************************
+     * Counts the nodes of the expression tree. The nodes of a shared
+     * subexpression are counted only at its first occurrence.
+     *
+     * @param expr root of the expression tree
+     *
+     * @return number of the nodes
+     */
+    static int getNodeCount(IMathExpr expr) {
+        ArrayDeque<IMathExpr> pending = new ArrayDeque<>();
+        int count = 0;
+
+        pending.push(expr);
+
+        while (!pending.isEmpty()) {
+            IMathExpr node = pending.pop();
+
+            count++;
+            for (int i = getOperandCount(node) - 1; i >= 0; i--) {
+                pending.push(getOperand(node, i));
+            }
+        }
+
+        return count;
+    }
+
+    /***************************************************************************
+     * Calculates the height of the expression tree.
+     *
+     * @param expr root of the expression tree
+     *
+     * @return number of the nodes on the longest path from the root to a leaf
+     */
+    static int getHeight(IMathExpr expr) {
+        IMathExpr[] nodes = new IMathExpr[16];
+        int[] depths = new int[16];
+        int top = 0;
+        int height = 0;
+
+        nodes[0] = expr;
+        depths[0] = 1;
+
+        while (top >= 0) {
+            IMathExpr node = nodes[top];
+            int depth = depths[top];
+            int count = getOperandCount(node);
+
+            nodes[top--] = null;
+            height = Math.max(height, depth);
+
+            if (top + count >= nodes.length) {
+                int capacity = Math.max(nodes.length * 2, top + count + 1);
+                nodes = Arrays.copyOf(nodes, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+            }
+            for (int i = 0; i < count; i++) {
+                nodes[++top] = getOperand(node, i);
+                depths[top] = depth + 1;
+            }
+        }
+
+        return height;
+    }
+
+    /***************************************************************************
+     * Calculates the height of the expression graph, e.g. of a tree whose
+     * shared subexpressions have been replaced by the subexpressions
+     * themselves (see {@link #unshare}). Each node is visited only once.
+     *
+     * @param expr root of the expression graph
+     *
+     * @return number of the nodes on the longest path from the root to a leaf
+     */
+    static int getGraphHeight(IMathExpr expr) {
+        IdentityHashMap<IMathExpr, Integer> heights = new IdentityHashMap<>();
+        IMathExpr[] nodes = new IMathExpr[16];
+        int[] nextOperands = new int[16];
+        int top = 0;
+
+        nodes[0] = expr;
+
+        while (top >= 0) {
+            IMathExpr node = nodes[top];
+            int index = nextOperands[top];
+            int count = getOperandCount(node);
+
+            if (index == 0 && heights.containsKey(node)) {
+                nodes[top--] = null;
+                continue;
+            }
+            if (index < count) {
+                nextOperands[top]++;
+                if (++top == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, top * 2);
+                    nextOperands = Arrays.copyOf(nextOperands, top * 2);
+                }
+                nodes[top] = getOperand(node, index);
+                nextOperands[top] = 0;
+                continue;
+            }
+
+            nodes[top--] = null;
+
+            int height = 0;
+            for (int i = 0; i < count; i++) {
+                height = Math.max(height, heights.get(getOperand(node, i)));
+            }
+            heights.put(node, height + 1);
+        }
+
+        return heights.get(expr);
+    }
+
+    /***************************************************************************
+     * Builds the standard symbolic representation of the expression. Each
+     * operation is enclosed in brackets, e.g. <code>((a + b) ^ 2)</code>.
+     * Every occurrence of a shared subexpression is printed in full. As their
+     * text may grow exponentially with the nesting of the calls of the
+     * defined functions, it is cut off by "..." once it exceeds
+     * {@link #MAX_SHARED_TEXT_LENGTH} characters.
+     *
+     * @param expr root of the expression tree
+     *
+     * @return symbolic representation of the expression
+     */
+    static String toString(IMathExpr expr) {
+        StringBuilder text = new StringBuilder();
+        // Either nodes yet to be printed, or the text between them.
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+
+        pending.push(expr);
+
+        while (!pending.isEmpty()) {
+            Object item = pending.pop();
+
+            if (item instanceof AMathBinOper) {
+                AMathBinOper oper = (AMathBinOper) item;
+
+                pending.push(")");
+                pending.push(oper.getRightOperand());
+                pending.push(" " + oper.getOperation() + " ");
+                pending.push(oper.getLeftOperand());
+                text.append('(');
+            } else if (item instanceof AMathNaryOper) {
+                AMathNaryOper oper = (AMathNaryOper) item;
+
+                pending.push(")");
+                for (int i = oper.getOperandCount() - 1; i > 0; i--) {
+                    pending.push(oper.getOperand(i));
+                    pending.push(" " + oper.getOperation(i) + " ");
+                }
+                pending.push(oper.getOperand(0));
+                text.append('(');
+            } else if (item instanceof MathExprPowInt) {
+                MathExprPowInt pow = (MathExprPowInt) item;
+
+                pending.push(" " + MathBinOper.POW + " " + pow.getExponent()
+                        + ")");
+                pending.push(pow.getBase());
+                text.append('(');
+            } else if (item instanceof MathExprSqrt) {
+                pending.push(")");
+                pending.push(((MathExprSqrt) item).getBase());
+                text.append("sqrt(");
+            } else if (item instanceof MathExprCall1) {
+                MathExprCall1 call = (MathExprCall1) item;
+
+                pending.push(")");
+                pending.push(call.getArgument());
+                text.append(call.getFunction().getName()).append('(');
+            } else if (item instanceof MathExprCall2) {
+                MathExprCall2 call = (MathExprCall2) item;
+
+                pending.push(")");
+                pending.push(call.getRight());
+                pending.push(", ");
+                pending.push(call.getLeft());
+                text.append(call.getFunction().getName()).append('(');
+            } else if (item instanceof MathExprShared) {
+                pending.push(((MathExprShared) item).getChild());
+            } else if (item instanceof MathExprSharedRef) {
+                if (text.length() > MAX_SHARED_TEXT_LENGTH) {
+                    text.append("...");
+                    break;
+                }
+                pending.push(((MathExprSharedRef) item).getShared());
+            } else {
+                text.append(item);
+            }
+        }
+
+        return text.toString();
+    }
+
+}
@@ -0,0 +1,453 @@
+package mathexprevaluator.models.parser;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/*******************************************************************************
+ * Optimizer rewriting the parsed expression tree into a cheaper, equivalent
+ * one. The following rewrites are done bottom-up:
+ *
+ * <ul>
+ * <li>operations whose operands are all constant are replaced by their value,
+ * calculated by the very same node, so the result is identical, as are the
+ * leading constant operands of a chain (see {@link AMathNaryOper}) and the
+ * calls of the functions with constant arguments, the functions being pure
+ * (see {@link MathFunction}) - unless the whole expression is evaluated
+ * exactly (see {@link MathExpr#isExact()}), in which case the values are
+ * calculated exactly as well, so the result is identical either way,</li>
+ * <li>the identities <code>x * 1</code>, <code>1 * x</code>,
+ * <code>x / 1</code>, <code>x + 0</code>, <code>0 + x</code>,
+ * <code>x - 0</code> and <code>x ^ 1</code> are replaced by <code>x</code> and
+ * <code>x ^ 0</code> by <code>1</code>, the same identities are removed from
+ * the chains,</li>
+ * <li>powers with a small integer exponent are calculated by repeated
+ * squaring and powers with the exponent of 0.5 by the square root.</li>
+ * </ul>
+ *
+ * <p>Shared subexpressions (see {@link MathExprSharer}) are rewritten once,
+ * wherever they occur, and shared again afterwards. The trees too deep to be
+ * rewritten recursively are left untouched.
+ *
+ * <p>None of the rewrites changes the result for NaN or infinite values. The
+ * only difference may be the sign of a zero result of <code>x + 0</code>,
+ * which is -0.0 instead of +0.0 for <code>x = -0.0</code>.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprOptimizer {
+
+    private static final int MAX_POW_INT_EXPONENT = 64;
+
+    private MathOptimizationSummary summary;
+    private Map<IMathExpr, IMathExpr> rewritten;
+    private boolean isExact;
+
+    /***************************************************************************
+     * Default constructor.
+     */
+    public MathExprOptimizer() {
+        this.summary = new MathOptimizationSummary();
+    }
+
+    /***************************************************************************
+     * Optimizes the parsed expression.
+     *
+     * @param expr parsed expression
+     *
+     * @return optimized expression, or the same instance if nothing could be
+     * optimized
+     */
+    public MathExpr optimize(MathExpr expr) {
+        this.summary = new MathOptimizationSummary();
+
+        IMathExpr root = expr.getChild();
+        if (root == null || expr.isDeep()) {
+            return expr;
+        }
+
+        boolean isShared = (expr.getTempCount() > 0);
+        if (isShared) {
+            // The graph may be deeper than the tree of shared values.
+            root = MathExprNodes.unshare(root);
+            if (MathExprNodes.getGraphHeight(root)
+                    > MathExpr.MAX_RECURSIVE_HEIGHT) {
+                return expr;
+            }
+        }
+
+        this.rewritten = new IdentityHashMap<>();
+        this.isExact = expr.isExact();
+        IMathExpr optimized = this.rewrite(root);
+        this.rewritten = null;
+        this.summary.setNodeCounts(countNodes(root), countNodes(optimized));
+
+        if (optimized == root) {
+            return expr;
+        }
+
+        return isShared
+                ? MathExprNodes.share(optimized, expr.getVarTable(),
+                        expr.getFrameBase())
+                : new MathExpr(optimized, expr.getVarTable());
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return summary of the rewrites done by the last optimization
+     */
+    public MathOptimizationSummary getSummary() {
+        return this.summary;
+    }
+
+    /***************************************************************************
+     * Rewrites the expression, its operands first. A node occurring more than
+     * once in the graph is rewritten only once.
+     *
+     * @param expr expression to rewrite
+     *
+     * @return rewritten expression, or the same instance if nothing changed
+     */
+    private IMathExpr rewrite(IMathExpr expr) {
+        IMathExpr result = this.rewritten.get(expr);
+
+        if (result == null) {
+            result = this.rewriteNode(expr);
+            this.rewritten.put(expr, result);
+        }
+
+        return result;
+    }
+
+    /***************************************************************************
+     * Rewrites the node, its operands by {@link #rewrite(IMathExpr)}.
+     *
+     * @param expr expression to rewrite
+     *
+     * @return rewritten expression, or the same instance if nothing changed
+     */
+    private IMathExpr rewriteNode(IMathExpr expr) {
+        if (expr instanceof AMathBinOper) {
+            AMathBinOper oper = (AMathBinOper) expr;
+            IMathExpr left = this.rewrite(oper.getLeftOperand());
+            IMathExpr right = this.rewrite(oper.getRightOperand());
+
+            if (left != oper.getLeftOperand()
+                    || right != oper.getRightOperand()) {
+                expr = MathBinOper.buildBinaryOper(oper.getOperation(), left,
+                        right);
+            }
+
+            if (left instanceof MathExprConst
+                    && right instanceof MathExprConst) {
+                return this.fold(expr);
+            }
+
+            return this.simplify(oper.getOperation(), left, right, expr);
+        }
+
+        if (expr instanceof AMathNaryOper) {
+            return this.rewriteChain((AMathNaryOper) expr);
+        }
+
+        if (expr instanceof MathExprPowInt) {
+            MathExprPowInt pow = (MathExprPowInt) expr;
+            IMathExpr base = this.rewrite(pow.getBase());
+
+            if (base != pow.getBase()) {
+                expr = new MathExprPowInt(base, pow.getExponent());
+            }
+
+            return (base instanceof MathExprConst) ? this.fold(expr) : expr;
+        }
+
+        if (expr instanceof MathExprSqrt) {
+            IMathExpr base = this.rewrite(((MathExprSqrt) expr).getBase());
+
+            if (base != ((MathExprSqrt) expr).getBase()) {
+                expr = new MathExprSqrt(base);
+            }
+
+            return (base instanceof MathExprConst) ? this.fold(expr) : expr;
+        }
+
+        if (expr instanceof MathExprCall1) {
+            MathExprCall1 call = (MathExprCall1) expr;
+            IMathExpr arg = this.rewrite(call.getArgument());
+
+            if (arg != call.getArgument()) {
+                expr = new MathExprCall1(call.getFunction(), arg);
+            }
+
+            return (arg instanceof MathExprConst) ? this.fold(expr) : expr;
+        }
+
+        if (expr instanceof MathExprCall2) {
+            MathExprCall2 call = (MathExprCall2) expr;
+            IMathExpr left = this.rewrite(call.getLeft());
+            IMathExpr right = this.rewrite(call.getRight());
+
+            if (left != call.getLeft() || right != call.getRight()) {
+                expr = new MathExprCall2(call.getFunction(), left, right);
+            }
+
+            return (left instanceof MathExprConst
+                    && right instanceof MathExprConst) ? this.fold(expr)
+                    : expr;
+        }
+
+        return expr;
+    }
+
+    /***************************************************************************
+     * Rewrites the chain, its operands first. The leading constant operands
+     * are folded, since the chain is evaluated from the left to the right,
+     * and the identity operands are removed.
+     *
+     * @param oper chain to rewrite
+     *
+     * @return rewritten expression, or the same instance if nothing changed
+     */
+    private IMathExpr rewriteChain(AMathNaryOper oper) {
+        int operandCount = oper.getOperandCount();
+        IMathExpr[] operands = new IMathExpr[operandCount];
+        MathBinOper[] operations = new MathBinOper[operandCount];
+        double identity = (oper instanceof MathExprSum) ? 0.0 : 1.0;
+        boolean isChanged = false;
+        int count = 0;
+
+        for (int i = 0; i < operandCount; i++) {
+            IMathExpr operand = this.rewrite(oper.getOperand(i));
+            MathBinOper operation = oper.getOperation(i);
+
+            if (count == 1 && operands[0] instanceof MathExprConst
+                    && operand instanceof MathExprConst) {
+                operands[0] = this.fold(MathBinOper.buildBinaryOper(
+                        operation, operands[0], operand));
+                isChanged = true;
+            } else if (count > 0 && isConst(operand, identity)) {
+                this.summary.addRemovedIdentity();
+                isChanged = true;
+            } else {
+                isChanged |= (operand != oper.getOperand(i));
+                operands[count] = operand;
+                operations[count++] = operation;
+            }
+        }
+
+        // The leading identity may be removed only if it is not inverted.
+        if (count > 1 && isConst(operands[0], identity)
+                && operations[1] == oper.getOperation(0)) {
+            this.summary.addRemovedIdentity();
+            isChanged = true;
+            count--;
+            System.arraycopy(operands, 1, operands, 0, count);
+            System.arraycopy(operations, 1, operations, 0, count);
+        }
+
+        if (!isChanged) {
+            return oper;
+        }
+
+        return (count == 1) ? operands[0]
+                : AMathNaryOper.buildChain(operations, operands, count);
+    }
+
+    /***************************************************************************
+     * Applies the algebraic identities and the power reductions.
+     *
+     * @param operation binary operation
+     * @param left rewritten left operand
+     * @param right rewritten right operand
+     * @param expr operation with the rewritten operands
+     *
+     * @return simplified expression, or the operation itself
+     */
+    private IMathExpr simplify(MathBinOper operation, IMathExpr left,
+            IMathExpr right, IMathExpr expr) {
+        switch (operation) {
+            case ADD:
+                if (isConst(right, 0.0)) {
+                    return this.identity(left);
+                }
+                if (isConst(left, 0.0)) {
+                    return this.identity(right);
+                }
+                break;
+            case SUB:
+                if (isConst(right, 0.0)) {
+                    return this.identity(left);
+                }
+                break;
+            case MUL:
+                if (isConst(right, 1.0)) {
+                    return this.identity(left);
+                }
+                if (isConst(left, 1.0)) {
+                    return this.identity(right);
+                }
+                break;
+            case DIV:
+                if (isConst(right, 1.0)) {
+                    return this.identity(left);
+                }
+                break;
+            case POW:
+                return this.simplifyPow(left, right, expr);
+        }
+
+        return expr;
+    }
+
+    /***************************************************************************
+     * Simplifies a power with a constant exponent.
+     *
+     * @param base rewritten base
+     * @param exponent rewritten exponent
+     * @param expr power with the rewritten operands
+     *
+     * @return simplified expression, or the power itself
+     */
+    private IMathExpr simplifyPow(IMathExpr base, IMathExpr exponent,
+            IMathExpr expr) {
+        if (!(exponent instanceof MathExprConst)) {
+            return expr;
+        }
+
+        double val = ((MathExprConst) exponent).getValue();
+
+        if (val == 1.0) {
+            return this.identity(base);
+        }
+        if (val == 0.0) {
+            // Math.pow returns 1 for any base, even NaN.
+            return this.identity(new MathExprConst(1.0));
+        }
+        if (val == 0.5) {
+            this.summary.addReducedPower();
+            return new MathExprSqrt(base);
+        }
+        if (val == Math.rint(val)
+                && Math.abs(val) <= MAX_POW_INT_EXPONENT) {
+            this.summary.addReducedPower();
+            return new MathExprPowInt(base, (int) val);
+        }
+
+        return expr;
+    }
+
+    /***************************************************************************
+     * Records an identity and returns its result.
+     *
+     * @param result expression the identity results in
+     *
+     * @return the result
+     */
+    private IMathExpr identity(IMathExpr result) {
+        this.summary.addRemovedIdentity();
+
+        return result;
+    }
+
+    /***************************************************************************
+     * Replaces the expression having only constant operands by its value.
+     * Its value is calculated exactly only if the whole expression is, since
+     * a subexpression calculated exactly could change the value otherwise,
+     * e.g. that of <code>(2 ^ 53 + 1 - 2 ^ 53) / 4</code>.
+     *
+     * @param expr expression to fold
+     *
+     * @return newly created constant
+     */
+    private IMathExpr fold(IMathExpr expr) {
+        this.summary.addFoldedConst();
+
+        if (this.isExact && MathExprIntegers.isIntegral(expr)) {
+            try {
+                return new MathExprConst(MathExprIntegers.evalExact(expr));
+            } catch (ArithmeticException ex) {
+                // Overflows, the value in double precision is used.
+            }
+        }
+
+        return new MathExprConst(expr.eval());
+    }
+
+    /***************************************************************************
+     * Checks whether the expression is the specified constant. Both the zeros
+     * are considered equal.
+     *
+     * @param expr expression to check
+     * @param val constant value
+     *
+     * @return true if the expression is the constant, false otherwise
+     */
+    private static boolean isConst(IMathExpr expr, double val) {
+        return expr instanceof MathExprConst
+                && ((MathExprConst) expr).getValue() == val;
+    }
+
+    /***************************************************************************
+     * Counts the distinct nodes of the expression graph.
+     *
+     * @param expr expression to count the nodes of
+     *
+     * @return number of nodes
+     */
+    static int countNodes(IMathExpr expr) {
+        return countNodes(expr,
+                Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    /***************************************************************************
+     * Counts the nodes of the expression graph not counted yet.
+     *
+     * @param expr expression to count the nodes of
+     * @param counted nodes counted already
+     *
+     * @return number of nodes
+     */
+    private static int countNodes(IMathExpr expr, Set<IMathExpr> counted) {
+        if (!counted.add(expr)) {
+            return 0;
+        }
+        if (expr instanceof AMathBinOper) {
+            AMathBinOper oper = (AMathBinOper) expr;
+
+            return 1 + countNodes(oper.getLeftOperand(), counted)
+                    + countNodes(oper.getRightOperand(), counted);
+        }
+        if (expr instanceof AMathNaryOper) {
+            AMathNaryOper oper = (AMathNaryOper) expr;
+            int count = 1;
+
+            for (int i = 0; i < oper.getOperandCount(); i++) {
+                count += countNodes(oper.getOperand(i), counted);
+            }
+
+            return count;
+        }
+        if (expr instanceof MathExprPowInt) {
+            return 1 + countNodes(((MathExprPowInt) expr).getBase(), counted);
+        }
+        if (expr instanceof MathExprSqrt) {
+            return 1 + countNodes(((MathExprSqrt) expr).getBase(), counted);
+        }
+        if (expr instanceof MathExprCall1) {
+            return 1 + countNodes(((MathExprCall1) expr).getArgument(),
+                    counted);
+        }
+        if (expr instanceof MathExprCall2) {
+            MathExprCall2 call = (MathExprCall2) expr;
+
+            return 1 + countNodes(call.getLeft(), counted)
+                    + countNodes(call.getRight(), counted);
+        }
+
+        return 1;
+    }
+
+}
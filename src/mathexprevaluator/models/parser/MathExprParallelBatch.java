@@ -0,0 +1,203 @@
+package mathexprevaluator.models.parser;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/*******************************************************************************
+ * Evaluator of an expression over large batches of rows using all the cores.
+ * The range of rows is recursively split into fork/join tasks, each of them
+ * evaluating its own slice of the output array by a {@link MathExprBatch}
+ * confined to the worker thread, so the scratch buffers are reused and never
+ * shared. The expression itself is immutable and shared by all the tasks.
+ *
+ * <p>The evaluator may be used by multiple threads at once.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprParallelBatch {
+
+    public static final int DEFAULT_MIN_CHUNK_ROWS = 16384;
+
+    // Each worker gets several tasks, so that the faster ones can steal the
+    // remaining work of the slower ones.
+    private static final int TASKS_PER_WORKER = 4;
+
+    private final MathExpr expr;
+    private final ForkJoinPool pool;
+    private final boolean ownPool;
+    private final int minChunkRows;
+    private final ThreadLocal<MathExprBatch> batches;
+
+    /***************************************************************************
+     * Default constructor. Uses the common fork/join pool.
+     *
+     * @param expr parsed expression to evaluate
+     */
+    public MathExprParallelBatch(MathExpr expr) {
+        this(expr, ForkJoinPool.commonPool(), false, DEFAULT_MIN_CHUNK_ROWS);
+    }
+
+    /***************************************************************************
+     * Constructor creating a pool of its own, which should be shut down by
+     * {@link #shutdown()} once the evaluator is no longer needed.
+     *
+     * @param expr parsed expression to evaluate
+     * @param parallelism number of worker threads
+     * @param minChunkRows minimum number of rows evaluated by a single task
+     */
+    public MathExprParallelBatch(MathExpr expr, int parallelism,
+            int minChunkRows) {
+        this(expr, new ForkJoinPool(parallelism), true, minChunkRows);
+    }
+
+    /***************************************************************************
+     * Constructor using the given pool, which is not shut down by this
+     * evaluator.
+     *
+     * @param expr parsed expression to evaluate
+     * @param pool pool to run the tasks in
+     * @param minChunkRows minimum number of rows evaluated by a single task
+     */
+    public MathExprParallelBatch(MathExpr expr, ForkJoinPool pool,
+            int minChunkRows) {
+        this(expr, pool, false, minChunkRows);
+    }
+
+    /***************************************************************************
+     * Common constructor.
+     *
+     * @param expr parsed expression to evaluate
+     * @param pool pool to run the tasks in
+     * @param ownPool whether the pool has been created by this evaluator
+     * @param minChunkRows minimum number of rows evaluated by a single task
+     */
+    private MathExprParallelBatch(MathExpr expr, ForkJoinPool pool,
+            boolean ownPool, int minChunkRows) {
+        if (minChunkRows <= 0) {
+            throw new IllegalArgumentException("Invalid minimum chunk size: "
+                    + minChunkRows);
+        }
+
+        this.expr = expr;
+        this.pool = pool;
+        this.ownPool = ownPool;
+        this.minChunkRows = minChunkRows;
+        this.batches = ThreadLocal.withInitial(() -> new MathExprBatch(expr));
+    }
+
+    /***************************************************************************
+     * Evaluates the expression for as many rows as the output array holds.
+     *
+     * @param columns values of the variables, one column per slot
+     * @param out array to store the values of the rows to
+     */
+    public void eval(double[][] columns, double[] out) {
+        this.eval(columns, out, out.length);
+    }
+
+    /***************************************************************************
+     * Evaluates the expression for the given number of rows.
+     *
+     * @param columns values of the variables, one column per slot, each of
+     * at least rowCount elements
+     * @param out array to store the values of the rows to
+     * @param rowCount number of rows to evaluate
+     */
+    public void eval(double[][] columns, double[] out, int rowCount) {
+        if (rowCount < 0 || rowCount > out.length) {
+            throw new IllegalArgumentException("Invalid row count: "
+                    + rowCount);
+        }
+
+        int tasks = this.pool.getParallelism() * TASKS_PER_WORKER;
+        int chunkRows = Math.max(this.minChunkRows,
+                (rowCount + tasks - 1) / tasks);
+
+        if (rowCount <= chunkRows) {
+            this.batches.get().eval(columns, out, 0, rowCount);
+        } else {
+            this.pool.invoke(new EvalTask(columns, out, 0, rowCount,
+                    chunkRows));
+        }
+    }
+
+    /***************************************************************************
+     * Shuts down the pool if it has been created by this evaluator.
+     */
+    public void shutdown() {
+        if (this.ownPool) {
+            this.pool.shutdown();
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return evaluated expression
+     */
+    public MathExpr getExpr() {
+        return this.expr;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of worker threads
+     */
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    /***************************************************************************
+     * Task evaluating a range of rows, splitting it in halves while it is
+     * larger than the chunk.
+     */
+    private class EvalTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] columns;
+        private final double[] out;
+        private final int fromRow;
+        private final int toRow;
+        private final int chunkRows;
+
+        /***********************************************************************
+         * Default constructor.
+         *
+         * @param columns values of the variables, one column per slot
+         * @param out array to store the values of the rows to
+         * @param fromRow index of the first row to evaluate
+         * @param toRow index after the last row to evaluate
+         * @param chunkRows maximum number of rows evaluated without splitting
+         */
+        public EvalTask(double[][] columns, double[] out, int fromRow,
+                int toRow, int chunkRows) {
+            this.columns = columns;
+            this.out = out;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.chunkRows = chunkRows;
+        }
+
+        /**********************************************************************/
+        @Override
+        protected void compute() {
+            if (this.toRow - this.fromRow <= this.chunkRows) {
+                MathExprParallelBatch.this.batches.get().eval(this.columns,
+                        this.out, this.fromRow, this.toRow);
+                return;
+            }
+
+            int middle = (this.fromRow + this.toRow) >>> 1;
+
+            invokeAll(new EvalTask(this.columns, this.out, this.fromRow,
+                    middle, this.chunkRows),
+                    new EvalTask(this.columns, this.out, middle, this.toRow,
+                            this.chunkRows));
+        }
+
+    }
+
+}
@@ -0,0 +1,614 @@
+package mathexprevaluator.models.parser;
+
+import java.util.Arrays;
+
+/*******************************************************************************
+ * Parser building the expression tree in a single left-to-right pass over the
+ * tokens produced by {@link MathExprTokenizer}.
+ *
+ * <p>The following operator precedence algorithm is used. The operands and
+ * the pending operations are kept on two explicit stacks, so neither the
+ * length of the expression nor the nesting of the brackets is limited by the
+ * thread stack. From the loosest to the tightest, the precedence levels are
+ * the additive operations, the multiplicative ones, the negation and the
+ * power. Before an operation is pushed, the pending operations of a tighter
+ * level are reduced to their result. The additive and the multiplicative
+ * operations are associative, so a whole chain of them, e.g.
+ * <code>a + b - c + d</code>, is reduced at once to a single node evaluated
+ * from the left to the right (see {@link AMathNaryOper}). The power is grouped
+ * to the left, hence <code>2^2^2</code> is <code>(2^2)^2</code>.
+ *
+ * <p>A minus sign found where an operand is expected negates the operand,
+ * such that <code>-2^2</code> is <code>-(2^2)</code>. A sign at the beginning
+ * of the expression or of a bracket is applied to an empty operand.
+ *
+ * <p>Names of variables are resolved to their slots through the variable
+ * table. Without a table, any name is a syntax error. A name followed by an
+ * opening bracket is a call of a function, resolved through the function
+ * table to a node calling it directly (see {@link MathExprCall1} and
+ * {@link MathExprCall2}). The arguments, separated by commas, are parsed like
+ * the bracketed groups. A call of a function defined in the language of the
+ * expressions (see {@link MathMacro}) is replaced by its body instead, the
+ * parameters replaced by the trees of the arguments.
+ *
+ * <p>Given a {@link MathExprGroupTracker}, the bracketed groups left
+ * unchanged by an edit are not parsed again. The tree of such a group is
+ * pushed as a whole operand and its characters are skipped.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprParser {
+
+    private static final MathBinOper[] OPERATIONS = MathBinOper.values();
+
+    // Codes of the pending operations besides the ordinals of MathBinOper.
+    private static final int NEGATION = -1;
+    private static final int BRACKET = -2;
+
+    private static final int ADDITIVE_LEVEL = 0;
+    private static final int MULTIPLICATIVE_LEVEL = 1;
+    private static final int NEGATION_LEVEL = 2;
+    private static final int POW_LEVEL = 3;
+
+    private final MathExprTokenizer tokenizer;
+    private final MathVarTable vars;
+    private final MathFuncTable funcs;
+    private final MathExprGroupTracker groups;
+
+    private IMathExpr[] operands;
+    private int[] heights;
+    private int operandCount;
+    private int[] pending;
+    private int pendingCount;
+    private int openBrackets;
+    // Functions called by the open brackets, null for the plain ones.
+    private MathFunction[] calls;
+    private MathMacro[] macros;
+    private int[] argCounts;
+    private boolean isInlined;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param expr expression to parse
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     * @param vars table to resolve the variables with, may be null
+     */
+    public MathExprParser(CharSequence expr, int start, int end,
+            MathVarTable vars) {
+        this(expr, start, end, vars, MathFuncTable.getDefault(), null);
+    }
+
+    /***************************************************************************
+     * Constructor resolving the functions through the given table.
+     *
+     * @param expr expression to parse
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     * @param vars table to resolve the variables with, may be null
+     * @param funcs table to resolve the functions with
+     */
+    public MathExprParser(CharSequence expr, int start, int end,
+            MathVarTable vars, MathFuncTable funcs) {
+        this(expr, start, end, vars, funcs, null);
+    }
+
+    /***************************************************************************
+     * Constructor parsing an edited expression.
+     *
+     * @param expr expression to parse
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     * @param vars table to resolve the variables with, may be null
+     * @param funcs table to resolve the functions with
+     * @param groups tracker of the bracketed groups, null to parse them all
+     */
+    public MathExprParser(CharSequence expr, int start, int end,
+            MathVarTable vars, MathFuncTable funcs,
+            MathExprGroupTracker groups) {
+        this.tokenizer = new MathExprTokenizer(expr, start, end);
+        this.vars = vars;
+        this.funcs = funcs;
+        this.groups = groups;
+        this.operands = new IMathExpr[8];
+        this.heights = new int[8];
+        this.pending = new int[8];
+        this.calls = new MathFunction[8];
+        this.macros = new MathMacro[8];
+        this.argCounts = new int[8];
+    }
+
+    /***************************************************************************
+     * Parses the entire expression.
+     *
+     * @return root of the expression tree
+     * @throws InvalidMathExprException thrown in case of syntax error
+     */
+    public IMathExpr parse() throws InvalidMathExprException {
+        boolean expectOperand = true;
+        boolean isGroupStart = true;
+
+        this.tokenizer.next();
+
+        while (true) {
+            if (expectOperand) {
+                boolean isSign = this.tokenizer.isOperator(MathBinOper.ADD)
+                        || this.tokenizer.isOperator(MathBinOper.SUB);
+
+                if (isGroupStart && isSign) {
+                    // A leading sign is applied to an empty operand.
+                    this.pushOperand(new MathExprConst(0L), 1);
+                    expectOperand = false;
+                    isGroupStart = false;
+                    continue;
+                }
+
+                // Unless negated, an operand still expected follows an
+                // opening bracket, be it the one of a call.
+                boolean isNegation
+                        = (this.tokenizer.getToken() == MathToken.OPERATOR);
+                expectOperand = !this.parseOperand();
+                isGroupStart = expectOperand && !isNegation;
+                continue;
+            }
+
+            switch (this.tokenizer.getToken()) {
+                case OPERATOR:
+                    this.pushOperation(this.tokenizer.getOperator());
+                    this.tokenizer.next();
+                    expectOperand = true;
+                    break;
+                case BRACKET_CLOSE:
+                    if (this.openBrackets == 0) {
+                        throw this.unexpectedToken();
+                    }
+                    this.reduceGroup();
+                    this.pendingCount--; // The bracket itself.
+                    this.openBrackets--;
+                    if (this.calls[this.openBrackets] != null) {
+                        this.reduceCall(this.calls[this.openBrackets],
+                                this.argCounts[this.openBrackets]);
+                    } else if (this.macros[this.openBrackets] != null) {
+                        this.reduceMacro(this.macros[this.openBrackets],
+                                this.argCounts[this.openBrackets]);
+                    } else if (this.groups != null) {
+                        this.groups.close(this.tokenizer.getTokenStart() + 1,
+                                this.operands[this.operandCount - 1],
+                                this.heights[this.operandCount - 1]);
+                    }
+                    this.tokenizer.next();
+                    break;
+                case COMMA:
+                    if (this.openBrackets == 0
+                            || (this.calls[this.openBrackets - 1] == null
+                            && this.macros[this.openBrackets - 1] == null)) {
+                        throw this.unexpectedToken();
+                    }
+                    this.reduceGroup();
+                    this.argCounts[this.openBrackets - 1]++;
+                    this.tokenizer.next();
+                    expectOperand = true;
+                    isGroupStart = true;
+                    break;
+                default:
+                    if (this.openBrackets > 0) {
+                        throw new InvalidMathExprException(
+                                MathExprErrorKind.MISSING_CLOSING_BRACKET,
+                                "Invalid syntax, missing closing bracket at "
+                                + "position "
+                                + this.tokenizer.getTokenStart());
+                    }
+                    if (this.tokenizer.getToken() != MathToken.END) {
+                        throw this.unexpectedToken();
+                    }
+
+                    this.reduceGroup();
+
+                    return this.operands[0];
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Getter, valid after the expression has been parsed.
+     *
+     * @return height of the expression tree
+     */
+    public int getHeight() {
+        return this.heights[0];
+    }
+
+    /***************************************************************************
+     * Getter, valid after the expression has been parsed.
+     *
+     * @return true if a call of a defined function may have been inlined,
+     * thus the result may be a graph rather than a tree (see
+     * {@link MathMacro})
+     */
+    public boolean hasInlined() {
+        return this.isInlined;
+    }
+
+    /***************************************************************************
+     * Parses the token found where an operand is expected - a number, a
+     * variable, a function call, an opening bracket or a minus sign.
+     *
+     * @return true if a whole operand has been parsed, false if a bracket
+     * has been opened, including the one of a call, or a negation started
+     * instead
+     * @throws InvalidMathExprException thrown in case of syntax error
+     */
+    private boolean parseOperand() throws InvalidMathExprException {
+        switch (this.tokenizer.getToken()) {
+            case NUMBER:
+                this.pushOperand(this.tokenizer.isInteger()
+                        ? new MathExprConst(this.tokenizer.getInteger())
+                        : new MathExprConst(this.tokenizer.getNumber()), 1);
+                this.tokenizer.next();
+                return true;
+            case NAME:
+                String name = this.tokenizer.getName();
+
+                if (this.tokenizer.next() == MathToken.BRACKET_OPEN) {
+                    MathMacro macro = (this.funcs == null) ? null
+                            : this.funcs.getMacro(name);
+
+                    if (macro != null) {
+                        this.openBracket(null, macro);
+                    } else {
+                        this.openBracket(this.resolveFunction(name), null);
+                    }
+                    this.tokenizer.next();
+                    return false;
+                }
+
+                this.pushOperand(this.resolveVar(name), 1);
+                return true;
+            case BRACKET_OPEN:
+                if (this.groups != null) {
+                    int pos = this.tokenizer.getTokenStart();
+                    MathExprGroup group = this.groups.reuse(pos);
+
+                    if (group != null) {
+                        // The group may contain an inlined call.
+                        this.isInlined = true;
+                        this.pushOperand(group.getExpr(), group.getHeight());
+                        this.tokenizer.skipTo(pos + group.getLength());
+                        this.tokenizer.next();
+                        return true;
+                    }
+                    this.groups.open(pos);
+                }
+                this.openBracket(null, null);
+                this.tokenizer.next();
+                return false;
+            case OPERATOR:
+                if (this.tokenizer.isOperator(MathBinOper.SUB)) {
+                    this.pushPending(NEGATION);
+                    this.tokenizer.next();
+                    return false;
+                }
+                throw this.unexpectedToken();
+            default:
+                throw this.unexpectedToken();
+        }
+    }
+
+    /***************************************************************************
+     * Opens a bracket, either a plain one or the one of a call.
+     *
+     * @param func function called, null if none
+     * @param macro defined function called, null if none
+     */
+    private void openBracket(MathFunction func, MathMacro macro) {
+        if (this.openBrackets == this.calls.length) {
+            this.calls = Arrays.copyOf(this.calls, this.openBrackets * 2);
+            this.macros = Arrays.copyOf(this.macros, this.openBrackets * 2);
+            this.argCounts = Arrays.copyOf(this.argCounts,
+                    this.openBrackets * 2);
+        }
+
+        this.calls[this.openBrackets] = func;
+        this.macros[this.openBrackets] = macro;
+        this.argCounts[this.openBrackets] = 1;
+        this.openBrackets++;
+        this.pushPending(BRACKET);
+    }
+
+    /***************************************************************************
+     * Pushes a binary operation, reducing the pending operations of a
+     * tighter level first.
+     *
+     * @param operation binary operation to push
+     */
+    private void pushOperation(MathBinOper operation) {
+        int level = levelOf(operation.ordinal());
+
+        while (this.pendingCount > 0) {
+            int top = this.pending[this.pendingCount - 1];
+            if (top == BRACKET) {
+                break;
+            }
+
+            // The power is grouped to the left, the chains are not reduced
+            // until their end.
+            int topLevel = levelOf(top);
+            if (topLevel < level
+                    || (topLevel == level && level != POW_LEVEL)) {
+                break;
+            }
+
+            this.reduce();
+        }
+
+        this.pushPending(operation.ordinal());
+    }
+
+    /***************************************************************************
+     * Reduces all the pending operations down to the innermost bracket, or
+     * down to the bottom of the stack if there is none.
+     */
+    private void reduceGroup() {
+        while (this.pendingCount > 0
+                && this.pending[this.pendingCount - 1] != BRACKET) {
+            this.reduce();
+        }
+    }
+
+    /***************************************************************************
+     * Reduces the topmost pending operation, or the whole chain of them in
+     * case of an associative one, to a single operand.
+     */
+    private void reduce() {
+        int top = this.pending[--this.pendingCount];
+
+        if (top == NEGATION) {
+            IMathExpr operand = this.operands[this.operandCount - 1];
+            int height = this.heights[this.operandCount - 1];
+
+            this.operandCount--;
+            this.pushOperand(new MathExprSub(new MathExprConst(0L),
+                    operand), height + 1);
+            return;
+        }
+
+        int level = levelOf(top);
+
+        if (level == POW_LEVEL) {
+            int base = this.operandCount - 2;
+            int height = Math.max(this.heights[base], this.heights[base + 1]);
+
+            this.operandCount = base;
+            this.pushOperand(new MathExprPow(this.operands[base],
+                    this.operands[base + 1]), height + 1);
+            return;
+        }
+
+        int first = this.pendingCount;
+        while (first > 0 && this.pending[first - 1] >= 0
+                && levelOf(this.pending[first - 1]) == level) {
+            first--;
+        }
+
+        int count = this.pendingCount - first + 2;
+        MathBinOper[] chainOperations = new MathBinOper[count];
+        for (int i = 1; i < count; i++) {
+            chainOperations[i] = OPERATIONS[this.pending[first + i - 1]];
+        }
+        this.pendingCount = first;
+
+        this.operandCount -= count;
+        IMathExpr[] chainOperands = Arrays.copyOfRange(this.operands,
+                this.operandCount, this.operandCount + count);
+        int height = 0;
+        for (int i = 0; i < count; i++) {
+            height = Math.max(height, this.heights[this.operandCount + i]);
+        }
+
+        this.pushOperand(AMathNaryOper.buildChain(chainOperations,
+                chainOperands, count), height + 1);
+    }
+
+    /***************************************************************************
+     * Reduces the arguments of a closed call to the call itself.
+     *
+     * @param func function called
+     * @param argCount number of the arguments given
+     * @throws InvalidMathExprException thrown in case of a wrong number of
+     * arguments
+     */
+    private void reduceCall(MathFunction func, int argCount)
+            throws InvalidMathExprException {
+        if (argCount != func.getArity()) {
+            throw this.wrongArgumentCount(func.getName(), func.getArity(),
+                    argCount);
+        }
+
+        int first = this.operandCount - argCount;
+        int height = this.heights[first];
+
+        this.operandCount = first;
+        if (argCount == 1) {
+            this.pushOperand(new MathExprCall1(func, this.operands[first]),
+                    height + 1);
+        } else {
+            height = Math.max(height, this.heights[first + 1]);
+            this.pushOperand(new MathExprCall2(func, this.operands[first],
+                    this.operands[first + 1]), height + 1);
+        }
+    }
+
+    /***************************************************************************
+     * Reduces the arguments of a closed call of a defined function to its
+     * inlined body.
+     *
+     * @param macro defined function called
+     * @param argCount number of the arguments given
+     * @throws InvalidMathExprException thrown in case of a wrong number of
+     * arguments
+     */
+    private void reduceMacro(MathMacro macro, int argCount)
+            throws InvalidMathExprException {
+        if (argCount != macro.getArity()) {
+            throw this.wrongArgumentCount(macro.getName(), macro.getArity(),
+                    argCount);
+        }
+
+        int first = this.operandCount - argCount;
+        IMathExpr[] args = Arrays.copyOfRange(this.operands, first,
+                this.operandCount);
+        int argHeight = 0;
+        for (int i = first; i < this.operandCount; i++) {
+            argHeight = Math.max(argHeight, this.heights[i]);
+        }
+
+        // An argument replaces a leaf of the body, hence the bound.
+        this.operandCount = first;
+        this.isInlined = true;
+        this.pushOperand(macro.inline(args),
+                macro.getHeight() + argHeight - 1);
+    }
+
+    /***************************************************************************
+     * Pushes an operand.
+     *
+     * @param operand operand to push
+     * @param height height of the operand tree
+     */
+    private void pushOperand(IMathExpr operand, int height) {
+        if (this.operandCount == this.operands.length) {
+            this.operands = Arrays.copyOf(this.operands,
+                    this.operandCount * 2);
+            this.heights = Arrays.copyOf(this.heights, this.operandCount * 2);
+        }
+
+        this.operands[this.operandCount] = operand;
+        this.heights[this.operandCount++] = height;
+    }
+
+    /***************************************************************************
+     * Pushes a pending operation.
+     *
+     * @param code ordinal of the binary operation, or a special code
+     */
+    private void pushPending(int code) {
+        if (this.pendingCount == this.pending.length) {
+            this.pending = Arrays.copyOf(this.pending, this.pendingCount * 2);
+        }
+
+        this.pending[this.pendingCount++] = code;
+    }
+
+    /***************************************************************************
+     * Retrieves the precedence level of a pending operation.
+     *
+     * @param code ordinal of the binary operation, or the negation
+     * @return precedence level, the higher the tighter
+     */
+    private static int levelOf(int code) {
+        if (code == NEGATION) {
+            return NEGATION_LEVEL;
+        }
+
+        switch (OPERATIONS[code]) {
+            case ADD:
+            case SUB:
+                return ADDITIVE_LEVEL;
+            case MUL:
+            case DIV:
+                return MULTIPLICATIVE_LEVEL;
+            default:
+                return POW_LEVEL;
+        }
+    }
+
+    /***************************************************************************
+     * Resolves the variable to its slot.
+     *
+     * @param name name of the variable
+     * @return newly created math expression
+     * @throws InvalidMathExprException thrown in case of unknown variable
+     */
+    private IMathExpr resolveVar(String name) throws InvalidMathExprException {
+        int slot = (this.vars == null) ? -1 : this.vars.getSlot(name);
+
+        if (slot == -1) {
+            if (this.vars == null || this.vars.isFixed()) {
+                throw new InvalidMathExprException(
+                        MathExprErrorKind.UNKNOWN_VARIABLE,
+                        "Invalid syntax, unknown variable: " + name);
+            }
+
+            slot = this.vars.declare(name);
+        }
+
+        return new MathExprVar(slot, name);
+    }
+
+    /***************************************************************************
+     * Resolves the function called.
+     *
+     * @param name name of the function
+     * @return function called
+     * @throws InvalidMathExprException thrown in case of unknown function
+     */
+    private MathFunction resolveFunction(String name)
+            throws InvalidMathExprException {
+        MathFunction func = (this.funcs == null) ? null
+                : this.funcs.get(name);
+
+        if (func == null) {
+            throw new InvalidMathExprException(
+                    MathExprErrorKind.UNKNOWN_FUNCTION,
+                    "Invalid syntax, unknown function: " + name);
+        }
+
+        return func;
+    }
+
+    /***************************************************************************
+     * Creates an exception describing a call with a wrong number of
+     * arguments.
+     *
+     * @param name name of the function called
+     * @param arity number of the parameters of the function
+     * @param argCount number of the arguments given
+     * @return newly created exception
+     */
+    private InvalidMathExprException wrongArgumentCount(String name,
+            int arity, int argCount) {
+        return new InvalidMathExprException(
+                MathExprErrorKind.WRONG_ARGUMENT_COUNT,
+                "Invalid syntax, function " + name + " takes " + arity
+                + " argument(s), " + argCount + " given at position "
+                + this.tokenizer.getTokenStart());
+    }
+
+    /***************************************************************************
+     * Creates an exception describing the unexpected current token.
+     *
+     * @return newly created exception
+     */
+    private InvalidMathExprException unexpectedToken() {
+        int pos = this.tokenizer.getTokenStart();
+
+        switch (this.tokenizer.getToken()) {
+            case END:
+                return new InvalidMathExprException(
+                        MathExprErrorKind.MISSING_OPERAND, "Invalid syntax, "
+                        + "operand missing at the end of the expression");
+            case BRACKET_CLOSE:
+                return new InvalidMathExprException(
+                        MathExprErrorKind.UNEXPECTED_CLOSING_BRACKET,
+                        "Invalid syntax, unexpected closing bracket at "
+                        + "position " + pos);
+            default:
+                return new InvalidMathExprException(
+                        MathExprErrorKind.UNEXPECTED_SYMBOL, "Invalid syntax, "
+                        + "unexpected symbol at position " + pos);
+        }
+    }
+
+}
@@ -6,7 +6,7 @@ import static java.lang.Math.pow;
  * Class representing a "POW" mathematical function.
  * 
  * @author Milan Ondrasovic
- * @version 2015-08-04
+ * @version 2026-10-18
  */
 class MathExprPow extends AMathBinOper {
 
@@ -22,9 +22,18 @@ class MathExprPow extends AMathBinOper {
 
     /**************************************************************************/
     @Override
-    public double eval() {
-        return pow(this.leftOperand.eval(), this.rightOperand.eval());
+    public double eval(double[] vars) {
+        return pow(this.leftOperand.eval(vars), this.rightOperand.eval(vars));
     }
-    
+
+    /**************************************************************************/
+    @Override
+    protected void applyChunk(double[] dst, int dstOffset, double[] rightVals,
+            int count) {
+        for (int i = 0; i < count; i++) {
+            dst[dstOffset + i] = pow(dst[dstOffset + i], rightVals[i]);
+        }
+    }
+
 }
 
@@ -0,0 +1,71 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Class representing a "POW" mathematical function with a constant integer
+ * exponent, calculated by repeated squaring.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprPowInt implements IMathChunkExpr {
+    
+    private final IMathExpr base;
+    private final int exponent;
+    
+    /***************************************************************************
+     * Default constructor.
+     * 
+     * @param base base
+     * @param exponent exponent to raise the base to
+     */
+    public MathExprPowInt(IMathExpr base, int exponent) {
+        this.base = base;
+        this.exponent = exponent;
+    }
+    
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        return MathOps.powInt(this.base.eval(vars), this.exponent);
+    }
+    
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        context.evalChunk(this.base, row, count, dst, dstOffset);
+        
+        for (int i = dstOffset; i < dstOffset + count; i++) {
+            dst[i] = MathOps.powInt(dst[i], this.exponent);
+        }
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return base
+     */
+    public IMathExpr getBase() {
+        return this.base;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return exponent to raise the base to
+     */
+    public int getExponent() {
+        return this.exponent;
+    }
+    
+    /***************************************************************************
+     * String representation of the object.
+     * 
+     * @return (base ^ exponent)
+     */
+    @Override
+    public String toString() {
+        return MathExprNodes.toString(this);
+    }
+    
+}
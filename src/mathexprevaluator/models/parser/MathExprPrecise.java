@@ -0,0 +1,689 @@
+package mathexprevaluator.models.parser;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+/*******************************************************************************
+ * Evaluator of an expression which falls back to the decimal arithmetic
+ * whenever the double precision one is not accurate enough, e.g. because of
+ * the cancellation in <code>x + 1 - x</code> for <code>x = 1e16</code>.
+ *
+ * <p>The expression is compiled into a {@link MathExprProgram} first. Each
+ * evaluation runs the program in double precision, tracking a running bound
+ * of the absolute error of each value along with the value - the error of
+ * the operands propagated through the operation, plus the rounding of the
+ * operation itself. Only if the bound of the result exceeds the tolerance,
+ * relative to the result, the program is evaluated again by
+ * {@link BigDecimal} in the precision of the math. context. Hence the common
+ * case costs about two evaluations in double precision.
+ *
+ * <p>The constants and the values of the variables are taken as the decimal
+ * numbers they are written as, e.g. <code>0.1</code> is one tenth rather
+ * than the double nearest to it. Powers with an exponent other than an
+ * integer are calculated in double precision even by the decimal
+ * arithmetic, as are the calls of the functions (see {@link MathFunction})
+ * other than <code>sqrt</code>, <code>abs</code>, <code>floor</code>,
+ * <code>ceil</code>, <code>signum</code>, <code>min</code>, <code>max</code>
+ * and <code>hypot</code>. The error bound of a call is estimated from the
+ * derivatives of the function and its values at the ends of the error
+ * intervals of the arguments. Should the decimal arithmetic fail, e.g.
+ * divide by zero or take the square root of a negative number, the result
+ * in double precision is returned.
+ *
+ * <p>The stacks are allocated by the constructor and reused by the
+ * evaluations, so an instance must not be used by multiple threads at once.
+ * Create one evaluator per thread instead, the program itself may be shared.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprPrecise implements IMathExpr {
+
+    /** Default tolerance of the relative error of the result. */
+    public static final double DEFAULT_TOLERANCE = 1e-12;
+
+    private static final double UNIT_ROUNDOFF = Math.ulp(1.0) / 2.0;
+    private static final int MAX_SQRT_ITERATIONS = 64;
+
+    private final MathExprProgram program;
+    private final MathContext context;
+    private final double tolerance;
+    private final double[] constErrs;
+    private final BigDecimal[] decConsts;
+    private final double[] stack;
+    private final double[] errStack;
+    private final BigDecimal[] decStack;
+    private long fallbackCount;
+
+    /***************************************************************************
+     * Default constructor. Uses the precision of 34 decimal digits (see
+     * {@link MathContext#DECIMAL128}) and the default tolerance.
+     *
+     * @param expr parsed expression to evaluate
+     */
+    public MathExprPrecise(MathExpr expr) {
+        this(MathExprProgram.compile(expr), MathContext.DECIMAL128,
+                DEFAULT_TOLERANCE);
+    }
+
+    /***************************************************************************
+     * Constructor evaluating an already compiled program.
+     *
+     * @param program program to evaluate
+     * @param context precision and rounding of the decimal arithmetic, the
+     * precision must not be unlimited
+     * @param tolerance maximum bound of the relative error of the result in
+     * double precision
+     */
+    public MathExprPrecise(MathExprProgram program, MathContext context,
+            double tolerance) {
+        if (context.getPrecision() == 0) {
+            throw new IllegalArgumentException("Unlimited precision");
+        }
+
+        this.program = program;
+        this.context = context;
+        this.tolerance = tolerance;
+        this.stack = new double[program.getStackSize()];
+        this.errStack = new double[program.getStackSize()];
+        this.decStack = new BigDecimal[program.getStackSize()];
+
+        double[] consts = program.getConsts();
+        this.constErrs = new double[consts.length];
+        this.decConsts = new BigDecimal[consts.length];
+
+        for (int i = 0; i < consts.length; i++) {
+            if (Double.isFinite(consts[i])) {
+                this.decConsts[i] = BigDecimal.valueOf(consts[i]);
+                this.constErrs[i] = (new BigDecimal(consts[i]).compareTo(
+                        this.decConsts[i]) == 0) ? 0.0 : rounding(consts[i]);
+            } else {
+                this.constErrs[i] = Double.NaN;
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Evaluates the expression in double precision, or by the decimal
+     * arithmetic if the double precision is not accurate enough.
+     *
+     * @param vars values of the variables, indexed by their slots
+     *
+     * @return calculated numerical value
+     */
+    @Override
+    public double eval(double[] vars) {
+        double val = this.evalWithErrors(vars);
+        double err = this.errStack[this.program.getStackBase()];
+
+        if (err <= this.tolerance * Math.abs(val)
+                && !Double.isInfinite(err)) {
+            return val;
+        }
+
+        this.fallbackCount++;
+
+        try {
+            return this.evalDecimal(vars).doubleValue();
+        } catch (ArithmeticException | NumberFormatException ex) {
+            return val;
+        }
+    }
+
+    /***************************************************************************
+     * Evaluates the expression in double precision along with the bound of
+     * its absolute error.
+     *
+     * @param vars values of the variables, indexed by their slots
+     * @param bound array to store the bound of the absolute error to, at
+     * index 0
+     *
+     * @return calculated numerical value
+     */
+    public double evalBounded(double[] vars, double[] bound) {
+        double val = this.evalWithErrors(vars);
+
+        bound[0] = this.errStack[this.program.getStackBase()];
+
+        return val;
+    }
+
+    /***************************************************************************
+     * Evaluates the expression by the decimal arithmetic.
+     *
+     * @param vars values of the variables, indexed by their slots
+     *
+     * @return calculated decimal value
+     *
+     * @throws ArithmeticException thrown if the value can not be calculated,
+     * e.g. because of a division by zero
+     * @throws NumberFormatException thrown if a variable or a constant is not
+     * a finite number
+     */
+    public BigDecimal evalDecimal(double[] vars) {
+        final int[] ops = this.program.getCode();
+        final MathFunction[] calls = this.program.getFuncs();
+        final BigDecimal[] dec = this.decStack;
+        final MathContext mc = this.context;
+        int sp = this.program.getStackBase() - 1;
+        int pc = 0;
+
+        while (pc < ops.length) {
+            switch (ops[pc++]) {
+                case MathOpcodes.CONST:
+                    dec[++sp] = this.decConsts[ops[pc]];
+                    if (dec[sp] == null) {
+                        throw new NumberFormatException("Not a finite "
+                                + "constant");
+                    }
+                    pc++;
+                    break;
+                case MathOpcodes.VAR:
+                    dec[++sp] = BigDecimal.valueOf(vars[ops[pc++]]);
+                    break;
+                case MathOpcodes.ADD:
+                    sp--;
+                    dec[sp] = dec[sp].add(dec[sp + 1], mc);
+                    break;
+                case MathOpcodes.SUB:
+                    sp--;
+                    dec[sp] = dec[sp].subtract(dec[sp + 1], mc);
+                    break;
+                case MathOpcodes.MUL:
+                    sp--;
+                    dec[sp] = dec[sp].multiply(dec[sp + 1], mc);
+                    break;
+                case MathOpcodes.DIV:
+                    sp--;
+                    dec[sp] = dec[sp].divide(dec[sp + 1], mc);
+                    break;
+                case MathOpcodes.POW:
+                    sp--;
+                    dec[sp] = this.pow(dec[sp], dec[sp + 1]);
+                    break;
+                case MathOpcodes.POW_INT:
+                    dec[sp] = dec[sp].pow(ops[pc++], mc);
+                    break;
+                case MathOpcodes.POW_HALF:
+                    dec[sp] = this.sqrt(dec[sp]);
+                    break;
+                case MathOpcodes.CALL1:
+                    dec[sp] = this.call(calls[ops[pc++]], dec[sp]);
+                    break;
+                case MathOpcodes.CALL2:
+                    sp--;
+                    dec[sp] = this.call(calls[ops[pc++]], dec[sp],
+                            dec[sp + 1]);
+                    break;
+                case MathOpcodes.STORE:
+                    dec[ops[pc++]] = dec[sp];
+                    break;
+                case MathOpcodes.LOAD:
+                    dec[++sp] = dec[ops[pc++]];
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid operation code: "
+                            + ops[pc - 1]);
+            }
+        }
+
+        BigDecimal result = dec[this.program.getStackBase()];
+        Arrays.fill(dec, null);
+
+        return result;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the evaluations which fell back to the decimal
+     * arithmetic
+     */
+    public long getFallbackCount() {
+        return this.fallbackCount;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return evaluated program
+     */
+    public MathExprProgram getProgram() {
+        return this.program;
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return standard symbolic representation of the math. expression
+     */
+    @Override
+    public String toString() {
+        return this.program.toString();
+    }
+
+    /***************************************************************************
+     * Evaluates the program in double precision, tracking the bound of the
+     * absolute error of each value on the error stack.
+     *
+     * @param vars values of the variables, indexed by their slots
+     *
+     * @return calculated numerical value, its error bound is at the bottom of
+     * the operand stack of the error stack
+     */
+    private double evalWithErrors(double[] vars) {
+        final int[] ops = this.program.getCode();
+        final double[] pool = this.program.getConsts();
+        final MathFunction[] calls = this.program.getFuncs();
+        final double[] val = this.stack;
+        final double[] err = this.errStack;
+        int sp = this.program.getStackBase() - 1;
+        int pc = 0;
+        double left;
+        double right;
+        double res;
+        MathFunction func;
+
+        while (pc < ops.length) {
+            switch (ops[pc++]) {
+                case MathOpcodes.CONST:
+                    val[++sp] = pool[ops[pc]];
+                    err[sp] = this.constErrs[ops[pc++]];
+                    break;
+                case MathOpcodes.VAR:
+                    left = vars[ops[pc++]];
+                    val[++sp] = left;
+                    // Integers are exact, the other values may well be
+                    // rounded decimal fractions.
+                    err[sp] = (left == Math.rint(left)
+                            && Math.abs(left) < 0x1p53) ? 0.0
+                            : rounding(left);
+                    break;
+                case MathOpcodes.ADD:
+                    sp--;
+                    res = val[sp] + val[sp + 1];
+                    val[sp] = res;
+                    err[sp] = err[sp] + err[sp + 1] + rounding(res);
+                    break;
+                case MathOpcodes.SUB:
+                    sp--;
+                    res = val[sp] - val[sp + 1];
+                    val[sp] = res;
+                    err[sp] = err[sp] + err[sp + 1] + rounding(res);
+                    break;
+                case MathOpcodes.MUL:
+                    sp--;
+                    left = val[sp];
+                    right = val[sp + 1];
+                    res = left * right;
+                    val[sp] = res;
+                    err[sp] = Math.abs(left) * err[sp + 1]
+                            + Math.abs(right) * err[sp]
+                            + err[sp] * err[sp + 1] + rounding(res);
+                    break;
+                case MathOpcodes.DIV:
+                    sp--;
+                    right = val[sp + 1];
+                    res = val[sp] / right;
+                    val[sp] = res;
+                    err[sp] = divError(res, err[sp], right, err[sp + 1]);
+                    break;
+                case MathOpcodes.POW:
+                    sp--;
+                    left = val[sp];
+                    right = val[sp + 1];
+                    res = Math.pow(left, right);
+                    val[sp] = res;
+                    err[sp] = powError(res, left, err[sp], right,
+                            err[sp + 1]);
+                    break;
+                case MathOpcodes.POW_INT:
+                    left = val[sp];
+                    res = MathOps.powInt(left, ops[pc]);
+                    val[sp] = res;
+                    err[sp] = powIntError(res, left, err[sp], ops[pc++]);
+                    break;
+                case MathOpcodes.POW_HALF:
+                    left = val[sp];
+                    res = MathOps.powHalf(left);
+                    val[sp] = res;
+                    err[sp] = sqrtError(res, left, err[sp]);
+                    break;
+                case MathOpcodes.CALL1:
+                    func = calls[ops[pc++]];
+                    left = val[sp];
+                    res = func.apply(left);
+                    val[sp] = res;
+                    err[sp] = callError(func, res, left, err[sp]);
+                    break;
+                case MathOpcodes.CALL2:
+                    func = calls[ops[pc++]];
+                    sp--;
+                    left = val[sp];
+                    right = val[sp + 1];
+                    res = func.apply(left, right);
+                    val[sp] = res;
+                    err[sp] = callError(func, res, left, err[sp], right,
+                            err[sp + 1]);
+                    break;
+                case MathOpcodes.STORE:
+                    val[ops[pc]] = val[sp];
+                    err[ops[pc++]] = err[sp];
+                    break;
+                case MathOpcodes.LOAD:
+                    val[++sp] = val[ops[pc]];
+                    err[sp] = err[ops[pc++]];
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid operation code: "
+                            + ops[pc - 1]);
+            }
+        }
+
+        return val[this.program.getStackBase()];
+    }
+
+    /***************************************************************************
+     * Calculates the bound of the rounding error of a single operation.
+     *
+     * @param res rounded result of the operation
+     *
+     * @return half of the unit in the last place of the result
+     */
+    private static double rounding(double res) {
+        return Math.ulp(res) * 0.5;
+    }
+
+    /***************************************************************************
+     * Calculates the bound of the error of a quotient.
+     *
+     * @param res quotient
+     * @param errLeft error bound of the dividend
+     * @param right divisor
+     * @param errRight error bound of the divisor
+     *
+     * @return error bound of the quotient, infinite if the divisor may be
+     * zero
+     */
+    private static double divError(double res, double errLeft, double right,
+            double errRight) {
+        double margin = Math.abs(right) - errRight;
+
+        if (!(margin > 0.0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return (errLeft + Math.abs(res) * errRight) / margin + rounding(res);
+    }
+
+    /***************************************************************************
+     * Calculates the bound of the error of a power.
+     *
+     * @param res power
+     * @param base base
+     * @param errBase error bound of the base
+     * @param exponent exponent
+     * @param errExp error bound of the exponent
+     *
+     * @return error bound of the power, infinite if the base may be zero or
+     * change its sign
+     */
+    private static double powError(double res, double base, double errBase,
+            double exponent, double errExp) {
+        if (errBase == 0.0 && errExp == 0.0) {
+            // Math.pow is accurate to one unit in the last place.
+            return Math.ulp(res);
+        }
+        if (errExp == 0.0 && exponent == Math.rint(exponent)
+                && Math.abs(exponent) <= Integer.MAX_VALUE) {
+            return powIntError(res, base, errBase, (int) exponent)
+                    + Math.ulp(res);
+        }
+
+        double margin = base - errBase;
+        if (!(margin > 0.0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        // Bound of the change of the logarithm of the power.
+        double delta = (Math.abs(exponent) + errExp) * errBase / margin
+                + errExp * Math.abs(Math.log(base));
+
+        return Math.abs(res) * Math.expm1(delta) + Math.ulp(res);
+    }
+
+    /***************************************************************************
+     * Calculates the bound of the error of a power to an integer, raised by
+     * repeated squaring.
+     *
+     * @param res power
+     * @param base base
+     * @param errBase error bound of the base
+     * @param exponent exponent
+     *
+     * @return error bound of the power, infinite if the base may be zero or
+     * change its sign
+     */
+    private static double powIntError(double res, double base,
+            double errBase, int exponent) {
+        long n = Math.abs((long) exponent);
+        int steps = 2 * (64 - Long.numberOfLeadingZeros(n)) + 1;
+        double propagated = 0.0;
+
+        if (errBase != 0.0 && n != 0) {
+            double margin = Math.abs(base) - errBase;
+
+            if (!(margin > 0.0)) {
+                return Double.POSITIVE_INFINITY;
+            }
+
+            propagated = Math.abs(res)
+                    * Math.expm1(n * Math.log1p(errBase / margin));
+        }
+
+        return propagated + steps * UNIT_ROUNDOFF * Math.abs(res);
+    }
+
+    /***************************************************************************
+     * Calculates the bound of the error of a square root.
+     *
+     * @param res square root
+     * @param base base
+     * @param errBase error bound of the base
+     *
+     * @return error bound of the square root, infinite if the base may be
+     * negative
+     */
+    private static double sqrtError(double res, double base,
+            double errBase) {
+        if (errBase == 0.0) {
+            return rounding(res);
+        }
+
+        double margin = base - errBase;
+        if (!(margin >= 0.0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        return errBase / (res + Math.sqrt(margin)) + rounding(res);
+    }
+
+    /***************************************************************************
+     * Estimates the bound of the error of a call of a function of one
+     * argument, by both the derivative at the argument and the change of the
+     * value at the ends of the error interval of the argument. The functions
+     * of {@link Math} are accurate to one unit in the last place.
+     *
+     * @param func function called
+     * @param res value of the function
+     * @param arg argument
+     * @param errArg error bound of the argument
+     *
+     * @return error bound of the value
+     */
+    private static double callError(MathFunction func, double res,
+            double arg, double errArg) {
+        if (errArg == 0.0) {
+            return Math.ulp(res);
+        }
+
+        double spread = Math.max(Math.abs(func.apply(arg + errArg) - res),
+                Math.abs(func.apply(arg - errArg) - res));
+
+        return Math.max(spread, Math.abs(func.derivative(arg)) * errArg)
+                + Math.ulp(res);
+    }
+
+    /***************************************************************************
+     * Estimates the bound of the error of a call of a function of two
+     * arguments, by both the partial derivatives at the arguments and the
+     * change of the value at the corners of the error intervals of the
+     * arguments.
+     *
+     * @param func function called
+     * @param res value of the function
+     * @param left first argument
+     * @param errLeft error bound of the first argument
+     * @param right second argument
+     * @param errRight error bound of the second argument
+     *
+     * @return error bound of the value
+     */
+    private static double callError(MathFunction func, double res,
+            double left, double errLeft, double right, double errRight) {
+        if (errLeft == 0.0 && errRight == 0.0) {
+            return Math.ulp(res);
+        }
+
+        double spread = 0.0;
+        for (int corner = 0; corner < 4; corner++) {
+            double x = ((corner & 1) == 0) ? left - errLeft : left + errLeft;
+            double y = ((corner & 2) == 0) ? right - errRight
+                    : right + errRight;
+
+            spread = Math.max(spread, Math.abs(func.apply(x, y) - res));
+        }
+
+        double slope = Math.abs(func.leftPartial(left, right)) * errLeft
+                + Math.abs(func.rightPartial(left, right)) * errRight;
+
+        return Math.max(spread, slope) + Math.ulp(res);
+    }
+
+    /***************************************************************************
+     * Calls the function of one argument by the decimal arithmetic. Unless
+     * it is exact in decimal, the function is calculated in double
+     * precision.
+     *
+     * @param func function called
+     * @param arg argument
+     *
+     * @return value of the function
+     */
+    private BigDecimal call(MathFunction func, BigDecimal arg) {
+        switch (func.getId()) {
+            case MathFunction.SQRT:
+                return this.sqrt(arg);
+            case MathFunction.ABS:
+                return arg.abs();
+            case MathFunction.FLOOR:
+                return arg.setScale(0, RoundingMode.FLOOR);
+            case MathFunction.CEIL:
+                return arg.setScale(0, RoundingMode.CEILING);
+            case MathFunction.SIGNUM:
+                return BigDecimal.valueOf(arg.signum());
+            default:
+                return new BigDecimal(func.apply(arg.doubleValue()),
+                        this.context);
+        }
+    }
+
+    /***************************************************************************
+     * Calls the function of two arguments by the decimal arithmetic. Unless
+     * it is exact in decimal, the function is calculated in double
+     * precision.
+     *
+     * @param func function called
+     * @param left first argument
+     * @param right second argument
+     *
+     * @return value of the function
+     */
+    private BigDecimal call(MathFunction func, BigDecimal left,
+            BigDecimal right) {
+        switch (func.getId()) {
+            case MathFunction.MIN:
+                return left.min(right);
+            case MathFunction.MAX:
+                return left.max(right);
+            case MathFunction.HYPOT:
+                return this.sqrt(left.multiply(left, this.context).add(
+                        right.multiply(right, this.context), this.context));
+            default:
+                return new BigDecimal(func.apply(left.doubleValue(),
+                        right.doubleValue()), this.context);
+        }
+    }
+
+    /***************************************************************************
+     * Raises the decimal base to the exponent. Unless the exponent is an
+     * integer, the power is calculated in double precision.
+     *
+     * @param base base
+     * @param exponent exponent
+     *
+     * @return base raised to the exponent
+     */
+    private BigDecimal pow(BigDecimal base, BigDecimal exponent) {
+        BigDecimal integral = exponent.setScale(0, RoundingMode.DOWN);
+
+        if (integral.compareTo(exponent) == 0
+                && integral.abs().compareTo(BigDecimal.valueOf(
+                        999999999L)) <= 0) {
+            return base.pow(integral.intValue(), this.context);
+        }
+
+        return new BigDecimal(Math.pow(base.doubleValue(),
+                exponent.doubleValue()), this.context);
+    }
+
+    /***************************************************************************
+     * Calculates the decimal square root by the Newton's method, starting
+     * from the square root in double precision.
+     *
+     * @param base base
+     *
+     * @return square root of the base
+     */
+    private BigDecimal sqrt(BigDecimal base) {
+        if (base.signum() < 0) {
+            throw new ArithmeticException("Square root of a negative number");
+        }
+        if (base.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+
+        MathContext mc = new MathContext(this.context.getPrecision() + 2);
+        double guess = Math.sqrt(base.doubleValue());
+        if (!(guess > 0.0) || Double.isInfinite(guess)) {
+            throw new ArithmeticException("Square root out of range");
+        }
+
+        BigDecimal two = BigDecimal.valueOf(2L);
+        BigDecimal root = new BigDecimal(guess);
+        for (int i = 0; i < MAX_SQRT_ITERATIONS; i++) {
+            BigDecimal next = root.add(base.divide(root, mc), mc)
+                    .divide(two, mc);
+
+            if (next.compareTo(root) == 0) {
+                break;
+            }
+            root = next;
+        }
+
+        return root.round(this.context);
+    }
+
+}
@@ -0,0 +1,53 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * A class representing a chain of "MUL" and "DIV" mathematical operations.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprProduct extends AMathNaryOper {
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param factors factors of the product
+     * @param operations operation preceding each factor, "MUL" for the first
+     * one
+     */
+    public MathExprProduct(IMathExpr[] factors, MathBinOper[] operations) {
+        super(factors, operations);
+    }
+
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        double product = this.operands[0].eval(vars);
+
+        for (int i = 1; i < this.operands.length; i++) {
+            if (this.operations[i] == MathBinOper.DIV) {
+                product /= this.operands[i].eval(vars);
+            } else {
+                product *= this.operands[i].eval(vars);
+            }
+        }
+
+        return product;
+    }
+
+    /**************************************************************************/
+    @Override
+    protected void applyChunk(MathBinOper operation, double[] dst,
+            int dstOffset, double[] vals, int count) {
+        if (operation == MathBinOper.DIV) {
+            for (int i = 0; i < count; i++) {
+                dst[dstOffset + i] /= vals[i];
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                dst[dstOffset + i] *= vals[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,665 @@
+package mathexprevaluator.models.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/*******************************************************************************
+ * Compact form of a parsed expression - a postfix program of operation codes
+ * (see {@link MathOpcodes}) accompanied by a pool of constants and a pool of
+ * the functions called (see {@link MathFunction}).
+ *
+ * <p>The program is evaluated by a single loop over the code stream using an
+ * operand stack, so there is no object per node and no virtual call per
+ * operation. It is immutable and may be shared among threads. The operand
+ * stack is either supplied by the caller, of (at least)
+ * {@link #getStackSize()} elements, or taken from a buffer kept per thread,
+ * so an evaluation allocates nothing either way - unless the program needs
+ * more than {@link #MAX_KEPT_STACK_SIZE} elements, as a buffer that large is
+ * not kept after the evaluation. The values of the shared
+ * subexpressions (see {@link MathExprSharer}) are kept at the bottom of the
+ * very same array, below the operand stack.
+ *
+ * <p>Besides the value, the program is able to calculate the partial
+ * derivatives of the expression by its variables (see
+ * {@link #evalGradient}).
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprProgram implements IMathExpr {
+
+    /** Maximum number of elements of the operand stack kept per thread. */
+    public static final int MAX_KEPT_STACK_SIZE = 1 << 16;
+
+    // The stack of the thread is taken out while in use, so that a program
+    // evaluated by a custom function of another one gets a stack of its own.
+    private static final ThreadLocal<double[][]> STACKS
+            = ThreadLocal.withInitial(() -> new double[1][0]);
+
+    private final int[] code;
+    private final double[] consts;
+    private final MathFunction[] funcs;
+    private final int stackSize;
+    private final int stackBase;
+    private final String text;
+
+    /***************************************************************************
+     * Compiles the parsed expression into a postfix program.
+     *
+     * @param expr parsed expression
+     *
+     * @return newly created program
+     */
+    public static MathExprProgram compile(MathExpr expr) {
+        Builder builder = new Builder(expr.getFrameBase());
+
+        if (expr.getChild() == null) {
+            builder.emitConst(0.0);
+        } else {
+            builder.emitExpr(expr.getChild());
+        }
+
+        return new MathExprProgram(builder.getCode(), builder.getConsts(),
+                builder.getFuncs(), expr.getTempCount() + builder.maxDepth,
+                expr.getTempCount(),
+                expr.toString());
+    }
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param code postfix code stream
+     * @param consts pool of constants referenced by the code
+     * @param funcs pool of functions referenced by the code
+     * @param stackSize number of temporary slots and the maximum depth of the
+     * operand stack
+     * @param stackBase number of temporary slots below the operand stack
+     * @param text symbolic representation of the expression
+     */
+    MathExprProgram(int[] code, double[] consts, MathFunction[] funcs,
+            int stackSize, int stackBase, String text) {
+        this.code = code;
+        this.consts = consts;
+        this.funcs = funcs;
+        this.stackSize = stackSize;
+        this.stackBase = stackBase;
+        this.text = text;
+    }
+
+    /***************************************************************************
+     * Evaluates the program with the operand stack of the current thread,
+     * grown if needed. A stack grown beyond {@link #MAX_KEPT_STACK_SIZE}
+     * elements is dropped afterwards, the previous one being kept instead.
+     *
+     * @param vars values of the variables, indexed by their slots
+     *
+     * @return calculated numerical value
+     */
+    @Override
+    public double eval(double[] vars) {
+        double[][] holder = STACKS.get();
+        double[] kept = holder[0];
+        double[] stack = kept;
+
+        if (stack == null || stack.length < this.stackSize) {
+            stack = new double[this.stackSize];
+        }
+
+        holder[0] = null;
+        try {
+            return this.eval(vars, stack);
+        } finally {
+            holder[0] = (stack.length <= MAX_KEPT_STACK_SIZE) ? stack : kept;
+        }
+    }
+
+    /***************************************************************************
+     * Evaluates the program using the operand stack given.
+     *
+     * @param vars values of the variables, indexed by their slots
+     * @param stack operand stack of at least {@link #getStackSize()} elements,
+     * its content is overwritten
+     *
+     * @return calculated numerical value
+     */
+    public double eval(double[] vars, double[] stack) {
+        final int[] ops = this.code;
+        final double[] pool = this.consts;
+        final MathFunction[] calls = this.funcs;
+        int sp = this.stackBase - 1;
+        int pc = 0;
+
+        while (pc < ops.length) {
+            switch (ops[pc++]) {
+                case MathOpcodes.CONST:
+                    stack[++sp] = pool[ops[pc++]];
+                    break;
+                case MathOpcodes.VAR:
+                    stack[++sp] = vars[ops[pc++]];
+                    break;
+                case MathOpcodes.ADD:
+                    sp--;
+                    stack[sp] = stack[sp] + stack[sp + 1];
+                    break;
+                case MathOpcodes.SUB:
+                    sp--;
+                    stack[sp] = stack[sp] - stack[sp + 1];
+                    break;
+                case MathOpcodes.MUL:
+                    sp--;
+                    stack[sp] = stack[sp] * stack[sp + 1];
+                    break;
+                case MathOpcodes.DIV:
+                    sp--;
+                    stack[sp] = stack[sp] / stack[sp + 1];
+                    break;
+                case MathOpcodes.POW:
+                    sp--;
+                    stack[sp] = Math.pow(stack[sp], stack[sp + 1]);
+                    break;
+                case MathOpcodes.POW_INT:
+                    stack[sp] = MathOps.powInt(stack[sp], ops[pc++]);
+                    break;
+                case MathOpcodes.POW_HALF:
+                    stack[sp] = MathOps.powHalf(stack[sp]);
+                    break;
+                case MathOpcodes.STORE:
+                    stack[ops[pc++]] = stack[sp];
+                    break;
+                case MathOpcodes.LOAD:
+                    stack[++sp] = stack[ops[pc++]];
+                    break;
+                case MathOpcodes.CALL1:
+                    stack[sp] = calls[ops[pc++]].apply(stack[sp]);
+                    break;
+                case MathOpcodes.CALL2:
+                    sp--;
+                    stack[sp] = calls[ops[pc++]].apply(stack[sp],
+                            stack[sp + 1]);
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid operation code: "
+                            + ops[pc - 1]);
+            }
+        }
+
+        return stack[this.stackBase];
+    }
+
+    /***************************************************************************
+     * Evaluates the program along with its gradient in a single pass, by the
+     * forward mode automatic differentiation. Each value on the operand stack
+     * is a dual number - the value of a subexpression is accompanied by its
+     * partial derivatives, kept at the same position of the gradient stack.
+     * The derivatives are thus exact up to the rounding of the operations,
+     * unlike those approximated by finite differences.
+     *
+     * <p>The derivatives are calculated by the variables of the slots lower
+     * than the length of the gradient array, the other variables are held
+     * constant. Where the expression is not differentiable, the derivatives
+     * are infinite or NaN, e.g. of <code>x ^ 0.5</code> at zero.
+     *
+     * @param vars values of the variables, indexed by their slots
+     * @param grad array to store the partial derivatives to, indexed by the
+     * slots of the variables
+     * @param stack operand stack of at least {@link #getStackSize()}
+     * elements, its content is overwritten
+     * @param gradStack gradient stack of at least {@link #getStackSize()}
+     * times the length of the gradient array elements, its content is
+     * overwritten
+     *
+     * @return calculated numerical value
+     */
+    public double evalGradient(double[] vars, double[] grad, double[] stack,
+            double[] gradStack) {
+        final int[] ops = this.code;
+        final double[] pool = this.consts;
+        final MathFunction[] calls = this.funcs;
+        final int n = grad.length;
+        int sp = this.stackBase - 1;
+        int pc = 0;
+        double left;
+        double right;
+        double val;
+        MathFunction func;
+
+        while (pc < ops.length) {
+            switch (ops[pc++]) {
+                case MathOpcodes.CONST:
+                    stack[++sp] = pool[ops[pc++]];
+                    Arrays.fill(gradStack, sp * n, sp * n + n, 0.0);
+                    break;
+                case MathOpcodes.VAR:
+                    stack[++sp] = vars[ops[pc]];
+                    Arrays.fill(gradStack, sp * n, sp * n + n, 0.0);
+                    if (ops[pc] < n) {
+                        gradStack[sp * n + ops[pc]] = 1.0;
+                    }
+                    pc++;
+                    break;
+                case MathOpcodes.ADD:
+                    sp--;
+                    stack[sp] = stack[sp] + stack[sp + 1];
+                    combine(gradStack, sp * n, n, 1.0, 1.0);
+                    break;
+                case MathOpcodes.SUB:
+                    sp--;
+                    stack[sp] = stack[sp] - stack[sp + 1];
+                    combine(gradStack, sp * n, n, 1.0, -1.0);
+                    break;
+                case MathOpcodes.MUL:
+                    sp--;
+                    left = stack[sp];
+                    right = stack[sp + 1];
+                    stack[sp] = left * right;
+                    combine(gradStack, sp * n, n, right, left);
+                    break;
+                case MathOpcodes.DIV:
+                    sp--;
+                    right = stack[sp + 1];
+                    val = stack[sp] / right;
+                    stack[sp] = val;
+                    combine(gradStack, sp * n, n, 1.0 / right, -val / right);
+                    break;
+                case MathOpcodes.POW:
+                    sp--;
+                    left = stack[sp];
+                    right = stack[sp + 1];
+                    val = Math.pow(left, right);
+                    stack[sp] = val;
+                    combine(gradStack, sp * n, n,
+                            right * Math.pow(left, right - 1.0),
+                            val * Math.log(left));
+                    break;
+                case MathOpcodes.POW_INT:
+                    left = stack[sp];
+                    stack[sp] = MathOps.powInt(left, ops[pc]);
+                    scale(gradStack, sp * n, n, (ops[pc] == 0) ? 0.0
+                            : ops[pc] * MathOps.powInt(left, ops[pc] - 1));
+                    pc++;
+                    break;
+                case MathOpcodes.POW_HALF:
+                    val = MathOps.powHalf(stack[sp]);
+                    stack[sp] = val;
+                    scale(gradStack, sp * n, n, 0.5 / val);
+                    break;
+                case MathOpcodes.STORE:
+                    stack[ops[pc]] = stack[sp];
+                    System.arraycopy(gradStack, sp * n, gradStack,
+                            ops[pc] * n, n);
+                    pc++;
+                    break;
+                case MathOpcodes.LOAD:
+                    stack[++sp] = stack[ops[pc]];
+                    System.arraycopy(gradStack, ops[pc] * n, gradStack,
+                            sp * n, n);
+                    pc++;
+                    break;
+                case MathOpcodes.CALL1:
+                    func = calls[ops[pc++]];
+                    left = stack[sp];
+                    stack[sp] = func.apply(left);
+                    scale(gradStack, sp * n, n, func.derivative(left));
+                    break;
+                case MathOpcodes.CALL2:
+                    func = calls[ops[pc++]];
+                    sp--;
+                    left = stack[sp];
+                    right = stack[sp + 1];
+                    stack[sp] = func.apply(left, right);
+                    combine(gradStack, sp * n, n,
+                            func.leftPartial(left, right),
+                            func.rightPartial(left, right));
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid operation code: "
+                            + ops[pc - 1]);
+            }
+        }
+
+        System.arraycopy(gradStack, this.stackBase * n, grad, 0, n);
+
+        return stack[this.stackBase];
+    }
+
+    /***************************************************************************
+     * Combines the gradients of the two operands of a binary operation by
+     * the chain rule, as <code>da * ga + db * gb</code>. A zero derivative of
+     * an operand contributes zero, even if the partial derivative of the
+     * operation by it is infinite or NaN, e.g. by the base of
+     * <code>x ^ 0.5</code> held constant at zero, and vice versa (see
+     * {@link MathOps#chain}).
+     *
+     * @param gradStack gradient stack, the gradient of the left operand is
+     * replaced by the result
+     * @param at index of the gradient of the left operand, followed by the
+     * gradient of the right one
+     * @param n number of the partial derivatives of a gradient
+     * @param da partial derivative of the operation by the left operand
+     * @param db partial derivative of the operation by the right operand
+     */
+    private static void combine(double[] gradStack, int at, int n, double da,
+            double db) {
+        for (int i = at; i < at + n; i++) {
+            gradStack[i] = MathOps.chain(da, gradStack[i])
+                    + MathOps.chain(db, gradStack[i + n]);
+        }
+    }
+
+    /***************************************************************************
+     * Scales the gradient of the operand of a unary operation by the chain
+     * rule. A zero derivative stays zero, as does any derivative scaled by
+     * zero (see {@link MathOps#chain}).
+     *
+     * @param gradStack gradient stack, the gradient of the operand is
+     * replaced by the result
+     * @param at index of the gradient of the operand
+     * @param n number of the partial derivatives of a gradient
+     * @param d derivative of the operation
+     */
+    private static void scale(double[] gradStack, int at, int n, double d) {
+        for (int i = at; i < at + n; i++) {
+            gradStack[i] = MathOps.chain(d, gradStack[i]);
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return minimum size of the operand stack, including the temporary
+     * slots
+     */
+    public int getStackSize() {
+        return this.stackSize;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of temporary slots below the operand stack
+     */
+    int getStackBase() {
+        return this.stackBase;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return postfix code stream, not to be modified
+     */
+    int[] getCode() {
+        return this.code;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return pool of constants referenced by the code, not to be modified
+     */
+    double[] getConsts() {
+        return this.consts;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return pool of functions referenced by the code, not to be modified
+     */
+    MathFunction[] getFuncs() {
+        return this.funcs;
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return standard symbolic representation of the math. expression
+     */
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+    /***************************************************************************
+     * Class translating the expression tree into the postfix code.
+     */
+    private static class Builder {
+
+        private int[] code;
+        private int codeSize;
+        private double[] consts;
+        private int constCount;
+        private final HashMap<Long, Integer> constIndices;
+        private final ArrayList<MathFunction> funcs;
+        private final int frameBase;
+        private int depth;
+        private int maxDepth;
+
+        /***********************************************************************
+         * Default constructor.
+         *
+         * @param frameBase slot of the first shared value in the frame of the
+         * expression
+         */
+        public Builder(int frameBase) {
+            this.frameBase = frameBase;
+            this.code = new int[16];
+            this.consts = new double[8];
+            this.constIndices = new HashMap<>();
+            this.funcs = new ArrayList<>();
+        }
+
+        /***********************************************************************
+         * Emits the code of the expression in the postfix order. The tree is
+         * walked with a stack of its own, so it may be of any depth.
+         *
+         * @param expr expression to emit
+         */
+        public void emitExpr(IMathExpr expr) {
+            IMathExpr[] nodes = new IMathExpr[16];
+            int[] nextOperands = new int[16];
+            int top = 0;
+
+            nodes[0] = expr;
+
+            while (top >= 0) {
+                IMathExpr node = nodes[top];
+                int index = nextOperands[top];
+
+                if (index > 0) {
+                    this.emitOperation(node, index - 1);
+                }
+
+                if (index < MathExprNodes.getOperandCount(node)) {
+                    nextOperands[top]++;
+                    if (++top == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, top * 2);
+                        nextOperands = Arrays.copyOf(nextOperands, top * 2);
+                    }
+                    nodes[top] = MathExprNodes.getOperand(node, index);
+                    nextOperands[top] = 0;
+                } else {
+                    if (index == 0) {
+                        this.emitLeaf(node);
+                    }
+                    nodes[top--] = null;
+                }
+            }
+        }
+
+        /***********************************************************************
+         * Emits the code of a leaf of the tree.
+         *
+         * @param expr leaf to emit
+         */
+        private void emitLeaf(IMathExpr expr) {
+            if (expr instanceof MathExprConst) {
+                this.emitConst(((MathExprConst) expr).getValue());
+            } else if (expr instanceof MathExprVar) {
+                this.emit(MathOpcodes.VAR, ((MathExprVar) expr).getSlot());
+                this.push();
+            } else if (expr instanceof MathExprSharedRef) {
+                this.emit(MathOpcodes.LOAD,
+                        ((MathExprSharedRef) expr).getSlot() - this.frameBase);
+                this.push();
+            } else {
+                throw new IllegalArgumentException("Unsupported expression: "
+                        + expr.getClass().getSimpleName());
+            }
+        }
+
+        /***********************************************************************
+         * Emits the code of an operation following the code of one of its
+         * operands.
+         *
+         * @param expr operation to emit
+         * @param index index of the operand whose code has just been emitted
+         */
+        private void emitOperation(IMathExpr expr, int index) {
+            if (expr instanceof AMathBinOper) {
+                if (index == 1) {
+                    this.emit(MathOpcodes.fromBinOper(
+                            ((AMathBinOper) expr).getOperation()));
+                    this.depth--;
+                }
+            } else if (expr instanceof AMathNaryOper) {
+                if (index > 0) {
+                    this.emit(MathOpcodes.fromBinOper(
+                            ((AMathNaryOper) expr).getOperation(index)));
+                    this.depth--;
+                }
+            } else if (expr instanceof MathExprPowInt) {
+                this.emit(MathOpcodes.POW_INT,
+                        ((MathExprPowInt) expr).getExponent());
+            } else if (expr instanceof MathExprSqrt) {
+                this.emit(MathOpcodes.POW_HALF);
+            } else if (expr instanceof MathExprShared) {
+                this.emit(MathOpcodes.STORE,
+                        ((MathExprShared) expr).getSlot() - this.frameBase);
+            } else if (expr instanceof MathExprCall1) {
+                this.emit(MathOpcodes.CALL1, this.funcIndex(
+                        ((MathExprCall1) expr).getFunction()));
+            } else if (expr instanceof MathExprCall2) {
+                if (index == 1) {
+                    this.emit(MathOpcodes.CALL2, this.funcIndex(
+                            ((MathExprCall2) expr).getFunction()));
+                    this.depth--;
+                }
+            }
+        }
+
+        /***********************************************************************
+         * Retrieves the index of the function in the pool, adding it if it
+         * has not been called yet.
+         *
+         * @param func function called
+         *
+         * @return index into the function pool
+         */
+        private int funcIndex(MathFunction func) {
+            int index = this.funcs.indexOf(func);
+
+            if (index == -1) {
+                index = this.funcs.size();
+                this.funcs.add(func);
+            }
+
+            return index;
+        }
+
+        /***********************************************************************
+         * Emits the code pushing a constant, reusing its pool entry if the
+         * same constant has already been used.
+         *
+         * @param val constant value
+         */
+        public void emitConst(double val) {
+            Long bits = Double.doubleToRawLongBits(val);
+            Integer index = this.constIndices.get(bits);
+
+            if (index == null) {
+                if (this.constCount == this.consts.length) {
+                    this.consts = Arrays.copyOf(this.consts,
+                            this.constCount * 2);
+                }
+
+                index = this.constCount;
+                this.consts[this.constCount++] = val;
+                this.constIndices.put(bits, index);
+            }
+
+            this.emit(MathOpcodes.CONST, index);
+            this.push();
+        }
+
+        /***********************************************************************
+         * Getter.
+         *
+         * @return trimmed code stream
+         */
+        public int[] getCode() {
+            return Arrays.copyOf(this.code, this.codeSize);
+        }
+
+        /***********************************************************************
+         * Getter.
+         *
+         * @return trimmed pool of constants
+         */
+        public double[] getConsts() {
+            return Arrays.copyOf(this.consts, this.constCount);
+        }
+
+        /***********************************************************************
+         * Getter.
+         *
+         * @return pool of functions
+         */
+        public MathFunction[] getFuncs() {
+            return this.funcs.toArray(new MathFunction[0]);
+        }
+
+        /***********************************************************************
+         * Emits an operation code without an operand.
+         *
+         * @param opcode operation code
+         */
+        private void emit(int opcode) {
+            this.ensureCapacity(1);
+            this.code[this.codeSize++] = opcode;
+        }
+
+        /***********************************************************************
+         * Emits an operation code followed by its operand.
+         *
+         * @param opcode operation code
+         * @param operand operand of the operation
+         */
+        private void emit(int opcode, int operand) {
+            this.ensureCapacity(2);
+            this.code[this.codeSize++] = opcode;
+            this.code[this.codeSize++] = operand;
+        }
+
+        /***********************************************************************
+         * Records pushing a value onto the operand stack.
+         */
+        private void push() {
+            this.depth++;
+            this.maxDepth = Math.max(this.maxDepth, this.depth);
+        }
+
+        /***********************************************************************
+         * Grows the code stream if needed.
+         *
+         * @param count number of elements to be appended
+         */
+        private void ensureCapacity(int count) {
+            if (this.codeSize + count > this.code.length) {
+                this.code = Arrays.copyOf(this.code, this.code.length * 2);
+            }
+        }
+
+    }
+
+}
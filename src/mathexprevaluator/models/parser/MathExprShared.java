@@ -0,0 +1,74 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Class representing the first evaluation of a subexpression occurring more
+ * than once in the expression. The calculated value is stored into the frame
+ * of the evaluation, so the other occurrences
+ * (see {@link MathExprSharedRef}) just read it.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprShared implements IMathChunkExpr {
+    
+    private final int slot;
+    private final IMathExpr child;
+    
+    /***************************************************************************
+     * Default constructor.
+     * 
+     * @param slot slot of the frame to store the value to
+     * @param child shared subexpression
+     */
+    public MathExprShared(int slot, IMathExpr child) {
+        this.slot = slot;
+        this.child = child;
+    }
+    
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        double val = this.child.eval(vars);
+        
+        vars[this.slot] = val;
+        
+        return val;
+    }
+    
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        context.evalChunk(this.child, row, count, dst, dstOffset);
+        System.arraycopy(dst, dstOffset, context.getTemp(this.slot), 0, count);
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return slot of the frame the value is stored to
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return shared subexpression
+     */
+    public IMathExpr getChild() {
+        return this.child;
+    }
+    
+    /***************************************************************************
+     * String representation of the object.
+     * 
+     * @return symbolic representation of the shared subexpression
+     */
+    @Override
+    public String toString() {
+        return MathExprNodes.toString(this);
+    }
+    
+}
@@ -0,0 +1,66 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Class representing a repeated occurrence of a shared subexpression. Its
+ * value has already been calculated by the corresponding
+ * {@link MathExprShared} during the same evaluation.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprSharedRef implements IMathChunkExpr {
+    
+    private final MathExprShared shared;
+    
+    /***************************************************************************
+     * Default constructor.
+     * 
+     * @param shared first occurrence of the subexpression
+     */
+    public MathExprSharedRef(MathExprShared shared) {
+        this.shared = shared;
+    }
+    
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        return vars[this.shared.getSlot()];
+    }
+    
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        System.arraycopy(context.getTemp(this.shared.getSlot()), 0, dst,
+                dstOffset, count);
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return slot of the frame the value is read from
+     */
+    public int getSlot() {
+        return this.shared.getSlot();
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return first occurrence of the subexpression
+     */
+    public MathExprShared getShared() {
+        return this.shared;
+    }
+    
+    /***************************************************************************
+     * String representation of the object.
+     * 
+     * @return symbolic representation of the shared subexpression
+     */
+    @Override
+    public String toString() {
+        return MathExprNodes.toString(this);
+    }
+    
+}
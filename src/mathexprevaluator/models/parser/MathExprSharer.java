@@ -0,0 +1,449 @@
+package mathexprevaluator.models.parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/*******************************************************************************
+ * Common-subexpression elimination. Structurally identical subtrees of the
+ * parsed expression are merged into a single node (hash-consing), so the
+ * tree becomes a directed acyclic graph taking less memory.
+ *
+ * <p>Each merged node which is not a leaf and occurs more than once is then
+ * calculated only once per evaluation - its first occurrence in the order of
+ * evaluation stores the value into a slot of the frame following the slots of
+ * the variables, the other occurrences just read the slot. As there are no
+ * conditional operations, the first occurrence is always evaluated before the
+ * others, in all the evaluation engines. The calls of the same function with
+ * the same arguments are merged as well, as the functions are pure (see
+ * {@link MathFunction}).
+ *
+ * <p>Sharing should be the last rewrite of the tree. The subexpressions
+ * shared already, e.g. the arguments of the defined functions (see
+ * {@link MathMacro}), are merged with the others as well, each node being
+ * interned only once. The trees too deep to be walked recursively are left
+ * as they are.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprSharer {
+
+    private final HashMap<NodeKey, IMathExpr> nodes;
+    private final IdentityHashMap<IMathExpr, IMathExpr> interned;
+    private final IdentityHashMap<IMathExpr, Integer> useCounts;
+    private final IdentityHashMap<IMathExpr, IMathExpr> refs;
+    private int frameBase;
+    private int tempCount;
+
+    /***************************************************************************
+     * Default constructor.
+     */
+    public MathExprSharer() {
+        this.nodes = new HashMap<>();
+        this.interned = new IdentityHashMap<>();
+        this.useCounts = new IdentityHashMap<>();
+        this.refs = new IdentityHashMap<>();
+    }
+
+    /***************************************************************************
+     * Merges the identical subexpressions of the parsed expression.
+     *
+     * @param expr parsed expression
+     *
+     * @return expression calculating each shared subexpression only once, or
+     * the same instance if there is nothing to share
+     */
+    public MathExpr share(MathExpr expr) {
+        this.nodes.clear();
+        this.interned.clear();
+        this.useCounts.clear();
+        this.refs.clear();
+        this.frameBase = 0;
+        this.tempCount = 0;
+
+        IMathExpr root = expr.getChild();
+        if (root == null || expr.isDeep()) {
+            return expr;
+        }
+        if (expr.getTempCount() > 0) {
+            // The graph may be deeper than the tree of shared values.
+            root = MathExprNodes.unshare(root);
+            if (MathExprNodes.getGraphHeight(root)
+                    > MathExpr.MAX_RECURSIVE_HEIGHT) {
+                return expr;
+            }
+        }
+
+        IMathExpr interned = this.intern(root);
+        this.interned.clear();
+        this.countUses(interned);
+
+        // Nothing merged, the expression is shared the same way already.
+        if (interned == root && expr.getTempCount() > 0) {
+            this.tempCount = expr.getTempCount();
+            return expr;
+        }
+
+        IMathExpr shared = this.emit(interned);
+
+        if (shared == root) {
+            return expr;
+        }
+
+        return new MathExpr(shared, expr.getVarTable(), this.frameBase,
+                this.tempCount);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of distinct nodes after the last sharing
+     */
+    public int getNodeCount() {
+        return this.useCounts.size();
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of subexpressions calculated only once per evaluation
+     * by the last sharing
+     */
+    public int getSharedCount() {
+        return this.tempCount;
+    }
+
+    /***************************************************************************
+     * Replaces the expression by the single instance of all the structurally
+     * identical ones, interning its operands first. A node occurring more
+     * than once in the graph is interned only once.
+     *
+     * @param expr expression to intern
+     *
+     * @return interned expression
+     */
+    private IMathExpr intern(IMathExpr expr) {
+        IMathExpr result = this.interned.get(expr);
+
+        if (result == null) {
+            result = this.internNode(expr);
+            this.interned.put(expr, result);
+        }
+
+        return result;
+    }
+
+    /***************************************************************************
+     * Interns the node, its operands by {@link #intern(IMathExpr)}.
+     *
+     * @param expr expression to intern
+     *
+     * @return interned expression
+     */
+    private IMathExpr internNode(IMathExpr expr) {
+        NodeKey key;
+
+        if (expr instanceof MathExprConst) {
+            double val = ((MathExprConst) expr).getValue();
+            key = new NodeKey(MathExprConst.class,
+                    Double.doubleToRawLongBits(val));
+        } else if (expr instanceof MathExprVar) {
+            int slot = ((MathExprVar) expr).getSlot();
+            this.frameBase = Math.max(this.frameBase, slot + 1);
+            key = new NodeKey(MathExprVar.class, slot);
+        } else if (expr instanceof AMathBinOper) {
+            AMathBinOper oper = (AMathBinOper) expr;
+            IMathExpr left = this.intern(oper.getLeftOperand());
+            IMathExpr right = this.intern(oper.getRightOperand());
+
+            if (left != oper.getLeftOperand()
+                    || right != oper.getRightOperand()) {
+                expr = MathBinOper.buildBinaryOper(oper.getOperation(), left,
+                        right);
+            }
+            key = new NodeKey(expr.getClass(), 0, left, right);
+        } else if (expr instanceof AMathNaryOper) {
+            AMathNaryOper oper = (AMathNaryOper) expr;
+            int count = oper.getOperandCount();
+            IMathExpr[] operands = new IMathExpr[count];
+            MathBinOper[] operations = new MathBinOper[count];
+            boolean isChanged = false;
+
+            for (int i = 0; i < count; i++) {
+                operands[i] = this.intern(oper.getOperand(i));
+                operations[i] = oper.getOperation(i);
+                isChanged |= (operands[i] != oper.getOperand(i));
+            }
+
+            if (isChanged) {
+                expr = AMathNaryOper.buildChain(operations, operands, count);
+            }
+            key = new NodeKey(expr.getClass(), operations, operands);
+        } else if (expr instanceof MathExprPowInt) {
+            MathExprPowInt pow = (MathExprPowInt) expr;
+            IMathExpr base = this.intern(pow.getBase());
+
+            if (base != pow.getBase()) {
+                expr = new MathExprPowInt(base, pow.getExponent());
+            }
+            key = new NodeKey(MathExprPowInt.class, pow.getExponent(), base);
+        } else if (expr instanceof MathExprSqrt) {
+            IMathExpr base = this.intern(((MathExprSqrt) expr).getBase());
+
+            if (base != ((MathExprSqrt) expr).getBase()) {
+                expr = new MathExprSqrt(base);
+            }
+            key = new NodeKey(MathExprSqrt.class, 0, base);
+        } else if (expr instanceof MathExprCall1) {
+            MathExprCall1 call = (MathExprCall1) expr;
+            IMathExpr arg = this.intern(call.getArgument());
+
+            if (arg != call.getArgument()) {
+                expr = new MathExprCall1(call.getFunction(), arg);
+            }
+            key = new NodeKey(call.getFunction(), arg);
+        } else if (expr instanceof MathExprCall2) {
+            MathExprCall2 call = (MathExprCall2) expr;
+            IMathExpr left = this.intern(call.getLeft());
+            IMathExpr right = this.intern(call.getRight());
+
+            if (left != call.getLeft() || right != call.getRight()) {
+                expr = new MathExprCall2(call.getFunction(), left, right);
+            }
+            key = new NodeKey(call.getFunction(), left, right);
+        } else {
+            return expr; // Unknown nodes are never merged.
+        }
+
+        IMathExpr existing = this.nodes.putIfAbsent(key, expr);
+
+        return (existing == null) ? expr : existing;
+    }
+
+    /***************************************************************************
+     * Counts the references to each node of the interned expression.
+     *
+     * @param expr interned expression
+     */
+    private void countUses(IMathExpr expr) {
+        Integer count = this.useCounts.get(expr);
+
+        this.useCounts.put(expr, (count == null) ? 1 : count + 1);
+        if (count != null) {
+            return; // Operands have already been counted.
+        }
+
+        if (expr instanceof AMathBinOper) {
+            this.countUses(((AMathBinOper) expr).getLeftOperand());
+            this.countUses(((AMathBinOper) expr).getRightOperand());
+        } else if (expr instanceof AMathNaryOper) {
+            AMathNaryOper oper = (AMathNaryOper) expr;
+
+            for (int i = 0; i < oper.getOperandCount(); i++) {
+                this.countUses(oper.getOperand(i));
+            }
+        } else if (expr instanceof MathExprPowInt) {
+            this.countUses(((MathExprPowInt) expr).getBase());
+        } else if (expr instanceof MathExprSqrt) {
+            this.countUses(((MathExprSqrt) expr).getBase());
+        } else if (expr instanceof MathExprCall1) {
+            this.countUses(((MathExprCall1) expr).getArgument());
+        } else if (expr instanceof MathExprCall2) {
+            this.countUses(((MathExprCall2) expr).getLeft());
+            this.countUses(((MathExprCall2) expr).getRight());
+        }
+    }
+
+    /***************************************************************************
+     * Builds the final expression in the order of evaluation, replacing the
+     * shared nodes by their first occurrence and the references to it.
+     *
+     * @param expr interned expression
+     *
+     * @return final expression
+     */
+    private IMathExpr emit(IMathExpr expr) {
+        boolean isShared = this.useCounts.get(expr) > 1
+                && !(expr instanceof MathExprConst)
+                && !(expr instanceof MathExprVar);
+
+        if (isShared) {
+            IMathExpr ref = this.refs.get(expr);
+            if (ref != null) {
+                return ref;
+            }
+        }
+
+        IMathExpr result = expr;
+
+        if (expr instanceof AMathBinOper) {
+            AMathBinOper oper = (AMathBinOper) expr;
+            IMathExpr left = this.emit(oper.getLeftOperand());
+            IMathExpr right = this.emit(oper.getRightOperand());
+
+            if (left != oper.getLeftOperand()
+                    || right != oper.getRightOperand()) {
+                result = MathBinOper.buildBinaryOper(oper.getOperation(),
+                        left, right);
+            }
+        } else if (expr instanceof AMathNaryOper) {
+            AMathNaryOper oper = (AMathNaryOper) expr;
+            int count = oper.getOperandCount();
+            IMathExpr[] operands = new IMathExpr[count];
+            MathBinOper[] operations = new MathBinOper[count];
+            boolean isChanged = false;
+
+            for (int i = 0; i < count; i++) {
+                operands[i] = this.emit(oper.getOperand(i));
+                operations[i] = oper.getOperation(i);
+                isChanged |= (operands[i] != oper.getOperand(i));
+            }
+
+            if (isChanged) {
+                result = AMathNaryOper.buildChain(operations, operands,
+                        count);
+            }
+        } else if (expr instanceof MathExprPowInt) {
+            MathExprPowInt pow = (MathExprPowInt) expr;
+            IMathExpr base = this.emit(pow.getBase());
+
+            if (base != pow.getBase()) {
+                result = new MathExprPowInt(base, pow.getExponent());
+            }
+        } else if (expr instanceof MathExprSqrt) {
+            IMathExpr base = this.emit(((MathExprSqrt) expr).getBase());
+
+            if (base != ((MathExprSqrt) expr).getBase()) {
+                result = new MathExprSqrt(base);
+            }
+        } else if (expr instanceof MathExprCall1) {
+            MathExprCall1 call = (MathExprCall1) expr;
+            IMathExpr arg = this.emit(call.getArgument());
+
+            if (arg != call.getArgument()) {
+                result = new MathExprCall1(call.getFunction(), arg);
+            }
+        } else if (expr instanceof MathExprCall2) {
+            MathExprCall2 call = (MathExprCall2) expr;
+            IMathExpr left = this.emit(call.getLeft());
+            IMathExpr right = this.emit(call.getRight());
+
+            if (left != call.getLeft() || right != call.getRight()) {
+                result = new MathExprCall2(call.getFunction(), left, right);
+            }
+        }
+
+        if (isShared) {
+            MathExprShared shared = new MathExprShared(
+                    this.frameBase + this.tempCount++, result);
+
+            this.refs.put(expr, new MathExprSharedRef(shared));
+            result = shared;
+        }
+
+        return result;
+    }
+
+    /***************************************************************************
+     * Key identifying the structure of a node. The operands are compared by
+     * identity, as they have already been interned.
+     */
+    private static class NodeKey {
+
+        private final Class<?> kind;
+        private final long value;
+        private final MathFunction function;
+        private final MathBinOper[] operations;
+        private final IMathExpr[] operands;
+
+        /***********************************************************************
+         * Constructor of the key of a node with a fixed number of operands.
+         *
+         * @param kind class of the node
+         * @param value constant bits, slot or exponent of the node
+         * @param operands interned operands
+         */
+        public NodeKey(Class<?> kind, long value, IMathExpr... operands) {
+            this.kind = kind;
+            this.value = value;
+            this.function = null;
+            this.operations = null;
+            this.operands = operands;
+        }
+
+        /***********************************************************************
+         * Constructor of the key of a call. The functions are compared by
+         * identity.
+         *
+         * @param function function called
+         * @param operands interned arguments
+         */
+        public NodeKey(MathFunction function, IMathExpr... operands) {
+            this.kind = (operands.length == 1) ? MathExprCall1.class
+                    : MathExprCall2.class;
+            this.value = 0;
+            this.function = function;
+            this.operations = null;
+            this.operands = operands;
+        }
+
+        /***********************************************************************
+         * Constructor of the key of a chain.
+         *
+         * @param kind class of the chain
+         * @param operations operation preceding each operand
+         * @param operands interned operands
+         */
+        public NodeKey(Class<?> kind, MathBinOper[] operations,
+                IMathExpr[] operands) {
+            this.kind = kind;
+            this.value = 0;
+            this.function = null;
+            this.operations = operations;
+            this.operands = operands;
+        }
+
+        /**********************************************************************/
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof NodeKey)) {
+                return false;
+            }
+
+            NodeKey other = (NodeKey) obj;
+
+            if (this.kind != other.kind || this.value != other.value
+                    || this.function != other.function
+                    || this.operands.length != other.operands.length
+                    || !Arrays.equals(this.operations, other.operations)) {
+                return false;
+            }
+
+            for (int i = 0; i < this.operands.length; i++) {
+                if (this.operands[i] != other.operands[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        /**********************************************************************/
+        @Override
+        public int hashCode() {
+            int hash = this.kind.hashCode();
+
+            hash = 31 * hash + Long.hashCode(this.value);
+            hash = 31 * hash + System.identityHashCode(this.function);
+            hash = 31 * hash + Arrays.hashCode(this.operations);
+            for (IMathExpr operand: this.operands) {
+                hash = 31 * hash + System.identityHashCode(operand);
+            }
+
+            return hash;
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Class representing a "POW" mathematical function with the exponent of 0.5,
+ * calculated by the square root.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprSqrt implements IMathChunkExpr {
+    
+    private final IMathExpr base;
+    
+    /***************************************************************************
+     * Default constructor.
+     * 
+     * @param base base
+     */
+    public MathExprSqrt(IMathExpr base) {
+        this.base = base;
+    }
+    
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        return MathOps.powHalf(this.base.eval(vars));
+    }
+    
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        context.evalChunk(this.base, row, count, dst, dstOffset);
+        
+        for (int i = dstOffset; i < dstOffset + count; i++) {
+            dst[i] = MathOps.powHalf(dst[i]);
+        }
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return base
+     */
+    public IMathExpr getBase() {
+        return this.base;
+    }
+    
+    /***************************************************************************
+     * String representation of the object.
+     * 
+     * @return sqrt(base)
+     */
+    @Override
+    public String toString() {
+        return MathExprNodes.toString(this);
+    }
+    
+}
@@ -0,0 +1,52 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * A class representing a chain of "ADD" and "SUB" mathematical operations.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprSum extends AMathNaryOper {
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param terms terms of the sum
+     * @param operations operation preceding each term, "ADD" for the first one
+     */
+    public MathExprSum(IMathExpr[] terms, MathBinOper[] operations) {
+        super(terms, operations);
+    }
+
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        double sum = this.operands[0].eval(vars);
+
+        for (int i = 1; i < this.operands.length; i++) {
+            if (this.operations[i] == MathBinOper.SUB) {
+                sum -= this.operands[i].eval(vars);
+            } else {
+                sum += this.operands[i].eval(vars);
+            }
+        }
+
+        return sum;
+    }
+
+    /**************************************************************************/
+    @Override
+    protected void applyChunk(MathBinOper operation, double[] dst,
+            int dstOffset, double[] vals, int count) {
+        if (operation == MathBinOper.SUB) {
+            for (int i = 0; i < count; i++) {
+                dst[dstOffset + i] -= vals[i];
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                dst[dstOffset + i] += vals[i];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,438 @@
+package mathexprevaluator.models.parser;
+
+import java.util.Arrays;
+
+/*******************************************************************************
+ * Tape of an expression for the reverse mode automatic differentiation. The
+ * tape is a flat list of operations, each one producing a single value from
+ * the values of the preceding ones, stored as parallel primitive arrays. A
+ * shared subexpression (see {@link MathExprSharer}) is recorded only once
+ * and referenced by all its users.
+ *
+ * <p>A forward sweep over the tape calculates the values of all the
+ * operations, then a single backward sweep propagates the derivative of the
+ * result back to each operation - its adjoint - and finally to the
+ * variables. Hence all the partial derivatives are calculated at the cost of
+ * about two evaluations, no matter the number of the variables. For
+ * expressions of just a few variables, {@link MathExprGradient} is cheaper.
+ *
+ * <p>The tape is immutable, it may be reused by any number of evaluations
+ * with new values of the variables, even by multiple threads at once. To
+ * avoid allocating on each evaluation, the caller may supply the arrays of
+ * the values and the adjoints of (at least) {@link #getSize()} elements.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprTape implements IMathExpr {
+
+    private final int[] ops;
+    private final int[] lefts;
+    private final int[] rights;
+    private final boolean[] varying;
+    private final MathFunction[] funcs;
+    private final double[] consts;
+    private final int result;
+    private final String text;
+
+    /***************************************************************************
+     * Records the tape of the parsed expression.
+     *
+     * @param expr parsed expression
+     *
+     * @return newly created tape
+     */
+    public static MathExprTape record(MathExpr expr) {
+        return record(MathExprProgram.compile(expr));
+    }
+
+    /***************************************************************************
+     * Records the tape of the postfix program, by replaying the program on a
+     * stack of the tape positions rather than of the values.
+     *
+     * @param program postfix program
+     *
+     * @return newly created tape
+     */
+    public static MathExprTape record(MathExprProgram program) {
+        final int[] code = program.getCode();
+        final MathFunction[] calls = program.getFuncs();
+        int[] stack = new int[program.getStackSize()];
+        Recorder recorder = new Recorder(code.length);
+        int sp = program.getStackBase() - 1;
+        int pc = 0;
+
+        while (pc < code.length) {
+            int op = code[pc++];
+
+            switch (op) {
+                case MathOpcodes.CONST:
+                    stack[++sp] = recorder.add(op, code[pc++], -1, false);
+                    break;
+                case MathOpcodes.VAR:
+                    stack[++sp] = recorder.add(op, code[pc++], -1, true);
+                    break;
+                case MathOpcodes.ADD:
+                case MathOpcodes.SUB:
+                case MathOpcodes.MUL:
+                case MathOpcodes.DIV:
+                case MathOpcodes.POW:
+                    sp--;
+                    stack[sp] = recorder.add(op, stack[sp], stack[sp + 1],
+                            recorder.varying[stack[sp]]
+                            || recorder.varying[stack[sp + 1]]);
+                    break;
+                case MathOpcodes.POW_INT:
+                    stack[sp] = recorder.add(op, stack[sp], code[pc++],
+                            recorder.varying[stack[sp]]);
+                    break;
+                case MathOpcodes.POW_HALF:
+                    stack[sp] = recorder.add(op, stack[sp], -1,
+                            recorder.varying[stack[sp]]);
+                    break;
+                case MathOpcodes.CALL1:
+                    stack[sp] = recorder.add(op, stack[sp], -1,
+                            recorder.varying[stack[sp]]);
+                    recorder.funcs[stack[sp]] = calls[code[pc++]];
+                    break;
+                case MathOpcodes.CALL2:
+                    sp--;
+                    stack[sp] = recorder.add(op, stack[sp], stack[sp + 1],
+                            recorder.varying[stack[sp]]
+                            || recorder.varying[stack[sp + 1]]);
+                    recorder.funcs[stack[sp]] = calls[code[pc++]];
+                    break;
+                case MathOpcodes.STORE:
+                    stack[code[pc++]] = stack[sp];
+                    break;
+                case MathOpcodes.LOAD:
+                    stack[++sp] = stack[code[pc++]];
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid operation code: "
+                            + op);
+            }
+        }
+
+        int size = recorder.size;
+
+        return new MathExprTape(Arrays.copyOf(recorder.ops, size),
+                Arrays.copyOf(recorder.lefts, size),
+                Arrays.copyOf(recorder.rights, size),
+                Arrays.copyOf(recorder.varying, size),
+                Arrays.copyOf(recorder.funcs, size), program.getConsts(),
+                stack[program.getStackBase()], program.toString());
+    }
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param ops operation code of each operation (see {@link MathOpcodes})
+     * @param lefts position of the left operand of each operation, the slot
+     * of a variable or the index of a constant in the pool
+     * @param rights position of the right operand of each operation, or the
+     * exponent of an integer power
+     * @param varying whether each operation depends on any variable
+     * @param funcs function called by each call, null for other operations
+     * @param consts pool of constants
+     * @param result position of the operation producing the result
+     * @param text symbolic representation of the expression
+     */
+    private MathExprTape(int[] ops, int[] lefts, int[] rights,
+            boolean[] varying, MathFunction[] funcs, double[] consts,
+            int result, String text) {
+        this.ops = ops;
+        this.lefts = lefts;
+        this.rights = rights;
+        this.varying = varying;
+        this.funcs = funcs;
+        this.consts = consts;
+        this.result = result;
+        this.text = text;
+    }
+
+    /***************************************************************************
+     * Evaluates the expression by the forward sweep only, with a newly
+     * allocated array of the values.
+     *
+     * @param vars values of the variables, indexed by their slots
+     *
+     * @return calculated numerical value
+     */
+    @Override
+    public double eval(double[] vars) {
+        double[] values = new double[this.ops.length];
+
+        this.sweepForward(vars, values);
+
+        return values[this.result];
+    }
+
+    /***************************************************************************
+     * Evaluates the expression along with its gradient, with newly allocated
+     * arrays of the values and the adjoints.
+     *
+     * @param vars values of the variables, indexed by their slots
+     * @param grad array to store the partial derivatives to, indexed by the
+     * slots of the variables
+     *
+     * @return calculated numerical value
+     */
+    public double eval(double[] vars, double[] grad) {
+        return this.eval(vars, grad, new double[this.ops.length],
+                new double[this.ops.length]);
+    }
+
+    /***************************************************************************
+     * Evaluates the expression along with its gradient. The partial
+     * derivatives are calculated by the variables of the slots lower than
+     * the length of the gradient array, the other variables are held
+     * constant.
+     *
+     * @param vars values of the variables, indexed by their slots
+     * @param grad array to store the partial derivatives to, indexed by the
+     * slots of the variables
+     * @param values array of at least {@link #getSize()} elements to store
+     * the values of the operations to
+     * @param adjoints array of at least {@link #getSize()} elements to store
+     * the adjoints of the operations to
+     *
+     * @return calculated numerical value
+     */
+    public double eval(double[] vars, double[] grad, double[] values,
+            double[] adjoints) {
+        this.sweepForward(vars, values);
+        this.sweepBackward(values, adjoints, grad);
+
+        return values[this.result];
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the operations, the minimum size of the arrays of the
+     * values and the adjoints
+     */
+    public int getSize() {
+        return this.ops.length;
+    }
+
+    /***************************************************************************
+     * Calculates the values of all the operations in their order.
+     *
+     * @param vars values of the variables, indexed by their slots
+     * @param values array to store the values of the operations to
+     */
+    private void sweepForward(double[] vars, double[] values) {
+        final int[] opCodes = this.ops;
+        final int[] left = this.lefts;
+        final int[] right = this.rights;
+
+        for (int i = 0; i < opCodes.length; i++) {
+            switch (opCodes[i]) {
+                case MathOpcodes.CONST:
+                    values[i] = this.consts[left[i]];
+                    break;
+                case MathOpcodes.VAR:
+                    values[i] = vars[left[i]];
+                    break;
+                case MathOpcodes.ADD:
+                    values[i] = values[left[i]] + values[right[i]];
+                    break;
+                case MathOpcodes.SUB:
+                    values[i] = values[left[i]] - values[right[i]];
+                    break;
+                case MathOpcodes.MUL:
+                    values[i] = values[left[i]] * values[right[i]];
+                    break;
+                case MathOpcodes.DIV:
+                    values[i] = values[left[i]] / values[right[i]];
+                    break;
+                case MathOpcodes.POW:
+                    values[i] = Math.pow(values[left[i]], values[right[i]]);
+                    break;
+                case MathOpcodes.POW_INT:
+                    values[i] = MathOps.powInt(values[left[i]], right[i]);
+                    break;
+                case MathOpcodes.POW_HALF:
+                    values[i] = MathOps.powHalf(values[left[i]]);
+                    break;
+                case MathOpcodes.CALL1:
+                    values[i] = this.funcs[i].apply(values[left[i]]);
+                    break;
+                case MathOpcodes.CALL2:
+                    values[i] = this.funcs[i].apply(values[left[i]],
+                            values[right[i]]);
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid operation code: "
+                            + opCodes[i]);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * Propagates the adjoints from the result back to the variables, in the
+     * reverse order of the operations. Only the operands depending on any
+     * variable receive their adjoints, so the derivatives by the constant
+     * operands, possibly infinite or NaN, are never calculated. The adjoints
+     * are multiplied by the derivatives the same way as by the forward mode
+     * (see {@link MathOps#chain}), so a zero derivative, e.g. of
+     * <code>abs</code> at 0, stops an infinite adjoint.
+     *
+     * @param values values of the operations
+     * @param adjoints array to store the adjoints of the operations to
+     * @param grad array to store the partial derivatives to
+     */
+    private void sweepBackward(double[] values, double[] adjoints,
+            double[] grad) {
+        final int[] opCodes = this.ops;
+        final int[] left = this.lefts;
+        final int[] right = this.rights;
+        final boolean[] isVarying = this.varying;
+
+        Arrays.fill(grad, 0.0);
+        Arrays.fill(adjoints, 0, this.result + 1, 0.0);
+        adjoints[this.result] = 1.0;
+
+        for (int i = this.result; i >= 0; i--) {
+            double adjoint = adjoints[i];
+            if (adjoint == 0.0 || !isVarying[i]) {
+                continue;
+            }
+
+            int l = left[i];
+            int r = right[i];
+
+            switch (opCodes[i]) {
+                case MathOpcodes.VAR:
+                    if (l < grad.length) {
+                        grad[l] += adjoint;
+                    }
+                    break;
+                case MathOpcodes.ADD:
+                    adjoints[l] += adjoint;
+                    adjoints[r] += adjoint;
+                    break;
+                case MathOpcodes.SUB:
+                    adjoints[l] += adjoint;
+                    adjoints[r] -= adjoint;
+                    break;
+                case MathOpcodes.MUL:
+                    if (isVarying[l]) {
+                        adjoints[l] += MathOps.chain(values[r], adjoint);
+                    }
+                    if (isVarying[r]) {
+                        adjoints[r] += MathOps.chain(values[l], adjoint);
+                    }
+                    break;
+                case MathOpcodes.DIV:
+                    if (isVarying[l]) {
+                        adjoints[l] += MathOps.chain(1.0 / values[r],
+                                adjoint);
+                    }
+                    if (isVarying[r]) {
+                        adjoints[r] += MathOps.chain(-values[i] / values[r],
+                                adjoint);
+                    }
+                    break;
+                case MathOpcodes.POW:
+                    if (isVarying[l]) {
+                        adjoints[l] += MathOps.chain(values[r]
+                                * Math.pow(values[l], values[r] - 1.0),
+                                adjoint);
+                    }
+                    if (isVarying[r]) {
+                        adjoints[r] += MathOps.chain(values[i]
+                                * Math.log(values[l]), adjoint);
+                    }
+                    break;
+                case MathOpcodes.POW_INT:
+                    if (r != 0) {
+                        adjoints[l] += MathOps.chain(
+                                r * MathOps.powInt(values[l], r - 1),
+                                adjoint);
+                    }
+                    break;
+                case MathOpcodes.POW_HALF:
+                    adjoints[l] += MathOps.chain(0.5 / values[i], adjoint);
+                    break;
+                case MathOpcodes.CALL1:
+                    adjoints[l] += MathOps.chain(
+                            this.funcs[i].derivative(values[l]), adjoint);
+                    break;
+                case MathOpcodes.CALL2:
+                    if (isVarying[l]) {
+                        adjoints[l] += MathOps.chain(this.funcs[i]
+                                .leftPartial(values[l], values[r]), adjoint);
+                    }
+                    if (isVarying[r]) {
+                        adjoints[r] += MathOps.chain(this.funcs[i]
+                                .rightPartial(values[l], values[r]),
+                                adjoint);
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid operation code: "
+                            + opCodes[i]);
+            }
+        }
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return standard symbolic representation of the math. expression
+     */
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+    /***************************************************************************
+     * Class collecting the operations of the tape being recorded.
+     */
+    private static class Recorder {
+
+        private final int[] ops;
+        private final int[] lefts;
+        private final int[] rights;
+        private final boolean[] varying;
+        private final MathFunction[] funcs;
+        private int size;
+
+        /***********************************************************************
+         * Default constructor.
+         *
+         * @param capacity maximum number of the operations
+         */
+        public Recorder(int capacity) {
+            this.ops = new int[capacity];
+            this.lefts = new int[capacity];
+            this.rights = new int[capacity];
+            this.varying = new boolean[capacity];
+            this.funcs = new MathFunction[capacity];
+        }
+
+        /***********************************************************************
+         * Appends an operation to the tape.
+         *
+         * @param op operation code
+         * @param left position of the left operand, or the immediate value
+         * @param right position of the right operand, or the immediate value
+         * @param isVarying whether the operation depends on any variable
+         *
+         * @return position of the operation
+         */
+        public int add(int op, int left, int right, boolean isVarying) {
+            this.ops[this.size] = op;
+            this.lefts[this.size] = left;
+            this.rights[this.size] = right;
+            this.varying[this.size] = isVarying;
+
+            return this.size++;
+        }
+
+    }
+
+}
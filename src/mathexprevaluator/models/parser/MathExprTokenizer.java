@@ -0,0 +1,352 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Splits the mathematical expression into tokens. The tokens are produced
+ * on demand, one at a time, in a single left-to-right pass over the input.
+ * The input is read in place, so neither whitespace removal nor number
+ * scanning makes any copy of it.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprTokenizer {
+
+    private static final char BRACKET_OPEN = '(';
+    private static final char BRACKET_CLOSE = ')';
+    private static final char COMMA = ',';
+    private static final char DECIMAL_POINT = '.';
+
+    private static final int MAX_EXACT_POW10 = 22;
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final int MAX_EXPONENT = 100000;
+    private static final double[] POW10 = createPowersOf10();
+
+    private final CharSequence expr;
+    private final int end;
+
+    private int pos;
+    private int tokenStart;
+    private MathToken token;
+    private double number;
+    private long integer;
+    private boolean isInteger;
+    private MathBinOper operator;
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param expr expression to split into tokens
+     * @param start index of the first character of the expression
+     * @param end index after the last character of the expression
+     */
+    public MathExprTokenizer(CharSequence expr, int start, int end) {
+        this.expr = expr;
+        this.end = end;
+        this.pos = start;
+        this.tokenStart = start;
+        this.token = null;
+    }
+
+    /***************************************************************************
+     * Advances to the next token in the expression. Whitespace between the
+     * tokens is skipped.
+     *
+     * @return kind of the token read
+     * @throws InvalidMathExprException thrown in case of an unknown character
+     */
+    public MathToken next() throws InvalidMathExprException {
+        int len = this.end;
+
+        while (this.pos < len
+                && Character.isWhitespace(this.expr.charAt(this.pos))) {
+            this.pos++;
+        }
+
+        this.tokenStart = this.pos;
+        this.operator = null;
+
+        if (this.pos >= len) {
+            this.token = MathToken.END;
+            return this.token;
+        }
+
+        char c = this.expr.charAt(this.pos);
+
+        if (isDigit(c) || c == DECIMAL_POINT) {
+            this.scanNumber();
+            this.token = MathToken.NUMBER;
+        } else if (MathVarTable.isNameStart(c)) {
+            this.scanName();
+            this.token = MathToken.NAME;
+        } else if (c == BRACKET_OPEN) {
+            this.pos++;
+            this.token = MathToken.BRACKET_OPEN;
+        } else if (c == BRACKET_CLOSE) {
+            this.pos++;
+            this.token = MathToken.BRACKET_CLOSE;
+        } else if (c == COMMA) {
+            this.pos++;
+            this.token = MathToken.COMMA;
+        } else {
+            this.operator = MathBinOper.fromSign(c);
+            if (this.operator == null) {
+                throw new InvalidMathExprException(
+                        MathExprErrorKind.UNKNOWN_CHARACTER,
+                        "Invalid syntax, unknown character: " + c);
+            }
+
+            this.pos++;
+            this.token = MathToken.OPERATOR;
+        }
+
+        return this.token;
+    }
+
+    /***************************************************************************
+     * Moves to another position in the expression, the next token is read
+     * from there.
+     *
+     * @param pos index of the character to continue with
+     */
+    public void skipTo(int pos) {
+        this.pos = pos;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return kind of the current token
+     */
+    public MathToken getToken() {
+        return this.token;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return value of the current token if it is a number
+     */
+    public double getNumber() {
+        return this.number;
+    }
+
+    /***************************************************************************
+     * Checks whether the current token is an integer literal - a number
+     * written without the decimal point and the exponent, of at most 18
+     * significant digits. Its exact value is {@link #getInteger()}.
+     *
+     * @return true if the token is an integer literal, false otherwise
+     */
+    public boolean isInteger() {
+        return this.token == MathToken.NUMBER && this.isInteger;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return exact value of the current token if it is an integer literal
+     */
+    public long getInteger() {
+        return this.integer;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return text of the current token if it is a name
+     */
+    public String getName() {
+        return this.expr.subSequence(this.tokenStart, this.pos).toString();
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return operation of the current token if it is an operator, null
+     * otherwise
+     */
+    public MathBinOper getOperator() {
+        return this.operator;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return position of the first character of the current token
+     */
+    public int getTokenStart() {
+        return this.tokenStart;
+    }
+
+    /***************************************************************************
+     * Checks whether the current token is the specified operator.
+     *
+     * @param oper operation to check
+     * @return true if the current token is the operator, false otherwise
+     */
+    public boolean isOperator(MathBinOper oper) {
+        return this.operator == oper;
+    }
+
+    /***************************************************************************
+     * Scans a number starting at the current position. The accepted format
+     * is <code>digits[.digits][(e|E)[+|-]digits]</code>, where either the
+     * integral or the fractional part may be omitted.
+     *
+     * <p>The value is accumulated directly from the characters. As long as
+     * the significant digits fit into 53 bits and the decimal exponent is at
+     * most 22, both operands of the final multiplication (division) are exact
+     * and so is the correctly rounded result. Only the other, rare, numbers
+     * are handed over to {@link Double#parseDouble(String)}.
+     *
+     * @throws InvalidMathExprException thrown in case of malformed number
+     */
+    private void scanNumber() throws InvalidMathExprException {
+        int start = this.pos;
+        long mantissa = 0;
+        int mantissaDigits = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean fraction = false;
+
+        while (this.pos < this.end) {
+            char c = this.expr.charAt(this.pos);
+
+            if (isDigit(c)) {
+                digits++;
+                if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (mantissa != 0) {
+                        mantissaDigits++;
+                    }
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else {
+                    // Too many digits to be exact, the slow path is taken.
+                    mantissaDigits++;
+                    if (!fraction) {
+                        exponent++;
+                    }
+                }
+            } else if (c == DECIMAL_POINT && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+
+            this.pos++;
+        }
+
+        if (digits == 0) {
+            throw new InvalidMathExprException(
+                    MathExprErrorKind.UNKNOWN_CHARACTER,
+                    "Invalid syntax, unknown character: " + DECIMAL_POINT);
+        }
+
+        int decimalExponent = this.scanExponent();
+
+        // Too many digits show as a positive exponent already.
+        this.isInteger = !fraction && exponent == 0 && decimalExponent == 0;
+        this.integer = mantissa;
+        exponent += decimalExponent;
+
+        if (mantissa == 0 && mantissaDigits == 0) {
+            this.number = 0.0;
+        } else if (mantissaDigits <= MAX_MANTISSA_DIGITS
+                && mantissa <= MAX_EXACT_MANTISSA
+                && Math.abs(exponent) <= MAX_EXACT_POW10) {
+            this.number = (exponent >= 0) ? mantissa * POW10[exponent]
+                    : mantissa / POW10[-exponent];
+        } else {
+            this.number = Double.parseDouble(
+                    this.expr.subSequence(start, this.pos).toString());
+        }
+    }
+
+    /***************************************************************************
+     * Scans the optional exponent part of a number. If the exponent sign is
+     * not followed by any digit, it is not considered a part of the number.
+     *
+     * @return value of the exponent, or 0 if there is none
+     */
+    private int scanExponent() {
+        if (this.pos >= this.end) {
+            return 0;
+        }
+
+        char c = this.expr.charAt(this.pos);
+        if (c != 'e' && c != 'E') {
+            return 0;
+        }
+
+        int mark = this.pos;
+        boolean negative = false;
+        this.pos++;
+
+        if (this.pos < this.end) {
+            c = this.expr.charAt(this.pos);
+            if (c == '+' || c == '-') {
+                negative = (c == '-');
+                this.pos++;
+            }
+        }
+
+        int digitsStart = this.pos;
+        int exponent = 0;
+
+        while (this.pos < this.end && isDigit(c = this.expr.charAt(this.pos))) {
+            // Saturate, anything this large over- or underflows anyway.
+            exponent = Math.min(exponent * 10 + (c - '0'), MAX_EXPONENT);
+            this.pos++;
+        }
+
+        if (this.pos == digitsStart) {
+            this.pos = mark;
+            return 0;
+        }
+
+        return negative ? -exponent : exponent;
+    }
+
+    /***************************************************************************
+     * Scans a name starting at the current position.
+     */
+    private void scanName() {
+        this.pos++;
+
+        while (this.pos < this.end
+                && MathVarTable.isNamePart(this.expr.charAt(this.pos))) {
+            this.pos++;
+        }
+    }
+
+    /***************************************************************************
+     * Checks whether the character is a decimal digit. Unlike
+     * {@link Character#isDigit(char)}, only ASCII digits are accepted.
+     *
+     * @param c character to check
+     * @return true if the character is a digit, false otherwise
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /***************************************************************************
+     * Creates the table of the powers of 10 which are exactly representable.
+     *
+     * @return powers of 10 from 10^0 to 10^22
+     */
+    private static double[] createPowersOf10() {
+        double[] powers = new double[MAX_EXACT_POW10 + 1];
+
+        powers[0] = 1.0;
+        for (int i = 1; i < powers.length; i++) {
+            powers[i] = powers[i - 1] * 10.0;
+        }
+
+        return powers;
+    }
+
+}
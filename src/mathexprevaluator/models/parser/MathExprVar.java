@@ -0,0 +1,58 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Class representing a variable, resolved to its slot when parsing.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+class MathExprVar implements IMathChunkExpr {
+    
+    private final int slot;
+    private final String name;
+    
+    /***************************************************************************
+     * Default constructor.
+     * 
+     * @param slot index of the variable value
+     * @param name name of the variable
+     */
+    public MathExprVar(int slot, String name) {
+        this.slot = slot;
+        this.name = name;
+    }
+    
+    /**************************************************************************/
+    @Override
+    public double eval(double[] vars) {
+        return vars[this.slot];
+    }
+    
+    /**************************************************************************/
+    @Override
+    public void evalChunk(MathChunkContext context, int row, int count,
+            double[] dst, int dstOffset) {
+        System.arraycopy(context.getColumn(this.slot), row, dst, dstOffset,
+                count);
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return index of the variable value
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+    
+    /***************************************************************************
+     * String representation of the object.
+     * 
+     * @return name of the variable
+     */
+    @Override
+    public String toString() {
+        return this.name;
+    }
+    
+}
@@ -0,0 +1,202 @@
+package mathexprevaluator.models.parser;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******************************************************************************
+ * Table of the functions which may be called in mathematical expressions
+ * (see {@link MathFunction}). Like the variables (see {@link MathVarTable}),
+ * the names of the functions are resolved once, when parsing, so the
+ * evaluation itself involves no lookups.
+ *
+ * <p>A new table holds the built-in functions, i.e. <code>sqrt</code>,
+ * <code>cbrt</code>, <code>exp</code>, <code>log</code>, <code>log10</code>,
+ * <code>sin</code>, <code>cos</code>, <code>tan</code>, <code>asin</code>,
+ * <code>acos</code>, <code>atan</code>, <code>sinh</code>, <code>cosh</code>,
+ * <code>tanh</code>, <code>abs</code>, <code>floor</code>, <code>ceil</code>,
+ * <code>signum</code>, <code>min</code>, <code>max</code>, <code>atan2</code>
+ * and <code>hypot</code>. Further functions may be registered, replacing the
+ * ones of the same name. Only the expressions parsed afterwards are affected,
+ * hence each change of the table increments its version (see
+ * {@link #getVersion()}), so that the parsed expressions may be cached.
+ *
+ * <p>Besides, functions may be defined in the language of the expressions,
+ * e.g. <code>discount(r, t) = (1 + r) ^ -t</code> (see {@link MathMacro}).
+ * Their bodies are parsed once and inlined into the calling expressions.
+ *
+ * <p>The table is thread-safe.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathFuncTable {
+
+    private static final MathFuncTable DEFAULT = new MathFuncTable();
+
+    private final ConcurrentHashMap<String, MathFunction> functions;
+    private final ConcurrentHashMap<String, MathMacro> macros;
+    private final AtomicLong version;
+
+    /***************************************************************************
+     * Default constructor. Creates a table holding the built-in functions.
+     */
+    public MathFuncTable() {
+        this.functions = new ConcurrentHashMap<>();
+        this.macros = new ConcurrentHashMap<>();
+        this.version = new AtomicLong();
+
+        for (MathFunction func: MathFunction.createBuiltins()) {
+            this.functions.put(func.getName(), func);
+        }
+    }
+
+    /***************************************************************************
+     * Retrieves the table shared by all the expressions parsed without a
+     * table given. Registering a function in it affects all of them.
+     *
+     * @return default table of functions
+     */
+    public static MathFuncTable getDefault() {
+        return DEFAULT;
+    }
+
+    /***************************************************************************
+     * Registers the function, replacing the one of the same name.
+     *
+     * @param function function to register
+     */
+    public void register(MathFunction function) {
+        this.functions.put(function.getName(), function);
+        this.macros.remove(function.getName());
+        this.version.incrementAndGet();
+    }
+
+    /***************************************************************************
+     * Defines a function by its definition in the language of the
+     * expressions, e.g. <code>discount(r, t) = (1 + r) ^ -t</code>, replacing
+     * the function of the same name.
+     *
+     * @param definition definition of the function, name(params) = body
+     *
+     * @return defined function
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    public MathMacro define(String definition)
+            throws InvalidMathExprException {
+        int eq = definition.indexOf('=');
+        String head = definition.substring(0, Math.max(eq, 0)).trim();
+        int open = head.indexOf('(');
+
+        if (eq == -1 || open == -1 || !head.endsWith(")")) {
+            throw new InvalidMathExprException(
+                    MathExprErrorKind.UNEXPECTED_SYMBOL,
+                    "Invalid syntax, malformed function definition: "
+                    + definition);
+        }
+
+        String name = head.substring(0, open).trim();
+        String[] params = head.substring(open + 1, head.length() - 1)
+                .split(",", -1);
+
+        for (int i = 0; i < params.length; i++) {
+            params[i] = params[i].trim();
+            if (!MathVarTable.isValidName(params[i])) {
+                throw new InvalidMathExprException(
+                        MathExprErrorKind.UNEXPECTED_SYMBOL,
+                        "Invalid syntax, malformed parameter: " + params[i]);
+            }
+        }
+        if (!MathVarTable.isValidName(name)) {
+            throw new InvalidMathExprException(
+                    MathExprErrorKind.UNEXPECTED_SYMBOL,
+                    "Invalid syntax, malformed function name: " + name);
+        }
+
+        return this.add(new MathMacro(name, params, definition, eq + 1,
+                definition.length(), this));
+    }
+
+    /***************************************************************************
+     * Defines a function by its body in the language of the expressions,
+     * replacing the function of the same name.
+     *
+     * @param name name of the function
+     * @param params names of the parameters, at least one
+     * @param body body of the function, referring to the parameters
+     *
+     * @return defined function
+     * @throws InvalidMathExprException thrown in case of invalid syntax of
+     * the body
+     */
+    public MathMacro define(String name, String[] params, CharSequence body)
+            throws InvalidMathExprException {
+        return this.add(new MathMacro(name, params, body, 0,
+                body.length(), this));
+    }
+
+    /***************************************************************************
+     * Adds the defined function, replacing the function of the same name.
+     *
+     * @param macro defined function
+     *
+     * @return the function added
+     */
+    private MathMacro add(MathMacro macro) {
+        this.macros.put(macro.getName(), macro);
+        this.functions.remove(macro.getName());
+        this.version.incrementAndGet();
+
+        return macro;
+    }
+
+    /***************************************************************************
+     * Getter. The version is incremented after each function is registered
+     * or defined, so an expression parsed after reading the version may only
+     * be stale if the version has changed since.
+     *
+     * @return number of the changes of the table so far
+     */
+    public long getVersion() {
+        return this.version.get();
+    }
+
+    /***************************************************************************
+     * Retrieves the function.
+     *
+     * @param name name of the function
+     *
+     * @return function, or null if there is no such function or it is a
+     * defined one (see {@link #getMacro(String)})
+     */
+    public MathFunction get(String name) {
+        return this.functions.get(name);
+    }
+
+    /***************************************************************************
+     * Retrieves the function defined in the language of the expressions.
+     *
+     * @param name name of the function
+     *
+     * @return defined function, or null if there is no such function
+     */
+    public MathMacro getMacro(String name) {
+        return this.macros.get(name);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return sorted names of all the functions, including the defined ones
+     */
+    public Set<String> getNames() {
+        TreeSet<String> names = new TreeSet<>(this.functions.keySet());
+
+        names.addAll(this.macros.keySet());
+
+        return Collections.unmodifiableSet(names);
+    }
+
+}
@@ -0,0 +1,423 @@
+package mathexprevaluator.models.parser;
+
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/*******************************************************************************
+ * Mathematical function of one or two arguments which may be called in
+ * expressions, e.g. <code>sin(x)</code> or <code>max(x, 0)</code>. The names
+ * of the functions are resolved once, when parsing (see
+ * {@link MathFuncTable}), so a call involves no lookup.
+ *
+ * <p>The built-in functions call the methods of {@link Math} of the same name
+ * directly, selected by a switch on their identifier. The custom functions
+ * are given as {@link DoubleUnaryOperator} or {@link DoubleBinaryOperator},
+ * so their arguments are never boxed. Any function has to be pure - its
+ * value depends on its arguments only - as the calls with constant arguments
+ * may be replaced by their value (see {@link MathExprOptimizer}) and the
+ * identical calls evaluated only once (see {@link MathExprSharer}).
+ *
+ * <p>For the differentiation (see {@link MathExprGradient}), each function
+ * has its derivatives, too. Unless they are given for a custom function, they
+ * are approximated by the central difference.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public final class MathFunction {
+
+    static final int CUSTOM = -1;
+    static final int SQRT = 0;
+    static final int CBRT = 1;
+    static final int EXP = 2;
+    static final int LOG = 3;
+    static final int LOG10 = 4;
+    static final int SIN = 5;
+    static final int COS = 6;
+    static final int TAN = 7;
+    static final int ASIN = 8;
+    static final int ACOS = 9;
+    static final int ATAN = 10;
+    static final int SINH = 11;
+    static final int COSH = 12;
+    static final int TANH = 13;
+    static final int ABS = 14;
+    static final int FLOOR = 15;
+    static final int CEIL = 16;
+    static final int SIGNUM = 17;
+    static final int MIN = 18;
+    static final int MAX = 19;
+    static final int ATAN2 = 20;
+    static final int HYPOT = 21;
+
+    // Indexed by the identifiers, the binary functions being the last ones.
+    private static final String[] BUILTIN_NAMES = {"sqrt", "cbrt", "exp",
+        "log", "log10", "sin", "cos", "tan", "asin", "acos", "atan", "sinh",
+        "cosh", "tanh", "abs", "floor", "ceil", "signum", "min", "max",
+        "atan2", "hypot"};
+
+    private static final double LN_10 = Math.log(10.0);
+    private static final double DIFF_STEP = Math.cbrt(Math.ulp(1.0));
+
+    private final String name;
+    private final int arity;
+    private final int id;
+    private final DoubleUnaryOperator unary;
+    private final DoubleUnaryOperator derivative;
+    private final DoubleBinaryOperator binary;
+    private final DoubleBinaryOperator leftPartial;
+    private final DoubleBinaryOperator rightPartial;
+
+    /***************************************************************************
+     * Creates a custom function of one argument with the derivative
+     * approximated by the central difference.
+     *
+     * @param name name of the function
+     * @param func the function itself
+     *
+     * @return newly created function
+     */
+    public static MathFunction unary(String name, DoubleUnaryOperator func) {
+        return unary(name, func, null);
+    }
+
+    /***************************************************************************
+     * Creates a custom function of one argument.
+     *
+     * @param name name of the function
+     * @param func the function itself
+     * @param derivative derivative of the function, null to approximate it
+     *
+     * @return newly created function
+     */
+    public static MathFunction unary(String name, DoubleUnaryOperator func,
+            DoubleUnaryOperator derivative) {
+        return new MathFunction(name, 1, CUSTOM, func, derivative, null, null,
+                null);
+    }
+
+    /***************************************************************************
+     * Creates a custom function of two arguments with the partial
+     * derivatives approximated by the central difference.
+     *
+     * @param name name of the function
+     * @param func the function itself
+     *
+     * @return newly created function
+     */
+    public static MathFunction binary(String name, DoubleBinaryOperator func) {
+        return binary(name, func, null, null);
+    }
+
+    /***************************************************************************
+     * Creates a custom function of two arguments.
+     *
+     * @param name name of the function
+     * @param func the function itself
+     * @param leftPartial partial derivative by the first argument, null to
+     * approximate it
+     * @param rightPartial partial derivative by the second argument, null to
+     * approximate it
+     *
+     * @return newly created function
+     */
+    public static MathFunction binary(String name, DoubleBinaryOperator func,
+            DoubleBinaryOperator leftPartial,
+            DoubleBinaryOperator rightPartial) {
+        return new MathFunction(name, 2, CUSTOM, null, null, func, leftPartial,
+                rightPartial);
+    }
+
+    /***************************************************************************
+     * Creates all the built-in functions.
+     *
+     * @return built-in functions, indexed by their identifiers
+     */
+    static MathFunction[] createBuiltins() {
+        MathFunction[] builtins = new MathFunction[BUILTIN_NAMES.length];
+
+        for (int id = 0; id < builtins.length; id++) {
+            builtins[id] = new MathFunction(BUILTIN_NAMES[id],
+                    (id < MIN) ? 1 : 2, id, null, null, null, null, null);
+        }
+
+        return builtins;
+    }
+
+    /***************************************************************************
+     * Default constructor.
+     *
+     * @param name name of the function
+     * @param arity number of the arguments
+     * @param id identifier of a built-in function, or CUSTOM
+     * @param unary custom function of one argument
+     * @param derivative derivative of the custom function of one argument
+     * @param binary custom function of two arguments
+     * @param leftPartial partial derivative of the custom function of two
+     * arguments by the first one
+     * @param rightPartial partial derivative of the custom function of two
+     * arguments by the second one
+     */
+    private MathFunction(String name, int arity, int id,
+            DoubleUnaryOperator unary, DoubleUnaryOperator derivative,
+            DoubleBinaryOperator binary, DoubleBinaryOperator leftPartial,
+            DoubleBinaryOperator rightPartial) {
+        if (!MathVarTable.isValidName(name)) {
+            throw new IllegalArgumentException("Invalid function name: "
+                    + name);
+        }
+        if (id == CUSTOM && unary == null && binary == null) {
+            throw new NullPointerException("No function given: " + name);
+        }
+
+        this.name = name;
+        this.arity = arity;
+        this.id = id;
+        this.unary = unary;
+        this.derivative = derivative;
+        this.binary = binary;
+        this.leftPartial = leftPartial;
+        this.rightPartial = rightPartial;
+    }
+
+    /***************************************************************************
+     * Calls the function of one argument.
+     *
+     * @param x argument
+     *
+     * @return value of the function
+     */
+    public double apply(double x) {
+        switch (this.id) {
+            case SQRT:
+                return Math.sqrt(x);
+            case CBRT:
+                return Math.cbrt(x);
+            case EXP:
+                return Math.exp(x);
+            case LOG:
+                return Math.log(x);
+            case LOG10:
+                return Math.log10(x);
+            case SIN:
+                return Math.sin(x);
+            case COS:
+                return Math.cos(x);
+            case TAN:
+                return Math.tan(x);
+            case ASIN:
+                return Math.asin(x);
+            case ACOS:
+                return Math.acos(x);
+            case ATAN:
+                return Math.atan(x);
+            case SINH:
+                return Math.sinh(x);
+            case COSH:
+                return Math.cosh(x);
+            case TANH:
+                return Math.tanh(x);
+            case ABS:
+                return Math.abs(x);
+            case FLOOR:
+                return Math.floor(x);
+            case CEIL:
+                return Math.ceil(x);
+            case SIGNUM:
+                return Math.signum(x);
+            default:
+                return this.unary.applyAsDouble(x);
+        }
+    }
+
+    /***************************************************************************
+     * Calls the function of two arguments.
+     *
+     * @param x first argument
+     * @param y second argument
+     *
+     * @return value of the function
+     */
+    public double apply(double x, double y) {
+        switch (this.id) {
+            case MIN:
+                return Math.min(x, y);
+            case MAX:
+                return Math.max(x, y);
+            case ATAN2:
+                return Math.atan2(x, y);
+            case HYPOT:
+                return Math.hypot(x, y);
+            default:
+                return this.binary.applyAsDouble(x, y);
+        }
+    }
+
+    /***************************************************************************
+     * Calculates the derivative of the function of one argument. Where the
+     * function is not differentiable, e.g. <code>abs</code> at zero, a
+     * subderivative or 0 is returned.
+     *
+     * @param x argument
+     *
+     * @return derivative of the function at the argument
+     */
+    public double derivative(double x) {
+        double val;
+
+        switch (this.id) {
+            case SQRT:
+                return 0.5 / Math.sqrt(x);
+            case CBRT:
+                val = Math.cbrt(x);
+                return 1.0 / (3.0 * val * val);
+            case EXP:
+                return Math.exp(x);
+            case LOG:
+                return 1.0 / x;
+            case LOG10:
+                return 1.0 / (x * LN_10);
+            case SIN:
+                return Math.cos(x);
+            case COS:
+                return -Math.sin(x);
+            case TAN:
+                val = Math.cos(x);
+                return 1.0 / (val * val);
+            case ASIN:
+                return 1.0 / Math.sqrt(1.0 - x * x);
+            case ACOS:
+                return -1.0 / Math.sqrt(1.0 - x * x);
+            case ATAN:
+                return 1.0 / (1.0 + x * x);
+            case SINH:
+                return Math.cosh(x);
+            case COSH:
+                return Math.sinh(x);
+            case TANH:
+                val = Math.tanh(x);
+                return 1.0 - val * val;
+            case ABS:
+                return Math.signum(x);
+            case FLOOR:
+            case CEIL:
+            case SIGNUM:
+                return 0.0;
+            default:
+                if (this.derivative != null) {
+                    return this.derivative.applyAsDouble(x);
+                }
+
+                double h = DIFF_STEP * Math.max(1.0, Math.abs(x));
+                return (this.apply(x + h) - this.apply(x - h)) / (2.0 * h);
+        }
+    }
+
+    /***************************************************************************
+     * Calculates the partial derivative of the function of two arguments by
+     * its first argument.
+     *
+     * @param x first argument
+     * @param y second argument
+     *
+     * @return partial derivative of the function at the arguments
+     */
+    public double leftPartial(double x, double y) {
+        switch (this.id) {
+            case MIN:
+                return (x <= y) ? 1.0 : 0.0;
+            case MAX:
+                return (x >= y) ? 1.0 : 0.0;
+            case ATAN2:
+                return y / (x * x + y * y);
+            case HYPOT:
+                return x / Math.hypot(x, y);
+            default:
+                if (this.leftPartial != null) {
+                    return this.leftPartial.applyAsDouble(x, y);
+                }
+
+                double h = DIFF_STEP * Math.max(1.0, Math.abs(x));
+                return (this.apply(x + h, y) - this.apply(x - h, y))
+                        / (2.0 * h);
+        }
+    }
+
+    /***************************************************************************
+     * Calculates the partial derivative of the function of two arguments by
+     * its second argument.
+     *
+     * @param x first argument
+     * @param y second argument
+     *
+     * @return partial derivative of the function at the arguments
+     */
+    public double rightPartial(double x, double y) {
+        switch (this.id) {
+            case MIN:
+                return (x <= y) ? 0.0 : 1.0;
+            case MAX:
+                return (x >= y) ? 0.0 : 1.0;
+            case ATAN2:
+                return -x / (x * x + y * y);
+            case HYPOT:
+                return y / Math.hypot(x, y);
+            default:
+                if (this.rightPartial != null) {
+                    return this.rightPartial.applyAsDouble(x, y);
+                }
+
+                double h = DIFF_STEP * Math.max(1.0, Math.abs(y));
+                return (this.apply(x, y + h) - this.apply(x, y - h))
+                        / (2.0 * h);
+        }
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return name of the function
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the arguments, 1 or 2
+     */
+    public int getArity() {
+        return this.arity;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return true if the function is a built-in one, calling the method of
+     * {@link Math} of the same name, false otherwise
+     */
+    public boolean isBuiltin() {
+        return this.id != CUSTOM;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return identifier of the built-in function, or CUSTOM
+     */
+    int getId() {
+        return this.id;
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return name/arity
+     */
+    @Override
+    public String toString() {
+        return this.name + "/" + this.arity;
+    }
+
+}
@@ -0,0 +1,141 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Function defined in the language of the expressions themselves, e.g.
+ * <code>discount(r, t) = (1 + r) ^ -t</code> (see
+ * {@link MathFuncTable#define(String)}). Its body is parsed once, when
+ * defined, the parameters being the variables of the body.
+ *
+ * <p>A call of the function is not evaluated as such. The parser inlines the
+ * body in place of the call instead, the parameters replaced by the
+ * arguments. Hence the optimizations of the calling expression, e.g. the
+ * constant folding (see {@link MathExprOptimizer}) or the common
+ * subexpression elimination (see {@link MathExprSharer}), take the body into
+ * account, as if the expression had been written out in full. An argument
+ * used several times by the body is inlined as the very same subtree, which
+ * the parser turns into a shared subexpression (see {@link MathExprShared}),
+ * so it is calculated only once, however deep the calls are nested.
+ *
+ * <p>The body may call the functions, including the other defined ones, of
+ * the table the function is defined in. They are resolved when the body is
+ * parsed, so redefining them later does not change the function.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public final class MathMacro {
+
+    private final String name;
+    private final String[] params;
+    private final String text;
+    private final IMathExpr body;
+    private final int height;
+
+    /***************************************************************************
+     * Default constructor. Parses the body of the function.
+     *
+     * @param name name of the function
+     * @param params names of the parameters, at least one
+     * @param expr character sequence containing the body
+     * @param start index of the first character of the body
+     * @param end index after the last character of the body
+     * @param funcs table to resolve the functions called by the body with
+     * @throws InvalidMathExprException thrown in case of invalid syntax of
+     * the body, e.g. if it refers to a variable other than a parameter
+     */
+    MathMacro(String name, String[] params, CharSequence expr, int start,
+            int end, MathFuncTable funcs) throws InvalidMathExprException {
+        if (!MathVarTable.isValidName(name)) {
+            throw new IllegalArgumentException("Invalid function name: "
+                    + name);
+        }
+        if (params.length == 0) {
+            throw new IllegalArgumentException("No parameters of function: "
+                    + name);
+        }
+
+        MathVarTable paramTable = new MathVarTable(params);
+        if (paramTable.getSize() != params.length) {
+            throw new IllegalArgumentException("Duplicate parameters of "
+                    + "function: " + name);
+        }
+
+        MathExpr parsed = new MathExpr(expr, start, end, paramTable, funcs);
+        if (parsed.getChild() == null) {
+            throw new InvalidMathExprException(
+                    MathExprErrorKind.MISSING_OPERAND,
+                    "Invalid syntax, empty body of function: " + name);
+        }
+
+        this.name = name;
+        this.params = params.clone();
+        this.text = expr.subSequence(start, end).toString().trim();
+        // The body is kept as a graph, the calls nested in it being shared.
+        this.body = (parsed.getTempCount() > 0)
+                ? MathExprNodes.unshare(parsed.getChild())
+                : parsed.getChild();
+        this.height = parsed.getHeight();
+    }
+
+    /***************************************************************************
+     * Inlines the body of the function, the parameters replaced by the
+     * arguments.
+     *
+     * @param args arguments, one per parameter
+     *
+     * @return root of the inlined tree
+     */
+    IMathExpr inline(IMathExpr[] args) {
+        return MathExprNodes.substitute(this.body, args);
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return height of the tree of the body
+     */
+    int getHeight() {
+        return this.height;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return name of the function
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @return number of the parameters
+     */
+    public int getArity() {
+        return this.params.length;
+    }
+
+    /***************************************************************************
+     * Getter.
+     *
+     * @param index index of the parameter
+     *
+     * @return name of the parameter
+     */
+    public String getParam(int index) {
+        return this.params[index];
+    }
+
+    /***************************************************************************
+     * String representation of the object.
+     *
+     * @return definition of the function, name(params) = body
+     */
+    @Override
+    public String toString() {
+        return this.name + "(" + String.join(", ", this.params) + ") = "
+                + this.text;
+    }
+
+}
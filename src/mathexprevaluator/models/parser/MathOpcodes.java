@@ -0,0 +1,90 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Operation codes of the postfix program evaluated by
+ * {@link MathExprProgram}. Codes marked as having an operand are followed by
+ * a single integer in the code stream.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+final class MathOpcodes {
+    
+    /** Pushes a constant, operand is the index into the constant pool. */
+    public static final int CONST = 0;
+    /** Pushes a variable value, operand is the slot of the variable. */
+    public static final int VAR = 1;
+    /** Pops two values and pushes their sum. */
+    public static final int ADD = 2;
+    /** Pops two values and pushes their difference. */
+    public static final int SUB = 3;
+    /** Pops two values and pushes their product. */
+    public static final int MUL = 4;
+    /** Pops two values and pushes their quotient. */
+    public static final int DIV = 5;
+    /** Pops two values and pushes the first raised to the second. */
+    public static final int POW = 6;
+    /** Raises the topmost value to an integer, operand is the exponent. */
+    public static final int POW_INT = 7;
+    /** Raises the topmost value to 0.5. */
+    public static final int POW_HALF = 8;
+    /**
+     * Copies the topmost value into a temporary slot, operand is the index of
+     * the slot.
+     */
+    public static final int STORE = 9;
+    /** Pushes the value of a temporary slot, operand is the index. */
+    public static final int LOAD = 10;
+    /**
+     * Applies a function of one argument to the topmost value, operand is the
+     * index into the function pool.
+     */
+    public static final int CALL1 = 11;
+    /**
+     * Pops two values and pushes a function of them, operand is the index
+     * into the function pool.
+     */
+    public static final int CALL2 = 12;
+    
+    /***************************************************************************
+     * Private constructor, this class only holds constants.
+     */
+    private MathOpcodes() {
+    }
+    
+    /***************************************************************************
+     * Retrieves the operation code of the binary operation.
+     * 
+     * @param operation binary mathematical operation
+     * 
+     * @return operation code
+     */
+    public static int fromBinOper(MathBinOper operation) {
+        switch (operation) {
+            case ADD:
+                return ADD;
+            case SUB:
+                return SUB;
+            case MUL:
+                return MUL;
+            case DIV:
+                return DIV;
+            default:
+                return POW;
+        }
+    }
+    
+    /***************************************************************************
+     * Checks whether the operation code is followed by an operand.
+     * 
+     * @param opcode operation code
+     * 
+     * @return true if there is an operand, false otherwise
+     */
+    public static boolean hasOperand(int opcode) {
+        return opcode == CONST || opcode == VAR || opcode == POW_INT
+                || opcode == STORE || opcode == LOAD || opcode == CALL1
+                || opcode == CALL2;
+    }
+    
+}
@@ -0,0 +1,91 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Arithmetic helpers shared by the expression nodes, the postfix programs and
+ * the classes generated by {@link MathExprCompiler}, hence public.
+ * 
+ * <p>Each helper gives exactly the same result as {@link Math#pow} for all the
+ * special values - NaN, infinities and zeros of both signs.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public final class MathOps {
+    
+    /***************************************************************************
+     * Private constructor, this class only holds static methods.
+     */
+    private MathOps() {
+    }
+    
+    /***************************************************************************
+     * Raises the base to an integer exponent by repeated squaring. Should the
+     * result fall out of the range of normal numbers, where the repeated
+     * rounding could lose precision, it is calculated by {@link Math#pow}.
+     * 
+     * @param base base
+     * @param exponent exponent to raise the base to
+     * 
+     * @return base raised to the exponent
+     */
+    public static double powInt(double base, int exponent) {
+        long remaining = Math.abs((long) exponent);
+        double result = 1.0;
+        double square = base;
+        
+        while (remaining != 0) {
+            if ((remaining & 1) != 0) {
+                result *= square;
+            }
+            
+            remaining >>= 1;
+            if (remaining != 0) {
+                square *= square;
+            }
+        }
+        
+        if (Math.abs(result) < Double.MIN_NORMAL
+                || Double.isInfinite(result)) {
+            return Math.pow(base, exponent);
+        }
+        
+        return (exponent < 0) ? 1.0 / result : result;
+    }
+    
+    /***************************************************************************
+     * Raises the base to one half by the square root. Unlike the plain
+     * {@link Math#sqrt}, the result is +0.0 for -0.0 and +Infinity for
+     * -Infinity.
+     * 
+     * @param base base
+     * 
+     * @return base raised to 0.5
+     */
+    public static double powHalf(double base) {
+        if (base == Double.NEGATIVE_INFINITY) {
+            return Double.POSITIVE_INFINITY;
+        }
+        
+        return Math.sqrt(base + 0.0);
+    }
+    
+    /***************************************************************************
+     * Multiplies two factors of the chain rule. A zero factor gives zero,
+     * even if the other one is infinite or NaN, e.g. the derivative of
+     * <code>sqrt(abs(x))</code> at 0 is 0, the derivative of
+     * <code>abs</code> being 0 there. Both the forward mode (see
+     * {@link MathExprGradient}) and the reverse mode (see
+     * {@link MathExprTape}) multiply the derivatives by this method, so they
+     * agree even at such points.
+     * 
+     * @param derivative derivative of an operation
+     * @param chained derivative it is chained with
+     * 
+     * @return product of the derivatives
+     */
+    public static double chain(double derivative, double chained) {
+        return (derivative == 0.0 || chained == 0.0) ? 0.0
+                : derivative * chained;
+    }
+    
+}
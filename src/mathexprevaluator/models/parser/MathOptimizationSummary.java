@@ -0,0 +1,107 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Summary of the rewrites done by {@link MathExprOptimizer}.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathOptimizationSummary {
+    
+    private int nodesBefore;
+    private int nodesAfter;
+    private int foldedConsts;
+    private int removedIdentities;
+    private int reducedPowers;
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return number of nodes of the expression before the optimization
+     */
+    public int getNodesBefore() {
+        return this.nodesBefore;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return number of nodes of the expression after the optimization
+     */
+    public int getNodesAfter() {
+        return this.nodesAfter;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return number of constant subexpressions replaced by their value
+     */
+    public int getFoldedConsts() {
+        return this.foldedConsts;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return number of operations removed due to an algebraic identity
+     */
+    public int getRemovedIdentities() {
+        return this.removedIdentities;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return number of powers replaced by a cheaper calculation
+     */
+    public int getReducedPowers() {
+        return this.reducedPowers;
+    }
+    
+    /***************************************************************************
+     * String representation of the object.
+     * 
+     * @return human-readable summary
+     */
+    @Override
+    public String toString() {
+        return String.format("%d -> %d nodes (%d constants folded, "
+                + "%d identities removed, %d powers reduced)",
+                this.nodesBefore, this.nodesAfter, this.foldedConsts,
+                this.removedIdentities, this.reducedPowers);
+    }
+    
+    /***************************************************************************
+     * Setter.
+     * 
+     * @param nodesBefore number of nodes before the optimization
+     * @param nodesAfter number of nodes after the optimization
+     */
+    void setNodeCounts(int nodesBefore, int nodesAfter) {
+        this.nodesBefore = nodesBefore;
+        this.nodesAfter = nodesAfter;
+    }
+    
+    /***************************************************************************
+     * Records a folded constant subexpression.
+     */
+    void addFoldedConst() {
+        this.foldedConsts++;
+    }
+    
+    /***************************************************************************
+     * Records a removed identity.
+     */
+    void addRemovedIdentity() {
+        this.removedIdentities++;
+    }
+    
+    /***************************************************************************
+     * Records a reduced power.
+     */
+    void addReducedPower() {
+        this.reducedPowers++;
+    }
+    
+}
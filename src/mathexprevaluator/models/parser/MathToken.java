@@ -0,0 +1,19 @@
+package mathexprevaluator.models.parser;
+
+/*******************************************************************************
+ * Enumerate type of all the token kinds the tokenizer is able to produce.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+enum MathToken {
+
+    NUMBER,
+    NAME,
+    OPERATOR,
+    BRACKET_OPEN,
+    BRACKET_CLOSE,
+    COMMA,
+    END;
+
+}
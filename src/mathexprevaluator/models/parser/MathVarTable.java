@@ -0,0 +1,165 @@
+package mathexprevaluator.models.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/*******************************************************************************
+ * Table of the variables which may occur in mathematical expressions. Each
+ * variable is assigned a slot - an index into the array of variable values
+ * passed to {@link IMathExpr#eval(double[])}. The names are resolved to the
+ * slots once, when parsing, so the evaluation itself involves no lookups.
+ * 
+ * <p>The table is not thread-safe while new variables are being declared.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathVarTable {
+    
+    private final HashMap<String, Integer> slots;
+    private final List<String> names;
+    private final boolean fixed;
+    
+    /***************************************************************************
+     * Default constructor. Creates an empty table which declares each new
+     * variable the first time it is referenced in an expression.
+     */
+    public MathVarTable() {
+        this.slots = new HashMap<>();
+        this.names = new ArrayList<>();
+        this.fixed = false;
+    }
+    
+    /***************************************************************************
+     * Constructor. Creates a table with a fixed set of variables, assigning
+     * the slots in the order of the names. Referencing any other variable in
+     * an expression is a syntax error.
+     * 
+     * @param names names of the variables
+     */
+    public MathVarTable(String... names) {
+        this.slots = new HashMap<>();
+        this.names = new ArrayList<>();
+        
+        for (String name: names) {
+            this.declare(name);
+        }
+        
+        this.fixed = true;
+    }
+    
+    /***************************************************************************
+     * Declares a new variable, unless it has been declared already.
+     * 
+     * @param name name of the variable
+     * 
+     * @return slot of the variable
+     */
+    public int declare(String name) {
+        Integer slot = this.slots.get(name);
+        
+        if (slot == null) {
+            if (!isValidName(name)) {
+                throw new IllegalArgumentException("Invalid variable name: "
+                        + name);
+            }
+            
+            slot = this.names.size();
+            this.slots.put(name, slot);
+            this.names.add(name);
+        }
+        
+        return slot;
+    }
+    
+    /***************************************************************************
+     * Retrieves the slot of the variable.
+     * 
+     * @param name name of the variable
+     * 
+     * @return slot of the variable, or -1 if there is no such variable
+     */
+    public int getSlot(String name) {
+        Integer slot = this.slots.get(name);
+        
+        return (slot == null) ? -1 : slot;
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @param slot slot of the variable
+     * 
+     * @return name of the variable
+     */
+    public String getName(int slot) {
+        return this.names.get(slot);
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return number of variables, which is the minimum length of the array of
+     * variable values
+     */
+    public int getSize() {
+        return this.names.size();
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return true if referencing an undeclared variable is an error, false
+     * if it declares the variable
+     */
+    public boolean isFixed() {
+        return this.fixed;
+    }
+    
+    /***************************************************************************
+     * Checks whether the name may be used as a variable name - it has to
+     * start with a letter or an underscore, followed by letters, digits or
+     * underscores.
+     * 
+     * @param name name to check
+     * 
+     * @return true if the name is valid, false otherwise
+     */
+    public static boolean isValidName(String name) {
+        if (name.isEmpty() || !isNameStart(name.charAt(0))) {
+            return false;
+        }
+        
+        for (int i = 1; i < name.length(); i++) {
+            if (!isNamePart(name.charAt(i))) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /***************************************************************************
+     * Checks whether the character may start a name.
+     * 
+     * @param c character to check
+     * 
+     * @return true if the character is an ASCII letter or an underscore
+     */
+    static boolean isNameStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+    
+    /***************************************************************************
+     * Checks whether the character may be a part of a name.
+     * 
+     * @param c character to check
+     * 
+     * @return true if the character is an ASCII letter, digit or underscore
+     */
+    static boolean isNamePart(char c) {
+        return isNameStart(c) || (c >= '0' && c <= '9');
+    }
+    
+}
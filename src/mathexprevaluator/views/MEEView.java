@@ -1,48 +1,66 @@
 package mathexprevaluator.views;
 
 import java.util.HashMap;
+import javafx.beans.InvalidationListener;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TextField;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 import javafx.stage.Stage;
+import mathexprevaluator.models.MathPlotSamples;
 
 /*******************************************************************************
  * The view class which handles all the GUI drawing mechanisms.
  * 
  * @author Milan Ondrasovic
- * @version 2015-08-06
+ * @version 2026-10-18
  */
 public class MEEView {
     
     private static final int WIN_WIDTH = 500;
-    private static final int WIN_HEIGHT = 260;
+    private static final int WIN_HEIGHT = 560;
+    private static final int PLOT_WIDTH = WIN_WIDTH - 10;
+    private static final int PLOT_HEIGHT = 240;
     
     private static final String INFO_TEXT_KEY = "infoTextKey";
     private static final String IN_EXPR_LABEL_KEY = "inExprLabelKey";
     private static final String IN_EXPR_FIELD_KEY = "inExprFieldKey";
     private static final String EVAL_BUTTON_KEY = "evalButtonKey";
+    private static final String CANCEL_BUTTON_KEY = "cancelButtonKey";
     private static final String CLEAR_BUTTON_KEY = "clearButtonKey";
+    private static final String PROGRESS_KEY = "progressKey";
     private static final String RES_LABEL_KEY = "resultLabelKey";
     private static final String RES_FIELD_KEY = "resultFieldKey";
+    private static final String PLOT_BUTTON_KEY = "plotButtonKey";
+    private static final String PLOT_CANVAS_KEY = "plotCanvasKey";
     
     private final Stage stage;
     private final GridPane root;
     private final Button evalButton;
+    private final Button cancelButton;
     private final Button clearButton;
+    private final ProgressIndicator progressIndicator;
     private final TextField exprTextField;
     private final TextField resultTextField;
+    private final Button plotButton;
+    private final Canvas plotCanvas;
     
     /***************************************************************************
      * Default constructor.
@@ -71,15 +89,28 @@ public class MEEView {
         this.evalButton = this.createEvalButton("Evaluate");
         nodes.put(EVAL_BUTTON_KEY, this.evalButton);
         
+        this.cancelButton = this.createCancelButton("Cancel");
+        nodes.put(CANCEL_BUTTON_KEY, this.cancelButton);
+        
         this.clearButton = this.createClearButton("Clear");
         nodes.put(CLEAR_BUTTON_KEY, this.clearButton);
         
+        this.progressIndicator = this.createProgressIndicator();
+        nodes.put(PROGRESS_KEY, this.progressIndicator);
+        
         this.resultTextField = this.createResultTextFiedl();
         nodes.put(RES_FIELD_KEY, this.resultTextField);
         
         tmpNode = this.createResultLabel("Result:", this.resultTextField);
         nodes.put(RES_LABEL_KEY, tmpNode);
         
+        this.plotButton = this.createPlotButton("Plot f(x)");
+        nodes.put(PLOT_BUTTON_KEY, this.plotButton);
+        
+        this.plotCanvas = this.createPlotCanvas();
+        this.clearPlot();
+        nodes.put(PLOT_CANVAS_KEY, this.plotCanvas);
+        
         this.initLayout(nodes);
         
         Scene scene = new Scene(this.root, WIN_WIDTH, WIN_HEIGHT);
@@ -119,6 +150,22 @@ public class MEEView {
     public void clear() {
         this.exprTextField.setText("");
         this.resultTextField.setText("");
+        this.clearPlot();
+    }
+    
+    /***************************************************************************
+     * Shows or hides the state of an evaluation in progress. While busy, the
+     * progress indicator is shown and the evaluation may be cancelled.
+     * 
+     * @param busy true if an evaluation is in progress
+     */
+    public void setBusy(boolean busy) {
+        this.progressIndicator.setVisible(busy);
+        this.cancelButton.setDisable(!busy);
+        
+        if (busy) {
+            this.resultTextField.setText("Evaluating...");
+        }
     }
     
     /***************************************************************************
@@ -130,6 +177,114 @@ public class MEEView {
         this.resultTextField.setText("Error: " + msg);
     }
     
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return width of the plot in pixels
+     */
+    public int getPlotWidth() {
+        return (int) this.plotCanvas.getWidth();
+    }
+    
+    /***************************************************************************
+     * Getter.
+     * 
+     * @return height of the plot in pixels
+     */
+    public int getPlotHeight() {
+        return (int) this.plotCanvas.getHeight();
+    }
+    
+    /***************************************************************************
+     * Draws the plot of a function - the axes and the curve through the
+     * points, broken at each point which is not finite.
+     * 
+     * @param samples points of the function
+     * @param xMin left edge of the plot
+     * @param xMax right edge of the plot
+     * @param yMin bottom edge of the plot
+     * @param yMax top edge of the plot
+     */
+    public void drawPlot(MathPlotSamples samples, double xMin, double xMax,
+            double yMin, double yMax) {
+        GraphicsContext gc = this.paintPlotBackground();
+        double width = this.plotCanvas.getWidth();
+        double height = this.plotCanvas.getHeight();
+        
+        gc.setStroke(Color.GRAY);
+        gc.setLineWidth(1.0);
+        if (xMin <= 0.0 && xMax >= 0.0) {
+            double x = -xMin / (xMax - xMin) * width;
+            gc.strokeLine(x, 0.0, x, height);
+        }
+        if (yMin <= 0.0 && yMax >= 0.0) {
+            double y = yMax / (yMax - yMin) * height;
+            gc.strokeLine(0.0, y, width, y);
+        }
+        
+        gc.setStroke(Color.BLUE);
+        gc.setLineWidth(1.5);
+        gc.beginPath();
+        
+        boolean isDrawing = false;
+        for (int i = 0; i < samples.getCount(); i++) {
+            double val = samples.getY(i);
+            if (!Double.isFinite(val)) {
+                isDrawing = false;
+                continue;
+            }
+            
+            double x = (samples.getX(i) - xMin) / (xMax - xMin) * width;
+            double y = (yMax - val) / (yMax - yMin) * height;
+            // Far away points are pulled closer, keeping the slope visible.
+            y = Math.max(-height, Math.min(2.0 * height, y));
+            
+            if (isDrawing) {
+                gc.lineTo(x, y);
+            } else {
+                gc.moveTo(x, y);
+                isDrawing = true;
+            }
+        }
+        
+        gc.stroke();
+    }
+    
+    /***************************************************************************
+     * Clears the plot.
+     */
+    public void clearPlot() {
+        this.paintPlotBackground();
+    }
+    
+    /***************************************************************************
+     * Paints the background of the plot over anything drawn before.
+     * 
+     * @return graphics context of the plot
+     */
+    private GraphicsContext paintPlotBackground() {
+        GraphicsContext gc = this.plotCanvas.getGraphicsContext2D();
+        
+        gc.setFill(Color.WHITE);
+        gc.fillRect(0.0, 0.0, this.plotCanvas.getWidth(),
+                this.plotCanvas.getHeight());
+        gc.setStroke(Color.LIGHTGRAY);
+        gc.setLineWidth(1.0);
+        gc.strokeRect(0.5, 0.5, this.plotCanvas.getWidth() - 1.0,
+                this.plotCanvas.getHeight() - 1.0);
+        
+        return gc;
+    }
+    
+    /***************************************************************************
+     * Adds a listener of the changes of the expression on the input.
+     * 
+     * @param listener listener notified on every change
+     */
+    public void addExprChangeListener(InvalidationListener listener) {
+        this.exprTextField.textProperty().addListener(listener);
+    }
+    
     /***************************************************************************
      * Adds a handler for the "evaluate" button.
      * 
@@ -139,6 +294,15 @@ public class MEEView {
         this.addButtonHandler(this.evalButton, handler);
     }
     
+    /***************************************************************************
+     * Adds a handler for the "cancel" button.
+     * 
+     * @param handler action handler
+     */
+    public void addCancelButtonHandler(EventHandler<ActionEvent> handler) {
+        this.addButtonHandler(this.cancelButton, handler);
+    }
+    
     /***************************************************************************
      * Adds a handler for the "clear" button.
      * 
@@ -148,6 +312,34 @@ public class MEEView {
         this.addButtonHandler(this.clearButton, handler);
     }
     
+    /***************************************************************************
+     * Adds a handler for the "plot" button.
+     * 
+     * @param handler action handler
+     */
+    public void addPlotButtonHandler(EventHandler<ActionEvent> handler) {
+        this.addButtonHandler(this.plotButton, handler);
+    }
+    
+    /***************************************************************************
+     * Adds a handler of pressing and dragging the mouse over the plot.
+     * 
+     * @param handler mouse handler, of both kinds of the events
+     */
+    public void addPlotMouseHandler(EventHandler<MouseEvent> handler) {
+        this.plotCanvas.setOnMousePressed(handler);
+        this.plotCanvas.setOnMouseDragged(handler);
+    }
+    
+    /***************************************************************************
+     * Adds a handler of scrolling over the plot.
+     * 
+     * @param handler scroll handler
+     */
+    public void addPlotScrollHandler(EventHandler<ScrollEvent> handler) {
+        this.plotCanvas.setOnScroll(handler);
+    }
+    
     /***************************************************************************
      * Adds a handler to the specified button.
      * 
@@ -180,11 +372,12 @@ public class MEEView {
         Text title = new Text("Math expression evaluator\n");
         title.setStyle("-fx-font-weight: bold");
         
-        Text info = new Text("Evaluates the expression on the input.\n"
+        Text info = new Text("Evaluates the expression on the input, or "
+                + "plots it as a function of x.\n"
                 + "The following symbols may be used:\n");
         info.setStyle("-fx-font-style: italic");
         Text infoSymbols = new Text("+ (add), - (sub), * (mul), / (div), ^ "
-                + "(pow) and ( )");
+                + "(pow), ( ) and functions, e.g. sin(x) or max(x, y)");
         infoSymbols.setStyle("-fx-font-weight: bold");
         
         return new VBox(title, new TextFlow(info, infoSymbols));
@@ -227,6 +420,34 @@ public class MEEView {
         return this.createButton(buttonLabel);
     }
     
+    /***************************************************************************
+     * Creates a "cancel" button, disabled until an evaluation is started.
+     * 
+     * @param buttonLabel text the button will show
+     * 
+     * @return Node containing the newly created GUI component
+     */
+    private Button createCancelButton(String buttonLabel) {
+        Button button = this.createButton(buttonLabel);
+        button.setDisable(true);
+        
+        return button;
+    }
+    
+    /***************************************************************************
+     * Creates an indicator of an evaluation in progress, hidden until an
+     * evaluation is started.
+     * 
+     * @return Node containing the newly created GUI component
+     */
+    private ProgressIndicator createProgressIndicator() {
+        ProgressIndicator indicator = new ProgressIndicator();
+        indicator.setPrefSize(30.0, 30.0);
+        indicator.setVisible(false);
+        
+        return indicator;
+    }
+    
     /***************************************************************************
      * Creates a "clear" button.
      * 
@@ -252,6 +473,26 @@ public class MEEView {
         return button;
     }
     
+    /***************************************************************************
+     * Creates a "plot" button.
+     * 
+     * @param buttonLabel text the button will show
+     * 
+     * @return Node containing the newly created GUI component
+     */
+    private Button createPlotButton(String buttonLabel) {
+        return this.createButton(buttonLabel);
+    }
+    
+    /***************************************************************************
+     * Creates a canvas to draw the plot upon.
+     * 
+     * @return Node containing the newly created GUI component
+     */
+    private Canvas createPlotCanvas() {
+        return new Canvas(PLOT_WIDTH, PLOT_HEIGHT);
+    }
+    
     /***************************************************************************
      * Creates a label describing the result output text field.
      * 
@@ -297,9 +538,13 @@ public class MEEView {
         this.storeNodeInGrid(nodes, IN_EXPR_LABEL_KEY, 0, 1, 1, 1);
         this.storeNodeInGrid(nodes, IN_EXPR_FIELD_KEY, 1, 1, 4, 1);
         this.storeNodeInGrid(nodes, EVAL_BUTTON_KEY,   0, 2, 1, 1);
-        this.storeNodeInGrid(nodes, CLEAR_BUTTON_KEY,  1, 2, 1, 1);
+        this.storeNodeInGrid(nodes, CANCEL_BUTTON_KEY, 1, 2, 1, 1);
+        this.storeNodeInGrid(nodes, CLEAR_BUTTON_KEY,  2, 2, 1, 1);
+        this.storeNodeInGrid(nodes, PROGRESS_KEY,      3, 2, 1, 1);
         this.storeNodeInGrid(nodes, RES_LABEL_KEY,     0, 3, 1, 1);
         this.storeNodeInGrid(nodes, RES_FIELD_KEY,     1, 3, 4, 1);
+        this.storeNodeInGrid(nodes, PLOT_BUTTON_KEY,   0, 4, 1, 1);
+        this.storeNodeInGrid(nodes, PLOT_CANVAS_KEY,   0, 5, 5, 1);
     }
     
     /***************************************************************************
@@ -0,0 +1,75 @@
+package mathexprevaluator;
+
+import java.util.Random;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprBatch;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the column-oriented batch evaluation.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprBatchTest {
+    
+    @Test
+    public void testAgainstRows() throws InvalidMathExprException {
+        String[] exprs = {"", "3", "x", "x * (y - 1) / z ^ 2 + x * x",
+            "2^2^x - -y", "(x + y) ^ 2 / (x + y) + (x + y)", "z ^ 0.5 * y ^ 3"};
+        int[] chunkSizes = {1, 7, MathExprBatch.DEFAULT_CHUNK_SIZE};
+        int rows = 1000;
+        Random random = new Random(3);
+        double[][] columns = new double[3][rows];
+        
+        for (double[] column: columns) {
+            for (int i = 0; i < rows; i++) {
+                column[i] = random.nextDouble() * 4 - 1;
+            }
+        }
+        
+        for (String expr: exprs) {
+            MathExpr parsed = new MathExpr(expr, new MathVarTable("x", "y",
+                    "z"));
+            MathExpr shared = new MathExprSharer().share(
+                    new MathExprOptimizer().optimize(parsed));
+            
+            for (int chunkSize: chunkSizes) {
+                MathExprBatch batch = new MathExprBatch(shared, chunkSize);
+                double[] out = new double[rows];
+                
+                batch.eval(columns, out);
+                
+                for (int i = 0; i < rows; i++) {
+                    double[] vars = {columns[0][i], columns[1][i],
+                        columns[2][i]};
+                    
+                    assertEquals(expr, shared.eval(vars), out[i], 0.0);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testRowCount() throws InvalidMathExprException {
+        MathExprBatch batch = new MathExprBatch(new MathExpr("x + 1",
+                new MathVarTable("x")), 2);
+        double[][] columns = {{1, 2, 3, 4, 5}};
+        double[] out = new double[5];
+        
+        batch.eval(columns, out, 3);
+        assertArrayEquals(new double[] {2, 3, 4, 0, 0}, out, 0.0);
+        
+        try {
+            batch.eval(columns, out, 6);
+            fail("Row count exceeding the output should be rejected.");
+        } catch (IllegalArgumentException ex) {
+        }
+    }
+    
+}
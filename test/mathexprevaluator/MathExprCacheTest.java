@@ -0,0 +1,111 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.MEEModel;
+import mathexprevaluator.models.MathExprCache;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathFuncTable;
+import mathexprevaluator.models.parser.MathFunction;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for caching of the parsed mathematical expressions.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprCacheTest {
+    
+    @Test
+    public void testNormalize() {
+        assertEquals("1+2*3", MathExprCache.normalize("  1 +  2\t* 3 "));
+        assertEquals("(1+2)", MathExprCache.normalize("(1+2)"));
+        assertEquals("1 2", MathExprCache.normalize("1   2"));
+        assertEquals("1e -5", MathExprCache.normalize("1e - 5"));
+        assertEquals("1e- 5", MathExprCache.normalize("1e-  5"));
+    }
+    
+    @Test
+    public void testHitsAndMisses() throws InvalidMathExprException {
+        MEEModel model = new MEEModel(16, 0);
+        MathExprCache cache = model.getExprCache();
+        
+        assertEquals(7, model.evalExpr("1 + 2 * 3"), 0.001);
+        assertEquals(7, model.evalExpr("1+2*3"), 0.001);
+        assertEquals(7, model.evalExpr(" 1 +2 * 3 "), 0.001);
+        
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getSize());
+    }
+    
+    @Test
+    public void testInvalidExprCached() {
+        MathExprCache cache = new MathExprCache(16, 0);
+        String firstMsg = null;
+        
+        for (int i = 0; i < 3; i++) {
+            try {
+                cache.get("1 + a");
+                fail("Parsing of \"1 + a\" should fail.");
+            } catch (InvalidMathExprException ex) {
+                if (firstMsg == null) {
+                    firstMsg = ex.getMessage();
+                }
+                assertEquals(firstMsg, ex.getMessage());
+            }
+        }
+        
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+    }
+    
+    @Test
+    public void testEviction() throws InvalidMathExprException {
+        MathExprCache cache = new MathExprCache(1, 0);
+        
+        cache.get("1");
+        cache.get("2");
+        cache.get("1");
+        
+        assertEquals(1, cache.getSize());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount());
+    }
+    
+    @Test
+    public void testExpiration() throws Exception {
+        MathExprCache cache = new MathExprCache(16, 1);
+        
+        cache.get("1 + 1");
+        Thread.sleep(5);
+        cache.get("1 + 1");
+        
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getEvictionCount());
+    }
+    
+    @Test
+    public void testFunctionTableChanges() throws InvalidMathExprException {
+        MathExprCache cache = new MathExprCache(16, 0);
+        MathFuncTable funcs = MathFuncTable.getDefault();
+        
+        try {
+            cache.get("cacheTestFunc(2)");
+            fail("Unknown function accepted");
+        } catch (InvalidMathExprException ex) {
+            assertNotNull(ex.getMessage());
+        }
+        
+        funcs.register(MathFunction.unary("cacheTestFunc", a -> a + 1));
+        assertEquals(3.0, cache.get("cacheTestFunc(2)").eval(), 0.0);
+        assertEquals(3.0, cache.get("cacheTestFunc(2)").eval(), 0.0);
+        
+        funcs.define("cacheTestFunc(a) = a * 10");
+        assertEquals(20.0, cache.get("cacheTestFunc(2)").eval(), 0.0);
+        
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+    
+}
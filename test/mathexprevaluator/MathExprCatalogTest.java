@@ -0,0 +1,154 @@
+package mathexprevaluator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprCatalog;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for storing the compiled expressions to a file and loading them
+ * back.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprCatalogTest {
+
+    private static final String[] EXPRS = {
+        "x * x * y + 3 * x - y / x + 2",
+        "(x + y) ^ 3 + (x + y) ^ 0.5 + (x + y) ^ -2 + 2 ^ z",
+        "(x * y + 1) * (x * y + 1) - (x * y + 1)",
+        "42",
+    };
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        MathVarTable vars = new MathVarTable("x", "y", "z");
+        MathExprCatalog catalog = new MathExprCatalog(vars);
+        double[] point = {1.5, 2.0, 0.25};
+
+        for (int i = 0; i < EXPRS.length; i++) {
+            MathExpr expr = new MathExprSharer().share(new MathExprOptimizer()
+                    .optimize(new MathExpr(EXPRS[i], vars)));
+            catalog.put("f" + i, expr);
+        }
+
+        MathExprCatalog loaded = this.writeAndRead(catalog);
+
+        assertEquals(EXPRS.length, loaded.getSize());
+        assertEquals(Arrays.asList("f0", "f1", "f2", "f3"),
+                Arrays.asList(loaded.getNames().toArray()));
+        assertTrue(loaded.getVarTable().isFixed());
+        assertEquals(2, loaded.getVarTable().getSlot("z"));
+
+        for (String name : catalog.getNames()) {
+            MathExprProgram program = catalog.get(name);
+            MathExprProgram copy = loaded.get(name);
+
+            assertEquals(name, program.eval(point), copy.eval(point), 0.0);
+            assertEquals(name, program.toString(), copy.toString());
+            assertEquals(name, program.getStackSize(), copy.getStackSize());
+        }
+    }
+
+    @Test
+    public void testLargeCatalog() throws Exception {
+        MathVarTable vars = new MathVarTable("x");
+        MathExprCatalog catalog = new MathExprCatalog(vars);
+
+        for (int i = 0; i < 1000; i++) {
+            catalog.put("f" + i, new MathExpr("x * " + i + " + 0.5", vars));
+        }
+
+        MathExprCatalog loaded = this.writeAndRead(catalog);
+
+        assertEquals(1000, loaded.getSize());
+        assertEquals(1998.5, loaded.get("f999").eval(new double[] {2.0}),
+                0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUndeclaredVariable() throws InvalidMathExprException {
+        new MathExprCatalog(new MathVarTable("x")).put("f",
+                new MathExpr("x + y", new MathVarTable()));
+    }
+
+    @Test
+    public void testCorruptedFile() throws Exception {
+        MathVarTable vars = new MathVarTable("x");
+        MathExprCatalog catalog = new MathExprCatalog(vars);
+        catalog.put("f", new MathExpr("x + 1", vars));
+
+        Path file = Files.createTempFile("catalog", ".bin");
+        try {
+            catalog.write(file);
+            byte[] bytes = Files.readAllBytes(file);
+
+            // Truncated.
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+            this.assertInvalid(file);
+
+            // Unknown version.
+            byte[] copy = bytes.clone();
+            copy[7] = 99;
+            Files.write(file, copy);
+            this.assertInvalid(file);
+
+            // The slot of the variable, the code being VAR 0 CONST 0 ADD.
+            copy = bytes.clone();
+            ByteBuffer.wrap(copy).putInt(bytes.length - 8 - 4 - 4 * 4, 7);
+            Files.write(file, copy);
+            this.assertInvalid(file);
+
+            // Not a catalog at all.
+            Files.write(file, new byte[] {1, 2, 3});
+            this.assertInvalid(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Writes the catalog to a temporary file and reads it back.
+     *
+     * @param catalog catalog to write
+     * @return catalog read
+     * @throws IOException thrown in case of an I/O error
+     */
+    private MathExprCatalog writeAndRead(MathExprCatalog catalog)
+            throws IOException {
+        Path file = Files.createTempFile("catalog", ".bin");
+        try {
+            catalog.write(file);
+
+            return MathExprCatalog.read(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Asserts that reading the file fails.
+     *
+     * @param file file to read
+     */
+    private void assertInvalid(Path file) {
+        try {
+            MathExprCatalog.read(file);
+            fail("Read an invalid catalog");
+        } catch (IOException ex) {
+            // Expected.
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+package mathexprevaluator;
+
+import java.util.Arrays;
+import java.util.Random;
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprCompiler;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for compilation of mathematical expressions into bytecode.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprCompilerTest {
+    
+    private static final String[] OPERS = {" + ", " - ", " * ", " / ", " ^ "};
+    
+    @Test
+    public void testConsts() throws InvalidMathExprException {
+        this.testCompiled("", new MathVarTable());
+        this.testCompiled("0", new MathVarTable());
+        this.testCompiled("1", new MathVarTable());
+        this.testCompiled("-2.5e10", new MathVarTable());
+        this.testCompiled("2^2^2 - -2^2", new MathVarTable());
+    }
+    
+    @Test
+    public void testVariables() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable();
+        IMathExpr compiled = this.testCompiled("x * (y - 1) / z ^ 2", vars);
+        
+        assertEquals(3, vars.getSize());
+        assertEquals(2 * 2 / 9.0, compiled.eval(new double[] {2, 3, 3}), 1e-12);
+        assertNotNull(compiled.toString());
+    }
+    
+    @Test
+    public void testRandomExprs() throws InvalidMathExprException {
+        Random random = new Random(42);
+        
+        for (int i = 0; i < 200; i++) {
+            MathVarTable vars = new MathVarTable();
+            this.testCompiled(this.randomExpr(random, 4), vars);
+        }
+    }
+    
+    @Test
+    public void testManyVariables() throws InvalidMathExprException {
+        StringBuilder expr = new StringBuilder("v0");
+        for (int i = 1; i < 300; i++) {
+            expr.append(" + v").append(i);
+        }
+        
+        this.testCompiled(expr.toString(), new MathVarTable());
+    }
+    
+    @Test
+    public void testLongText() throws InvalidMathExprException {
+        StringBuilder suffix = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            suffix.append('_');
+        }
+
+        StringBuilder expr = new StringBuilder("v0").append(suffix);
+        for (int i = 1; i < 400; i++) {
+            expr.append(" + v").append(i).append(suffix);
+        }
+
+        // The text exceeds a UTF-8 entry of the constant pool.
+        MathVarTable vars = new MathVarTable();
+        MathExpr parsed = new MathExpr(expr.toString(), vars);
+        double[] slots = new double[vars.getSize()];
+        Arrays.fill(slots, 0.5);
+
+        assertTrue(parsed.toString().length() > 0xFFFF);
+        assertEquals(200.0, MathExprCompiler.compile(parsed).eval(slots),
+                0.0);
+        assertEquals(parsed.toString(),
+                MathExprCompiler.compile(parsed).toString());
+    }
+    
+    @Test
+    public void testHugeMethod() throws InvalidMathExprException {
+        StringBuilder expr = new StringBuilder("v0");
+        for (int i = 1; i < 1500; i++) {
+            expr.append(" + v").append(i);
+        }
+
+        // Too large a method for the JIT compiler, the tree is kept.
+        MathVarTable vars = new MathVarTable();
+        MathExpr parsed = new MathExpr(expr.toString(), vars);
+        double[] slots = new double[vars.getSize()];
+        Arrays.fill(slots, 2.0);
+
+        assertSame(parsed, MathExprCompiler.compile(parsed));
+        assertEquals(3000.0, parsed.eval(slots), 0.0);
+    }
+    
+    private IMathExpr testCompiled(String expr, MathVarTable vars)
+            throws InvalidMathExprException {
+        MathExpr parsed = new MathExpr(expr, vars);
+        IMathExpr compiled = MathExprCompiler.compile(parsed);
+        
+        assertNotSame("Expression should be compiled: " + expr, parsed,
+                compiled);
+        
+        Random random = new Random(expr.hashCode());
+        double[] slots = new double[vars.getSize()];
+        
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < slots.length; j++) {
+                slots[j] = random.nextDouble() * 10 - 5;
+            }
+            
+            assertEquals(expr, parsed.eval(slots), compiled.eval(slots), 0.0);
+        }
+        
+        return compiled;
+    }
+    
+    private String randomExpr(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return random.nextBoolean() ? "x" + random.nextInt(3)
+                    : Integer.toString(random.nextInt(10));
+        }
+        
+        return "(" + this.randomExpr(random, depth - 1)
+                + OPERS[random.nextInt(OPERS.length)]
+                + this.randomExpr(random, depth - 1) + ")";
+    }
+    
+}
@@ -0,0 +1,79 @@
+package mathexprevaluator;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the headless command line interface.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprEvaluatorCliTest {
+    
+    private static final String INPUT = "1 + 2\r\n\n2 ^ 10\n3 +\n  \t\n"
+            + "1 2 + 3\n(1 + 1) * 4";
+    private static final String OUTPUT = "3.0\n0.0\n1024.0\n"
+            + "error: Invalid syntax, operand missing at the end of the "
+            + "expression\n0.0\n"
+            + "error: Invalid syntax, unexpected symbol at position 2\n"
+            + "8.0\n";
+    
+    @Test
+    public void testStream() throws IOException {
+        StringWriter out = new StringWriter();
+        MathExprEvaluatorCli cli = new MathExprEvaluatorCli(out);
+        
+        cli.processStream(Channels.newChannel(new ByteArrayInputStream(
+                INPUT.getBytes(StandardCharsets.US_ASCII))));
+        
+        assertEquals(OUTPUT, out.toString());
+        assertEquals(2, cli.getInvalidCount());
+    }
+    
+    @Test
+    public void testLongLines() throws IOException {
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        
+        // Lines longer than the input buffer.
+        for (int i = 0; i < 3; i++) {
+            input.append('1');
+            for (int j = 0; j < 100000; j++) {
+                input.append(' ');
+            }
+            input.append("+ 1\n");
+            expected.append("2.0\n");
+        }
+        
+        StringWriter out = new StringWriter();
+        new MathExprEvaluatorCli(out).processStream(Channels.newChannel(
+                new ByteArrayInputStream(input.toString().getBytes(
+                        StandardCharsets.US_ASCII))));
+        
+        assertEquals(expected.toString(), out.toString());
+    }
+    
+    @Test
+    public void testFile() throws IOException {
+        Path file = Files.createTempFile("exprs", ".txt");
+        try {
+            Files.write(file, INPUT.getBytes(StandardCharsets.US_ASCII));
+            
+            StringWriter out = new StringWriter();
+            new MathExprEvaluatorCli(out).processFile(file.toString());
+            
+            assertEquals(OUTPUT, out.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+}
@@ -0,0 +1,135 @@
+package mathexprevaluator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import mathexprevaluator.models.MEEModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the HTTP evaluation service.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprEvaluatorServerTest {
+    
+    private MEEModel model;
+    private MathExprEvaluatorServer server;
+    
+    @Before
+    public void setUp() throws IOException {
+        this.model = new MEEModel();
+        this.server = new MathExprEvaluatorServer(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0), this.model);
+        this.server.start();
+    }
+    
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+    }
+    
+    @Test
+    public void testEval() throws IOException {
+        assertEquals("3.0\nerror: Invalid syntax, operand missing at the end "
+                + "of the expression\n1024.0\n",
+                this.post("/eval", "1 + 2\n3 *\n2 ^ 10\n"));
+        assertEquals("3.0\n", this.post("/eval?engine=BYTECODE", "1 + 2"));
+        assertEquals(1, this.model.getExprCache().getHitCount());
+    }
+    
+    @Test
+    public void testBindings() throws IOException {
+        assertEquals("7.0\n0.0\nerror: 2 values expected\n",
+                this.post("/eval/bindings",
+                        "x * y + 1\nx, y\n2, 3\n-1 1\n5\n"));
+        assertTrue(this.get("/stats").contains("requests=1\n"));
+    }
+    
+    @Test
+    public void testErrors() throws IOException {
+        URL url = new URL("http", "localhost", this.server.getAddress()
+                .getPort(), "/eval/bindings");
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setDoOutput(true);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write("x +\nx\n1\n".getBytes(StandardCharsets.UTF_8));
+        }
+        
+        assertEquals(400, conn.getResponseCode());
+        assertNotNull(conn.getHeaderField("X-Latency-Micros"));
+    }
+    
+    @Test
+    public void testBodyTooLarge() throws IOException {
+        byte[] body = new byte[MathExprEvaluatorServer.MAX_BODY_SIZE + 1];
+        Arrays.fill(body, (byte) '1');
+        
+        // Refused by the declared length, or by the length read if chunked.
+        for (boolean isChunked : new boolean[] {false, true}) {
+            URL url = new URL("http", "localhost", this.server.getAddress()
+                    .getPort(), "/eval");
+            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+            conn.setDoOutput(true);
+            if (isChunked) {
+                conn.setChunkedStreamingMode(8192);
+            } else {
+                conn.setFixedLengthStreamingMode(body.length);
+            }
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            } catch (IOException ex) {
+                // The server may respond before the whole body is sent.
+            }
+            
+            assertEquals(413, conn.getResponseCode());
+        }
+        assertEquals("3.0\n", this.post("/eval", "1 + 2"));
+    }
+    
+    private String post(String path, String body) throws IOException {
+        URL url = new URL("http", "localhost", this.server.getAddress()
+                .getPort(), path);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        
+        conn.setDoOutput(true);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        return read(conn);
+    }
+    
+    private String get(String path) throws IOException {
+        URL url = new URL("http", "localhost", this.server.getAddress()
+                .getPort(), path);
+        
+        return read((HttpURLConnection) url.openConnection());
+    }
+    
+    private static String read(HttpURLConnection conn) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        
+        try (InputStream in = conn.getInputStream()) {
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                bytes.write(buffer, 0, count);
+            }
+        }
+        
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+}
@@ -0,0 +1,121 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the exact evaluation of the integer-only expressions.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprExactTest {
+
+    @Test
+    public void testBeyondDoublePrecision() throws InvalidMathExprException {
+        MathExpr expr = new MathExpr("2 ^ 60 + 1 - 2 ^ 60");
+
+        assertTrue(expr.isExact());
+        assertEquals(1L, expr.evalLong());
+        assertEquals(1.0, expr.eval(), 0.0);
+
+        expr = new MathExpr("9007199254740993 * 3 - 2");
+
+        assertEquals(27021597764222977L, expr.evalLong());
+        assertEquals(0.0, new MathExpr("123456789012345678 - "
+                + "123456789012345677 - 1").eval(), 0.0);
+    }
+
+    @Test
+    public void testIntermediateOverflow() throws InvalidMathExprException {
+        // The final value fits into long, but 2 ^ 63 does not.
+        MathExpr expr = new MathExpr("2 ^ 63 - 1");
+
+        assertFalse(expr.isExact());
+        assertEquals(9.223372036854776E18, expr.eval(), 0.0);
+
+        expr = new MathExpr("3 ^ 40");
+
+        assertFalse(expr.isExact());
+        assertEquals(Math.pow(3, 40), expr.eval(), 0.0);
+    }
+
+    @Test
+    public void testIntegerOperations() throws InvalidMathExprException {
+        String[] exprs = {"1 + 2 * 3", "-2 ^ 2", "(0 - 3) ^ 3", "2 ^ 0",
+            "((7)) - (2 - 5) * 4", "", "10 * 10 * 10 - 999"};
+        long[] expected = {7, -4, -27, 1, 19, 0, 1};
+
+        for (int i = 0; i < exprs.length; i++) {
+            MathExpr expr = new MathExpr(exprs[i]);
+
+            assertTrue(exprs[i], expr.isExact());
+            assertEquals(exprs[i], expected[i], expr.evalLong());
+            assertEquals(exprs[i], expected[i], expr.eval(), 0.0);
+        }
+    }
+
+    @Test
+    public void testFallbackToDouble() throws InvalidMathExprException {
+        String[] exprs = {"1 / 2", "2 ^ -1", "1.0 + 1", "1e3 + 1",
+            "2 ^ 63", "9223372036854775807 + 1"};
+        double[] expected = {0.5, 0.5, 2.0, 1001.0, 0x1p63, 0x1p63};
+
+        for (int i = 0; i < exprs.length; i++) {
+            MathExpr expr = new MathExpr(exprs[i]);
+
+            assertFalse(exprs[i], expr.isExact());
+            assertEquals(exprs[i], expected[i], expr.eval(), 0.0);
+        }
+
+        MathExpr withVar = new MathExpr("x + 1", new MathVarTable("x"));
+        assertFalse(withVar.isExact());
+        assertEquals(3.0, withVar.eval(new double[] {2.0}), 0.0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testOverflow() throws InvalidMathExprException {
+        new MathExpr("3037000500 * 3037000500").evalLong();
+    }
+
+    @Test
+    public void testOptimizerFoldsExactly() throws InvalidMathExprException {
+        MathExpr raw = new MathExpr("2 ^ 53 + 1 - 2 ^ 53 + x * 0",
+                new MathVarTable("x"));
+        MathExpr exact = new MathExpr("(2 ^ 53 + 1 - 2 ^ 53) * 4");
+        MathExprOptimizer optimizer = new MathExprOptimizer();
+        double[] point = {1.0};
+
+        // Only the whole expression is evaluated exactly, by every path.
+        assertEquals(0.0, raw.eval(point), 0.0);
+        assertEquals(0.0, optimizer.optimize(raw).eval(point), 0.0);
+        assertEquals(4.0, exact.eval(), 0.0);
+        assertEquals(4.0, optimizer.optimize(exact).eval(), 0.0);
+    }
+
+    @Test
+    public void testPathIndependence() throws InvalidMathExprException {
+        String[] exprs = {"(2 ^ 53 + 1 - 2 ^ 53) / 4",
+            "x * 0 + (2 ^ 53 + 1 - 2 ^ 53) / 4", "2 ^ 53 + 1 - 2 ^ 53",
+            "(2 ^ 63 - 2 ^ 62) / 2", "3 ^ 40 - 3 ^ 40 + x"};
+        MathVarTable vars = new MathVarTable("x");
+        MathExprOptimizer optimizer = new MathExprOptimizer();
+        double[] point = {1.0};
+
+        for (String text: exprs) {
+            MathExpr raw = new MathExpr(text, vars);
+            MathExpr optimized = optimizer.optimize(raw);
+            double expected = raw.eval(point);
+
+            assertEquals(text, expected, optimized.eval(point), 0.0);
+            assertEquals(text, expected,
+                    MathExprProgram.compile(optimized).eval(point), 0.0);
+        }
+    }
+
+}
@@ -0,0 +1,146 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprGradient;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the evaluation of the gradients by the forward mode
+ * automatic differentiation.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprGradientTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testArithmetic() throws InvalidMathExprException {
+        MathExpr expr = new MathExpr("x * x * y + 3 * x - y / x + 2",
+                new MathVarTable("x", "y"));
+        MathExprGradient gradient = new MathExprGradient(expr);
+        double[] grad = new double[2];
+
+        // f = 4 * 3 + 6 - 1.5 + 2, df/dx = 2xy + 3 + y/x^2, df/dy = x^2 - 1/x
+        assertEquals(18.5, gradient.eval(new double[] {2.0, 3.0}, grad),
+                DELTA);
+        assertArrayEquals(new double[] {15.75, 3.5}, grad, DELTA);
+    }
+
+    @Test
+    public void testPow() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        double[] grad = new double[2];
+        double[] point = {2.0, 3.0};
+
+        MathExprGradient gradient = new MathExprGradient(new MathExpr(
+                "x ^ y", vars));
+        assertEquals(8.0, gradient.eval(point, grad), DELTA);
+        assertArrayEquals(new double[] {12.0, 8.0 * Math.log(2.0)}, grad,
+                DELTA);
+
+        // A negative base raised to a constant has a derivative.
+        gradient = new MathExprGradient(new MathExpr("(0 - x) ^ 3", vars));
+        assertEquals(-8.0, gradient.eval(point, grad), DELTA);
+        assertArrayEquals(new double[] {-12.0, 0.0}, grad, DELTA);
+    }
+
+    @Test
+    public void testOptimized() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        MathExpr expr = new MathExpr("(x + y) ^ 3 + (x + y) ^ 0.5 "
+                + "+ (x + y) ^ -2 + x ^ 0", vars);
+        MathExpr shared = new MathExprSharer().share(
+                new MathExprOptimizer().optimize(expr));
+        double[] point = {1.0, 3.0};
+        double[] grad = new double[2];
+        double[] sharedGrad = new double[2];
+        double value = new MathExprGradient(expr).eval(point, grad);
+
+        // f = s^3 + s^0.5 + s^-2 + 1, df/ds = 3s^2 + 0.5s^-0.5 - 2s^-3
+        double expectedDerivative = 48.0 + 0.25 - 2.0 / 64.0;
+        assertEquals(64.0 + 2.0 + 1.0 / 16.0 + 1.0, value, DELTA);
+        assertArrayEquals(new double[] {expectedDerivative,
+            expectedDerivative}, grad, DELTA);
+
+        assertEquals(value, new MathExprGradient(shared).eval(point,
+                sharedGrad), DELTA);
+        assertArrayEquals(grad, sharedGrad, DELTA);
+    }
+
+    @Test
+    public void testFiniteDifferences() throws InvalidMathExprException {
+        String[] exprs = {
+            "x * y * z - x / (y + z) + z ^ x",
+            "(x - y) * (x - y) / (1 + z * z)",
+            "2 ^ (x * y) - (x + y + z) ^ 2 * 0.5",
+        };
+        MathVarTable vars = new MathVarTable("x", "y", "z");
+        double[] point = {0.7, 1.3, 2.1};
+        double[] grad = new double[3];
+        double h = 1e-6;
+
+        for (String text : exprs) {
+            MathExpr expr = new MathExpr(text, vars);
+            double value = new MathExprGradient(expr).eval(point, grad);
+
+            assertEquals(text, expr.eval(point), value, 0.0);
+            for (int i = 0; i < point.length; i++) {
+                double[] up = point.clone();
+                double[] down = point.clone();
+
+                up[i] += h;
+                down[i] -= h;
+                assertEquals(text, (expr.eval(up) - expr.eval(down))
+                        / (2.0 * h), grad[i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testPartialGradient() throws InvalidMathExprException {
+        MathExprGradient gradient = new MathExprGradient(new MathExpr(
+                "x * y * z", new MathVarTable("x", "y", "z")));
+        double[] point = {2.0, 3.0, 5.0};
+        double[] grad = new double[1];
+
+        assertEquals(30.0, gradient.eval(point, grad), 0.0);
+        assertArrayEquals(new double[] {15.0}, grad, 0.0);
+
+        grad = new double[3];
+        gradient.eval(point, grad);
+        assertArrayEquals(new double[] {15.0, 10.0, 6.0}, grad, 0.0);
+
+        assertEquals(7.0, new MathExprGradient(new MathExpr("3 + 4"))
+                .eval(new double[0], new double[0]), 0.0);
+    }
+
+    @Test
+    public void testDeepNesting() throws InvalidMathExprException {
+        StringBuilder text = new StringBuilder();
+        int depth = 100001;
+
+        for (int i = 0; i < depth; i++) {
+            text.append("1 - (");
+        }
+        text.append("x * x");
+        for (int i = 0; i < depth; i++) {
+            text.append(')');
+        }
+
+        MathExprGradient gradient = new MathExprGradient(new MathExpr(text,
+                new MathVarTable("x")));
+        double[] grad = new double[1];
+
+        // An odd number of subtractions from 1 gives 1 - x^2.
+        assertEquals(-8.0, gradient.eval(new double[] {3.0}, grad), 0.0);
+        assertArrayEquals(new double[] {-6.0}, grad, 0.0);
+    }
+
+}
@@ -0,0 +1,190 @@
+package mathexprevaluator;
+
+import java.util.Random;
+import mathexprevaluator.models.MEEModel;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprIncrementalParser;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the incremental parsing of the expressions being edited.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprIncrementalParserTest {
+
+    private static final String EXPR = "(1 + 2) * (3 + 4) + (5 * (6 - 7))";
+
+    @Test
+    public void testTyping() throws InvalidMathExprException {
+        MathExprIncrementalParser parser = new MathExprIncrementalParser();
+
+        for (int i = 1; i <= EXPR.length(); i++) {
+            this.assertParsedAs(parser, EXPR.substring(0, i));
+        }
+        for (int i = EXPR.length() - 1; i >= 0; i--) {
+            this.assertParsedAs(parser, EXPR.substring(i));
+        }
+    }
+
+    @Test
+    public void testReuse() throws InvalidMathExprException {
+        MathExprIncrementalParser parser = new MathExprIncrementalParser();
+
+        assertEquals(16.0, parser.parse(EXPR).eval(), 0.0);
+        assertEquals(0, parser.getReusedCount());
+
+        assertEquals(124.0, parser.parse(EXPR.replace("4", "40")).eval(),
+                0.0);
+        assertEquals(2, parser.getReusedCount());
+
+        assertEquals(125.0, parser.parse(EXPR.replace("4", "40") + " + 1")
+                .eval(), 0.0);
+        assertEquals(3, parser.getReusedCount());
+
+        // Only the nested group (6 - 7) is left as it is.
+        assertEquals(80.0, parser.parse("(1 + 2) * (3 + 40) + (50 * (6 - 7))"
+                + " + 1").eval(), 0.0);
+        assertEquals(3, parser.getReusedCount());
+
+        // The groups within the edited region are parsed again.
+        assertEquals(-92.0, parser.parse("(1 + 2) * 3 - (50 * (6 - 7)) * 2 * "
+                + "(6 - 7) - 1").eval(), 0.0);
+        assertEquals(1, parser.getReusedCount());
+    }
+
+    @Test
+    public void testInvalidEdit() throws InvalidMathExprException {
+        MathExprIncrementalParser parser = new MathExprIncrementalParser();
+
+        assertEquals(9.0, parser.parse("(1 + 2) * 3").eval(), 0.0);
+
+        try {
+            parser.parse("(1 + 2) * ");
+            fail("Invalid expression accepted");
+        } catch (InvalidMathExprException ex) {
+            assertEquals("Invalid syntax, operand missing at the end of the "
+                    + "expression", ex.getMessage());
+        }
+
+        assertEquals(12.0, parser.parse("(1 + 2) * 4").eval(), 0.0);
+        assertEquals(1, parser.getReusedCount());
+
+        parser.reset();
+        assertEquals(12.0, parser.parse("(1 + 2) * 4").eval(), 0.0);
+        assertEquals(0, parser.getReusedCount());
+    }
+
+    @Test
+    public void testVariables() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        MathExprIncrementalParser parser = new MathExprIncrementalParser(
+                vars);
+        double[] values = {2.0, 3.0};
+
+        assertEquals(13.0, parser.parse("(x ^ 2) + (y ^ 2)").eval(values),
+                0.0);
+        assertEquals(22.0, parser.parse("(x ^ 2) + (y ^ 2) * 2")
+                .eval(values), 0.0);
+        assertEquals(2, parser.getReusedCount());
+    }
+
+    @Test
+    public void testDeepNesting() throws InvalidMathExprException {
+        MathExprIncrementalParser parser = new MathExprIncrementalParser();
+        StringBuilder expr = new StringBuilder();
+        int depth = 10000;
+
+        for (int i = 0; i < depth; i++) {
+            expr.append("1 - (");
+        }
+        expr.append("1");
+        for (int i = 0; i < depth; i++) {
+            expr.append(')');
+        }
+
+        assertEquals(1.0, parser.parse(expr).eval(), 0.0);
+        expr.append(" + 2");
+        assertEquals(3.0, parser.parse(expr).eval(), 0.0);
+        assertEquals(1, parser.getReusedCount());
+
+        expr.setCharAt(expr.indexOf(")") - 1, '3');
+        assertEquals(5.0, parser.parse(expr).eval(), 0.0);
+        assertEquals(0, parser.getReusedCount());
+    }
+
+    @Test
+    public void testRandomEdits() throws InvalidMathExprException {
+        MathExprIncrementalParser parser = new MathExprIncrementalParser();
+        Random random = new Random(42);
+        String symbols = "0123456789.+-*/^()(()) ";
+        StringBuilder expr = new StringBuilder(EXPR);
+
+        for (int i = 0; i < 5000; i++) {
+            int start = random.nextInt(expr.length() + 1);
+            int end = Math.min(expr.length(), start + random.nextInt(3));
+            StringBuilder insert = new StringBuilder();
+
+            for (int j = random.nextInt(3); j > 0; j--) {
+                insert.append(symbols.charAt(random.nextInt(
+                        symbols.length())));
+            }
+            expr.replace(start, end, insert.toString());
+            if (expr.length() > 200 || expr.length() == 0) {
+                expr.setLength(0);
+                expr.append(EXPR);
+            }
+
+            this.assertParsedAs(parser, expr.toString());
+        }
+    }
+
+    @Test
+    public void testLiveEval() throws InvalidMathExprException {
+        MEEModel model = new MEEModel();
+
+        assertEquals(3.0, model.evalLiveExpr("1 + 2"), 0.0);
+        assertEquals(15.0, model.evalLiveExpr("1 + 2 * 7"), 0.0);
+        assertEquals(0, model.getExprCache().getSize());
+    }
+
+    /**
+     * Asserts that the incremental parser gives the same result as parsing
+     * the expression as a whole.
+     *
+     * @param parser incremental parser
+     * @param expr expression to parse
+     */
+    private void assertParsedAs(MathExprIncrementalParser parser,
+            String expr) {
+        MathExpr expected;
+
+        try {
+            expected = new MathExpr(expr);
+        } catch (InvalidMathExprException ex) {
+            try {
+                parser.parse(expr);
+                fail("Invalid expression accepted: " + expr);
+            } catch (InvalidMathExprException incrementalEx) {
+                assertEquals(expr, ex.getMessage(),
+                        incrementalEx.getMessage());
+            }
+            return;
+        }
+
+        try {
+            MathExpr parsed = parser.parse(expr);
+
+            assertEquals(expr, expected.toString(), parsed.toString());
+            assertEquals(expr, expected.getHeight(), parsed.getHeight());
+            assertEquals(expr, expected.eval(), parsed.eval(), 0.0);
+        } catch (InvalidMathExprException ex) {
+            fail("Valid expression rejected: " + expr + ", " + ex);
+        }
+    }
+
+}
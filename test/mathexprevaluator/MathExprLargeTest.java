@@ -0,0 +1,183 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprBatch;
+import mathexprevaluator.models.parser.MathExprCompiler;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the very long and deeply nested expressions. All of them are
+ * processed by a thread with a small stack, so any recursion proportional to
+ * the size of the expression would overflow it.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprLargeTest {
+
+    private static final int TERM_COUNT = 1000000;
+    private static final int NESTING_DEPTH = 100000;
+    private static final long STACK_SIZE = 256 * 1024;
+
+    @Test
+    public void testMillionTermSum() throws Exception {
+        StringBuilder expr = new StringBuilder("x");
+        for (int i = 1; i < TERM_COUNT; i++) {
+            expr.append((i % 2 == 0) ? " + " : " - ").append(i % 10);
+        }
+
+        this.runWithSmallStack(() -> {
+            MathExpr parsed = new MathExpr(expr, new MathVarTable("x"));
+            double expected = 5.0 + (TERM_COUNT / 10) * -5.0;
+
+            assertEquals(expected, parsed.eval(new double[] {5.0}), 0.0);
+            assertEquals(expected + 1.0, MathExprProgram.compile(parsed)
+                    .eval(new double[] {6.0}), 0.0);
+            assertEquals(expected, new MathExprOptimizer().optimize(parsed)
+                    .eval(new double[] {5.0}), 0.0);
+        });
+    }
+
+    @Test
+    public void testMillionFactorProduct() throws Exception {
+        StringBuilder expr = new StringBuilder("x");
+        for (int i = 1; i < TERM_COUNT; i++) {
+            expr.append((i % 2 == 0) ? " * " : " / ").append("(x + 1)");
+        }
+
+        this.runWithSmallStack(() -> {
+            MathExpr parsed = new MathExpr(expr, new MathVarTable("x"));
+            IMathExpr compiled = MathExprCompiler.compile(parsed);
+            double[] out = new double[3];
+
+            // Powers of two as the divisors keep the results exact.
+            new MathExprBatch(parsed).eval(new double[][] {{1, 3, 7}}, out);
+
+            assertArrayEquals(new double[] {0.5, 0.75, 0.875}, out, 0.0);
+            assertEquals(0.875, compiled.eval(new double[] {7.0}), 0.0);
+            assertTrue(parsed.toString().startsWith("(x / (x + 1.00) * "));
+        });
+    }
+
+    @Test
+    public void testDeepBrackets() throws Exception {
+        StringBuilder expr = new StringBuilder();
+        for (int i = 0; i < TERM_COUNT; i++) {
+            expr.append('(');
+        }
+        expr.append("x + 1");
+        for (int i = 0; i < TERM_COUNT; i++) {
+            expr.append(')');
+        }
+
+        this.runWithSmallStack(() -> {
+            MathExpr parsed = new MathExpr(expr, new MathVarTable("x"));
+
+            assertEquals(3.0, parsed.eval(new double[] {2.0}), 0.0);
+            assertEquals("(x + 1.00)", parsed.toString());
+        });
+    }
+
+    @Test
+    public void testDeepNesting() throws Exception {
+        StringBuilder expr = new StringBuilder();
+        for (int i = 0; i < NESTING_DEPTH; i++) {
+            expr.append("1 - (");
+        }
+        expr.append('x');
+        for (int i = 0; i < NESTING_DEPTH; i++) {
+            expr.append(')');
+        }
+
+        this.runWithSmallStack(() -> {
+            MathExpr parsed = new MathExpr(expr, new MathVarTable("x"));
+            double[] out = new double[2];
+
+            // An even number of subtractions from 1 gives x back.
+            assertEquals(7.0, parsed.eval(new double[] {7.0}), 0.0);
+            assertEquals(7.0, MathExprProgram.compile(parsed)
+                    .eval(new double[] {7.0}), 0.0);
+            assertEquals(7.0, MathExprCompiler.compile(parsed)
+                    .eval(new double[] {7.0}), 0.0);
+            assertSame(parsed, new MathExprOptimizer().optimize(parsed));
+            assertSame(parsed, new MathExprSharer().share(parsed));
+
+            new MathExprBatch(parsed).eval(new double[][] {{3, 4}}, out);
+            assertArrayEquals(new double[] {3.0, 4.0}, out, 0.0);
+
+            String text = parsed.toString();
+            assertEquals(7.0, new MathExpr(text, new MathVarTable("x"))
+                    .eval(new double[] {7.0}), 0.0);
+        });
+    }
+
+    @Test
+    public void testPowTower() throws Exception {
+        StringBuilder expr = new StringBuilder("x");
+        for (int i = 1; i < TERM_COUNT; i++) {
+            expr.append(" ^ 1");
+        }
+
+        this.runWithSmallStack(() -> {
+            MathExpr parsed = new MathExpr(expr, new MathVarTable("x"));
+
+            assertEquals(1.5, parsed.eval(new double[] {1.5}), 0.0);
+        });
+    }
+
+    @Test
+    public void testNegations() throws Exception {
+        StringBuilder expr = new StringBuilder();
+        for (int i = 0; i < NESTING_DEPTH + 1; i++) {
+            expr.append("- ");
+        }
+        expr.append("2 ^ 2");
+
+        this.runWithSmallStack(() -> {
+            assertEquals(-4.0, new MathExpr(expr).eval(), 0.0);
+        });
+    }
+
+    /**
+     * Runs the task by a thread with a small stack.
+     *
+     * @param task task to run
+     * @throws Exception thrown by the task
+     */
+    private void runWithSmallStack(Task task) throws Exception {
+        Throwable[] failure = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                failure[0] = ex;
+            }
+        }, "small-stack", STACK_SIZE);
+
+        thread.start();
+        thread.join();
+
+        if (failure[0] instanceof Exception) {
+            throw (Exception) failure[0];
+        }
+        if (failure[0] != null) {
+            throw (Error) failure[0];
+        }
+    }
+
+    /**
+     * Test code which may throw a checked exception.
+     */
+    private interface Task {
+
+        void run() throws Exception;
+
+    }
+
+}
@@ -0,0 +1,159 @@
+package mathexprevaluator;
+
+import java.lang.management.ManagementFactory;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import mathexprevaluator.models.MEEModel;
+import mathexprevaluator.models.MathEvalEngine;
+import mathexprevaluator.models.MathExprMetrics;
+import mathexprevaluator.models.MathHistogramSnapshot;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExprErrorKind;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the metrics of the model and their JMX exposure.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprMetricsTest {
+
+    @Test
+    public void testDisabled() throws InvalidMathExprException {
+        MEEModel model = new MEEModel();
+        MathExprMetrics metrics = new MathExprMetrics(model);
+
+        assertFalse(metrics.isEnabled());
+        assertNull(model.getListener());
+
+        model.evalExpr("1 + 2");
+
+        assertEquals(0, metrics.getEvalCount());
+        assertEquals(0, metrics.getParseCount());
+        assertEquals(1, metrics.getCacheMissCount());
+    }
+
+    @Test
+    public void testCounts() throws InvalidMathExprException {
+        MEEModel model = new MEEModel();
+        MathExprMetrics metrics = new MathExprMetrics(model);
+
+        metrics.setEnabled(true);
+        assertSame(metrics, model.getListener());
+        assertSame(metrics, model.getExprCache().getListener());
+
+        model.evalExpr("1 + 2");
+        model.evalExpr("1 + 2", MathEvalEngine.BYTECODE);
+        model.evalExpr("(1 + 2) * 3 * 4 ^ 2");
+        this.evalInvalid(model, "1 +", MathExprErrorKind.MISSING_OPERAND);
+        this.evalInvalid(model, "1 +", MathExprErrorKind.MISSING_OPERAND);
+        this.evalInvalid(model, "(1",
+                MathExprErrorKind.MISSING_CLOSING_BRACKET);
+        this.evalInvalid(model, "1)",
+                MathExprErrorKind.UNEXPECTED_CLOSING_BRACKET);
+        this.evalInvalid(model, "1 1", MathExprErrorKind.UNEXPECTED_SYMBOL);
+        this.evalInvalid(model, "x", MathExprErrorKind.UNKNOWN_VARIABLE);
+        this.evalInvalid(model, "1 # 1", MathExprErrorKind.UNKNOWN_CHARACTER);
+
+        assertEquals(2, metrics.getParseCount());
+        assertEquals(6, metrics.getParseErrorCount());
+        assertEquals(8, metrics.getParseLatencyNanos().getCount());
+        assertEquals(3, metrics.getEvalCount());
+        assertEquals(2L, (long) metrics.getEvalCountsByEngine().get("TREE"));
+        assertEquals(1L,
+                (long) metrics.getEvalCountsByEngine().get("BYTECODE"));
+        assertEquals(7, metrics.getEvalErrorCount());
+        assertEquals(2L, (long) metrics.getEvalErrorsByKind().get(
+                "MISSING_OPERAND"));
+        assertEquals(0L, (long) metrics.getEvalErrorsByKind().get(
+                "UNSPECIFIED"));
+
+        // (1 + 2) * 3 * (4 ^ 2) has 8 nodes and 3 levels.
+        assertEquals(8, metrics.getTreeNodeCounts().getMax());
+        assertEquals(3, metrics.getTreeHeights().getMax());
+        assertEquals(2.5, metrics.getTreeHeights().getMean(), 0.0);
+
+        assertEquals(8, metrics.getCacheMissCount());
+        assertEquals(2, metrics.getCacheHitCount());
+        assertEquals(8, metrics.getCacheSize());
+
+        metrics.reset();
+        assertEquals(0, metrics.getEvalCount());
+        assertEquals(0, metrics.getEvalLatencyNanos().getCount());
+        assertEquals(8, metrics.getCacheMissCount());
+
+        metrics.setEnabled(false);
+        assertNull(model.getListener());
+        model.evalExpr("1 + 2");
+        assertEquals(0, metrics.getEvalCount());
+    }
+
+    @Test
+    public void testHistogram() {
+        MathExprMetrics metrics = new MathExprMetrics(new MEEModel());
+
+        for (int nanos = 1; nanos <= 100; nanos++) {
+            metrics.onEval(MathEvalEngine.TREE, nanos);
+        }
+
+        MathHistogramSnapshot latency = metrics.getEvalLatencyNanos();
+
+        assertEquals(100, latency.getCount());
+        assertEquals(50.5, latency.getMean(), 1e-9);
+        assertEquals(100, latency.getMax());
+        // The percentiles are the upper bounds of their buckets.
+        assertEquals(63, latency.getP50());
+        assertEquals(100, latency.getP99());
+        assertEquals(32, latency.getBuckets()[6]);
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        MEEModel model = new MEEModel();
+        MathExprMetrics metrics = new MathExprMetrics(model);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.register("test");
+
+        try {
+            server.setAttribute(name, new Attribute("Enabled", true));
+            model.evalExpr("2 ^ 10");
+            this.evalInvalid(model, "2 ^", MathExprErrorKind.MISSING_OPERAND);
+
+            assertSame(metrics, model.getListener());
+            assertEquals(1L, server.getAttribute(name, "EvalCount"));
+            assertEquals(1L, ((CompositeData) server.getAttribute(name,
+                    "EvalLatencyNanos")).get("count"));
+            assertEquals(1L, ((CompositeData) server.getAttribute(name,
+                    "TreeNodeCounts")).get("count"));
+            assertNotNull(((TabularData) server.getAttribute(name,
+                    "EvalErrorsByKind")).get(new Object[] {
+                        "MISSING_OPERAND"}));
+
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "EvalCount"));
+
+            server.setAttribute(name, new Attribute("Enabled", false));
+            assertNull(model.getListener());
+        } finally {
+            metrics.unregister();
+        }
+
+        assertFalse(server.isRegistered(name));
+    }
+
+    private void evalInvalid(MEEModel model, String expr,
+            MathExprErrorKind kind) {
+        try {
+            model.evalExpr(expr);
+            fail("Invalid expression accepted: " + expr);
+        } catch (InvalidMathExprException ex) {
+            assertEquals(expr, kind, ex.getKind());
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprCompiler;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathOptimizationSummary;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the optimization of parsed expressions.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprOptimizerTest {
+    
+    @Test
+    public void testRewrites() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x");
+        MathExpr parsed = new MathExpr("(2 * 3) ^ 2 + x ^ 2 * 1 + 0", vars);
+        MathExprOptimizer optimizer = new MathExprOptimizer();
+        MathExpr optimized = optimizer.optimize(parsed);
+        MathOptimizationSummary summary = optimizer.getSummary();
+        
+        assertEquals(2, summary.getFoldedConsts());
+        assertEquals(2, summary.getRemovedIdentities());
+        assertEquals(1, summary.getReducedPowers());
+        assertTrue(summary.getNodesAfter() < summary.getNodesBefore());
+        assertEquals(4, summary.getNodesAfter());
+        
+        for (double x = -3; x <= 3; x += 0.5) {
+            double[] slots = {x};
+            assertEquals(parsed.eval(slots), optimized.eval(slots), 0.0);
+        }
+    }
+    
+    @Test
+    public void testNothingToOptimize() throws InvalidMathExprException {
+        MathExpr parsed = new MathExpr("x + y", new MathVarTable());
+        MathExprOptimizer optimizer = new MathExprOptimizer();
+        
+        assertSame(parsed, optimizer.optimize(parsed));
+        assertEquals(0, optimizer.getSummary().getRemovedIdentities());
+    }
+    
+    @Test
+    public void testSpecialValues() throws InvalidMathExprException {
+        String[] exprs = {"x * 1", "1 * x", "x / 1", "x - 0", "0 + x",
+            "x ^ 1", "x ^ 0", "x ^ 0.5", "x ^ 3", "x ^ -2", "x ^ 64",
+            "x ^ -7", "(x * 1) ^ 2 - 0"};
+        double[] values = {Double.NaN, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY, -0.0, 0.0, -1.0, 1e-300, -1e300, 1.5,
+            -2.25, 1e-160, Double.MIN_VALUE};
+        
+        for (String expr: exprs) {
+            MathExpr parsed = new MathExpr(expr, new MathVarTable("x"));
+            MathExpr optimized = new MathExprOptimizer().optimize(parsed);
+            MathExprProgram program = MathExprProgram.compile(optimized);
+            IMathExpr compiled = MathExprCompiler.compile(optimized);
+            
+            assertNotSame(expr, parsed, optimized);
+            
+            for (double x: values) {
+                double[] slots = {x};
+                double expected = parsed.eval(slots);
+                String message = expr + " for x = " + x;
+                
+                assertEquals(message, expected, optimized.eval(slots),
+                        Math.abs(expected) * 1e-14);
+                assertEquals(message, optimized.eval(slots),
+                        program.eval(slots), 0.0);
+                assertEquals(message, optimized.eval(slots),
+                        compiled.eval(slots), 0.0);
+            }
+        }
+    }
+    
+}
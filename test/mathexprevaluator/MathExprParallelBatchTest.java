@@ -0,0 +1,60 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprBatch;
+import mathexprevaluator.models.parser.MathExprParallelBatch;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the parallel batch evaluation.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprParallelBatchTest {
+    
+    @Test
+    public void testAgainstSequential() throws InvalidMathExprException {
+        MathExpr expr = new MathExprSharer().share(new MathExpr(
+                "(x - y) ^ 2 / (1 + (x - y) ^ 2) + y * 0.5",
+                new MathVarTable("x", "y")));
+        int rows = 100003;
+        double[][] columns = new double[2][rows];
+        
+        for (int i = 0; i < rows; i++) {
+            columns[0][i] = Math.sin(i);
+            columns[1][i] = i * 1e-4;
+        }
+        
+        double[] expected = new double[rows];
+        new MathExprBatch(expr).eval(columns, expected);
+        
+        MathExprParallelBatch batch = new MathExprParallelBatch(expr, 4, 100);
+        try {
+            double[] out = new double[rows];
+            
+            for (int i = 0; i < 3; i++) {
+                batch.eval(columns, out);
+                assertArrayEquals(expected, out, 0.0);
+            }
+        } finally {
+            batch.shutdown();
+        }
+    }
+    
+    @Test
+    public void testCommonPool() throws InvalidMathExprException {
+        MathExprParallelBatch batch = new MathExprParallelBatch(
+                new MathExpr("x * 2", new MathVarTable("x")));
+        double[][] columns = {{1, 2, 3}};
+        double[] out = new double[4];
+        
+        batch.eval(columns, out, 3);
+        assertArrayEquals(new double[] {2, 4, 6, 0}, out, 0.0);
+    }
+    
+}
@@ -0,0 +1,98 @@
+package mathexprevaluator;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprPrecise;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the evaluation falling back to the decimal arithmetic.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprPreciseTest {
+
+    @Test
+    public void testWellConditioned() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        MathExprPrecise precise = new MathExprPrecise(new MathExpr(
+                "(x * y + 3) / (x + 0.5) - x ^ 2 + y ^ 0.5", vars));
+        double[] point = {1.25, 4.0};
+        double[] bound = new double[1];
+        double expected = (1.25 * 4.0 + 3) / 1.75 - 1.25 * 1.25 + 2.0;
+
+        assertEquals(expected, precise.eval(point), 1e-15);
+        assertEquals(expected, precise.evalBounded(point, bound), 1e-15);
+        assertTrue(bound[0] > 0.0 && bound[0] < 1e-14);
+        assertEquals(0, precise.getFallbackCount());
+    }
+
+    @Test
+    public void testCancellation() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x");
+        MathExpr expr = new MathExpr("x + 1 - x", vars);
+        double[] point = {1e16};
+
+        assertEquals(0.0, expr.eval(point), 0.0);
+
+        MathExprPrecise precise = new MathExprPrecise(expr);
+
+        assertEquals(1.0, precise.eval(point), 0.0);
+        assertEquals(1, precise.getFallbackCount());
+        assertEquals(1.0, precise.eval(new double[] {3.0}), 0.0);
+        assertEquals(1, precise.getFallbackCount());
+    }
+
+    @Test
+    public void testDecimalFractions() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        MathExprPrecise precise = new MathExprPrecise(new MathExprSharer()
+                .share(new MathExpr("(x + y - 0.3) * 1e20", vars)));
+        double[] point = {0.1, 0.2};
+
+        assertEquals(0.0, precise.eval(point), 0.0);
+        assertEquals(1, precise.getFallbackCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(precise.evalDecimal(point)));
+    }
+
+    @Test
+    public void testDecimalPowers() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x");
+        MathExprPrecise precise = new MathExprPrecise(
+                MathExprProgram.compile(new MathExprOptimizer().optimize(
+                        new MathExpr("x ^ 0.5 * x ^ 0.5 + x ^ -2 + 2 ^ x",
+                                vars))),
+                new MathContext(50), 1e-12);
+
+        BigDecimal val = precise.evalDecimal(new double[] {2.0});
+
+        assertEquals(0, new BigDecimal("6.25").compareTo(
+                val.round(new MathContext(40))));
+    }
+
+    @Test
+    public void testFailedFallback() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x");
+        MathExprPrecise precise = new MathExprPrecise(new MathExpr(
+                "1 / (x - x)", vars));
+
+        assertEquals(Double.POSITIVE_INFINITY,
+                precise.eval(new double[] {0.1}), 0.0);
+        assertEquals(1, precise.getFallbackCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnlimitedPrecision() throws InvalidMathExprException {
+        new MathExprPrecise(MathExprProgram.compile(new MathExpr("1")),
+                MathContext.UNLIMITED, 1e-12);
+    }
+
+}
@@ -0,0 +1,95 @@
+package mathexprevaluator;
+
+import java.util.Random;
+import mathexprevaluator.models.MEEModel;
+import mathexprevaluator.models.MathEvalEngine;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathFuncTable;
+import mathexprevaluator.models.parser.MathFunction;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the postfix program representation of expressions.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprProgramTest {
+    
+    @Test
+    public void testAgainstTree() throws InvalidMathExprException {
+        String[] exprs = {"", "1", "-2^2", "2^2^2", "1 + 2 - 1 + 3 - 1 + 4",
+            "((1 + 1) * 2) / (3 - 1)", "x * (y - 1) / z ^ 2 + x * x",
+            "8 / x / y / z - -x"};
+        Random random = new Random(7);
+        
+        for (String expr: exprs) {
+            MathVarTable vars = new MathVarTable();
+            MathExpr parsed = new MathExpr(expr, vars);
+            MathExprProgram program = MathExprProgram.compile(parsed);
+            double[] slots = new double[vars.getSize()];
+            double[] stack = new double[program.getStackSize()];
+            
+            for (int i = 0; i < 10; i++) {
+                for (int j = 0; j < slots.length; j++) {
+                    slots[j] = random.nextDouble() * 4 - 2;
+                }
+                
+                assertEquals(expr, parsed.eval(slots), program.eval(slots),
+                        0.0);
+                assertEquals(expr, parsed.eval(slots),
+                        program.eval(slots, stack), 0.0);
+            }
+            
+            assertEquals(parsed.toString(), program.toString());
+        }
+    }
+    
+    @Test
+    public void testStackSize() throws InvalidMathExprException {
+        assertEquals(3, MathExprProgram.compile(new MathExpr(
+                "1 * (2 * 3) - 4")).getStackSize());
+        // Chains are evaluated from the left to the right.
+        assertEquals(2, MathExprProgram.compile(new MathExpr("1 * 2 * 3 - 4"))
+                .getStackSize());
+        assertEquals(2, MathExprProgram.compile(new MathExpr("(1 - 2) - 3"))
+                .getStackSize());
+    }
+    
+    @Test
+    public void testNestedEvaluation() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x");
+        MathExprProgram inner = MathExprProgram.compile(new MathExpr(
+                "(x + 1) * (x - 1)", vars));
+        MathFuncTable funcs = new MathFuncTable();
+        
+        // The inner program gets a stack of its own, the outer one is kept.
+        funcs.register(MathFunction.unary("inner",
+                v -> inner.eval(new double[] {v})));
+        MathExprProgram outer = MathExprProgram.compile(new MathExpr(
+                "x * (2 + (3 - inner(x)))", vars, funcs));
+        
+        assertEquals(3.0 * (2 + (3 - 8)), outer.eval(new double[] {3.0}),
+                0.0);
+        assertEquals(4.0 * (2 + (3 - 15)), outer.eval(new double[] {4.0}),
+                0.0);
+    }
+    
+    @Test
+    public void testEngines() throws InvalidMathExprException {
+        MEEModel model = new MEEModel();
+        String expr = "(2 * 3) ^ 2 / (1 + 1) - -4";
+        
+        for (MathEvalEngine engine: MathEvalEngine.values()) {
+            assertEquals(engine.name(), 22, model.evalExpr(expr, engine), 0.0);
+        }
+        
+        assertEquals(1, model.getExprCache().getSize());
+        assertEquals(1, model.getExprCache().getMissCount());
+    }
+    
+}
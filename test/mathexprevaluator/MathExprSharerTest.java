@@ -0,0 +1,87 @@
+package mathexprevaluator;
+
+import java.util.Random;
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprCompiler;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the common-subexpression elimination.
+ * 
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprSharerTest {
+    
+    @Test
+    public void testSharedCount() throws InvalidMathExprException {
+        MathExprSharer sharer = new MathExprSharer();
+        MathExpr parsed = new MathExpr("(a + b) ^ 2 / (a + b) + (a + b)",
+                new MathVarTable());
+        MathExpr shared = sharer.share(parsed);
+        
+        assertEquals(1, sharer.getSharedCount());
+        // a, b, a + b, 2, ^, /, + 
+        assertEquals(7, sharer.getNodeCount());
+        assertEquals(parsed.toString(), shared.toString());
+        
+        assertSame(shared, sharer.share(shared));
+    }
+    
+    @Test
+    public void testNothingToShare() throws InvalidMathExprException {
+        MathExprSharer sharer = new MathExprSharer();
+        MathExpr parsed = new MathExpr("x * y - 1", new MathVarTable());
+        
+        assertSame(parsed, sharer.share(parsed));
+        assertEquals(0, sharer.getSharedCount());
+    }
+    
+    @Test
+    public void testAgainstTree() throws InvalidMathExprException {
+        String[] exprs = {"(a + b) ^ 2 / (a + b) + (a + b)",
+            "(a * b - 1) * (a * b - 1) - (a * b - 1) / (a * b)",
+            "((a - b) ^ 3 + (a - b) ^ 3) / ((a - b) ^ 3 + (a - b) ^ 3 + b)",
+            "(b ^ 0.5 + a) * (b ^ 0.5 + a) + b ^ 0.5",
+            "2 ^ a + 2 ^ a + 2 ^ a + 2 ^ a"};
+        Random random = new Random(11);
+        
+        for (String expr: exprs) {
+            MathVarTable vars = new MathVarTable("a", "b");
+            MathExpr parsed = new MathExpr(expr, vars);
+            MathExpr shared = new MathExprSharer().share(
+                    new MathExprOptimizer().optimize(parsed));
+            MathExprProgram program = MathExprProgram.compile(shared);
+            IMathExpr compiled = MathExprCompiler.compile(shared);
+            double[] stack = new double[program.getStackSize()];
+            double[] frame = new double[shared.getFrameSize()];
+            
+            assertTrue(expr, frame.length >= vars.getSize());
+            assertNotSame(expr, parsed, shared);
+            assertFalse(expr, compiled instanceof MathExpr);
+            
+            for (int i = 0; i < 20; i++) {
+                double[] slots = {random.nextDouble() * 4 - 2,
+                    random.nextDouble() * 4};
+                double expected = parsed.eval(slots);
+                double delta = Math.abs(expected) * 1e-12;
+                
+                assertEquals(expr, expected, shared.eval(slots), delta);
+                System.arraycopy(slots, 0, frame, 0, slots.length);
+                assertEquals(expr, expected, shared.evalInFrame(frame),
+                        delta);
+                assertEquals(expr, expected, program.eval(slots, stack),
+                        delta);
+                assertEquals(expr, expected, compiled.eval(slots), delta);
+            }
+        }
+    }
+    
+}
@@ -0,0 +1,171 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprGradient;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathExprTape;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the evaluation of the gradients by the reverse mode
+ * automatic differentiation.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathExprTapeTest {
+
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testMatchesForwardMode() throws InvalidMathExprException {
+        String[] exprs = {
+            "x * x * y + 3 * x - y / x + 2",
+            "x ^ y - (0 - z) ^ 3 + z ^ 0.5",
+            "(x + y) ^ 3 + (x + y) ^ 0.5 + (x + y) ^ -2 + x ^ 0",
+            "2 ^ (x * y) - (x + y + z) ^ 2 * 0.5 / (1 + z * z)",
+        };
+        MathVarTable vars = new MathVarTable("x", "y", "z");
+        double[] point = {1.5, 2.0, 0.25};
+
+        for (String text : exprs) {
+            MathExpr expr = new MathExpr(text, vars);
+            MathExpr shared = new MathExprSharer().share(
+                    new MathExprOptimizer().optimize(expr));
+
+            for (MathExpr variant : new MathExpr[] {expr, shared}) {
+                double[] expected = new double[3];
+                double[] grad = new double[3];
+                double value = new MathExprGradient(variant).eval(point,
+                        expected);
+                MathExprTape tape = MathExprTape.record(variant);
+
+                assertEquals(text, value, tape.eval(point, grad), DELTA);
+                assertEquals(text, value, tape.eval(point), DELTA);
+                assertArrayEquals(text, expected, grad, DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testKinksMatchForwardMode()
+            throws InvalidMathExprException {
+        String[] exprs = {"sqrt(abs(y))", "abs(x) * y + abs(y - 1)",
+            "x ^ 0.5 + sqrt(x) * abs(y)", "(x * y) ^ 0.5", "x ^ y",
+            "abs(x) ^ 3 + abs(y) ^ -1", "(abs(x) + 1) ^ 0.5 * sqrt(y)"};
+        MathVarTable vars = new MathVarTable("x", "y");
+        double[][] points = {{0.0, 0.0}, {0.0, 1.0}, {-0.0, 2.0}};
+
+        for (String text : exprs) {
+            MathExpr expr = new MathExpr(text, vars);
+            MathExprTape tape = MathExprTape.record(expr);
+
+            for (double[] point : points) {
+                double[] expected = new double[2];
+                double[] grad = new double[2];
+
+                new MathExprGradient(expr).eval(point, expected);
+                tape.eval(point, grad);
+                assertArrayEquals(text, expected, grad, 0.0);
+            }
+        }
+
+        // Both the modes take the derivative of abs at 0 as 0.
+        double[] grad = new double[2];
+        MathExprTape.record(new MathExpr("sqrt(abs(y))", vars))
+                .eval(new double[] {0.0, 0.0}, grad);
+        assertArrayEquals(new double[] {0.0, 0.0}, grad, 0.0);
+    }
+
+    @Test
+    public void testSharedSubexpression() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        MathExpr expr = new MathExprSharer().share(new MathExpr(
+                "(x * y + 1) * (x * y + 1) - (x * y + 1)", vars));
+        MathExprTape tape = MathExprTape.record(expr);
+        double[] grad = new double[2];
+
+        // f = s^2 - s with s = xy + 1, df/dx = (2s - 1) * y
+        assertEquals(42.0, tape.eval(new double[] {2.0, 3.0}, grad), 0.0);
+        assertArrayEquals(new double[] {39.0, 26.0}, grad, 0.0);
+        // The shared x * y + 1 is recorded only once.
+        assertEquals(7, tape.getSize());
+    }
+
+    @Test
+    public void testManyVariables() throws InvalidMathExprException {
+        int count = 300;
+        String[] names = new String[count];
+        StringBuilder text = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            names[i] = "x" + i;
+            if (i > 0) {
+                text.append(" + ");
+            }
+            text.append(names[i]).append(" * ").append(names[i])
+                    .append(" * ").append(i);
+        }
+
+        MathExprTape tape = MathExprTape.record(new MathExpr(text,
+                new MathVarTable(names)));
+        double[] point = new double[count];
+        double[] grad = new double[count];
+        double[] values = new double[tape.getSize()];
+        double[] adjoints = new double[tape.getSize()];
+
+        for (int round = 1; round <= 3; round++) {
+            double expected = 0.0;
+            for (int i = 0; i < count; i++) {
+                point[i] = round * 0.5 + i;
+                expected += point[i] * point[i] * i;
+            }
+
+            assertEquals(expected, tape.eval(point, grad, values, adjoints),
+                    1e-6);
+            for (int i = 0; i < count; i++) {
+                assertEquals(2.0 * point[i] * i, grad[i], DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testPartialGradient() throws InvalidMathExprException {
+        MathExprTape tape = MathExprTape.record(new MathExpr("x * y * z",
+                new MathVarTable("x", "y", "z")));
+        double[] grad = {7.0};
+
+        assertEquals(30.0, tape.eval(new double[] {2.0, 3.0, 5.0}, grad),
+                0.0);
+        assertArrayEquals(new double[] {15.0}, grad, 0.0);
+
+        assertEquals(7.0, MathExprTape.record(new MathExpr("3 + 4"))
+                .eval(new double[0], new double[0]), 0.0);
+    }
+
+    @Test
+    public void testDeepNesting() throws InvalidMathExprException {
+        StringBuilder text = new StringBuilder();
+        int depth = 100001;
+
+        for (int i = 0; i < depth; i++) {
+            text.append("1 - (");
+        }
+        text.append("x * x");
+        for (int i = 0; i < depth; i++) {
+            text.append(')');
+        }
+
+        MathExprTape tape = MathExprTape.record(new MathExpr(text,
+                new MathVarTable("x")));
+        double[] grad = new double[1];
+
+        assertEquals(-8.0, tape.eval(new double[] {3.0}, grad), 0.0);
+        assertArrayEquals(new double[] {-6.0}, grad, 0.0);
+    }
+
+}
@@ -1,8 +1,10 @@
 package mathexprevaluator;
 
+import java.nio.CharBuffer;
 import mathexprevaluator.models.parser.MathExpr;
 import mathexprevaluator.models.parser.InvalidMathExprException;
 import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.MathVarTable;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -139,7 +141,122 @@ public class MathExprTest {
         this.testInvalidExpression(">><<><>}{}\">\">>\"|?}?|\"?\"|>\"?");
         this.testInvalidExpression("    . ");
         this.testInvalidExpression("1 + a + 2 + b * 1");
+        this.testInvalidExpression("2 +");
+        this.testInvalidExpression("(1 + 2");
+        this.testInvalidExpression("1 + 2)");
+        this.testInvalidExpression("1 2");
+        this.testInvalidExpression("()");
+    }
+    
+    @Test
+    public void testNumberFormats() throws InvalidMathExprException {
+        this.printCurrTestMethod();
+        
+        this.testExpression(".5", 0.5);
+        this.testExpression("5.", 5);
+        this.testExpression("1e3 + 1", 1001);
+        this.testExpression("2.5E-1 * 4", 1);
+        this.testExpression("1e+2", 100);
+    }
+    
+    @Test
+    public void testExactNumbers() throws InvalidMathExprException {
+        this.printCurrTestMethod();
+        
+        String[] nums = {"0.1", "123.456", "9007199254740993", "1e22", "1e23",
+            "4.9e-324", "1.7976931348623157e308", "0.000000000000000000001",
+            "12345678901234567890123", "00012.50", "1e400"};
+        
+        for (String num: nums) {
+            assertEquals(num, Double.parseDouble(num), new MathExpr(num).eval(),
+                    0.0);
+        }
+    }
+    
+    @Test
+    public void testCharRanges() throws InvalidMathExprException {
+        this.printCurrTestMethod();
+        
+        String line = "id=7; expr=(1 + 2) * 3; end";
+        int start = line.indexOf('(');
+        int end = line.indexOf(';', start);
+        
+        assertEquals(9, new MathExpr(line, start, end).eval(), 0.001);
+        assertEquals(9, new MathExpr(line.toCharArray(), start, end - start)
+                .eval(), 0.001);
+        assertEquals(9, new MathExpr(CharBuffer.wrap(line, start,
+                end)).eval(), 0.001);
+        assertEquals(9, new MathExpr(new StringBuilder(line)
+                .substring(start, end)).eval(), 0.001);
+        assertEquals(0, new MathExpr(line, 3, 3).eval(), 0.001);
+    }
+    
+    @Test
+    public void testNegatedOperands() throws InvalidMathExprException {
+        this.printCurrTestMethod();
+        
+        this.testExpression("2 * -3", -6);
+        this.testExpression("2 ^ -1", 0.5);
+        this.testExpression("-2 * -2 ^ 2", 8);
+        this.testExpression("4 / -(1 + 1)", -2);
+    }
+    
+    @Test
+    public void testVariables() throws InvalidMathExprException {
+        this.printCurrTestMethod();
+        
+        MathVarTable vars = new MathVarTable();
+        IMathExpr inst = new MathExpr("x * rate + x_2 - rate ^ 2", vars);
+        
+        assertEquals(3, vars.getSize());
+        assertEquals(0, vars.getSlot("x"));
+        assertEquals(1, vars.getSlot("rate"));
+        assertEquals(2, vars.getSlot("x_2"));
+        
+        double[] slots = new double[vars.getSize()];
+        for (int i = 0; i < 100; i++) {
+            slots[0] = i;
+            slots[1] = 0.5 * i;
+            slots[2] = 3;
+            
+            assertEquals(i * 0.5 * i + 3 - 0.25 * i * i, inst.eval(slots),
+                    0.001);
+        }
+        
+        IMathExpr other = new MathExpr("2 * rate", vars);
+        assertEquals(3, vars.getSize());
+        assertEquals(2 * slots[1], other.eval(slots), 0.001);
+    }
+    
+    @Test
+    public void testFixedVariables() throws InvalidMathExprException {
+        this.printCurrTestMethod();
+        
+        MathVarTable vars = new MathVarTable("a", "b");
+        IMathExpr inst = new MathExpr("b / a", vars);
+        
+        assertEquals(0.5, inst.eval(new double[] {4, 2}), 0.001);
+        
+        try {
+            new MathExpr("a + c", vars);
+            fail("Undeclared variable \"c\" should be rejected.");
+        } catch (InvalidMathExprException ex) {
+            assertEquals(2, vars.getSize());
+        }
+    }
+    
+    @Test
+    public void testLongExpr() throws InvalidMathExprException {
+        this.printCurrTestMethod();
+        
+        StringBuilder expr = new StringBuilder("0");
+        for (int i = 1; i <= 2000; i++) {
+            expr.append(" + ").append(i).append(" * 2 - ").append(i);
+        }
+        
+        IMathExpr inst = new MathExpr(expr.toString());
         
+        assertEquals(2000.0 * 2001.0 / 2.0, inst.eval(), 0.001);
     }
     
     private void testExpression(String expr, double expRes)
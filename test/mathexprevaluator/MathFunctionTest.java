@@ -0,0 +1,221 @@
+package mathexprevaluator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprBatch;
+import mathexprevaluator.models.parser.MathExprCatalog;
+import mathexprevaluator.models.parser.MathExprCompiler;
+import mathexprevaluator.models.parser.MathExprErrorKind;
+import mathexprevaluator.models.parser.MathExprGradient;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathExprTape;
+import mathexprevaluator.models.parser.MathFuncTable;
+import mathexprevaluator.models.parser.MathFunction;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the calls of the functions.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathFunctionTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static final String[] EXPRS = {
+        "sin(x) ^ 2 + cos(x) ^ 2",
+        "max(x, y) - min(x, -y) * abs(x - y)",
+        "exp(log(x * y)) + sqrt(x) + cbrt(y) - log10(100)",
+        "atan2(y, x) + hypot(x, y) * tanh(x) - -sinh(-y)",
+        "2 * sin(3 * (x + y)) / (1 + cosh(x))",
+    };
+
+    @Test
+    public void testEvaluation() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        double x = 0.7;
+        double y = 1.3;
+        double[] point = {x, y};
+        double[] expected = {
+            1.0,
+            y + y * 0.6,
+            x * y + Math.sqrt(x) + Math.cbrt(y) - 2.0,
+            Math.atan2(y, x) + Math.hypot(x, y) * Math.tanh(x)
+                + Math.sinh(-y),
+            2 * Math.sin(3 * (x + y)) / (1 + Math.cosh(x)),
+        };
+
+        for (int i = 0; i < EXPRS.length; i++) {
+            MathExpr expr = new MathExpr(EXPRS[i], vars);
+            MathExpr shared = new MathExprSharer().share(
+                    new MathExprOptimizer().optimize(expr));
+
+            assertEquals(EXPRS[i], expected[i], expr.eval(point), DELTA);
+            assertEquals(EXPRS[i], expected[i], shared.eval(point), DELTA);
+            assertEquals(EXPRS[i], expected[i],
+                    MathExprProgram.compile(shared).eval(point), DELTA);
+            assertEquals(EXPRS[i], expected[i],
+                    MathExprCompiler.compile(shared).eval(point), DELTA);
+            assertEquals(EXPRS[i], expected[i],
+                    MathExprTape.record(shared).eval(point), DELTA);
+        }
+    }
+
+    @Test
+    public void testBatch() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        double[][] columns = {{0.1, 0.2, 0.3, 0.4, 0.5},
+            {2.0, 1.0, 0.5, 0.25, 0.125}};
+        double[] out = new double[5];
+
+        for (String text: EXPRS) {
+            MathExpr expr = new MathExpr(text, vars);
+
+            new MathExprBatch(expr, 2).eval(columns, out);
+            for (int i = 0; i < out.length; i++) {
+                double[] point = {columns[0][i], columns[1][i]};
+
+                assertEquals(text, expr.eval(point), out[i], 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testGradient() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x", "y");
+        double[] point = {0.7, 1.3};
+
+        for (String text: EXPRS) {
+            MathExpr expr = new MathExprSharer().share(new MathExpr(text,
+                    vars));
+            double[] grad = new double[2];
+            double[] tapeGrad = new double[2];
+            double value = new MathExprGradient(expr).eval(point, grad);
+
+            assertEquals(text, value, MathExprTape.record(expr).eval(point,
+                    tapeGrad), DELTA);
+            assertArrayEquals(text, grad, tapeGrad, DELTA);
+
+            for (int i = 0; i < 2; i++) {
+                double[] shifted = point.clone();
+                double h = 1e-6;
+
+                shifted[i] += h;
+                double upper = expr.eval(shifted);
+                shifted[i] -= 2 * h;
+                double lower = expr.eval(shifted);
+
+                assertEquals(text, (upper - lower) / (2 * h), grad[i], 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testCustomFunctions() throws Exception {
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("x");
+
+        funcs.register(MathFunction.unary("sq", v -> v * v, v -> 2 * v));
+        funcs.register(MathFunction.binary("avg", (a, b) -> (a + b) / 2));
+
+        MathExpr expr = new MathExpr("sq(x) + avg(x, 3) + sq(2)", vars,
+                funcs);
+        double[] point = {5.0};
+        double[] grad = new double[1];
+
+        assertEquals(25.0 + 4.0 + 4.0, expr.eval(point), 0.0);
+        assertEquals(33.0, new MathExprOptimizer().optimize(expr)
+                .eval(point), 0.0);
+        assertEquals(10.5, new MathExprGradient(expr).eval(point, grad)
+                - 22.5, 0.0);
+        assertEquals(10.5, grad[0], 1e-6);
+
+        // Custom functions are not compiled, the parsed expression is used.
+        IMathExpr compiled = MathExprCompiler.compile(expr);
+        assertEquals(33.0, compiled.eval(point), 0.0);
+
+        try {
+            new MathExpr("sq(x)", vars);
+            fail("Function of another table resolved");
+        } catch (InvalidMathExprException ex) {
+            assertEquals(MathExprErrorKind.UNKNOWN_FUNCTION, ex.getKind());
+        }
+    }
+
+    @Test
+    public void testSyntaxErrors() {
+        MathVarTable vars = new MathVarTable("x", "y");
+        String[] exprs = {"foo(x)", "sin(x, y)", "max(x)", "max(x, y, 1)",
+            "sin()", "x, y", "(x, y)", "sin(x", "max(x,)"};
+        MathExprErrorKind[] kinds = {MathExprErrorKind.UNKNOWN_FUNCTION,
+            MathExprErrorKind.WRONG_ARGUMENT_COUNT,
+            MathExprErrorKind.WRONG_ARGUMENT_COUNT,
+            MathExprErrorKind.WRONG_ARGUMENT_COUNT,
+            MathExprErrorKind.UNEXPECTED_CLOSING_BRACKET,
+            MathExprErrorKind.UNEXPECTED_SYMBOL,
+            MathExprErrorKind.UNEXPECTED_SYMBOL,
+            MathExprErrorKind.MISSING_CLOSING_BRACKET,
+            MathExprErrorKind.UNEXPECTED_CLOSING_BRACKET};
+
+        for (int i = 0; i < exprs.length; i++) {
+            try {
+                new MathExpr(exprs[i], vars);
+                fail(exprs[i]);
+            } catch (InvalidMathExprException ex) {
+                assertEquals(exprs[i], kinds[i], ex.getKind());
+            }
+        }
+    }
+
+    @Test
+    public void testSignsInArguments() throws InvalidMathExprException {
+        MathVarTable vars = new MathVarTable("x");
+        MathExpr expr = new MathExpr("max(-x, +2) + abs(-(x)) ^ -1", vars);
+
+        assertEquals(3.0 + 1.0 / 3.0, expr.eval(new double[] {-3.0}), 1e-15);
+        assertEquals("(max((0.00 - x), (0.00 + 2.00)) + (abs((0.00 - x)) ^ "
+                + "(0.00 - 1.00)))",
+                expr.toString());
+    }
+
+    @Test
+    public void testCatalog() throws Exception {
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("x", "y");
+        MathExprCatalog catalog = new MathExprCatalog(vars);
+        Path file = Files.createTempFile("functions", ".catalog");
+        double[] point = {0.5, 2.0};
+
+        funcs.register(MathFunction.unary("twice", v -> 2 * v));
+        catalog.put("trig", new MathExpr(EXPRS[3], vars));
+        catalog.put("custom", new MathExpr("twice(x) + max(x, y)", vars,
+                funcs));
+
+        try {
+            catalog.write(file);
+
+            MathExprCatalog loaded = MathExprCatalog.read(file, funcs);
+            assertEquals(catalog.get("trig").eval(point),
+                    loaded.get("trig").eval(point), 0.0);
+            assertEquals(3.0, loaded.get("custom").eval(point), 0.0);
+
+            try {
+                MathExprCatalog.read(file);
+                fail("Unknown function resolved");
+            } catch (java.io.IOException ex) {
+                assertTrue(ex.getMessage().contains("twice"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
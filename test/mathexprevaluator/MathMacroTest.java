@@ -0,0 +1,221 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.parser.IMathExpr;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import mathexprevaluator.models.parser.MathExpr;
+import mathexprevaluator.models.parser.MathExprCompiler;
+import mathexprevaluator.models.parser.MathExprErrorKind;
+import mathexprevaluator.models.parser.MathExprIncrementalParser;
+import mathexprevaluator.models.parser.MathExprOptimizer;
+import mathexprevaluator.models.parser.MathExprProgram;
+import mathexprevaluator.models.parser.MathExprSharer;
+import mathexprevaluator.models.parser.MathFuncTable;
+import mathexprevaluator.models.parser.MathFunction;
+import mathexprevaluator.models.parser.MathMacro;
+import mathexprevaluator.models.parser.MathVarTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the functions defined in the language of the expressions.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathMacroTest {
+
+    @Test
+    public void testInlining() throws InvalidMathExprException {
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("rate", "years");
+
+        MathMacro discount = funcs.define("discount(r, t) = (1 + r) ^ -t");
+        funcs.define("npv(r, a, b) = a * discount(r, 1) + b * discount(r, 2)");
+
+        assertEquals(2, discount.getArity());
+        assertEquals("t", discount.getParam(1));
+        assertEquals("discount(r, t) = (1 + r) ^ -t", discount.toString());
+
+        MathExpr expr = new MathExpr("npv(rate, 100, 200) - discount(rate, "
+                + "years)", vars, funcs);
+        double[] point = {0.05, 3.0};
+        double expected = 100 / 1.05 + 200 / (1.05 * 1.05)
+                - Math.pow(1.05, -3.0);
+
+        assertEquals(expected, expr.eval(point), 1e-12);
+        assertEquals(expected, MathExprProgram.compile(expr).eval(point),
+                1e-12);
+        assertFalse(expr.toString().contains("discount"));
+    }
+
+    @Test
+    public void testFoldingAcrossCalls() throws InvalidMathExprException {
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("x");
+
+        funcs.define("scale(v, k) = v * k + 0 * v");
+
+        MathExprOptimizer optimizer = new MathExprOptimizer();
+        MathExpr constant = optimizer.optimize(new MathExpr(
+                "scale(2, 3) + scale(x, 1)", vars, funcs));
+
+        assertEquals(11.0, constant.eval(new double[] {5.0}), 0.0);
+        assertTrue(optimizer.getSummary().getFoldedConsts() > 0);
+        assertTrue(new MathExpr("scale(2, 3) * 2", vars, funcs).isExact());
+        assertEquals(12L, new MathExpr("scale(2, 3) * 2", vars, funcs)
+                .evalLong());
+    }
+
+    @Test
+    public void testSharingArguments() throws InvalidMathExprException {
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("x", "y");
+
+        funcs.define("sq(v) = v * v");
+
+        MathExpr expr = new MathExpr("sq(sin(x) + y) + sq(sin(x) + y)", vars,
+                funcs);
+        MathExprSharer sharer = new MathExprSharer();
+        MathExpr shared = sharer.share(expr);
+        double[] point = {0.5, 2.0};
+        double inner = Math.sin(0.5) + 2.0;
+
+        assertEquals(2 * inner * inner, shared.eval(point), 1e-12);
+        assertEquals(2, sharer.getSharedCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testDeepNesting() throws InvalidMathExprException {
+        final int depth = 32;
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("x");
+        StringBuilder text = new StringBuilder("x");
+
+        funcs.define("sq(v) = v * v + 0 * v");
+        for (int i = 0; i < depth; i++) {
+            text.insert(0, "sq(").append(')');
+        }
+
+        // Written out in full, the expression would have 2^32 leaves.
+        MathExpr expr = new MathExpr(text, vars, funcs);
+        MathExpr optimized = new MathExprOptimizer().optimize(expr);
+        MathExpr shared = new MathExprSharer().share(optimized);
+        IMathExpr[] engines = {expr, optimized, shared,
+            MathExprProgram.compile(expr), MathExprCompiler.compile(shared)};
+        double[][] points = {{1.0}, {-1.0}, {0.5}};
+        double[] expected = {1.0, 1.0, 0.0};
+
+        for (IMathExpr engine: engines) {
+            for (int i = 0; i < points.length; i++) {
+                assertEquals(expected[i], engine.eval(points[i]), 0.0);
+            }
+        }
+        assertTrue(expr.toString().length() < 4 << 20);
+        assertTrue(optimized.getNodeCount() < 10 * depth);
+
+        // Each function calls the previous one with a repeated argument.
+        funcs.define("d0(v) = v * v - v");
+        for (int i = 1; i <= depth; i++) {
+            funcs.define("d" + i + "(v) = d" + (i - 1) + "(v * v - v) + 1");
+        }
+
+        MathExpr nested = new MathExpr("d" + depth + "(2)", vars, funcs);
+
+        assertEquals(depth + 2.0, nested.eval(), 0.0);
+        assertTrue(nested.isExact());
+        assertEquals(depth + 2.0,
+                new MathExprOptimizer().optimize(nested).eval(),
+                0.0);
+    }
+
+    @Test
+    public void testRedefinition() throws InvalidMathExprException {
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("x");
+
+        funcs.define("f(a) = a + 1");
+        funcs.define("g(a) = f(a) * 2");
+        funcs.define("f(a) = a + 100");
+
+        // The body of g keeps the definition of f it has been parsed with.
+        assertEquals(4.0, new MathExpr("g(x)", vars, funcs)
+                .eval(new double[] {1.0}), 0.0);
+        assertEquals(101.0, new MathExpr("f(x)", vars, funcs)
+                .eval(new double[] {1.0}), 0.0);
+
+        funcs.register(MathFunction.unary("f", a -> -a));
+        assertNull(funcs.getMacro("f"));
+        assertEquals(-1.0, new MathExpr("f(x)", vars, funcs)
+                .eval(new double[] {1.0}), 0.0);
+
+        funcs.define("sin(a) = a");
+        assertNull(funcs.get("sin"));
+        assertEquals(2.0, new MathExpr("sin(2)", vars, funcs).eval(), 0.0);
+        assertEquals(Math.sin(2.0), new MathExpr("sin(2)").eval(), 0.0);
+    }
+
+    @Test
+    public void testIncrementalParsing() throws InvalidMathExprException {
+        MathFuncTable funcs = new MathFuncTable();
+        MathVarTable vars = new MathVarTable("x");
+
+        funcs.define("sq(v) = v ^ 2");
+
+        MathExprIncrementalParser parser = new MathExprIncrementalParser(
+                vars, funcs);
+        double[] point = {3.0};
+
+        assertEquals(16.0, parser.parse("sq((x + 1))").eval(point), 0.0);
+        assertEquals(17.0, parser.parse("sq((x + 1)) + 1").eval(point),
+                0.0);
+        assertEquals(1, parser.getReusedCount());
+    }
+
+    @Test
+    public void testDefinitionErrors() {
+        MathFuncTable funcs = new MathFuncTable();
+        String[] definitions = {"f(x) x + 1", "f x = x", "f() = 1",
+            "f(x, 1) = x", "f(x) = x + y", "f(x) = ", "f(x) = g(x)",
+            "2f(x) = x"};
+        MathExprErrorKind[] kinds = {MathExprErrorKind.UNEXPECTED_SYMBOL,
+            MathExprErrorKind.UNEXPECTED_SYMBOL,
+            MathExprErrorKind.UNEXPECTED_SYMBOL,
+            MathExprErrorKind.UNEXPECTED_SYMBOL,
+            MathExprErrorKind.UNKNOWN_VARIABLE,
+            MathExprErrorKind.MISSING_OPERAND,
+            MathExprErrorKind.UNKNOWN_FUNCTION,
+            MathExprErrorKind.UNEXPECTED_SYMBOL};
+
+        for (int i = 0; i < definitions.length; i++) {
+            try {
+                funcs.define(definitions[i]);
+                fail(definitions[i]);
+            } catch (InvalidMathExprException ex) {
+                assertEquals(definitions[i], kinds[i], ex.getKind());
+            }
+        }
+
+        try {
+            funcs.define("f(x, x) = x");
+            fail("Duplicate parameters accepted");
+        } catch (IllegalArgumentException | InvalidMathExprException ex) {
+            assertTrue(ex instanceof IllegalArgumentException);
+        }
+    }
+
+    @Test
+    public void testWrongArgumentCount() throws InvalidMathExprException {
+        MathFuncTable funcs = new MathFuncTable();
+
+        funcs.define("add(a, b) = a + b");
+
+        try {
+            new MathExpr("add(1, 2, 3)", null, funcs);
+            fail("Wrong argument count accepted");
+        } catch (InvalidMathExprException ex) {
+            assertEquals(MathExprErrorKind.WRONG_ARGUMENT_COUNT,
+                    ex.getKind());
+        }
+    }
+
+}
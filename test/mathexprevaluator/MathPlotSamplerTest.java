@@ -0,0 +1,132 @@
+package mathexprevaluator;
+
+import mathexprevaluator.models.MEEModel;
+import mathexprevaluator.models.MathPlotSampler;
+import mathexprevaluator.models.MathPlotSamples;
+import mathexprevaluator.models.parser.InvalidMathExprException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test Class for the adaptive sampling of the plotted functions.
+ *
+ * @author Milan Ondrasovic
+ * @version 2026-10-18
+ */
+public class MathPlotSamplerTest {
+
+    private static final int WIDTH = 100;
+    private static final int HEIGHT = 80;
+
+    private final MEEModel model = new MEEModel();
+
+    @Test
+    public void testLine() throws InvalidMathExprException {
+        MathPlotSampler sampler = this.createSampler("2 * x + 1");
+        MathPlotSamples samples = new MathPlotSamples();
+
+        // Step of 1/8 over [-10, 10], one sample beyond each side.
+        sampler.sample(-10.0, 10.0, WIDTH, -20.0, 20.0, HEIGHT, samples);
+        assertEquals(163, samples.getCount());
+        assertEquals(163, sampler.getEvalCount());
+        assertEquals(-10.125, samples.getX(0), 0.0);
+        for (int i = 0; i < samples.getCount(); i++) {
+            assertEquals(2.0 * samples.getX(i) + 1.0, samples.getY(i), 0.0);
+        }
+
+        sampler.sample(-10.0, 10.0, WIDTH, -20.0, 20.0, HEIGHT, samples);
+        assertEquals(0, sampler.getEvalCount());
+    }
+
+    @Test
+    public void testPanAndZoom() throws InvalidMathExprException {
+        MathPlotSampler sampler = this.createSampler("x * 3 - 2");
+        MathPlotSamples samples = new MathPlotSamples();
+
+        sampler.sample(-10.0, 10.0, WIDTH, -20.0, 20.0, HEIGHT, samples);
+
+        // Panning by a pixel or eight samples evaluates just those exposed.
+        sampler.sample(-9.8, 10.2, WIDTH, -20.0, 20.0, HEIGHT, samples);
+        assertEquals(2, sampler.getEvalCount());
+        sampler.sample(-8.8, 11.2, WIDTH, -20.0, 20.0, HEIGHT, samples);
+        assertEquals(8, sampler.getEvalCount());
+
+        // Back and zoomed in twice, every other sample is reused.
+        sampler.sample(-10.0, 10.0, WIDTH, -20.0, 20.0, HEIGHT, samples);
+        sampler.sample(-5.0, 5.0, WIDTH, -20.0, 20.0, HEIGHT, samples);
+        assertEquals(82, sampler.getEvalCount());
+        assertEquals(163, samples.getCount());
+        for (int i = 0; i < samples.getCount(); i++) {
+            assertEquals(3.0 * samples.getX(i) - 2.0, samples.getY(i), 0.0);
+        }
+    }
+
+    @Test
+    public void testRefinement() throws InvalidMathExprException {
+        MathPlotSampler sampler = this.createSampler("x ^ 4");
+        MathPlotSamples samples = new MathPlotSamples();
+
+        sampler.sample(-2.0, 2.0, WIDTH, 0.0, 1.0, HEIGHT, samples);
+        int count = samples.getCount();
+        int evalCount = sampler.getEvalCount();
+
+        assertTrue(count > 130);
+        assertEquals(count, evalCount);
+        for (int i = 0; i < count; i++) {
+            double x = samples.getX(i);
+
+            assertEquals(x * x * x * x, samples.getY(i), 1e-12);
+            if (i > 0) {
+                assertTrue(x > samples.getX(i - 1));
+            }
+        }
+
+        // The refined points are kept while the scale stays the same.
+        sampler.sample(-2.0, 2.0, WIDTH, 0.5, 1.5, HEIGHT, samples);
+        assertEquals(0, sampler.getEvalCount());
+        assertEquals(count, samples.getCount());
+    }
+
+    @Test
+    public void testDiscontinuity() throws InvalidMathExprException {
+        MathPlotSampler sampler = this.createSampler("1 / (x - 0.3)");
+        MathPlotSamples samples = new MathPlotSamples();
+        boolean isBroken = false;
+
+        sampler.sample(-1.0, 1.0, WIDTH, -10.0, 10.0, HEIGHT, samples);
+
+        for (int i = 1; i < samples.getCount(); i++) {
+            double y0 = samples.getY(i - 1);
+            double y1 = samples.getY(i);
+
+            if (Double.isNaN(y1)) {
+                isBroken = true;
+                assertEquals(0.3, samples.getX(i), 0.01);
+            }
+            // No finite segment joins the two branches.
+            assertFalse(y0 < 0.0 && y1 > 0.0);
+        }
+
+        assertTrue(isBroken);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidViewport() throws InvalidMathExprException {
+        this.createSampler("x").sample(1.0, 1.0, WIDTH, 0.0, 1.0, HEIGHT,
+                new MathPlotSamples());
+    }
+
+    /**
+     * Creates a sampler of the function.
+     *
+     * @param expr expression of the function
+     *
+     * @return newly created sampler
+     * @throws InvalidMathExprException thrown in case of invalid syntax
+     */
+    private MathPlotSampler createSampler(String expr)
+            throws InvalidMathExprException {
+        return new MathPlotSampler(this.model.parsePlotExpr(expr), 0);
+    }
+
+}